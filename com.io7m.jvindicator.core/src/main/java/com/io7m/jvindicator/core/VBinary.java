@@ -0,0 +1,328 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * Single-pass decoders for binary parameter values.
+ */
+
+final class VBinary
+{
+  private static final byte[] HEX = table("0123456789abcdefABCDEF", true);
+
+  private static final byte[] BASE64 = table(
+    "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/",
+    false
+  );
+
+  private static final byte[] BASE64_URL = table(
+    "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_",
+    false
+  );
+
+  private VBinary()
+  {
+
+  }
+
+  private static byte[] table(
+    final String alphabet,
+    final boolean hex)
+  {
+    final var result = new byte[128];
+    Arrays.fill(result, (byte) -1);
+    for (int index = 0; index < alphabet.length(); ++index) {
+      final var c = alphabet.charAt(index);
+      result[c] = (byte) (hex ? Character.digit(c, 16) : index);
+    }
+    return result;
+  }
+
+  private static int lookup(
+    final byte[] table,
+    final char c)
+  {
+    return c < 128 ? table[c] : -1;
+  }
+
+  /**
+   * A binary-to-text encoding.
+   */
+
+  enum Alphabet
+  {
+    HEX_DIGITS("hexadecimal"),
+    BASE64_STANDARD("base64"),
+    BASE64_URL_SAFE("base64url");
+
+    private final String description;
+
+    Alphabet(
+      final String inDescription)
+    {
+      this.description = inDescription;
+    }
+  }
+
+  /**
+   * Create a check that decodes values in the given alphabet.
+   *
+   * @param alphabet The alphabet
+   * @param maxBytes The maximum number of decoded bytes
+   * @param buffers  A function that, given a number of bytes, returns a
+   *                 buffer with at least that many bytes remaining
+   *
+   * @return A check
+   */
+
+  static VParameterCheckType<ByteBuffer> check(
+    final Alphabet alphabet,
+    final int maxBytes,
+    final IntFunction<ByteBuffer> buffers)
+  {
+    Objects.requireNonNull(alphabet, "alphabet");
+    Objects.requireNonNull(buffers, "buffers");
+
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException(
+        "The maximum size %d must be non-negative.".formatted(maxBytes));
+    }
+
+    return new Decoder(alphabet, maxBytes, buffers);
+  }
+
+  private static final class Decoder
+    implements VParameterCheckType<ByteBuffer>
+  {
+    private final Alphabet alphabet;
+    private final int maxBytes;
+    private final long maxChars;
+    private final IntFunction<ByteBuffer> buffers;
+
+    Decoder(
+      final Alphabet inAlphabet,
+      final int inMaxBytes,
+      final IntFunction<ByteBuffer> inBuffers)
+    {
+      this.alphabet = inAlphabet;
+      this.maxBytes = inMaxBytes;
+      this.buffers = inBuffers;
+      this.maxChars = switch (inAlphabet) {
+        case HEX_DIGITS -> 2L * inMaxBytes;
+        case BASE64_STANDARD, BASE64_URL_SAFE -> ((inMaxBytes + 2L) / 3L) * 4L;
+      };
+    }
+
+    @Override
+    public VCheckCost cost()
+    {
+      return VCheckCost.CHEAP;
+    }
+
+    @Override
+    public ByteBuffer check(
+      final String value)
+    {
+      final var size = this.decodedSize(value);
+      final var buffer = this.buffers.apply(size);
+      if (buffer.remaining() < size) {
+        throw new IllegalStateException(
+          "The supplied buffer has %d bytes remaining, but %d are required."
+            .formatted(buffer.remaining(), size)
+        );
+      }
+
+      final var start = buffer.position();
+      switch (this.alphabet) {
+        case HEX_DIGITS -> decodeHex(value, buffer, start);
+        case BASE64_STANDARD -> decodeBase64(BASE64, value, buffer, start);
+        case BASE64_URL_SAFE -> decodeBase64(BASE64_URL, value, buffer, start);
+      }
+      buffer.position(start + size);
+
+      final var view = buffer.asReadOnlyBuffer();
+      view.position(start);
+      view.limit(start + size);
+      return view;
+    }
+
+    private int decodedSize(
+      final String value)
+    {
+      final var description = this.alphabet.description;
+      if (value.length() > this.maxChars) {
+        throw new VCheckFailure(
+          VMessageKey.ENCODED_TOO_LONG,
+          description,
+          Integer.valueOf(value.length()),
+          Long.valueOf(this.maxChars)
+        );
+      }
+
+      final var size = switch (this.alphabet) {
+        case HEX_DIGITS -> hexSize(value);
+        case BASE64_STANDARD, BASE64_URL_SAFE -> base64Size(value);
+      };
+      if (size > this.maxBytes) {
+        throw new VCheckFailure(
+          VMessageKey.DECODED_TOO_LARGE,
+          description,
+          Integer.valueOf(size),
+          Integer.valueOf(this.maxBytes)
+        );
+      }
+      return size;
+    }
+  }
+
+  private static int hexSize(
+    final String value)
+  {
+    if ((value.length() & 1) != 0) {
+      throw new VCheckFailure(
+        VMessageKey.HEX_ODD_LENGTH,
+        Integer.valueOf(value.length())
+      );
+    }
+    return value.length() >>> 1;
+  }
+
+  private static void decodeHex(
+    final String value,
+    final ByteBuffer buffer,
+    final int start)
+  {
+    final var length = value.length();
+    var output = start;
+    for (int index = 0; index < length; index += 2) {
+      final var hi = lookup(HEX, value.charAt(index));
+      final var lo = lookup(HEX, value.charAt(index + 1));
+      if ((hi | lo) < 0) {
+        throw errorCharacter("hexadecimal", value, hi < 0 ? index : index + 1);
+      }
+      buffer.put(output, (byte) ((hi << 4) | lo));
+      ++output;
+    }
+  }
+
+  private static int base64Unpadded(
+    final String value)
+  {
+    final var length = value.length();
+    var unpadded = length;
+    while (unpadded > 0 && length - unpadded < 2
+           && value.charAt(unpadded - 1) == '=') {
+      --unpadded;
+    }
+
+    if (unpadded != length && (length & 3) != 0) {
+      throw new VCheckFailure(
+        VMessageKey.BASE64_PADDED_LENGTH,
+        Integer.valueOf(length)
+      );
+    }
+    if ((unpadded & 3) == 1) {
+      throw new VCheckFailure(
+        VMessageKey.BASE64_LENGTH,
+        Integer.valueOf(length)
+      );
+    }
+    return unpadded;
+  }
+
+  private static int base64Size(
+    final String value)
+  {
+    final var unpadded = base64Unpadded(value);
+    return (unpadded / 4) * 3 + Math.max(0, (unpadded & 3) - 1);
+  }
+
+  private static void decodeBase64(
+    final byte[] table,
+    final String value,
+    final ByteBuffer buffer,
+    final int start)
+  {
+    final var unpadded = base64Unpadded(value);
+    var output = start;
+    var bits = 0;
+    var count = 0;
+
+    for (int index = 0; index < unpadded; ++index) {
+      final var x = lookup(table, value.charAt(index));
+      if (x < 0) {
+        throw errorCharacter("base64", value, index);
+      }
+      bits = (bits << 6) | x;
+      ++count;
+      if (count == 4) {
+        buffer.put(output, (byte) (bits >>> 16));
+        buffer.put(output + 1, (byte) (bits >>> 8));
+        buffer.put(output + 2, (byte) bits);
+        output += 3;
+        bits = 0;
+        count = 0;
+      }
+    }
+
+    if (count == 2) {
+      buffer.put(output, (byte) (bits >>> 4));
+    } else if (count == 3) {
+      buffer.put(output, (byte) (bits >>> 10));
+      buffer.put(output + 1, (byte) (bits >>> 2));
+    }
+  }
+
+  private static IllegalArgumentException errorCharacter(
+    final String description,
+    final String value,
+    final int index)
+  {
+    return new VCheckFailure(
+      VMessageKey.ENCODED_INVALID_CHARACTER,
+      description,
+      Integer.valueOf(index)
+    );
+  }
+
+  /**
+   * @param capacity The buffer capacity
+   *
+   * @return A function that returns a cleared buffer of the given capacity
+   *         owned by the calling thread
+   */
+
+  static IntFunction<ByteBuffer> perThreadBuffers(
+    final int capacity)
+  {
+    if (capacity < 0) {
+      throw new IllegalArgumentException(
+        "The capacity %d must be non-negative.".formatted(capacity));
+    }
+
+    final var buffers =
+      ThreadLocal.withInitial(() -> ByteBuffer.allocate(capacity));
+
+    return size -> buffers.get().clear();
+  }
+}
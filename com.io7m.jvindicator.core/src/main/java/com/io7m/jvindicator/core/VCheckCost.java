@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+/**
+ * The declared relative cost of a parameter check. Cheaper checks are
+ * executed before more expensive checks so that invalid requests are
+ * rejected as cheaply as possible.
+ *
+ * @see VParameterCheckType#cost()
+ * @see Vindication#withCost(VCheckCost, VParameterCheckType)
+ */
+
+public enum VCheckCost
+{
+  /**
+   * The check does essentially no work (such as returning the value as-is,
+   * or comparing it against a small set of constants).
+   */
+
+  TRIVIAL,
+
+  /**
+   * The check performs a small, bounded amount of work (such as parsing a
+   * fixed-size integer).
+   */
+
+  CHEAP,
+
+  /**
+   * The check performs a moderate amount of work. This is the default for
+   * checks that do not declare a cost.
+   */
+
+  MODERATE,
+
+  /**
+   * The check performs an expensive amount of work (such as parsing an
+   * arbitrary-precision number or a timestamp).
+   */
+
+  EXPENSIVE
+}
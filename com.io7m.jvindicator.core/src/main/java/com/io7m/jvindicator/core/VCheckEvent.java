@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event emitted for each check of a builder. The event is
+ * disabled by default.
+ */
+
+@Name("com.io7m.jvindicator.Check")
+@Label("Vindication Check")
+@Description("The checking of the parameters of a request.")
+@Category("Vindication")
+@Enabled(false)
+@StackTrace(false)
+final class VCheckEvent extends jdk.jfr.Event
+{
+  static final String OUTCOME_SUCCEEDED = "SUCCEEDED";
+  static final String OUTCOME_FAILED = "FAILED";
+
+  private static final EventType TYPE =
+    EventType.getEventType(VCheckEvent.class);
+
+  @Label("Schema")
+  @Description("The name of the builder.")
+  private String schema;
+
+  @Label("Parameter Count")
+  @Description("The number of registered parameters.")
+  private int parameterCount;
+
+  @Label("Outcome")
+  @Description("The outcome of the check.")
+  private String outcome;
+
+  VCheckEvent()
+  {
+
+  }
+
+  /**
+   * @return {@code true} if the event is enabled in any running recording
+   */
+
+  static boolean isTypeEnabled()
+  {
+    return TYPE.isEnabled();
+  }
+
+  void setSchema(
+    final String inSchema)
+  {
+    this.schema = inSchema;
+  }
+
+  void setParameterCount(
+    final int inParameterCount)
+  {
+    this.parameterCount = inParameterCount;
+  }
+
+  void setOutcome(
+    final String inOutcome)
+  {
+    this.outcome = inOutcome;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.List;
+
+/**
+ * The failure of a check, described by a message key and arguments rather
+ * than by rendered text. The message is rendered in the locale chosen for
+ * the request when the failure is reported, and {@link #getMessage()}
+ * renders the bundled template only when it is called.
+ *
+ * @see VMessages
+ */
+
+public final class VCheckFailure
+  extends IllegalArgumentException
+{
+  private static final long serialVersionUID = 1L;
+
+  private final VMessage message;
+
+  /**
+   * Construct a failure with one of the built-in messages.
+   *
+   * @param inKey       The message key
+   * @param inArguments The message arguments
+   */
+
+  public VCheckFailure(
+    final VMessageKey inKey,
+    final Object... inArguments)
+  {
+    this(inKey.name(), inArguments);
+  }
+
+  /**
+   * Construct a failure with an application message. The key must name a
+   * template in the bundle of the messages used to report the failure.
+   *
+   * @param inKey       The message key
+   * @param inArguments The message arguments
+   *
+   * @see VMessages#ofBundle(java.util.ResourceBundle)
+   */
+
+  public VCheckFailure(
+    final String inKey,
+    final Object... inArguments)
+  {
+    this.message = VMessage.of(inKey, inArguments);
+  }
+
+  /**
+   * @return The message key
+   */
+
+  public String key()
+  {
+    return this.message.key();
+  }
+
+  /**
+   * @return The message arguments
+   */
+
+  public List<Object> arguments()
+  {
+    return this.message.arguments();
+  }
+
+  VMessage unrendered()
+  {
+    return this.message;
+  }
+
+  @Override
+  public String getMessage()
+  {
+    return this.message.render(VMessages.defaults());
+  }
+}
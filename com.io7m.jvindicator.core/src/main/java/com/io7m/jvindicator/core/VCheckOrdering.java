@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+/**
+ * The order in which synchronous parameter checks are executed. Regardless
+ * of the ordering, the presence of all required parameters is always
+ * checked before any parameter values are parsed.
+ *
+ * @see VindicationBuilderType#setCheckOrdering(VCheckOrdering)
+ */
+
+public enum VCheckOrdering
+{
+  /**
+   * Checks are executed in order of their declared cost, cheapest first.
+   * Checks with the same declared cost are executed in the order in which
+   * they were registered.
+   *
+   * @see VParameterCheckType#cost()
+   */
+
+  DECLARED_COST,
+
+  /**
+   * Checks are initially executed in order of their declared cost. The
+   * average execution time and the failure rate of each check is measured
+   * at run-time and, if the builder is in fail-fast mode, checks are
+   * periodically reordered such that the checks most likely to cheaply
+   * reject a request are executed first.
+   *
+   * @see VindicationBuilderType#setFailFast(boolean)
+   */
+
+  ADAPTIVE
+}
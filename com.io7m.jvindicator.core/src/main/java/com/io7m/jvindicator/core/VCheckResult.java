@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.Objects;
+
+/**
+ * The immutable result of a successful check: the raw values that were
+ * checked, and the parsed values of every parameter. Results can be read
+ * from any thread, and can be passed back to the builder that produced
+ * them to check a subsequent input incrementally.
+ *
+ * @see VindicationBuilderType#checkIncremental(VCheckResult, VInputType)
+ */
+
+public final class VCheckResult
+{
+  private final VParameter[] parameters;
+  private final String[] raw;
+  private final VMemo.Outcome outcome;
+  private final VParameterFamily[] families;
+  private final Object[] familyValues;
+
+  private VCheckResult(
+    final VParameter[] inParameters,
+    final String[] inRaw,
+    final VMemo.Outcome inOutcome,
+    final VParameterFamily[] inFamilies,
+    final Object[] inFamilyValues)
+  {
+    this.parameters = inParameters;
+    this.raw = inRaw;
+    this.outcome = inOutcome;
+    this.families = inFamilies;
+    this.familyValues = inFamilyValues;
+  }
+
+  /**
+   * Capture the result of a successful check.
+   *
+   * @param parameters The compiled parameters
+   * @param families   The compiled parameter families
+   * @param run        The run that checked the input
+   *
+   * @return The result
+   */
+
+  static VCheckResult capture(
+    final VParameter[] parameters,
+    final VParameterFamily[] families,
+    final VCheckRun run)
+  {
+    final var raw = new String[parameters.length];
+    for (final var parameter : parameters) {
+      if (isReusable(parameter) && run.hasValue(parameter)) {
+        raw[parameter.index()] = run.rawValue(parameter);
+      }
+    }
+
+    final var familyValues = new Object[families.length];
+    for (int index = 0; index < families.length; ++index) {
+      familyValues[index] = families[index].get();
+    }
+
+    return new VCheckResult(
+      parameters,
+      raw,
+      VMemo.Outcome.success(parameters),
+      families,
+      familyValues
+    );
+  }
+
+  private static boolean isReusable(
+    final VParameter parameter)
+  {
+    return !parameter.isAsync() && !parameter.isCollected();
+  }
+
+  /**
+   * @param compiled The compiled parameters of a builder
+   *
+   * @return {@code true} if this result was produced by the given
+   * compilation
+   */
+
+  boolean isFrom(
+    final VParameter[] compiled)
+  {
+    return this.parameters == compiled;
+  }
+
+  /**
+   * Reuse the parsed value of the given parameter if its raw value has not
+   * changed. Values are compared by length, then by hash code, and then
+   * by content.
+   *
+   * @param parameter The parameter
+   * @param value     The new raw value
+   *
+   * @return {@code true} if the previous parsed value was reused
+   */
+
+  boolean reuse(
+    final VParameter parameter,
+    final String value)
+  {
+    final var index = parameter.index();
+    final var previous = this.raw[index];
+    if (previous == null || !sameValue(previous, value)) {
+      return false;
+    }
+    this.outcome.applyOne(parameter);
+    return true;
+  }
+
+  private static boolean sameValue(
+    final String previous,
+    final String value)
+  {
+    if (previous == value) {
+      return true;
+    }
+    return previous.length() == value.length()
+      && previous.hashCode() == value.hashCode()
+      && previous.equals(value);
+  }
+
+  /**
+   * @param parameter The parameter
+   * @param <T>       The type of values
+   *
+   * @return The parsed value of the given parameter
+   *
+   * @throws IllegalArgumentException If the parameter did not produce this
+   *                                  result
+   */
+
+  @SuppressWarnings("unchecked")
+  public <T> T get(
+    final VParameterType<T> parameter)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(parameter, "parameter");
+
+    if (parameter instanceof final VParameter registered) {
+      return (T) this.outcome.parsed()[this.indexOf(registered)];
+    }
+    for (int index = 0; index < this.families.length; ++index) {
+      if (this.families[index] == parameter) {
+        return (T) this.familyValues[index];
+      }
+    }
+    throw notFromThisResult();
+  }
+
+  /**
+   * @param parameter The parameter
+   *
+   * @return The parsed value of the given parameter
+   *
+   * @throws IllegalArgumentException If the parameter did not produce this
+   *                                  result
+   */
+
+  public int getInt(
+    final VParameterIntType parameter)
+    throws IllegalArgumentException
+  {
+    return (int) this.primitive(parameter);
+  }
+
+  /**
+   * @param parameter The parameter
+   *
+   * @return The parsed value of the given parameter
+   *
+   * @throws IllegalArgumentException If the parameter did not produce this
+   *                                  result
+   */
+
+  public long getLong(
+    final VParameterLongType parameter)
+    throws IllegalArgumentException
+  {
+    return this.primitive(parameter);
+  }
+
+  /**
+   * @param parameter The parameter
+   *
+   * @return The parsed value of the given parameter
+   *
+   * @throws IllegalArgumentException If the parameter did not produce this
+   *                                  result
+   */
+
+  public boolean getBoolean(
+    final VParameterBooleanType parameter)
+    throws IllegalArgumentException
+  {
+    return this.primitive(parameter) != 0L;
+  }
+
+  private long primitive(
+    final Object parameter)
+  {
+    Objects.requireNonNull(parameter, "parameter");
+
+    if (parameter instanceof final VParameter registered) {
+      return this.outcome.primitives()[this.indexOf(registered)];
+    }
+    throw notFromThisResult();
+  }
+
+  private int indexOf(
+    final VParameter parameter)
+  {
+    final var index = parameter.index();
+    if (index < this.parameters.length && this.parameters[index] == parameter) {
+      return index;
+    }
+    throw notFromThisResult();
+  }
+
+  private static IllegalArgumentException notFromThisResult()
+  {
+    return new IllegalArgumentException(
+      "The given parameter did not produce this result.");
+  }
+}
@@ -0,0 +1,849 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The state of a single execution of the checks of a builder. The run acts
+ * as the sink for the input, enforcing request limits and detecting unknown
+ * parameters as parameters are delivered.
+ */
+
+final class VCheckRun
+  implements VInputSinkType
+{
+  private static final VMessage ERROR_MISSING =
+    VMessage.of(VMessageKey.PARAMETER_MISSING);
+
+  private static final VMessage ERROR_UNKNOWN =
+    VMessage.of(VMessageKey.PARAMETER_UNKNOWN);
+
+  private static final VMessage ERROR_DUPLICATE =
+    VMessage.of(VMessageKey.PARAMETER_DUPLICATED);
+
+  private final VParameter[] parameters;
+  private final VParameterNames names;
+  private final String[] values;
+  private final int[] counts;
+  private final boolean[] present;
+  private final List<ArrayList<String>> collected;
+  private final boolean anyCollected;
+  private final VParameterFamily[] families;
+  private final ArrayList<Member> members;
+  private int memberCount;
+  private final Map<VParameter, CompletableFuture<?>> pending;
+  private VRequestLimits limits;
+  private boolean rejectUnknown;
+  private int unknownReportLimit;
+  private List<Throwable> exceptions;
+  private Map<String, VMessage> errors;
+  private int namesDistinct;
+  private int unknownCount;
+  private long totalLength;
+  private long asyncStarted;
+  private boolean stopped;
+
+  VCheckRun(
+    final VParameter[] inParameters,
+    final VParameterNames inNames)
+  {
+    this.parameters = inParameters;
+    this.names = inNames;
+
+    final var count = inParameters.length;
+    this.values = new String[count];
+    this.counts = new int[count];
+    this.present = new boolean[count];
+    this.collected = new ArrayList<>(count);
+
+    var collecting = false;
+    for (final var parameter : inParameters) {
+      if (parameter.isCollected()) {
+        this.collected.add(new ArrayList<>());
+        collecting = true;
+      } else {
+        this.collected.add(null);
+      }
+    }
+    this.anyCollected = collecting;
+    this.families = inNames.families();
+    this.members = new ArrayList<>();
+    this.exceptions = new ArrayList<>();
+    this.errors = new HashMap<>();
+    this.pending = new IdentityHashMap<>();
+    this.limits = VRequestLimits.unlimited();
+  }
+
+  /**
+   * Prepare the run for a new input. A run is reused for each check of a
+   * builder, and resetting the state of a run does not allocate unless the
+   * previous check failed: the error map and exception list of a failed run
+   * may have been handed to the caller, and so are replaced rather than
+   * cleared.
+   *
+   * @param inLimits             The request limits
+   * @param inRejectUnknown      {@code true} if unknown parameters are errors
+   * @param inUnknownReportLimit The maximum number of reported unknown names
+   */
+
+  void start(
+    final VRequestLimits inLimits,
+    final boolean inRejectUnknown,
+    final int inUnknownReportLimit)
+  {
+    this.limits = inLimits;
+    this.rejectUnknown = inRejectUnknown;
+    this.unknownReportLimit = inUnknownReportLimit;
+
+    Arrays.fill(this.values, null);
+    Arrays.fill(this.counts, 0);
+    Arrays.fill(this.present, false);
+    if (this.anyCollected) {
+      for (final var all : this.collected) {
+        if (all != null) {
+          all.clear();
+        }
+      }
+    }
+    this.pending.clear();
+    for (int index = 0; index < this.memberCount; ++index) {
+      this.members.get(index).reset(null, -1);
+    }
+    this.memberCount = 0;
+    if (!this.errors.isEmpty()) {
+      this.errors = new HashMap<>();
+    }
+    if (!this.exceptions.isEmpty()) {
+      this.exceptions = new ArrayList<>();
+    }
+    this.namesDistinct = 0;
+    this.unknownCount = 0;
+    this.totalLength = 0L;
+    this.stopped = false;
+  }
+
+  Map<String, VMessage> errors()
+  {
+    return this.errors;
+  }
+
+  List<Throwable> exceptions()
+  {
+    return this.exceptions;
+  }
+
+  boolean hasErrors()
+  {
+    return !this.errors.isEmpty();
+  }
+
+  /**
+   * @return {@code true} if delivery of the input was stopped due to a
+   * violated limit or a malformed input
+   */
+
+  boolean isStopped()
+  {
+    return this.stopped;
+  }
+
+  /**
+   * @param parameter The parameter
+   *
+   * @return {@code true} if the parameter has a value that should be checked
+   */
+
+  boolean hasValue(
+    final VParameter parameter)
+  {
+    final var count = this.counts[parameter.index()];
+    if (count > 1) {
+      return parameter.duplicatePolicy() != VDuplicatePolicy.REJECT;
+    }
+    return count == 1;
+  }
+
+  /**
+   * @param parameter The parameter
+   *
+   * @return The value delivered for the parameter, if any
+   */
+
+  String rawValue(
+    final VParameter parameter)
+  {
+    return this.values[parameter.index()];
+  }
+
+  @Override
+  public boolean requiresAllNames()
+  {
+    return this.rejectUnknown
+      || !this.limits.isUnlimited()
+      || this.families.length > 0;
+  }
+
+  @Override
+  public int parameterCount()
+  {
+    return this.parameters.length;
+  }
+
+  @Override
+  public String parameterName(
+    final int parameterIndex)
+  {
+    return this.parameters[parameterIndex].name();
+  }
+
+  @Override
+  public int find(
+    final String name)
+  {
+    final var index = this.names.find(name);
+    if (index >= 0 || this.families.length == 0) {
+      return index;
+    }
+    return this.findMember(name);
+  }
+
+  private int findMember(
+    final String name)
+  {
+    final var family = this.names.findFamily(name);
+    if (family < 0) {
+      return -1;
+    }
+
+    /*
+     * Each member of a family that is found during delivery is given an
+     * index following the indices of the registered parameters. Member
+     * records are pooled across runs.
+     */
+
+    final Member member;
+    if (this.memberCount < this.members.size()) {
+      member = this.members.get(this.memberCount);
+    } else {
+      member = new Member();
+      this.members.add(member);
+    }
+    member.reset(name, family);
+    final var index = this.parameters.length + this.memberCount;
+    ++this.memberCount;
+    return index;
+  }
+
+  @Override
+  public int find(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    final var index = this.names.find(data, start, end);
+    if (index >= 0 || this.names.findFamilyPrefix(data, start, end) < 0) {
+      return index;
+    }
+    return this.findMember(
+      StandardCharsets.ISO_8859_1.decode(data.slice(start, end - start))
+        .toString()
+    );
+  }
+
+  @Override
+  public int findIgnoringCase(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    return this.names.findIgnoringCase(data, start, end);
+  }
+
+  @Override
+  public boolean declareNameCount(
+    final int count)
+  {
+    if (count > this.limits.maxParameters()) {
+      return this.stop(
+        VRequestLimits.REQUEST,
+        VMessage.of(
+          VMessageKey.REQUEST_TOO_MANY_PARAMETERS,
+          Integer.valueOf(count),
+          Integer.valueOf(this.limits.maxParameters()))
+      );
+    }
+    return true;
+  }
+
+  @Override
+  public boolean values(
+    final int parameterIndex,
+    final List<String> inputValues)
+  {
+    if (parameterIndex >= this.parameters.length) {
+      return this.memberValues(
+        this.members.get(parameterIndex - this.parameters.length),
+        inputValues
+      );
+    }
+
+    if (!this.mark(parameterIndex)) {
+      return false;
+    }
+
+    if (inputValues.size() > this.limits.maxValuesPerParameter()) {
+      return this.stop(
+        this.parameters[parameterIndex].name(),
+        VMessage.of(
+          VMessageKey.PARAMETER_TOO_MANY_VALUES,
+          Integer.valueOf(inputValues.size()),
+          Integer.valueOf(this.limits.maxValuesPerParameter()))
+      );
+    }
+
+    if (inputValues instanceof RandomAccess) {
+      final var size = inputValues.size();
+      for (int valueIndex = 0; valueIndex < size; ++valueIndex) {
+        if (!this.value(parameterIndex, inputValues.get(valueIndex))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    for (final var value : inputValues) {
+      if (!this.value(parameterIndex, value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean value(
+    final int parameterIndex,
+    final String value)
+  {
+    if (parameterIndex >= this.parameters.length) {
+      return this.memberValue(
+        this.members.get(parameterIndex - this.parameters.length),
+        value
+      );
+    }
+
+    if (!this.mark(parameterIndex)) {
+      return false;
+    }
+
+    final var name = this.parameters[parameterIndex].name();
+    final var count = ++this.counts[parameterIndex];
+    if (count > this.limits.maxValuesPerParameter()) {
+      return this.stop(
+        name,
+        VMessage.of(
+          VMessageKey.PARAMETER_MORE_VALUES,
+          Integer.valueOf(this.limits.maxValuesPerParameter()))
+      );
+    }
+
+    final var length = value == null ? 0 : value.length();
+    if (!this.checkLength(name, length)) {
+      return false;
+    }
+
+    if (count == 1) {
+      this.values[parameterIndex] = value;
+      final var all = this.collected.get(parameterIndex);
+      if (all != null) {
+        all.add(value);
+      }
+      return true;
+    }
+    return this.duplicate(parameterIndex, count, value);
+  }
+
+  private boolean duplicate(
+    final int parameterIndex,
+    final int count,
+    final String value)
+  {
+    final var parameter = this.parameters[parameterIndex];
+    switch (parameter.duplicatePolicy()) {
+      case FIRST_WINS -> {
+        // The first value has already been stored.
+      }
+      case LAST_WINS -> this.values[parameterIndex] = value;
+      case REJECT -> {
+        if (count == 2) {
+          this.errors.put(parameter.name(), ERROR_DUPLICATE);
+        }
+      }
+      case COLLECT_ALL -> this.collected.get(parameterIndex).add(value);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean unknown(
+    final CharSequence name,
+    final int valueCount,
+    final long valueLength)
+  {
+    if (!this.countName(name.length())) {
+      return false;
+    }
+
+    if (valueCount > this.limits.maxValuesPerParameter()) {
+      return this.stop(
+        name.toString(),
+        VMessage.of(
+          VMessageKey.PARAMETER_TOO_MANY_VALUES,
+          Integer.valueOf(valueCount),
+          Integer.valueOf(this.limits.maxValuesPerParameter()))
+      );
+    }
+    if (!this.checkLength(name, valueLength)) {
+      return false;
+    }
+
+    if (this.rejectUnknown) {
+      if (this.unknownCount < this.unknownReportLimit) {
+        this.errors.put(name.toString(), ERROR_UNKNOWN);
+      }
+      ++this.unknownCount;
+    }
+    return true;
+  }
+
+  @Override
+  public void malformed(
+    final String message)
+  {
+    this.stop(VRequestLimits.REQUEST, VMessage.literal(message));
+  }
+
+  private boolean memberValues(
+    final Member member,
+    final List<String> inputValues)
+  {
+    if (!this.markMember(member)) {
+      return false;
+    }
+    for (final var value : inputValues) {
+      if (!this.memberValue(member, value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean memberValue(
+    final Member member,
+    final String value)
+  {
+    if (!this.markMember(member)) {
+      return false;
+    }
+
+    ++member.count;
+    if (member.count > this.limits.maxValuesPerParameter()) {
+      return this.stop(
+        member.name,
+        VMessage.of(
+          VMessageKey.PARAMETER_MORE_VALUES,
+          Integer.valueOf(this.limits.maxValuesPerParameter()))
+      );
+    }
+
+    final var length = value == null ? 0 : value.length();
+    if (!this.checkLength(member.name, length)) {
+      return false;
+    }
+    if (member.count == 1) {
+      member.value = value;
+    }
+    return true;
+  }
+
+  private boolean markMember(
+    final Member member)
+  {
+    if (member.marked) {
+      return true;
+    }
+    member.marked = true;
+    return this.countName(member.name.length());
+  }
+
+  private boolean mark(
+    final int parameterIndex)
+  {
+    if (this.present[parameterIndex]) {
+      return true;
+    }
+    this.present[parameterIndex] = true;
+    return this.countName(this.parameters[parameterIndex].name().length());
+  }
+
+  private boolean countName(
+    final int nameLength)
+  {
+    ++this.namesDistinct;
+    if (this.namesDistinct > this.limits.maxParameters()) {
+      return this.stop(
+        VRequestLimits.REQUEST,
+        VMessage.of(
+          VMessageKey.REQUEST_MORE_PARAMETERS,
+          Integer.valueOf(this.limits.maxParameters()))
+      );
+    }
+    return this.addLength(nameLength);
+  }
+
+  private boolean checkLength(
+    final CharSequence name,
+    final long length)
+  {
+    if (length > this.limits.maxValueLength()) {
+      return this.stop(
+        name.toString(),
+        VMessage.of(
+          VMessageKey.VALUE_TOO_LONG,
+          Long.valueOf(length),
+          Integer.valueOf(this.limits.maxValueLength()))
+      );
+    }
+    return this.addLength(length);
+  }
+
+  private boolean addLength(
+    final long length)
+  {
+    this.totalLength += length;
+    if (this.totalLength > this.limits.maxTotalLength()) {
+      return this.stop(
+        VRequestLimits.REQUEST,
+        VMessage.of(
+          VMessageKey.REQUEST_TOO_LARGE,
+          Long.valueOf(this.limits.maxTotalLength()))
+      );
+    }
+    return true;
+  }
+
+  private boolean stop(
+    final String name,
+    final VMessage message)
+  {
+    this.errors.put(name, message);
+    this.stopped = true;
+    return false;
+  }
+
+  /**
+   * Finish the delivery of the input, reporting the number of unknown
+   * parameters that were not individually reported.
+   */
+
+  void endInput()
+  {
+    if (this.unknownCount > this.unknownReportLimit) {
+      this.errors.put(
+        VRequestLimits.REQUEST,
+        VMessage.of(
+          VMessageKey.REQUEST_UNKNOWN_UNREPORTED,
+          Integer.valueOf(this.unknownCount - this.unknownReportLimit))
+      );
+    }
+  }
+
+  /**
+   * @return The canonical form of the delivered values of the registered
+   * parameters
+   */
+
+  VMemo.Key memoKey()
+  {
+    final var count = this.parameters.length;
+    final var states = new byte[count];
+    for (int parameterIndex = 0; parameterIndex < count; ++parameterIndex) {
+      if (this.present[parameterIndex]) {
+        states[parameterIndex] =
+          (byte) (this.counts[parameterIndex] == 0 ? 1 : 2);
+      }
+    }
+    return new VMemo.Key(this.values.clone(), states);
+  }
+
+  /**
+   * Check the presence of every parameter.
+   */
+
+  void checkPresence()
+  {
+    for (final var family : this.families) {
+      family.start();
+    }
+
+    for (final var parameter : this.parameters) {
+      if (parameter.isPrimitive()) {
+        parameter.setParsedPrimitive(parameter.defaultPrimitive());
+      } else {
+        parameter.setParsed(parameter.defaultValue());
+      }
+
+      final var parameterIndex = parameter.index();
+      if (!this.present[parameterIndex]) {
+        if (!parameter.isOptional()) {
+          this.errors.put(parameter.name(), ERROR_MISSING);
+        }
+        continue;
+      }
+
+      if (this.counts[parameterIndex] == 0) {
+        this.errors.put(parameter.name(), ERROR_MISSING);
+      }
+    }
+  }
+
+  /**
+   * Execute the synchronous check for the given parameter.
+   *
+   * @param parameter The parameter
+   *
+   * @return {@code true} if the check succeeded
+   */
+
+  boolean checkSync(
+    final VParameter parameter)
+  {
+    try {
+      final var value =
+        Objects.requireNonNull(this.values[parameter.index()], "value");
+      if (parameter.isPrimitive()) {
+        parameter.setParsedPrimitive(parameter.checkPrimitive().check(value));
+      } else if (parameter.isCollected()) {
+        parameter.setParsed(this.checkCollected(parameter));
+      } else {
+        parameter.setParsed(parameter.check().check(value));
+      }
+      return true;
+    } catch (final Exception e) {
+      this.exceptions.add(e);
+      this.errors.put(parameter.name(), VMessage.ofException(e));
+      return false;
+    }
+  }
+
+  /**
+   * Check the members of all parameter families.
+   *
+   * @param failFast {@code true} if checking should stop at the first failure
+   *
+   * @return {@code false} if any check failed
+   */
+
+  boolean checkFamilies(
+    final boolean failFast)
+  {
+    var succeeded = true;
+    for (int index = 0; index < this.memberCount; ++index) {
+      final var member = this.members.get(index);
+      if (!this.checkMember(member)) {
+        succeeded = false;
+        if (failFast) {
+          return false;
+        }
+      }
+    }
+
+    for (final var family : this.families) {
+      family.finish();
+    }
+    return succeeded;
+  }
+
+  private boolean checkMember(
+    final Member member)
+  {
+    if (member.value == null) {
+      this.errors.put(member.name, ERROR_MISSING);
+      return false;
+    }
+
+    try {
+      this.families[member.family].checkMember(member.name, member.value);
+      return true;
+    } catch (final Exception e) {
+      this.exceptions.add(e);
+      this.errors.put(member.name, VMessage.ofException(e));
+      return false;
+    }
+  }
+
+  private List<Object> checkCollected(
+    final VParameter parameter)
+    throws Exception
+  {
+    final var check = parameter.check();
+    final var all = this.collected.get(parameter.index());
+    final var size = all.size();
+    final var results = new ArrayList<Object>(size);
+    for (int valueIndex = 0; valueIndex < size; ++valueIndex) {
+      results.add(check.check(all.get(valueIndex)));
+    }
+    return Collections.unmodifiableList(results);
+  }
+
+  /**
+   * Start the asynchronous checks for all present asynchronous parameters.
+   * The deadline for the checks is measured from this point.
+   */
+
+  void startAsync()
+  {
+    this.asyncStarted = System.nanoTime();
+    for (final var parameter : this.parameters) {
+      if (parameter.isAsync() && this.hasValue(parameter)) {
+        this.startAsyncOne(parameter);
+      }
+    }
+  }
+
+  private void startAsyncOne(
+    final VParameter parameter)
+  {
+    try {
+      final var value =
+        Objects.requireNonNull(this.values[parameter.index()], "value");
+      this.pending.put(
+        parameter,
+        parameter.checkAsync().check(value).toCompletableFuture()
+      );
+    } catch (final Exception e) {
+      this.exceptions.add(e);
+      this.errors.put(parameter.name(), VMessage.ofException(e));
+    }
+  }
+
+  /**
+   * Cancel any pending asynchronous checks.
+   */
+
+  void cancelAsync()
+  {
+    for (final var future : this.pending.values()) {
+      future.cancel(true);
+    }
+  }
+
+  /**
+   * Wait for all pending asynchronous checks to complete.
+   *
+   * @param deadline The overall deadline, measured from the point at which
+   *                 the checks were started
+   */
+
+  void awaitAsync(
+    final Duration deadline)
+  {
+    if (this.pending.isEmpty()) {
+      return;
+    }
+
+    final var timeEnd =
+      this.asyncStarted + deadline.toNanos();
+
+    for (final var entry : this.pending.entrySet()) {
+      final var parameter = entry.getKey();
+      final var future = entry.getValue();
+
+      try {
+        final var remaining = timeEnd - System.nanoTime();
+        parameter.setParsed(future.get(remaining, TimeUnit.NANOSECONDS));
+      } catch (final TimeoutException e) {
+        future.cancel(true);
+        this.exceptions.add(e);
+        this.errors.put(
+          parameter.name(),
+          VMessage.of(VMessageKey.CHECK_DEADLINE, deadline)
+        );
+      } catch (final ExecutionException e) {
+        final var cause = e.getCause();
+        this.exceptions.add(cause);
+        this.errors.put(parameter.name(), VMessage.ofException(cause));
+      } catch (final CancellationException e) {
+        this.exceptions.add(e);
+        this.errors.put(
+          parameter.name(), VMessage.of(VMessageKey.CHECK_CANCELLED));
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        future.cancel(true);
+        this.exceptions.add(e);
+        this.errors.put(
+          parameter.name(), VMessage.of(VMessageKey.CHECK_INTERRUPTED));
+      }
+    }
+  }
+
+  /**
+   * A member of a parameter family found during delivery.
+   */
+
+  private static final class Member
+  {
+    private String name;
+    private int family;
+    private String value;
+    private int count;
+    private boolean marked;
+
+    Member()
+    {
+
+    }
+
+    void reset(
+      final String inName,
+      final int inFamily)
+    {
+      this.name = inName;
+      this.family = inFamily;
+      this.value = null;
+      this.count = 0;
+      this.marked = false;
+    }
+  }
+}
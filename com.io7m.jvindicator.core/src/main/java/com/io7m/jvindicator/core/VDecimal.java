@@ -0,0 +1,547 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.Objects;
+
+/**
+ * Decimal integer parsers that report failure with a status rather than by
+ * throwing exceptions.
+ *
+ * <p>The parsers accept exactly the values accepted by the corresponding
+ * {@link Integer} and {@link Long} parsers with a radix of 10, and produce
+ * the same values. Runs of ASCII digits are validated and accumulated eight
+ * digits at a time: eight characters are packed into one {@code long}, all
+ * eight are checked to be digits with a handful of arithmetic operations,
+ * and the digits are combined with three multiplications. Overflow is
+ * detected from the number of significant digits and a single comparison,
+ * rather than at each digit. Values containing non-ASCII characters (which
+ * the JDK parsers accept if they are Unicode decimal digits) are passed to
+ * the JDK parsers.</p>
+ */
+
+public final class VDecimal
+{
+  /**
+   * The result of an {@code int} parser for a malformed value. The value is
+   * outside the range of both signed and unsigned {@code int} values.
+   */
+
+  public static final long INT_MALFORMED = Long.MIN_VALUE;
+
+  /**
+   * The result of an {@code int} parser for a value that is out of range.
+   * The value is outside the range of both signed and unsigned {@code int}
+   * values.
+   */
+
+  public static final long INT_OVERFLOW = Long.MIN_VALUE + 1L;
+
+  /**
+   * The result of a {@code long} parser for a value that is malformed or out
+   * of range. The result is ambiguous, because it is also the value of the
+   * valid string {@code -9223372036854775808} (and of
+   * {@code 9223372036854775808} for unsigned values), and so callers that
+   * receive it must distinguish the cases with
+   * {@link #checkLong(CharSequence)} or
+   * {@link #checkUnsignedLong(CharSequence)}.
+   */
+
+  public static final long LONG_FAILED = Long.MIN_VALUE;
+
+  private static final long NON_DIGIT = -1L;
+  private static final long NON_ASCII = -2L;
+  private static final long OUT_OF_RANGE = -3L;
+  private static final long TEN_POW_19 = -8446744073709551616L;
+  private static final long UNSIGNED_REST_MAX = 8446744073709551615L;
+  private static final long UNSIGNED_INT_MAX = 0xffff_ffffL;
+  private static final long LOW_NIBBLES = 0x0f0f_0f0f_0f0f_0f0fL;
+  private static final long HIGH_NIBBLES = 0xf0f0_f0f0_f0f0_f0f0L;
+  private static final long ALL_SIXES = 0x0606_0606_0606_0606L;
+  private static final long ALL_THREES = 0x3333_3333_3333_3333L;
+  private static final int SIGNED_DIGITS = 19;
+  private static final int UNSIGNED_DIGITS = 20;
+
+  private VDecimal()
+  {
+
+  }
+
+  /**
+   * Parse a signed {@code int}, accepting exactly the values accepted by
+   * {@link Integer#parseInt(String)}.
+   *
+   * @param value The value
+   *
+   * @return The parsed value, or {@link #INT_MALFORMED} or
+   * {@link #INT_OVERFLOW}
+   */
+
+  public static long parseInt(
+    final CharSequence value)
+  {
+    final var result = parse(value, false, false);
+    if (result == LONG_FAILED) {
+      return intFailure(parse(value, false, true));
+    }
+    if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE) {
+      return INT_OVERFLOW;
+    }
+    return result;
+  }
+
+  /**
+   * Parse an unsigned {@code int}, accepting exactly the values accepted by
+   * {@link Integer#parseUnsignedInt(String)}. The result is in the range
+   * {@code [0, 2^32)}; {@code (int) result} is the value returned by the
+   * JDK parser.
+   *
+   * @param value The value
+   *
+   * @return The parsed value, or {@link #INT_MALFORMED} or
+   * {@link #INT_OVERFLOW}
+   */
+
+  public static long parseUnsignedInt(
+    final CharSequence value)
+  {
+    final var result = parse(value, true, false);
+    if (result == LONG_FAILED) {
+      return intFailure(parse(value, true, true));
+    }
+    if (Long.compareUnsigned(result, UNSIGNED_INT_MAX) > 0) {
+      return INT_OVERFLOW;
+    }
+    return result;
+  }
+
+  /**
+   * @param result The result of an {@code int} parser
+   *
+   * @return The status of the result
+   */
+
+  public static VDecimalStatus statusOfInt(
+    final long result)
+  {
+    if (result == INT_MALFORMED) {
+      return VDecimalStatus.MALFORMED;
+    }
+    if (result == INT_OVERFLOW) {
+      return VDecimalStatus.OVERFLOW;
+    }
+    return VDecimalStatus.VALID;
+  }
+
+  /**
+   * Parse a signed {@code long}, accepting exactly the values accepted by
+   * {@link Long#parseLong(String)}.
+   *
+   * @param value The value
+   *
+   * @return The parsed value, or {@link #LONG_FAILED}
+   */
+
+  public static long parseLong(
+    final CharSequence value)
+  {
+    return parse(value, false, false);
+  }
+
+  /**
+   * Parse an unsigned {@code long}, accepting exactly the values accepted by
+   * {@link Long#parseUnsignedLong(String)}.
+   *
+   * @param value The value
+   *
+   * @return The parsed value, or {@link #LONG_FAILED}
+   */
+
+  public static long parseUnsignedLong(
+    final CharSequence value)
+  {
+    return parse(value, true, false);
+  }
+
+  /**
+   * @param value The value
+   *
+   * @return The status of parsing the value as a signed {@code long}
+   */
+
+  public static VDecimalStatus checkLong(
+    final CharSequence value)
+  {
+    return VDecimalStatus.values()[(int) parse(value, false, true)];
+  }
+
+  /**
+   * @param value The value
+   *
+   * @return The status of parsing the value as an unsigned {@code long}
+   */
+
+  public static VDecimalStatus checkUnsignedLong(
+    final CharSequence value)
+  {
+    return VDecimalStatus.values()[(int) parse(value, true, true)];
+  }
+
+  private static long intFailure(
+    final long status)
+  {
+    if (status == VDecimalStatus.MALFORMED.ordinal()) {
+      return INT_MALFORMED;
+    }
+
+    /*
+     * A valid long that was reported as a failure is the single long value
+     * that collides with the failure result, and is out of int range.
+     */
+
+    return INT_OVERFLOW;
+  }
+
+  /**
+   * Parse a value.
+   *
+   * @param value    The value
+   * @param unsigned {@code true} if the value is unsigned
+   * @param status   {@code true} if the status (as an ordinal) should be
+   *                 returned instead of the value
+   *
+   * @return The value, or {@link #LONG_FAILED}, or a status
+   */
+
+  private static long parse(
+    final CharSequence value,
+    final boolean unsigned,
+    final boolean status)
+  {
+    if (value == null || value.isEmpty()) {
+      return fail(VDecimalStatus.MALFORMED, status);
+    }
+
+    final var first = value.charAt(0);
+    final var negative = first == '-';
+    if (negative && unsigned) {
+      return fail(VDecimalStatus.MALFORMED, status);
+    }
+
+    final var start = negative || first == '+' ? 1 : 0;
+    if (start == value.length()) {
+      return fail(VDecimalStatus.MALFORMED, status);
+    }
+    return parseDigits(value, start, unsigned, negative, status);
+  }
+
+  private static long parseDigits(
+    final CharSequence value,
+    final int start,
+    final boolean unsigned,
+    final boolean negative,
+    final boolean status)
+  {
+    final var length = value.length();
+    var position = start;
+    while (position < length && value.charAt(position) == '0') {
+      ++position;
+    }
+
+    /*
+     * Every unsigned long has at most twenty digits, and a twenty digit value
+     * can only be in range if it begins with 1. The leading 1 is removed so
+     * that the remaining nineteen digits can be accumulated without
+     * overflow.
+     */
+
+    final var twenty =
+      unsigned
+        && length - position == UNSIGNED_DIGITS
+        && value.charAt(position) == '1';
+
+    final var magnitude =
+      unsigned
+        ? magnitudeUnsigned(value, position, length, twenty)
+        : magnitudeSigned(value, position, length, negative);
+
+    if (isMarker(magnitude)) {
+      return failure(value, start, unsigned, status, magnitude);
+    }
+    if (status) {
+      return VDecimalStatus.VALID.ordinal();
+    }
+    if (twenty) {
+      return TEN_POW_19 + magnitude;
+    }
+    return negative ? -magnitude : magnitude;
+  }
+
+  /**
+   * @return {@code true} if the magnitude is {@link #NON_DIGIT},
+   * {@link #NON_ASCII} or {@link #OUT_OF_RANGE}; no magnitude of a value
+   * that is in range has these bit patterns
+   */
+
+  private static boolean isMarker(
+    final long magnitude)
+  {
+    return magnitude >= OUT_OF_RANGE && magnitude <= NON_DIGIT;
+  }
+
+  private static long failure(
+    final CharSequence value,
+    final int start,
+    final boolean unsigned,
+    final boolean status,
+    final long marker)
+  {
+    if (marker == NON_ASCII) {
+      return parseFallback(value, start, unsigned, status);
+    }
+    if (marker == NON_DIGIT) {
+      return fail(VDecimalStatus.MALFORMED, status);
+    }
+    return fail(VDecimalStatus.OVERFLOW, status);
+  }
+
+  private static long fail(
+    final VDecimalStatus reason,
+    final boolean status)
+  {
+    return status ? reason.ordinal() : LONG_FAILED;
+  }
+
+  /**
+   * @return The magnitude, or {@link #NON_DIGIT}, {@link #NON_ASCII} or
+   * {@link #OUT_OF_RANGE}
+   */
+
+  private static long magnitudeSigned(
+    final CharSequence value,
+    final int start,
+    final int end,
+    final boolean negative)
+  {
+    if (end - start > SIGNED_DIGITS) {
+      return scan(value, start, end);
+    }
+
+    final var magnitude = digits(value, start, end);
+    if (magnitude == NON_ASCII || magnitude == NON_DIGIT) {
+      return magnitude;
+    }
+
+    /*
+     * Nineteen digits cannot overflow an unsigned accumulation, so a single
+     * unsigned comparison against the limit detects overflow.
+     */
+
+    final var limit = negative ? Long.MIN_VALUE : Long.MAX_VALUE;
+    if (Long.compareUnsigned(magnitude, limit) > 0) {
+      return OUT_OF_RANGE;
+    }
+    return magnitude;
+  }
+
+  /**
+   * @return The magnitude, or {@link #NON_DIGIT}, {@link #NON_ASCII} or
+   * {@link #OUT_OF_RANGE}; for a twenty digit value, the magnitude of the
+   * last nineteen digits
+   */
+
+  private static long magnitudeUnsigned(
+    final CharSequence value,
+    final int start,
+    final int end,
+    final boolean twenty)
+  {
+    if (!twenty) {
+      if (end - start >= UNSIGNED_DIGITS) {
+        return scan(value, start, end);
+      }
+      return digits(value, start, end);
+    }
+
+    /*
+     * A twenty digit value is in range if it is 10^19 plus a nineteen digit
+     * value of at most 2^64 - 1 - 10^19.
+     */
+
+    final var rest = digits(value, start + 1, end);
+    if (rest == NON_ASCII || rest == NON_DIGIT) {
+      return rest;
+    }
+    if (Long.compareUnsigned(rest, UNSIGNED_REST_MAX) > 0) {
+      return OUT_OF_RANGE;
+    }
+    return rest;
+  }
+
+  /**
+   * Scan a value that has too many significant digits to be in range.
+   *
+   * @return {@link #NON_ASCII}, {@link #NON_DIGIT} or {@link #OUT_OF_RANGE}
+   */
+
+  private static long scan(
+    final CharSequence value,
+    final int start,
+    final int end)
+  {
+    var result = OUT_OF_RANGE;
+    for (int index = start; index < end; ++index) {
+      final var c = value.charAt(index);
+      if (c >= 0x80) {
+        return NON_ASCII;
+      }
+      if (c < '0' || c > '9') {
+        result = NON_DIGIT;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Accumulate at most nineteen digits. Any leading digits that do not fill
+   * a group of eight are accumulated one at a time, and the remaining digits
+   * eight at a time. The result is unsigned, and is less than 10^19, and so
+   * cannot be confused with {@link #NON_DIGIT} or {@link #NON_ASCII}.
+   *
+   * @return The accumulated value, or {@link #NON_DIGIT} or
+   * {@link #NON_ASCII}
+   */
+
+  private static long digits(
+    final CharSequence value,
+    final int start,
+    final int end)
+  {
+    final var head = start + ((end - start) & 7);
+
+    var result = 0L;
+    for (int index = start; index < head; ++index) {
+      final var c = value.charAt(index);
+      if (c >= 0x80) {
+        return NON_ASCII;
+      }
+      final var digit = c - '0';
+      if (digit < 0 || digit > 9) {
+        return NON_DIGIT;
+      }
+      result = result * 10L + digit;
+    }
+
+    for (int index = head; index < end; index += 8) {
+      final var word = pack(value, index);
+      if (word == NON_ASCII) {
+        return NON_ASCII;
+      }
+      if (!isEightDigits(word)) {
+        return NON_DIGIT;
+      }
+      result = result * 100_000_000L + eightDigits(word);
+    }
+    return result;
+  }
+
+  /**
+   * Pack eight ASCII characters into a word, with the first character in the
+   * least significant byte.
+   *
+   * @return The word, or {@link #NON_ASCII}
+   */
+
+  private static long pack(
+    final CharSequence value,
+    final int start)
+  {
+    var bits = 0;
+    var word = 0L;
+    for (int index = 0; index < 8; ++index) {
+      final var c = value.charAt(start + index);
+      bits |= c;
+      word |= (long) c << (index << 3);
+    }
+    return bits >= 0x80 ? NON_ASCII : word;
+  }
+
+  /**
+   * Determine whether every byte of a word of ASCII characters is a digit.
+   * A byte is a digit if its high nibble is 3 and adding 6 to it does not
+   * carry into the high nibble.
+   */
+
+  static boolean isEightDigits(
+    final long word)
+  {
+    final var high = word & HIGH_NIBBLES;
+    final var carried = ((word + ALL_SIXES) & HIGH_NIBBLES) >>> 4;
+    return (high | carried) == ALL_THREES;
+  }
+
+  /**
+   * Combine the eight digits of a word, with the most significant digit in
+   * the least significant byte: adjacent digits are combined into pairs,
+   * pairs into groups of four, and groups of four into the result.
+   */
+
+  static long eightDigits(
+    final long word)
+  {
+    var x = word & LOW_NIBBLES;
+    x = (x * 2561L) >>> 8;
+    x = ((x & 0x00ff_00ff_00ff_00ffL) * 6553601L) >>> 16;
+    return ((x & 0x0000_ffff_0000_ffffL) * 42949672960001L) >>> 32;
+  }
+
+  private static long parseFallback(
+    final CharSequence value,
+    final int start,
+    final boolean unsigned,
+    final boolean status)
+  {
+    final var text = value.toString();
+    try {
+      final var result =
+        unsigned ? Long.parseUnsignedLong(text) : Long.parseLong(text);
+      return status ? VDecimalStatus.VALID.ordinal() : result;
+    } catch (final NumberFormatException e) {
+      return fail(
+        allUnicodeDigits(text, start)
+          ? VDecimalStatus.OVERFLOW
+          : VDecimalStatus.MALFORMED,
+        status
+      );
+    }
+  }
+
+  private static boolean allUnicodeDigits(
+    final String text,
+    final int start)
+  {
+    Objects.requireNonNull(text, "text");
+
+    for (int index = start; index < text.length(); ++index) {
+      if (Character.digit(text.charAt(index), 10) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
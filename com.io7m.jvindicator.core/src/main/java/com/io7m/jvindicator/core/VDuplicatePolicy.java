@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+/**
+ * The treatment of a parameter that is given more than one value. The
+ * policy is applied as values are delivered: resolving a duplicate never
+ * requires a second pass over the input.
+ *
+ * @see VindicationBuilderType#setDuplicatePolicy(String, VDuplicatePolicy)
+ */
+
+public enum VDuplicatePolicy
+{
+  /**
+   * The first value is checked, and any further values are ignored. This is
+   * the default policy.
+   */
+
+  FIRST_WINS,
+
+  /**
+   * The last value is checked, and any earlier values are ignored.
+   */
+
+  LAST_WINS,
+
+  /**
+   * A parameter given more than one value is rejected, and no value is
+   * checked.
+   */
+
+  REJECT,
+
+  /**
+   * Every value is checked, and the parsed values are returned as a list in
+   * the order in which they were delivered. This is the policy of, and only
+   * of, parameters added with
+   * {@link VindicationBuilderType#addCollectedParameter(String, VParameterCheckType)}.
+   */
+
+  COLLECT_ALL
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The parsed members of a parameter family: an immutable, array-backed
+ * association of keys to values, in the order in which the members were
+ * delivered. Families are expected to be small, and so keys are searched
+ * linearly.
+ *
+ * @param <T> The type of values
+ *
+ * @see VindicationBuilderType#addParameterFamily(String, VParameterCheckType, VParameterCheckType)
+ */
+
+public final class VFamilyValues<T>
+{
+  private static final VFamilyValues<?> EMPTY =
+    new VFamilyValues<>(new String[0], new Object[0]);
+
+  private final String[] keys;
+  private final Object[] values;
+
+  private VFamilyValues(
+    final String[] inKeys,
+    final Object[] inValues)
+  {
+    this.keys = inKeys;
+    this.values = inValues;
+  }
+
+  /**
+   * @param <T> The type of values
+   *
+   * @return An empty set of values
+   */
+
+  @SuppressWarnings("unchecked")
+  public static <T> VFamilyValues<T> empty()
+  {
+    return (VFamilyValues<T>) EMPTY;
+  }
+
+  static VFamilyValues<Object> of(
+    final List<String> keys,
+    final List<Object> values)
+  {
+    if (keys.isEmpty()) {
+      return empty();
+    }
+    return new VFamilyValues<>(
+      keys.toArray(new String[0]),
+      values.toArray()
+    );
+  }
+
+  /**
+   * @return The number of members
+   */
+
+  public int size()
+  {
+    return this.keys.length;
+  }
+
+  /**
+   * @return {@code true} if there are no members
+   */
+
+  public boolean isEmpty()
+  {
+    return this.keys.length == 0;
+  }
+
+  /**
+   * @param index The member index in the range {@code [0, size())}
+   *
+   * @return The key of the member
+   */
+
+  public String key(
+    final int index)
+  {
+    return this.keys[index];
+  }
+
+  /**
+   * @param index The member index in the range {@code [0, size())}
+   *
+   * @return The value of the member
+   */
+
+  @SuppressWarnings("unchecked")
+  public T value(
+    final int index)
+  {
+    return (T) this.values[index];
+  }
+
+  /**
+   * @param key The key
+   *
+   * @return The value of the member with the given key, if any
+   */
+
+  public Optional<T> get(
+    final String key)
+  {
+    Objects.requireNonNull(key, "key");
+    for (int index = 0; index < this.keys.length; ++index) {
+      if (this.keys[index].equals(key)) {
+        return Optional.of(this.value(index));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * @return The members as a map, in delivery order
+   */
+
+  public Map<String, T> toMap()
+  {
+    final var map = new LinkedHashMap<String, T>(this.keys.length);
+    for (int index = 0; index < this.keys.length; ++index) {
+      map.put(this.keys[index], this.value(index));
+    }
+    return Collections.unmodifiableMap(map);
+  }
+
+  @Override
+  public boolean equals(
+    final Object o)
+  {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || !this.getClass().equals(o.getClass())) {
+      return false;
+    }
+    final var other = (VFamilyValues<?>) o;
+    return Arrays.equals(this.keys, other.keys)
+      && Arrays.equals(this.values, other.values);
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return 31 * Arrays.hashCode(this.keys) + Arrays.hashCode(this.values);
+  }
+
+  @Override
+  public String toString()
+  {
+    return this.toMap().toString();
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single-pass parsers for raw HTTP header field blocks and {@code Cookie}
+ * header values. Names are matched directly against the compiled parameter
+ * names without constructing strings, and only the values of registered
+ * parameters are decoded (as ISO-8859-1).
+ */
+
+final class VHeaders
+{
+  private static final boolean[] TOKEN_CHARACTERS = tokenCharacters();
+
+  private VHeaders()
+  {
+
+  }
+
+  private static boolean[] tokenCharacters()
+  {
+    final var table = new boolean[128];
+    for (char c = '0'; c <= '9'; ++c) {
+      table[c] = true;
+    }
+    for (char c = 'a'; c <= 'z'; ++c) {
+      table[c] = true;
+      table[Character.toUpperCase(c)] = true;
+    }
+    for (final var c : "!#$%&'*+-.^_`|~".toCharArray()) {
+      table[c] = true;
+    }
+    return table;
+  }
+
+  /**
+   * Deliver the header fields in the range {@code [position, limit)} of the
+   * given buffer. Lines may be terminated by CRLF or LF, and the block ends
+   * at the first empty line. Field names are matched case-insensitively.
+   *
+   * @param data The buffer
+   * @param sink The sink
+   */
+
+  static void deliverFields(
+    final ByteBuffer data,
+    final VInputSinkType sink)
+  {
+    final var limit = data.limit();
+    var position = data.position();
+
+    while (position < limit) {
+      final var lineEnd = indexOf(data, position, limit, '\n');
+      var contentEnd = lineEnd;
+      if (contentEnd > position && data.get(contentEnd - 1) == '\r') {
+        --contentEnd;
+      }
+      if (contentEnd == position) {
+        return;
+      }
+      if (!deliverField(data, position, contentEnd, sink)) {
+        return;
+      }
+      position = lineEnd + 1;
+    }
+  }
+
+  private static boolean deliverField(
+    final ByteBuffer data,
+    final int start,
+    final int end,
+    final VInputSinkType sink)
+  {
+    final var colon = indexOf(data, start, end, ':');
+    if (colon == end || !isToken(data, start, colon)) {
+      sink.malformed("The header block contains a malformed field name.");
+      return false;
+    }
+
+    final var valueStart = skipSpaceForward(data, colon + 1, end);
+    final var valueEnd = skipSpaceBackward(data, valueStart, end);
+    final var index = sink.findIgnoringCase(data, start, colon);
+    if (index < 0) {
+      if (!sink.requiresAllNames()) {
+        return true;
+      }
+      return sink.unknown(
+        text(data, start, colon), 1, valueEnd - valueStart);
+    }
+
+    if (!isFieldValue(data, valueStart, valueEnd)) {
+      sink.malformed(
+        "The header block contains a malformed value for the field %s."
+          .formatted(text(data, start, colon))
+      );
+      return false;
+    }
+    return sink.value(index, text(data, valueStart, valueEnd));
+  }
+
+  /**
+   * Deliver the cookies of the {@code Cookie} header value in the range
+   * {@code [position, limit)} of the given buffer. Cookie names are matched
+   * exactly, and quoted values are unquoted.
+   *
+   * @param data The buffer
+   * @param sink The sink
+   */
+
+  static void deliverCookies(
+    final ByteBuffer data,
+    final VInputSinkType sink)
+  {
+    final var limit = data.limit();
+    var position = data.position();
+
+    while (position < limit) {
+      final var start = skipSpaceForward(data, position, limit);
+      final var separator = indexOf(data, start, limit, ';');
+      final var end = skipSpaceBackward(data, start, separator);
+      if (end > start && !deliverCookie(data, start, end, sink)) {
+        return;
+      }
+      position = separator + 1;
+    }
+  }
+
+  private static boolean deliverCookie(
+    final ByteBuffer data,
+    final int start,
+    final int end,
+    final VInputSinkType sink)
+  {
+    final var equals = indexOf(data, start, end, '=');
+    if (equals == end || !isToken(data, start, equals)) {
+      sink.malformed("The cookie header contains a malformed cookie.");
+      return false;
+    }
+
+    var valueStart = equals + 1;
+    var valueEnd = end;
+    if (valueEnd - valueStart >= 2
+      && data.get(valueStart) == '"'
+      && data.get(valueEnd - 1) == '"') {
+      ++valueStart;
+      --valueEnd;
+    }
+
+    final var index = sink.find(data, start, equals);
+    if (index < 0) {
+      if (!sink.requiresAllNames()) {
+        return true;
+      }
+      return sink.unknown(
+        text(data, start, equals), 1, valueEnd - valueStart);
+    }
+
+    if (!isFieldValue(data, valueStart, valueEnd)) {
+      sink.malformed(
+        "The cookie header contains a malformed value for the cookie %s."
+          .formatted(text(data, start, equals))
+      );
+      return false;
+    }
+    return sink.value(index, text(data, valueStart, valueEnd));
+  }
+
+  private static int indexOf(
+    final ByteBuffer data,
+    final int start,
+    final int end,
+    final char c)
+  {
+    for (int index = start; index < end; ++index) {
+      if (data.get(index) == c) {
+        return index;
+      }
+    }
+    return end;
+  }
+
+  private static boolean isSpace(
+    final byte c)
+  {
+    return c == ' ' || c == '\t';
+  }
+
+  private static int skipSpaceForward(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    var index = start;
+    while (index < end && isSpace(data.get(index))) {
+      ++index;
+    }
+    return index;
+  }
+
+  private static int skipSpaceBackward(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    var index = end;
+    while (index > start && isSpace(data.get(index - 1))) {
+      --index;
+    }
+    return index;
+  }
+
+  private static boolean isToken(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    if (start == end) {
+      return false;
+    }
+    for (int index = start; index < end; ++index) {
+      final var c = data.get(index);
+      if (c < 0 || !TOKEN_CHARACTERS[c]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isFieldValue(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    for (int index = start; index < end; ++index) {
+      final var c = data.get(index) & 0xff;
+      if ((c < 0x20 && c != '\t') || c == 0x7f) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String text(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    return StandardCharsets.ISO_8859_1.decode(data.slice(start, end - start))
+      .toString();
+  }
+}
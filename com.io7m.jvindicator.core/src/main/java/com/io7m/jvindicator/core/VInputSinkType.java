@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * The receiver of parameters delivered by an input.
+ *
+ * <p>An input may deliver parameters in one of two ways: It may ask the sink
+ * for the names of the registered parameters and deliver the values of only
+ * those parameters (a <i>pull</i> delivery), or it may deliver every
+ * parameter it contains, looking up each name with {@link #find(String)}
+ * (a <i>push</i> delivery). If {@link #requiresAllNames()} returns
+ * {@code true}, the input must perform a push delivery, as the sink needs to
+ * see unregistered parameters in order to enforce request limits or reject
+ * unknown parameters.</p>
+ *
+ * <p>Any method returning {@code false} indicates that delivery must stop
+ * immediately.</p>
+ */
+
+public interface VInputSinkType
+{
+  /**
+   * @return {@code true} if every parameter name in the input must be
+   * delivered, including those for which {@link #find(String)} returns
+   * {@code -1}
+   */
+
+  boolean requiresAllNames();
+
+  /**
+   * @return The number of registered parameters
+   */
+
+  int parameterCount();
+
+  /**
+   * @param index The parameter index in the range
+   *              {@code [0, parameterCount())}
+   *
+   * @return The name of the parameter with the given index
+   */
+
+  String parameterName(int index);
+
+  /**
+   * Find the index of the parameter with the given name. If the name is the
+   * name of a member of a parameter family, the returned index is greater
+   * than or equal to {@link #parameterCount()}, and is only valid for the
+   * current delivery.
+   *
+   * @param name The name
+   *
+   * @return The parameter index, or {@code -1} if no such parameter is
+   * registered
+   */
+
+  int find(String name);
+
+  /**
+   * Find the index of the parameter with the name given by the range
+   * {@code [start, end)} of the given buffer. Each byte is interpreted as a
+   * single ISO-8859-1 character. No strings are constructed unless the name
+   * is the name of a member of a parameter family.
+   *
+   * @param data  The buffer
+   * @param start The start of the name
+   * @param end   The end of the name (exclusive)
+   *
+   * @return The parameter index, or {@code -1} if no such parameter is
+   * registered
+   */
+
+  int find(
+    ByteBuffer data,
+    int start,
+    int end);
+
+  /**
+   * Find the index of the parameter with the name given by the range
+   * {@code [start, end)} of the given buffer, ignoring case. Each byte is
+   * interpreted as a single ISO-8859-1 character. No strings are
+   * constructed.
+   *
+   * @param data  The buffer
+   * @param start The start of the name
+   * @param end   The end of the name (exclusive)
+   *
+   * @return The parameter index, or {@code -1} if no such parameter is
+   * registered
+   *
+   * @throws IllegalStateException If two registered parameter names differ
+   *                               only in case
+   */
+
+  int findIgnoringCase(
+    ByteBuffer data,
+    int start,
+    int end)
+    throws IllegalStateException;
+
+  /**
+   * Declare the number of distinct parameter names in the input, if the
+   * input knows this in advance. This allows the sink to reject oversized
+   * inputs without looking at any parameters.
+   *
+   * @param count The number of distinct names
+   *
+   * @return {@code false} if delivery must stop
+   */
+
+  boolean declareNameCount(int count);
+
+  /**
+   * Deliver all values of the registered parameter with the given index.
+   * The parameter is considered to be present even if {@code values} is
+   * empty.
+   *
+   * @param index  The parameter index
+   * @param values The values
+   *
+   * @return {@code false} if delivery must stop
+   */
+
+  boolean values(
+    int index,
+    List<String> values);
+
+  /**
+   * Deliver a single value of the registered parameter with the given index.
+   * This method may be called multiple times for the same parameter.
+   *
+   * @param index The parameter index
+   * @param value The value
+   *
+   * @return {@code false} if delivery must stop
+   */
+
+  boolean value(
+    int index,
+    String value);
+
+  /**
+   * Deliver an unregistered parameter.
+   *
+   * @param name        The parameter name
+   * @param valueCount  The number of values
+   * @param valueLength The total length of all values
+   *
+   * @return {@code false} if delivery must stop
+   */
+
+  boolean unknown(
+    CharSequence name,
+    int valueCount,
+    long valueLength);
+
+  /**
+   * Indicate that the input is malformed. Delivery must stop.
+   *
+   * @param message A description of the problem
+   */
+
+  void malformed(String message);
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+/**
+ * A source of parameters. An input delivers the parameters it contains to a
+ * sink provided by a builder; this allows inputs to deliver only those
+ * parameters that the builder has registered, and to avoid materializing
+ * anything else.
+ *
+ * @see VInputs
+ * @see VindicationBuilderType#check(VInputType)
+ */
+
+public interface VInputType
+{
+  /**
+   * Deliver parameters to the given sink. Delivery must stop as soon as any
+   * method on the sink returns {@code false}.
+   *
+   * @param sink The sink
+   */
+
+  void deliver(VInputSinkType sink);
+}
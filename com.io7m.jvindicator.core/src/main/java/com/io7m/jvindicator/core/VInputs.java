@@ -0,0 +1,330 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Standard inputs.
+ */
+
+public final class VInputs
+{
+  private VInputs()
+  {
+
+  }
+
+  /**
+   * An input that delivers parameters from the given map. The map is not
+   * copied. If the sink does not require all names, only the registered
+   * parameters are looked up in the map.
+   *
+   * @param parameters The parameters
+   *
+   * @return An input
+   */
+
+  public static VInputType ofMap(
+    final Map<String, List<String>> parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    return sink -> deliverMap(parameters, sink, values -> values);
+  }
+
+  /**
+   * An input that delivers parameters from the given array-typed map (such
+   * as the map returned by a servlet request). The map is not copied. If the
+   * sink does not require all names, only the registered parameters are
+   * looked up in the map.
+   *
+   * @param parameters The parameters
+   *
+   * @return An input
+   */
+
+  public static VInputType ofArrayMap(
+    final Map<String, String[]> parameters)
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    return sink -> deliverArrayMap(parameters, sink);
+  }
+
+  /**
+   * An input that parses the given raw, URL-encoded query string (such as
+   * {@code a=1&b=x%20y}). The query string is parsed in a single pass, and
+   * only the values of registered parameters are decoded.
+   *
+   * @param query The query string, or {@code null} for an empty query
+   *
+   * @return An input
+   */
+
+  public static VInputType ofQueryString(
+    final String query)
+  {
+    if (query == null) {
+      return sink -> { };
+    }
+    return sink -> VQueryString.deliver(query, sink);
+  }
+
+  /**
+   * An input that parses the given raw, URL-encoded query string or
+   * {@code application/x-www-form-urlencoded} body. The bytes are parsed in
+   * a single pass without first being decoded to a string: names are looked
+   * up directly in the bytes, and only the values of registered parameters
+   * are decoded (as percent-encoded UTF-8).
+   *
+   * @param query The query string
+   *
+   * @return An input
+   *
+   * @see #ofQueryString(String)
+   */
+
+  public static VInputType ofForm(
+    final byte[] query)
+  {
+    Objects.requireNonNull(query, "query");
+    return ofForm(ByteBuffer.wrap(query));
+  }
+
+  /**
+   * An input that parses the raw, URL-encoded query string in the range
+   * {@code [position, limit)} of the given buffer. The position of the
+   * buffer is not modified.
+   *
+   * @param query The query string
+   *
+   * @return An input
+   *
+   * @see #ofForm(byte[])
+   */
+
+  public static VInputType ofForm(
+    final ByteBuffer query)
+  {
+    Objects.requireNonNull(query, "query");
+    return sink -> VQueryString.deliver(query, sink);
+  }
+
+  /**
+   * An input that reads the given JSON request body. The body must be a
+   * single JSON object, and is read in a single pass: the values of
+   * registered members are delivered directly, and all other members are
+   * skipped without being materialized. Registered members may have
+   * string, number, or boolean values, or arrays of such values.
+   *
+   * @param body The body, encoded as UTF-8
+   *
+   * @return An input
+   */
+
+  public static VInputType ofJson(
+    final byte[] body)
+  {
+    Objects.requireNonNull(body, "body");
+    return ofJson(ByteBuffer.wrap(body));
+  }
+
+  /**
+   * An input that reads the given JSON request body from the range
+   * {@code [position, limit)} of the given buffer. The position of the
+   * buffer is not modified.
+   *
+   * @param body The body, encoded as UTF-8
+   *
+   * @return An input
+   *
+   * @see #ofJson(byte[])
+   */
+
+  public static VInputType ofJson(
+    final ByteBuffer body)
+  {
+    Objects.requireNonNull(body, "body");
+    return sink -> VJson.deliver(body, sink);
+  }
+
+  /**
+   * An input that reads a raw HTTP header field block, such as
+   * {@code Tenant-ID: x\r\nIf-Match: "3"\r\n}, excluding the start line.
+   * The block is parsed in a single pass and ends at the first empty line.
+   * Field names are matched against parameter names case-insensitively,
+   * using tables built when the builder is compiled, and only the values of
+   * registered fields are decoded (as ISO-8859-1). Repeated fields are
+   * delivered as multiple values.
+   *
+   * @param block The header block
+   *
+   * @return An input
+   */
+
+  public static VInputType ofHeaders(
+    final byte[] block)
+  {
+    Objects.requireNonNull(block, "block");
+    return ofHeaders(ByteBuffer.wrap(block));
+  }
+
+  /**
+   * An input that reads a raw HTTP header field block from the range
+   * {@code [position, limit)} of the given buffer. The position of the
+   * buffer is not modified.
+   *
+   * @param block The header block
+   *
+   * @return An input
+   *
+   * @see #ofHeaders(byte[])
+   */
+
+  public static VInputType ofHeaders(
+    final ByteBuffer block)
+  {
+    Objects.requireNonNull(block, "block");
+    return sink -> VHeaders.deliverFields(block, sink);
+  }
+
+  /**
+   * An input that reads the raw value of a {@code Cookie} header, such as
+   * {@code session=abc; theme="dark"}. Cookie names are matched against
+   * parameter names exactly, quoted values are unquoted, and only the values
+   * of registered cookies are decoded (as ISO-8859-1).
+   *
+   * @param value The header value
+   *
+   * @return An input
+   */
+
+  public static VInputType ofCookies(
+    final byte[] value)
+  {
+    Objects.requireNonNull(value, "value");
+    return ofCookies(ByteBuffer.wrap(value));
+  }
+
+  /**
+   * An input that reads the raw value of a {@code Cookie} header from the
+   * range {@code [position, limit)} of the given buffer. The position of the
+   * buffer is not modified.
+   *
+   * @param value The header value
+   *
+   * @return An input
+   *
+   * @see #ofCookies(byte[])
+   */
+
+  public static VInputType ofCookies(
+    final ByteBuffer value)
+  {
+    Objects.requireNonNull(value, "value");
+    return sink -> VHeaders.deliverCookies(value, sink);
+  }
+
+  private interface ToListType<V>
+  {
+    List<String> toList(V values);
+  }
+
+  private static <V> void deliverMap(
+    final Map<String, V> parameters,
+    final VInputSinkType sink,
+    final ToListType<V> toList)
+  {
+    if (!sink.requiresAllNames()) {
+      final var count = sink.parameterCount();
+      for (int index = 0; index < count; ++index) {
+        final var values = parameters.get(sink.parameterName(index));
+        if (values != null && !sink.values(index, toList.toList(values))) {
+          return;
+        }
+      }
+      return;
+    }
+
+    if (!sink.declareNameCount(parameters.size())) {
+      return;
+    }
+
+    for (final var entry : parameters.entrySet()) {
+      final var name = entry.getKey();
+      final var values = toList.toList(entry.getValue());
+      final var index = sink.find(name);
+      final boolean proceed;
+      if (index < 0) {
+        proceed = sink.unknown(name, values.size(), lengthOf(values));
+      } else {
+        proceed = sink.values(index, values);
+      }
+      if (!proceed) {
+        return;
+      }
+    }
+  }
+
+  private static void deliverArrayMap(
+    final Map<String, String[]> parameters,
+    final VInputSinkType sink)
+  {
+    if (sink.requiresAllNames()) {
+      deliverMap(parameters, sink, Arrays::asList);
+      return;
+    }
+
+    final var count = sink.parameterCount();
+    for (int index = 0; index < count; ++index) {
+      final var values = parameters.get(sink.parameterName(index));
+      if (values != null && !deliverArray(sink, index, values)) {
+        return;
+      }
+    }
+  }
+
+  private static boolean deliverArray(
+    final VInputSinkType sink,
+    final int index,
+    final String[] values)
+  {
+    if (values.length == 0) {
+      return sink.values(index, List.of());
+    }
+    for (final var value : values) {
+      if (!sink.value(index, value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long lengthOf(
+    final List<String> values)
+  {
+    var total = 0L;
+    for (final var value : values) {
+      total += value == null ? 0L : value.length();
+    }
+    return total;
+  }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, concurrent table of canonical strings. Strings longer than the
+ * maximum length are never admitted, and the table never holds more than
+ * the maximum number of entries.
+ *
+ * <p>A string is only admitted the second time it is seen. Sightings are
+ * recorded in a doorkeeper: a small, direct-mapped table of candidate
+ * strings in which each new candidate overwrites whichever candidate
+ * previously occupied its slot. A value that a client sends only once is
+ * therefore never admitted.</p>
+ *
+ * <p>Admission alone cannot keep out a client that sends each value twice,
+ * and so entries age. Each entry carries a small, saturating count of the
+ * lookups that have found it. An admission replaces an entry in the probe
+ * window of its string whose count is zero; an admission that finds no
+ * such entry instead advances a clock hand over the table by one slot,
+ * halving the count of the entry under the hand, or evicting the entry if
+ * its count is already zero. An entry is therefore replaced or evicted
+ * only once a full sweep of the table has passed without a lookup finding
+ * it: values that legitimately recur keep their entries, and values that
+ * were sent twice and never again make room for the next strings that need
+ * it. Known values given when the table is created are never aged, replaced,
+ * or evicted.</p>
+ *
+ * <p>Counts are maintained without locks and are approximate under
+ * contention, which at worst replaces an entry early or late. Lookups
+ * compare cached hash codes and then contents, and never allocate.</p>
+ */
+
+final class VInternTable
+{
+  private static final int MAX_PROBE = 8;
+  private static final int MAX_ENTRIES = 1 << 24;
+  private static final int DOORKEEPER_MIN_SIZE = 1 << 6;
+  private static final int MAX_HITS = 15;
+  private static final int PINNED = Integer.MAX_VALUE;
+
+  /**
+   * The marker left in the slot of an evicted entry. Slots are compared to
+   * the marker by identity before any comparison of contents.
+   */
+
+  private static final String TOMBSTONE = String.valueOf(new char[1]);
+
+  private final AtomicReferenceArray<String> slots;
+  private final AtomicIntegerArray hits;
+  private final AtomicInteger count;
+  private final AtomicInteger hand;
+  private final int mask;
+  private final int maxEntries;
+  private final int maxLength;
+  private final AtomicReferenceArray<String> doorkeeper;
+  private final int doorkeeperMask;
+
+  /**
+   * Create a table.
+   *
+   * @param inKnown      The values admitted when the table is created
+   * @param inMaxEntries The maximum number of entries
+   * @param inMaxLength  The maximum length of admitted strings
+   *
+   * @throws IllegalArgumentException If either bound is not positive, or
+   *                                  the known values do not fit within
+   *                                  the bounds
+   */
+
+  VInternTable(
+    final Collection<String> inKnown,
+    final int inMaxEntries,
+    final int inMaxLength)
+    throws IllegalArgumentException
+  {
+    if (inMaxEntries <= 0 || inMaxEntries > MAX_ENTRIES) {
+      throw new IllegalArgumentException(
+        "The maximum number of entries %d must be in the range [1, %d]."
+          .formatted(
+            Integer.valueOf(inMaxEntries),
+            Integer.valueOf(MAX_ENTRIES))
+      );
+    }
+    if (inMaxLength <= 0) {
+      throw new IllegalArgumentException(
+        "The maximum length %d must be positive."
+          .formatted(Integer.valueOf(inMaxLength))
+      );
+    }
+
+    final var size = Integer.highestOneBit(inMaxEntries * 4 - 1) << 1;
+    this.slots = new AtomicReferenceArray<>(size);
+    this.hits = new AtomicIntegerArray(size);
+    this.count = new AtomicInteger();
+    this.hand = new AtomicInteger();
+    this.mask = size - 1;
+    this.maxEntries = inMaxEntries;
+    this.maxLength = inMaxLength;
+
+    final var candidates = Math.max(size, DOORKEEPER_MIN_SIZE);
+    this.doorkeeper = new AtomicReferenceArray<>(candidates);
+    this.doorkeeperMask = candidates - 1;
+
+    this.seed(inKnown);
+  }
+
+  private void seed(
+    final Collection<String> known)
+  {
+    for (final var text : known) {
+      if (text.length() > this.maxLength) {
+        throw new IllegalArgumentException(
+          "The known value %s is longer than the maximum length %d."
+            .formatted(text, Integer.valueOf(this.maxLength))
+        );
+      }
+      this.admitOrFind(text, PINNED);
+      if (this.find(text) == null) {
+        throw new IllegalArgumentException(
+          "The %d known values do not fit in a table of %d entries."
+            .formatted(
+              Integer.valueOf(known.size()),
+              Integer.valueOf(this.maxEntries))
+        );
+      }
+    }
+  }
+
+  /**
+   * @return The number of admitted strings
+   */
+
+  int size()
+  {
+    return Math.min(this.count.get(), this.maxEntries);
+  }
+
+  /**
+   * Return the canonical instance of the given string. If the string is not
+   * present, it is admitted as the canonical instance if it has been seen
+   * before and the table has room, or holds an entry that has aged out.
+   *
+   * @param text The string
+   *
+   * @return The canonical string, or {@code text}
+   */
+
+  String intern(
+    final String text)
+  {
+    if (text.length() > this.maxLength) {
+      return text;
+    }
+
+    final var existing = this.find(text);
+    if (existing != null) {
+      return existing;
+    }
+    if (!this.sighted(text)) {
+      return text;
+    }
+    return this.admitOrFind(text, 1);
+  }
+
+  private String find(
+    final String text)
+  {
+    var slot = hash(text) & this.mask;
+    for (int probe = 0; probe < MAX_PROBE; ++probe) {
+      final var key = this.slots.get(slot);
+      if (key == null) {
+        return null;
+      }
+      if (key != TOMBSTONE && matches(key, text)) {
+        this.hit(slot);
+        return key;
+      }
+      slot = (slot + 1) & this.mask;
+    }
+    return null;
+  }
+
+  private static boolean matches(
+    final String key,
+    final String text)
+  {
+    return key.hashCode() == text.hashCode() && key.equals(text);
+  }
+
+  private void hit(
+    final int slot)
+  {
+    final var current = this.hits.get(slot);
+    if (current < MAX_HITS) {
+      this.hits.compareAndSet(slot, current, current + 1);
+    }
+  }
+
+  /**
+   * Record a sighting of the given string in the doorkeeper.
+   *
+   * @param text The string
+   *
+   * @return {@code true} if the string was the most recent candidate in
+   * its slot
+   */
+
+  private boolean sighted(
+    final String text)
+  {
+    final var slot = (text.hashCode() * 0x9E3779B9 >>> 7) & this.doorkeeperMask;
+    final var candidate = this.doorkeeper.get(slot);
+    if (candidate != null && matches(candidate, text)) {
+      return true;
+    }
+    this.doorkeeper.set(slot, text);
+    return false;
+  }
+
+  private String admitOrFind(
+    final String text,
+    final int initialHits)
+  {
+    var slot = hash(text) & this.mask;
+    var free = -1;
+    var victim = -1;
+    for (int probe = 0; probe < MAX_PROBE; ++probe) {
+      final var key = this.slots.get(slot);
+      if (key == null || key == TOMBSTONE) {
+        free = free < 0 ? slot : free;
+        if (key == null) {
+          break;
+        }
+      } else if (matches(key, text)) {
+        return key;
+      } else if (victim < 0 && this.hits.get(slot) == 0) {
+        victim = slot;
+      }
+      slot = (slot + 1) & this.mask;
+    }
+
+    if (free >= 0 && this.count.get() < this.maxEntries) {
+      return this.admit(text, free, initialHits);
+    }
+    if (victim >= 0) {
+      return this.replace(victim, text);
+    }
+    this.age();
+    return text;
+  }
+
+  private String admit(
+    final String text,
+    final int slot,
+    final int initialHits)
+  {
+    if (this.count.incrementAndGet() > this.maxEntries) {
+      this.count.decrementAndGet();
+      return text;
+    }
+
+    final var key = this.slots.get(slot);
+    if ((key == null || key == TOMBSTONE)
+        && this.slots.compareAndSet(slot, key, text)) {
+      this.hits.set(slot, initialHits);
+      return text;
+    }
+
+    /*
+     * Another thread filled the slot first. Release the reservation and
+     * retry; the other thread may have admitted an equal string.
+     */
+
+    this.count.decrementAndGet();
+    return this.admitOrFind(text, initialHits);
+  }
+
+  private String replace(
+    final int slot,
+    final String text)
+  {
+    final var key = this.slots.get(slot);
+    if (key != null
+        && key != TOMBSTONE
+        && this.hits.get(slot) == 0
+        && this.slots.compareAndSet(slot, key, text)) {
+      this.hits.set(slot, 1);
+    }
+    return text;
+  }
+
+  /**
+   * Advance the clock hand by one slot, and age the entry under it. An
+   * entry that has already aged to zero is evicted, leaving a tombstone so
+   * that the entries probed past it remain reachable.
+   */
+
+  private void age()
+  {
+    final var slot = this.hand.getAndIncrement() & this.mask;
+    final var current = this.hits.get(slot);
+    if (current == PINNED) {
+      return;
+    }
+    if (current > 0) {
+      this.hits.compareAndSet(slot, current, current >>> 1);
+      return;
+    }
+
+    final var key = this.slots.get(slot);
+    if (key != null
+        && key != TOMBSTONE
+        && this.slots.compareAndSet(slot, key, TOMBSTONE)) {
+      this.count.decrementAndGet();
+    }
+  }
+
+  private static int hash(
+    final String text)
+  {
+    return hash(text.hashCode());
+  }
+
+  private static int hash(
+    final int h)
+  {
+    return h ^ (h >>> 16);
+  }
+}
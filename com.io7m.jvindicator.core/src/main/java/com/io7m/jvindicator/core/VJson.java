@@ -0,0 +1,537 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A minimal streaming reader for JSON request bodies. The body must be a
+ * single JSON object. Each member is read exactly once: the values of
+ * registered members are delivered directly to the sink as strings, and all
+ * other members are skipped without constructing any intermediate values.
+ *
+ * <p>Registered members may have a string, number, or boolean value, or an
+ * array of such values (delivered as multiple values). A {@code null}
+ * value is delivered as a present parameter with no values. Skipped values
+ * are checked only for well-formed tokens and balanced brackets.</p>
+ */
+
+final class VJson
+{
+  private static final int MAXIMUM_DEPTH = 64;
+
+  private final ByteBuffer data;
+  private final int limit;
+  private final VInputSinkType sink;
+  private int position;
+
+  private VJson(
+    final ByteBuffer inData,
+    final VInputSinkType inSink)
+  {
+    this.data = inData;
+    this.sink = inSink;
+    this.position = inData.position();
+    this.limit = inData.limit();
+  }
+
+  private static final class MalformedException extends Exception
+  {
+    private static final long serialVersionUID = 1L;
+
+    MalformedException(
+      final String message)
+    {
+      super(message, null, false, false);
+    }
+  }
+
+  /**
+   * Read the JSON object in the range {@code [position, limit)} of the given
+   * buffer. The position of the buffer is not modified.
+   *
+   * @param data The buffer
+   * @param sink The sink
+   */
+
+  static void deliver(
+    final ByteBuffer data,
+    final VInputSinkType sink)
+  {
+    final var reader = new VJson(data, sink);
+    try {
+      reader.object();
+    } catch (final MalformedException e) {
+      sink.malformed(
+        "The JSON body is malformed at offset %d: %s"
+          .formatted(
+            Integer.valueOf(reader.position - data.position()),
+            e.getMessage())
+      );
+    }
+  }
+
+  private void object()
+    throws MalformedException
+  {
+    this.skipWhitespace();
+    this.expect('{');
+    this.skipWhitespace();
+
+    if (this.peek() == '}') {
+      ++this.position;
+    } else {
+      while (true) {
+        if (!this.member()) {
+          return;
+        }
+        this.skipWhitespace();
+        final var c = this.next();
+        if (c == '}') {
+          break;
+        }
+        if (c != ',') {
+          throw new MalformedException("Expected ',' or '}'.");
+        }
+        this.skipWhitespace();
+      }
+    }
+
+    this.skipWhitespace();
+    if (this.position != this.limit) {
+      throw new MalformedException("Unexpected data after the object.");
+    }
+  }
+
+  private boolean member()
+    throws MalformedException
+  {
+    if (this.peek() != '"') {
+      throw new MalformedException("Expected a member name.");
+    }
+    ++this.position;
+    final var start = this.position;
+    final var end = this.endOfString();
+
+    /*
+     * Names that contain only ASCII and no escapes are looked up directly
+     * in the buffer, so that members that are not registered never cause
+     * allocation.
+     */
+
+    final String name;
+    final int index;
+    if (end < 0 && isAscii(this.data, start, -end - 1)) {
+      this.position = -end;
+      name = null;
+      index = this.sink.find(this.data, start, -end - 1);
+    } else {
+      name = this.stringFrom(start, end);
+      index = this.sink.find(name);
+    }
+
+    this.skipWhitespace();
+    this.expect(':');
+    this.skipWhitespace();
+    if (index >= 0) {
+      return this.registered(index);
+    }
+
+    final var valueStart = this.position;
+    this.skipValue();
+    if (this.sink.requiresAllNames()) {
+      return this.sink.unknown(
+        name == null ? this.text(start, -end - 1) : name,
+        1,
+        this.position - valueStart
+      );
+    }
+    return true;
+  }
+
+  private static boolean isAscii(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    for (int index = start; index < end; ++index) {
+      if (data.get(index) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean registered(
+    final int index)
+    throws MalformedException
+  {
+    return switch (this.peek()) {
+      case '[' -> this.registeredArray(index);
+      case 'n' -> {
+        this.literal("null");
+        yield this.sink.values(index, List.of());
+      }
+      default -> this.sink.value(index, this.scalar());
+    };
+  }
+
+  private boolean registeredArray(
+    final int index)
+    throws MalformedException
+  {
+    ++this.position;
+    this.skipWhitespace();
+    if (this.peek() == ']') {
+      ++this.position;
+      return this.sink.values(index, List.of());
+    }
+
+    while (true) {
+      if (!this.sink.value(index, this.scalar())) {
+        return false;
+      }
+      this.skipWhitespace();
+      final var c = this.next();
+      if (c == ']') {
+        return true;
+      }
+      if (c != ',') {
+        throw new MalformedException("Expected ',' or ']'.");
+      }
+      this.skipWhitespace();
+    }
+  }
+
+  private String scalar()
+    throws MalformedException
+  {
+    final var c = this.peek();
+    return switch (c) {
+      case '"' -> this.string();
+      case 't' -> this.literal("true");
+      case 'f' -> this.literal("false");
+      case '{', '[', 'n' -> throw new MalformedException(
+        "Expected a string, number, or boolean value.");
+      default -> this.number();
+    };
+  }
+
+  private String literal(
+    final String text)
+    throws MalformedException
+  {
+    final var length = text.length();
+    if (this.limit - this.position < length) {
+      throw new MalformedException("Unexpected end of input.");
+    }
+    for (int index = 0; index < length; ++index) {
+      if (this.data.get(this.position + index) != text.charAt(index)) {
+        throw new MalformedException("Unrecognized literal.");
+      }
+    }
+    this.position += length;
+    return text;
+  }
+
+  private String number()
+    throws MalformedException
+  {
+    final var start = this.position;
+    this.skipNumber();
+    return this.text(start, this.position);
+  }
+
+  private void skipNumber()
+    throws MalformedException
+  {
+    if (this.peek() == '-') {
+      ++this.position;
+    }
+    if (this.peek() == '0') {
+      ++this.position;
+    } else if (this.digits() == 0) {
+      throw new MalformedException("Expected a value.");
+    }
+    if (this.peek() == '.') {
+      ++this.position;
+      if (this.digits() == 0) {
+        throw new MalformedException("Expected digits after '.'.");
+      }
+    }
+    final var e = this.peek();
+    if (e == 'e' || e == 'E') {
+      ++this.position;
+      final var sign = this.peek();
+      if (sign == '+' || sign == '-') {
+        ++this.position;
+      }
+      if (this.digits() == 0) {
+        throw new MalformedException("Expected digits in the exponent.");
+      }
+    }
+  }
+
+  private int digits()
+  {
+    final var start = this.position;
+    while (this.position < this.limit) {
+      final var c = this.data.get(this.position);
+      if (c < '0' || c > '9') {
+        break;
+      }
+      ++this.position;
+    }
+    return this.position - start;
+  }
+
+  private String string()
+    throws MalformedException
+  {
+    ++this.position;
+    return this.stringFrom(this.position, this.endOfString());
+  }
+
+  /**
+   * Decode the string that starts at {@code start}, given the result of
+   * {@link #endOfString()}.
+   */
+
+  private String stringFrom(
+    final int start,
+    final int end)
+    throws MalformedException
+  {
+    if (end < 0) {
+      this.position = -end;
+      return this.text(start, this.position - 1);
+    }
+
+    final var builder = new StringBuilder(end - start);
+    var run = start;
+    while (true) {
+      final var c = this.data.get(this.position);
+      if (c == '"') {
+        builder.append(this.text(run, this.position));
+        ++this.position;
+        return builder.toString();
+      }
+      if (c == '\\') {
+        builder.append(this.text(run, this.position));
+        ++this.position;
+        this.escape(builder);
+        run = this.position;
+      } else {
+        ++this.position;
+      }
+    }
+  }
+
+  /**
+   * Find the end of the string that starts at the current position.
+   *
+   * @return The negated position after the closing quote if the string
+   * contains no escapes, or the position after the closing quote otherwise
+   */
+
+  private int endOfString()
+    throws MalformedException
+  {
+    var escaped = false;
+    var index = this.position;
+    while (index < this.limit) {
+      final var c = this.data.get(index);
+      if (c == '"') {
+        return escaped ? index + 1 : -(index + 1);
+      }
+      if (c == '\\') {
+        escaped = true;
+        ++index;
+      } else if (c >= 0 && c < 0x20) {
+        this.position = index;
+        throw new MalformedException("Unescaped control character in string.");
+      }
+      ++index;
+    }
+    this.position = this.limit;
+    throw new MalformedException("Unterminated string.");
+  }
+
+  private void escape(
+    final StringBuilder builder)
+    throws MalformedException
+  {
+    final var c = this.next();
+    switch (c) {
+      case '"', '\\', '/' -> builder.append((char) c);
+      case 'b' -> builder.append('\b');
+      case 'f' -> builder.append('\f');
+      case 'n' -> builder.append('\n');
+      case 'r' -> builder.append('\r');
+      case 't' -> builder.append('\t');
+      case 'u' -> builder.append(this.unicodeEscape());
+      default -> throw new MalformedException("Unrecognized escape.");
+    }
+  }
+
+  private void skipString()
+    throws MalformedException
+  {
+    ++this.position;
+    final var end = this.endOfString();
+    if (end < 0) {
+      this.position = -end;
+      return;
+    }
+
+    /*
+     * The escapes are checked, but nothing is decoded.
+     */
+
+    while (true) {
+      final var c = this.next();
+      if (c == '"') {
+        return;
+      }
+      if (c == '\\') {
+        this.skipEscape();
+      }
+    }
+  }
+
+  private void skipEscape()
+    throws MalformedException
+  {
+    final var c = this.next();
+    if (c == 'u') {
+      this.unicodeEscape();
+    } else if ("\"\\/bfnrt".indexOf(c) < 0) {
+      throw new MalformedException("Unrecognized escape.");
+    }
+  }
+
+  private char unicodeEscape()
+    throws MalformedException
+  {
+    var code = 0;
+    for (int index = 0; index < 4; ++index) {
+      final var digit = Character.digit(this.next(), 16);
+      if (digit < 0) {
+        throw new MalformedException("Malformed unicode escape.");
+      }
+      code = (code << 4) | digit;
+    }
+    return (char) code;
+  }
+
+  private void skipValue()
+    throws MalformedException
+  {
+    var stack = 0L;
+    var depth = 0;
+
+    do {
+      this.skipWhitespace();
+      final var c = this.peek();
+      switch (c) {
+        case '{', '[' -> {
+          if (depth == MAXIMUM_DEPTH) {
+            throw new MalformedException("Values are nested too deeply.");
+          }
+          stack = (stack << 1) | (c == '{' ? 1L : 0L);
+          ++depth;
+          ++this.position;
+        }
+        case '}', ']' -> {
+          if (depth == 0 || (stack & 1L) != (c == '}' ? 1L : 0L)) {
+            throw new MalformedException("Mismatched brackets.");
+          }
+          stack >>>= 1;
+          --depth;
+          ++this.position;
+        }
+        case ',', ':' -> {
+          if (depth == 0) {
+            throw new MalformedException("Expected a value.");
+          }
+          ++this.position;
+        }
+        default -> this.skipScalar();
+      }
+      this.skipWhitespace();
+    } while (depth > 0);
+  }
+
+  private void skipScalar()
+    throws MalformedException
+  {
+    switch (this.peek()) {
+      case '"' -> this.skipString();
+      case 't' -> this.literal("true");
+      case 'f' -> this.literal("false");
+      case 'n' -> this.literal("null");
+      default -> this.skipNumber();
+    }
+  }
+
+  private void skipWhitespace()
+  {
+    while (this.position < this.limit) {
+      final var c = this.data.get(this.position);
+      if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+        return;
+      }
+      ++this.position;
+    }
+  }
+
+  private int peek()
+    throws MalformedException
+  {
+    if (this.position >= this.limit) {
+      throw new MalformedException("Unexpected end of input.");
+    }
+    return this.data.get(this.position);
+  }
+
+  private int next()
+    throws MalformedException
+  {
+    final var c = this.peek();
+    ++this.position;
+    return c;
+  }
+
+  private void expect(
+    final char expected)
+    throws MalformedException
+  {
+    if (this.next() != expected) {
+      throw new MalformedException("Expected '%c'.".formatted(expected));
+    }
+  }
+
+  private String text(
+    final int start,
+    final int end)
+  {
+    return StandardCharsets.UTF_8.decode(this.data.slice(start, end - start))
+      .toString();
+  }
+}
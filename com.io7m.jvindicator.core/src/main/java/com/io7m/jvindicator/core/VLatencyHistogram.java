@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram for a single parameter. Bucket
+ * {@code i} counts latencies in the range {@code [2^(i-1), 2^i)}
+ * nanoseconds, with bucket {@code 0} counting latencies of zero. Checks
+ * that take at least the slow threshold additionally record the length of
+ * the checked value (never the value itself) in a ring of recent samples.
+ *
+ * <p>Histograms are shared by every builder with the same name, and so the
+ * bucket counts and total are striped {@link LongAdder} counters: threads
+ * recording concurrently update separate cells rather than contending on a
+ * single cache line. The maximum is only written when it increases, and the
+ * slow sample ring is only written by slow checks.</p>
+ */
+
+final class VLatencyHistogram
+{
+  static final int BUCKETS = 64;
+  static final int SLOW_SAMPLES = 32;
+
+  private final String schema;
+  private final String parameter;
+  private final long slowThresholdNanos;
+  private final LongAdder[] buckets;
+  private final LongAdder totalNanos;
+  private final AtomicLong maxNanos;
+  private final AtomicLong slowCount;
+  private final AtomicIntegerArray slowLengths;
+
+  VLatencyHistogram(
+    final String inSchema,
+    final String inParameter,
+    final long inSlowThresholdNanos)
+  {
+    this.schema = inSchema;
+    this.parameter = inParameter;
+    this.slowThresholdNanos = inSlowThresholdNanos;
+    this.buckets = new LongAdder[BUCKETS];
+    for (int index = 0; index < BUCKETS; ++index) {
+      this.buckets[index] = new LongAdder();
+    }
+    this.totalNanos = new LongAdder();
+    this.maxNanos = new AtomicLong();
+    this.slowCount = new AtomicLong();
+    this.slowLengths = new AtomicIntegerArray(SLOW_SAMPLES);
+  }
+
+  static int bucketOf(
+    final long nanos)
+  {
+    return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+  }
+
+  /**
+   * Record a single check.
+   *
+   * @param nanos       The time taken by the check
+   * @param valueLength The length of the checked value
+   */
+
+  void record(
+    final long nanos,
+    final int valueLength)
+  {
+    final var clamped = Math.max(0L, nanos);
+    this.buckets[bucketOf(clamped)].increment();
+    this.totalNanos.add(clamped);
+
+    if (clamped > this.maxNanos.get()) {
+      this.updateMax(clamped);
+    }
+    if (clamped >= this.slowThresholdNanos) {
+      final var index = this.slowCount.getAndIncrement();
+      this.slowLengths.set((int) (index % SLOW_SAMPLES), valueLength);
+    }
+  }
+
+  private void updateMax(
+    final long nanos)
+  {
+    var current = this.maxNanos.get();
+    while (nanos > current) {
+      if (this.maxNanos.compareAndSet(current, nanos)) {
+        return;
+      }
+      current = this.maxNanos.get();
+    }
+  }
+
+  /**
+   * Take a snapshot of the histogram. Recording continues concurrently, and
+   * so the fields of the snapshot are individually, but not mutually,
+   * consistent.
+   *
+   * @return A snapshot
+   */
+
+  VLatencySnapshot snapshot()
+  {
+    final var counts = new ArrayList<Long>(BUCKETS);
+    var count = 0L;
+    for (int index = 0; index < BUCKETS; ++index) {
+      final var value = this.buckets[index].sum();
+      counts.add(Long.valueOf(value));
+      count += value;
+    }
+
+    final var slow = this.slowCount.get();
+    final var retained = (int) Math.min(slow, SLOW_SAMPLES);
+    final var lengths = new ArrayList<Integer>(retained);
+    for (long index = slow - retained; index < slow; ++index) {
+      lengths.add(
+        Integer.valueOf(this.slowLengths.get((int) (index % SLOW_SAMPLES))));
+    }
+
+    return new VLatencySnapshot(
+      this.schema,
+      this.parameter,
+      count,
+      this.totalNanos.sum(),
+      this.maxNanos.get(),
+      List.copyOf(counts),
+      slow,
+      List.copyOf(lengths)
+    );
+  }
+}
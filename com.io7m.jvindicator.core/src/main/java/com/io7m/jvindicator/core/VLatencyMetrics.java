@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A set of per-parameter latency histograms, keyed by schema (builder) name
+ * and parameter name. A single set of metrics may be shared by any number
+ * of builders on any number of threads; builders with the same name record
+ * into the same histograms. Histograms are allocated when a builder is
+ * compiled, and have a bounded size thereafter; recording is lock-free.
+ *
+ * @see VindicationBuilderType#setLatencyMetrics(VLatencyMetrics)
+ */
+
+public final class VLatencyMetrics
+{
+  private static final Comparator<VLatencySnapshot> SNAPSHOT_ORDER =
+    Comparator.comparing(VLatencySnapshot::schema)
+      .thenComparing(VLatencySnapshot::parameter);
+
+  private static final VLatencyMetrics DISABLED =
+    new VLatencyMetrics(Long.MAX_VALUE, false);
+
+  private final ConcurrentHashMap<Key, VLatencyHistogram> histograms;
+  private final long slowThresholdNanos;
+  private final boolean enabled;
+
+  private VLatencyMetrics(
+    final long inSlowThresholdNanos,
+    final boolean inEnabled)
+  {
+    this.histograms = new ConcurrentHashMap<>();
+    this.slowThresholdNanos = inSlowThresholdNanos;
+    this.enabled = inEnabled;
+  }
+
+  /**
+   * Create a set of metrics.
+   *
+   * @param slowThreshold The time at or above which a check is considered
+   *                      slow, and the length of its value is sampled
+   *
+   * @return A set of metrics
+   *
+   * @throws IllegalArgumentException If the threshold is negative
+   */
+
+  public static VLatencyMetrics create(
+    final Duration slowThreshold)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(slowThreshold, "slowThreshold");
+
+    if (slowThreshold.isNegative()) {
+      throw new IllegalArgumentException(
+        "Slow threshold %s must be non-negative.".formatted(slowThreshold));
+    }
+
+    long nanos;
+    try {
+      nanos = slowThreshold.toNanos();
+    } catch (final ArithmeticException e) {
+      nanos = Long.MAX_VALUE;
+    }
+    return new VLatencyMetrics(nanos, true);
+  }
+
+  /**
+   * @return A set of metrics that records nothing
+   */
+
+  public static VLatencyMetrics disabled()
+  {
+    return DISABLED;
+  }
+
+  /**
+   * @return {@code true} if these metrics record anything
+   */
+
+  public boolean isEnabled()
+  {
+    return this.enabled;
+  }
+
+  VLatencyHistogram histogram(
+    final String schema,
+    final String parameter)
+  {
+    return this.histograms.computeIfAbsent(
+      new Key(schema, parameter),
+      key -> new VLatencyHistogram(
+        key.schema,
+        key.parameter,
+        this.slowThresholdNanos)
+    );
+  }
+
+  /**
+   * @return A snapshot of every histogram, ordered by schema and parameter
+   * name
+   */
+
+  public List<VLatencySnapshot> snapshot()
+  {
+    return this.histograms.values()
+      .stream()
+      .map(VLatencyHistogram::snapshot)
+      .sorted(SNAPSHOT_ORDER)
+      .toList();
+  }
+
+  private record Key(
+    String schema,
+    String parameter)
+  {
+
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A snapshot of the latencies of the synchronous checks of a single
+ * parameter.
+ *
+ * @param schema           The schema (builder) name
+ * @param parameter        The parameter name
+ * @param count            The number of recorded checks
+ * @param totalNanos       The total time taken by the recorded checks
+ * @param maxNanos         The longest time taken by a single check
+ * @param buckets          The number of checks in each bucket, where bucket
+ *                         {@code i} counts checks that took
+ *                         {@code [2^(i-1), 2^i)} nanoseconds
+ * @param slowCount        The number of checks that took at least the slow
+ *                         threshold
+ * @param slowValueLengths The lengths of the values of the most recent slow
+ *                         checks, oldest first
+ *
+ * @see VLatencyMetrics
+ */
+
+public record VLatencySnapshot(
+  String schema,
+  String parameter,
+  long count,
+  long totalNanos,
+  long maxNanos,
+  List<Long> buckets,
+  long slowCount,
+  List<Integer> slowValueLengths)
+{
+  /**
+   * A snapshot of the latencies of the synchronous checks of a single
+   * parameter.
+   *
+   * @param schema           The schema (builder) name
+   * @param parameter        The parameter name
+   * @param count            The number of recorded checks
+   * @param totalNanos       The total time taken by the recorded checks
+   * @param maxNanos         The longest time taken by a single check
+   * @param buckets          The number of checks in each bucket
+   * @param slowCount        The number of slow checks
+   * @param slowValueLengths The lengths of the values of recent slow checks
+   */
+
+  public VLatencySnapshot
+  {
+    Objects.requireNonNull(schema, "schema");
+    Objects.requireNonNull(parameter, "parameter");
+    buckets = List.copyOf(buckets);
+    slowValueLengths = List.copyOf(slowValueLengths);
+  }
+
+  /**
+   * @param bucket The bucket index
+   *
+   * @return The exclusive upper bound, in nanoseconds, of the given bucket
+   */
+
+  public static long bucketUpperBound(
+    final int bucket)
+  {
+    Objects.checkIndex(bucket, VLatencyHistogram.BUCKETS);
+    return bucket == VLatencyHistogram.BUCKETS - 1
+      ? Long.MAX_VALUE
+      : 1L << bucket;
+  }
+
+  /**
+   * Estimate a quantile of the recorded latencies. The estimate is the upper
+   * bound of the bucket that contains the quantile, and so is accurate to
+   * within a factor of two.
+   *
+   * @param quantile The quantile in the range {@code [0, 1]}
+   *
+   * @return The estimated latency in nanoseconds, or {@code 0} if nothing
+   * has been recorded
+   */
+
+  public long quantileUpperBound(
+    final double quantile)
+  {
+    if (!(quantile >= 0.0 && quantile <= 1.0)) {
+      throw new IllegalArgumentException(
+        "Quantile %s must be in the range [0, 1]".formatted(quantile));
+    }
+
+    final var total = this.buckets.stream().mapToLong(Long::longValue).sum();
+    if (total == 0L) {
+      return 0L;
+    }
+
+    final var rank = Math.max(1L, (long) Math.ceil(quantile * total));
+    var seen = 0L;
+    for (int index = 0; index < this.buckets.size(); ++index) {
+      seen += this.buckets.get(index).longValue();
+      if (seen >= rank) {
+        return Math.min(bucketUpperBound(index), this.maxNanos);
+      }
+    }
+    return this.maxNanos;
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable map of errors whose messages are rendered each time they are
+ * read, and never otherwise.
+ */
+
+final class VLazyErrors
+  extends AbstractMap<String, String>
+{
+  private final Map<String, VMessage> errors;
+  private final VMessages messages;
+
+  VLazyErrors(
+    final Map<String, VMessage> inErrors,
+    final VMessages inMessages)
+  {
+    this.errors =
+      Objects.requireNonNull(inErrors, "errors");
+    this.messages =
+      Objects.requireNonNull(inMessages, "messages");
+  }
+
+  @Override
+  public int size()
+  {
+    return this.errors.size();
+  }
+
+  @Override
+  public boolean containsKey(
+    final Object key)
+  {
+    return this.errors.containsKey(key);
+  }
+
+  @Override
+  public String get(
+    final Object key)
+  {
+    final var message = this.errors.get(key);
+    return message == null ? null : message.render(this.messages);
+  }
+
+  @Override
+  public Set<String> keySet()
+  {
+    return Collections.unmodifiableSet(this.errors.keySet());
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet()
+  {
+    return new AbstractSet<>()
+    {
+      @Override
+      public Iterator<Entry<String, String>> iterator()
+      {
+        return VLazyErrors.this.errors.entrySet()
+          .stream()
+          .<Entry<String, String>>map(LazyEntry::new)
+          .iterator();
+      }
+
+      @Override
+      public int size()
+      {
+        return VLazyErrors.this.errors.size();
+      }
+    };
+  }
+
+  private final class LazyEntry
+    implements Entry<String, String>
+  {
+    private final Entry<String, VMessage> entry;
+
+    LazyEntry(
+      final Entry<String, VMessage> inEntry)
+    {
+      this.entry = inEntry;
+    }
+
+    @Override
+    public String getKey()
+    {
+      return this.entry.getKey();
+    }
+
+    @Override
+    public String getValue()
+    {
+      return this.entry.getValue().render(VLazyErrors.this.messages);
+    }
+
+    @Override
+    public String setValue(
+      final String value)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(
+      final Object other)
+    {
+      if (!(other instanceof final Entry<?, ?> e)) {
+        return false;
+      }
+      return Objects.equals(this.getKey(), e.getKey())
+        && Objects.equals(this.getValue(), e.getValue());
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Objects.hashCode(this.getKey())
+        ^ Objects.hashCode(this.getValue());
+    }
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * An immutable lookup table from strings to values, built once from a closed
+ * set of keys. The table searches for a hash multiplier under which no two
+ * keys occupy the same slot, and so a lookup typically examines exactly one
+ * slot. Lookups never throw and never allocate, including case-insensitive
+ * lookups and lookups of keys given as raw bytes.
+ *
+ * @param <T> The type of values
+ */
+
+final class VLookupTable<T>
+{
+  private static final int ATTEMPTS_PER_SIZE = 64;
+  private static final int MAX_SIZE_FACTOR = 16;
+
+  private final String[] keys;
+  private final Object[] values;
+  private final int mask;
+  private final int multiplier;
+  private final int maxProbe;
+  private final boolean ignoreCase;
+  private final int lengthMin;
+  private final int lengthMax;
+  private final List<String> names;
+
+  private VLookupTable(
+    final String[] inKeys,
+    final Object[] inValues,
+    final int inMultiplier,
+    final int inMaxProbe,
+    final boolean inIgnoreCase,
+    final List<String> inNames)
+  {
+    this.keys = inKeys;
+    this.values = inValues;
+    this.mask = inKeys.length - 1;
+    this.multiplier = inMultiplier;
+    this.maxProbe = inMaxProbe;
+    this.ignoreCase = inIgnoreCase;
+    this.names = List.copyOf(inNames);
+
+    var min = Integer.MAX_VALUE;
+    var max = 0;
+    for (final var name : inNames) {
+      min = Math.min(min, name.length());
+      max = Math.max(max, name.length());
+    }
+    this.lengthMin = min;
+    this.lengthMax = max;
+  }
+
+  /**
+   * Build a lookup table.
+   *
+   * @param entries    The entries
+   * @param ignoreCase {@code true} if keys should be matched
+   *                   case-insensitively
+   * @param <T>        The type of values
+   *
+   * @return A lookup table
+   *
+   * @throws IllegalArgumentException If no entries are provided, or two keys
+   *                                  are equal under the given case
+   *                                  sensitivity
+   */
+
+  static <T> VLookupTable<T> create(
+    final Map<String, ? extends T> entries,
+    final boolean ignoreCase)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(entries, "entries");
+
+    if (entries.isEmpty()) {
+      throw new IllegalArgumentException(
+        "At least one permitted value must be provided.");
+    }
+
+    final var names = new ArrayList<String>(entries.size());
+    final var vals = new ArrayList<T>(entries.size());
+    for (final var entry : entries.entrySet()) {
+      names.add(Objects.requireNonNull(entry.getKey(), "key"));
+      vals.add(Objects.requireNonNull(entry.getValue(), "value"));
+    }
+
+    final var random = new SplittableRandom(0x6a76696e64696361L);
+    final var sizeMin = tableSizeFor(names.size() * 2);
+    final var sizeMax = tableSizeFor(names.size() * MAX_SIZE_FACTOR);
+
+    for (int size = sizeMin; size <= sizeMax; size <<= 1) {
+      for (int attempt = 0; attempt < ATTEMPTS_PER_SIZE; ++attempt) {
+        final var multiplier = random.nextInt() | 1;
+        final var table =
+          tryCreate(names, vals, size, multiplier, ignoreCase, 0);
+        if (table != null) {
+          return table;
+        }
+      }
+    }
+
+    /*
+     * No collision-free multiplier was found; fall back to linear probing.
+     */
+
+    return tryCreate(names, vals, sizeMax, 31, ignoreCase, sizeMax);
+  }
+
+  private static <T> VLookupTable<T> tryCreate(
+    final List<String> names,
+    final List<T> vals,
+    final int size,
+    final int multiplier,
+    final boolean ignoreCase,
+    final int maxProbe)
+  {
+    final var keys = new String[size];
+    final var values = new Object[size];
+    final var mask = size - 1;
+    var probeLongest = 0;
+
+    for (int index = 0; index < names.size(); ++index) {
+      final var name = names.get(index);
+      var slot = hash(name, multiplier, ignoreCase) & mask;
+      var probe = 0;
+
+      while (keys[slot] != null) {
+        if (equal(keys[slot], name, ignoreCase)) {
+          throw new IllegalArgumentException(
+            "The values %s and %s are not distinct."
+              .formatted(keys[slot], name)
+          );
+        }
+        if (probe == maxProbe) {
+          return null;
+        }
+        ++probe;
+        slot = (slot + 1) & mask;
+      }
+
+      probeLongest = Math.max(probeLongest, probe);
+      keys[slot] = name;
+      values[slot] = vals.get(index);
+    }
+
+    return new VLookupTable<>(
+      keys, values, multiplier, probeLongest, ignoreCase, names);
+  }
+
+  private static int tableSizeFor(
+    final int count)
+  {
+    return Integer.highestOneBit(Math.max(2, count) - 1) << 1;
+  }
+
+  private static int fold(
+    final char c)
+  {
+    if (c < 0x80) {
+      return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  private static int hash(
+    final CharSequence text,
+    final int multiplier,
+    final boolean ignoreCase)
+  {
+    var h = 0;
+    final var length = text.length();
+    for (int index = 0; index < length; ++index) {
+      final var c = text.charAt(index);
+      h = h * multiplier + (ignoreCase ? fold(c) : c);
+    }
+    return h ^ (h >>> 16);
+  }
+
+  private static int hash(
+    final ByteBuffer data,
+    final int start,
+    final int end,
+    final int multiplier,
+    final boolean ignoreCase)
+  {
+    var h = 0;
+    for (int index = start; index < end; ++index) {
+      final var c = (char) (data.get(index) & 0xff);
+      h = h * multiplier + (ignoreCase ? fold(c) : c);
+    }
+    return h ^ (h >>> 16);
+  }
+
+  private static boolean equal(
+    final String key,
+    final ByteBuffer data,
+    final int start,
+    final int end,
+    final boolean ignoreCase)
+  {
+    if (key.length() != end - start) {
+      return false;
+    }
+    for (int index = start; index < end; ++index) {
+      final var c = (char) (data.get(index) & 0xff);
+      final var k = key.charAt(index - start);
+      if (c != k && (!ignoreCase || fold(c) != fold(k))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean equal(
+    final String key,
+    final String text,
+    final boolean ignoreCase)
+  {
+    return ignoreCase ? key.equalsIgnoreCase(text) : key.equals(text);
+  }
+
+  /**
+   * @return The keys in the order in which they were provided
+   */
+
+  List<String> names()
+  {
+    return this.names;
+  }
+
+  /**
+   * Find the value associated with the given key.
+   *
+   * @param text The key
+   *
+   * @return The value, or {@code null} if there is no such key
+   */
+
+  @SuppressWarnings("unchecked")
+  T find(
+    final String text)
+  {
+    final var length = text.length();
+    if (length < this.lengthMin || length > this.lengthMax) {
+      return null;
+    }
+
+    var slot = hash(text, this.multiplier, this.ignoreCase) & this.mask;
+    for (int probe = 0; probe <= this.maxProbe; ++probe) {
+      final var key = this.keys[slot];
+      if (key == null) {
+        return null;
+      }
+      if (equal(key, text, this.ignoreCase)) {
+        return (T) this.values[slot];
+      }
+      slot = (slot + 1) & this.mask;
+    }
+    return null;
+  }
+
+  /**
+   * Find the value associated with the key given by the range
+   * {@code [start, end)} of the given buffer. Each byte is interpreted as
+   * a single ISO-8859-1 character.
+   *
+   * @param data  The buffer
+   * @param start The start of the key
+   * @param end   The end of the key (exclusive)
+   *
+   * @return The value, or {@code null} if there is no such key
+   */
+
+  @SuppressWarnings("unchecked")
+  T find(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    final var length = end - start;
+    if (length < this.lengthMin || length > this.lengthMax) {
+      return null;
+    }
+
+    var slot =
+      hash(data, start, end, this.multiplier, this.ignoreCase) & this.mask;
+    for (int probe = 0; probe <= this.maxProbe; ++probe) {
+      final var key = this.keys[slot];
+      if (key == null) {
+        return null;
+      }
+      if (equal(key, data, start, end, this.ignoreCase)) {
+        return (T) this.values[slot];
+      }
+      slot = (slot + 1) & this.mask;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded memo of the outcomes of previous checks, keyed by the values of
+ * the registered parameters. The least recently used outcome is evicted when
+ * the memo is full.
+ */
+
+final class VMemo
+{
+  private final LinkedHashMap<Key, Outcome> outcomes;
+
+  VMemo(
+    final int maxEntries)
+  {
+    this.outcomes =
+      new LinkedHashMap<>(16, 0.75f, true)
+      {
+        @Override
+        protected boolean removeEldestEntry(
+          final Map.Entry<Key, Outcome> eldest)
+        {
+          return this.size() > maxEntries;
+        }
+      };
+  }
+
+  /**
+   * The canonical form of the relevant values of a request: the presence and
+   * first value of each registered parameter, in registration order.
+   */
+
+  static final class Key
+  {
+    private final String[] values;
+    private final byte[] states;
+    private final int hash;
+
+    Key(
+      final String[] inValues,
+      final byte[] inStates)
+    {
+      this.values = inValues;
+      this.states = inStates;
+      this.hash = 31 * Arrays.hashCode(inValues) + Arrays.hashCode(inStates);
+    }
+
+    @Override
+    public boolean equals(
+      final Object other)
+    {
+      if (this == other) {
+        return true;
+      }
+      if (other == null || !this.getClass().equals(other.getClass())) {
+        return false;
+      }
+      final var key = (Key) other;
+      return this.hash == key.hash
+        && Arrays.equals(this.states, key.states)
+        && Arrays.equals(this.values, key.values);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return this.hash;
+    }
+  }
+
+  /**
+   * The immutable outcome of a check. Exactly one of {@code parsed} and
+   * {@code errors} is non-null.
+   *
+   * @param parsed     The parsed values of all parameters, in registration
+   *                   order
+   * @param primitives The parsed values of all primitive parameters, in
+   *                   registration order
+   * @param errors     The errors
+   * @param exceptions The exceptions raised by failed checks
+   */
+
+  record Outcome(
+    Object[] parsed,
+    long[] primitives,
+    Map<String, VMessage> errors,
+    List<Throwable> exceptions)
+  {
+    static Outcome success(
+      final VParameter[] parameters)
+    {
+      final var parsed = new Object[parameters.length];
+      final var primitives = new long[parameters.length];
+      for (int index = 0; index < parameters.length; ++index) {
+        final var parameter = parameters[index];
+        if (parameter.isPrimitive()) {
+          primitives[index] = parameter.parsedPrimitive();
+        } else {
+          parsed[index] = parameter.get();
+        }
+      }
+      return new Outcome(parsed, primitives, null, List.of());
+    }
+
+    static Outcome failure(
+      final VCheckRun run)
+    {
+      return new Outcome(
+        null,
+        null,
+        Map.copyOf(run.errors()),
+        List.copyOf(run.exceptions())
+      );
+    }
+
+    boolean isSuccess()
+    {
+      return this.parsed != null;
+    }
+
+    void applyOne(
+      final VParameter parameter)
+    {
+      final var index = parameter.index();
+      if (parameter.isPrimitive()) {
+        parameter.setParsedPrimitive(this.primitives[index]);
+      } else {
+        parameter.setParsed(this.parsed[index]);
+      }
+    }
+
+    void apply(
+      final VParameter[] parameters)
+    {
+      for (final var parameter : parameters) {
+        this.applyOne(parameter);
+      }
+    }
+  }
+
+  Outcome get(
+    final Key key)
+  {
+    return this.outcomes.get(key);
+  }
+
+  void put(
+    final Key key,
+    final Outcome outcome)
+  {
+    this.outcomes.put(key, outcome);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An error message that has not yet been rendered: either a key and
+ * arguments, or literal text from a check that does not use templates.
+ * Check failures hold their messages in this form, and so messages are
+ * serializable along with the failures that carry them.
+ */
+
+final class VMessage implements Serializable
+{
+  private static final long serialVersionUID = 1L;
+
+  private final String key;
+  private final Object[] arguments;
+
+  private VMessage(
+    final String inKey,
+    final Object[] inArguments)
+  {
+    this.key = inKey;
+    this.arguments = inArguments;
+  }
+
+  static VMessage of(
+    final VMessageKey key,
+    final Object... arguments)
+  {
+    return new VMessage(key.name(), arguments);
+  }
+
+  static VMessage of(
+    final String key,
+    final Object[] arguments)
+  {
+    return new VMessage(
+      Objects.requireNonNull(key, "key"),
+      Objects.requireNonNull(arguments, "arguments")
+    );
+  }
+
+  static VMessage literal(
+    final String text)
+  {
+    return new VMessage(null, new Object[]{text});
+  }
+
+  /**
+   * @return The message key, or {@code null} for literal text
+   */
+
+  String key()
+  {
+    return this.key;
+  }
+
+  /**
+   * @return A copy of the message arguments
+   */
+
+  List<Object> arguments()
+  {
+    return Arrays.asList(this.arguments.clone());
+  }
+
+  /**
+   * @param exception The exception raised by a failed check
+   *
+   * @return The message of the exception
+   */
+
+  static VMessage ofException(
+    final Throwable exception)
+  {
+    if (exception instanceof final VCheckFailure failure) {
+      return failure.unrendered();
+    }
+    if (exception instanceof final VNumberCheckFailure failure) {
+      return failure.unrendered();
+    }
+    return literal(exception.getMessage());
+  }
+
+  void render(
+    final StringBuilder out,
+    final VMessages messages)
+  {
+    if (this.key == null) {
+      out.append(this.arguments[0]);
+    } else {
+      messages.render(out, this.key, this.arguments);
+    }
+  }
+
+  String render(
+    final VMessages messages)
+  {
+    if (this.key == null) {
+      return String.valueOf(this.arguments[0]);
+    }
+    return messages.format(this.key, this.arguments);
+  }
+
+  @Override
+  public String toString()
+  {
+    return this.render(VMessages.defaults());
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+/**
+ * The keys of the built-in error messages. Each key names a template in the
+ * bundled {@code com.io7m.jvindicator.core.Messages} resource bundle, and
+ * the same key may be given in application bundles to translate or reword
+ * the message.
+ *
+ * @see VMessages
+ */
+
+public enum VMessageKey
+{
+  /**
+   * A value could not be parsed as a boolean. Arguments: the value.
+   */
+
+  BOOLEAN_INVALID,
+
+  /**
+   * A value could not be parsed as a UUID. Arguments: the value, and the
+   * reason.
+   */
+
+  UUID_INVALID,
+
+  /**
+   * A value could not be parsed as an integer. Arguments: the value.
+   */
+
+  INTEGER_INVALID,
+
+  /**
+   * A value could not be parsed as an unsigned integer. Arguments: the
+   * value.
+   */
+
+  INTEGER_UNSIGNED_INVALID,
+
+  /**
+   * A value could not be parsed as a signed integer. Arguments: the value.
+   */
+
+  INTEGER_SIGNED_INVALID,
+
+  /**
+   * A value could not be parsed as a floating point value. Arguments: the
+   * value.
+   */
+
+  FLOATING_INVALID,
+
+  /**
+   * A value is not in a range. Arguments: the value, and the inclusive
+   * lower and upper bounds.
+   */
+
+  VALUE_OUT_OF_RANGE,
+
+  /**
+   * The length of a value is not in a range. Arguments: the length, and the
+   * inclusive lower and upper bounds.
+   */
+
+  LENGTH_OUT_OF_RANGE,
+
+  /**
+   * A value does not match a pattern. Arguments: the value, and the pattern.
+   */
+
+  PATTERN_MISMATCH,
+
+  /**
+   * A value is not one of a set of values. Arguments: the value, and the
+   * permitted values.
+   */
+
+  VALUE_NOT_PERMITTED,
+
+  /**
+   * An encoded binary value is too long. Arguments: the encoding, the
+   * length, and the maximum length.
+   */
+
+  ENCODED_TOO_LONG,
+
+  /**
+   * A binary value decodes to too many bytes. Arguments: the encoding, the
+   * decoded size, and the maximum size.
+   */
+
+  DECODED_TOO_LARGE,
+
+  /**
+   * A hexadecimal value has an odd length. Arguments: the length.
+   */
+
+  HEX_ODD_LENGTH,
+
+  /**
+   * A padded base64 value has a length that is not a multiple of 4.
+   * Arguments: the length.
+   */
+
+  BASE64_PADDED_LENGTH,
+
+  /**
+   * A base64 value has an invalid length. Arguments: the length.
+   */
+
+  BASE64_LENGTH,
+
+  /**
+   * An encoded binary value contains an invalid character. Arguments: the
+   * encoding, and the offset of the character.
+   */
+
+  ENCODED_INVALID_CHARACTER,
+
+  /**
+   * A required parameter is missing. No arguments.
+   */
+
+  PARAMETER_MISSING,
+
+  /**
+   * A parameter is not recognized. No arguments.
+   */
+
+  PARAMETER_UNKNOWN,
+
+  /**
+   * A parameter is given more than once. No arguments.
+   */
+
+  PARAMETER_DUPLICATED,
+
+  /**
+   * A parameter has too many values. Arguments: the number of values, and
+   * the limit.
+   */
+
+  PARAMETER_TOO_MANY_VALUES,
+
+  /**
+   * A parameter has more values than a limit. Arguments: the limit.
+   */
+
+  PARAMETER_MORE_VALUES,
+
+  /**
+   * A value is too long. Arguments: the length, and the limit.
+   */
+
+  VALUE_TOO_LONG,
+
+  /**
+   * A request has too many parameters. Arguments: the number of parameters,
+   * and the limit.
+   */
+
+  REQUEST_TOO_MANY_PARAMETERS,
+
+  /**
+   * A request has more parameters than a limit. Arguments: the limit.
+   */
+
+  REQUEST_MORE_PARAMETERS,
+
+  /**
+   * A request is too large. Arguments: the limit.
+   */
+
+  REQUEST_TOO_LARGE,
+
+  /**
+   * Unrecognized parameters were not reported. Arguments: the number of
+   * parameters.
+   */
+
+  REQUEST_UNKNOWN_UNREPORTED,
+
+  /**
+   * An asynchronous check did not complete in time. Arguments: the
+   * deadline.
+   */
+
+  CHECK_DEADLINE,
+
+  /**
+   * An asynchronous check was cancelled. No arguments.
+   */
+
+  CHECK_CANCELLED,
+
+  /**
+   * An asynchronous check was interrupted. No arguments.
+   */
+
+  CHECK_INTERRUPTED
+}
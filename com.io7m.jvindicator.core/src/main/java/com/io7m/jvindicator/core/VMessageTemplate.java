@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * A message template, parsed once. A template is literal text in which
+ * {@code {n}} is replaced with the argument at index {@code n}; any other
+ * text, including braces that do not enclose an index, is literal.
+ */
+
+final class VMessageTemplate
+{
+  private final String[] literals;
+  private final int[] indices;
+
+  private VMessageTemplate(
+    final String[] inLiterals,
+    final int[] inIndices)
+  {
+    this.literals =
+      Objects.requireNonNull(inLiterals, "literals");
+    this.indices =
+      Objects.requireNonNull(inIndices, "indices");
+  }
+
+  /**
+   * Parse a template.
+   *
+   * @param text The template text
+   *
+   * @return A template
+   */
+
+  static VMessageTemplate parse(
+    final String text)
+  {
+    Objects.requireNonNull(text, "text");
+
+    final var literals = new ArrayList<String>();
+    final var indices = new ArrayList<Integer>();
+    final var length = text.length();
+
+    var literalStart = 0;
+    var position = 0;
+    while (position < length) {
+      final var close = placeholderEnd(text, position);
+      if (close < 0) {
+        ++position;
+        continue;
+      }
+      literals.add(text.substring(literalStart, position));
+      indices.add(Integer.valueOf(text.substring(position + 1, close)));
+      position = close + 1;
+      literalStart = position;
+    }
+    literals.add(text.substring(literalStart));
+
+    final var indexArray = new int[indices.size()];
+    for (int index = 0; index < indexArray.length; ++index) {
+      indexArray[index] = indices.get(index).intValue();
+    }
+    return new VMessageTemplate(literals.toArray(new String[0]), indexArray);
+  }
+
+  /**
+   * @return The position of the closing brace of the placeholder starting at
+   * {@code start}, or {@code -1} if there is no placeholder at {@code start}
+   */
+
+  private static int placeholderEnd(
+    final String text,
+    final int start)
+  {
+    if (text.charAt(start) != '{') {
+      return -1;
+    }
+
+    final var length = text.length();
+    var position = start + 1;
+    while (position < length && position - start <= 4) {
+      final var c = text.charAt(position);
+      if (c == '}') {
+        return position > start + 1 ? position : -1;
+      }
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      ++position;
+    }
+    return -1;
+  }
+
+  /**
+   * Render the template. Placeholders with no corresponding argument are
+   * rendered as they appear in the template.
+   *
+   * @param out       The output
+   * @param arguments The arguments
+   */
+
+  void render(
+    final StringBuilder out,
+    final Object[] arguments)
+  {
+    out.append(this.literals[0]);
+    for (int index = 0; index < this.indices.length; ++index) {
+      final var argument = this.indices[index];
+      if (argument < arguments.length) {
+        out.append(arguments[argument]);
+      } else {
+        out.append('{');
+        out.append(argument);
+        out.append('}');
+      }
+      out.append(this.literals[index + 1]);
+    }
+  }
+}
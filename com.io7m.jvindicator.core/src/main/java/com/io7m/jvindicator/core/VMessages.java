@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable set of parsed message templates for one locale. Every
+ * template in the bundle is parsed once, when the messages are created, and
+ * messages are rendered directly into a {@link StringBuilder} without using
+ * {@link java.util.Formatter}.
+ *
+ * <p>The bundled templates are English. Applications may translate or
+ * reword any message by supplying their own bundle; keys absent from an
+ * application bundle use the bundled templates.</p>
+ *
+ * @see VindicationBuilderType#setMessages(VMessages)
+ * @see VCheckFailure
+ */
+
+public final class VMessages
+{
+  private static final String BUNDLE =
+    "com.io7m.jvindicator.core.Messages";
+
+  private static final Map<Locale, VMessages> CACHE =
+    new ConcurrentHashMap<>();
+
+  private static final VMessages DEFAULTS =
+    forLocale(Locale.ROOT);
+
+  private final Map<String, VMessageTemplate> templates;
+
+  private VMessages(
+    final Map<String, VMessageTemplate> inTemplates)
+  {
+    this.templates =
+      Objects.requireNonNull(inTemplates, "templates");
+  }
+
+  /**
+   * @return The bundled messages
+   */
+
+  public static VMessages defaults()
+  {
+    return DEFAULTS;
+  }
+
+  /**
+   * Obtain the bundled messages for the given locale. Messages are cached,
+   * and so this method is cheap enough to call for each request. Messages
+   * are cached by the locale of the bundle that is actually resolved for
+   * the given locale, and so the cache holds at most one entry for each
+   * bundled translation regardless of the locales requested.
+   *
+   * @param locale The locale
+   *
+   * @return The messages
+   */
+
+  public static VMessages forLocale(
+    final Locale locale)
+  {
+    Objects.requireNonNull(locale, "locale");
+
+    final var bundle = ResourceBundle.getBundle(BUNDLE, locale);
+    return CACHE.computeIfAbsent(
+      bundle.getLocale(),
+      k -> create(null, bundle)
+    );
+  }
+
+  /**
+   * Create messages from an application bundle. Keys that are absent from
+   * the bundle use the bundled templates. Applications should create
+   * messages once per locale and reuse them.
+   *
+   * @param bundle The bundle
+   *
+   * @return The messages
+   */
+
+  public static VMessages ofBundle(
+    final ResourceBundle bundle)
+  {
+    Objects.requireNonNull(bundle, "bundle");
+    return create(DEFAULTS, bundle);
+  }
+
+  private static VMessages create(
+    final VMessages base,
+    final ResourceBundle bundle)
+  {
+    final var templates = new HashMap<String, VMessageTemplate>();
+    if (base != null) {
+      templates.putAll(base.templates);
+    }
+    for (final var key : bundle.keySet()) {
+      templates.put(key, VMessageTemplate.parse(bundle.getString(key)));
+    }
+    return new VMessages(Map.copyOf(templates));
+  }
+
+  /**
+   * Render the message with the given key. If there is no template with the
+   * given key, the key and arguments are rendered.
+   *
+   * @param out       The output
+   * @param key       The message key
+   * @param arguments The message arguments
+   */
+
+  public void render(
+    final StringBuilder out,
+    final String key,
+    final Object... arguments)
+  {
+    Objects.requireNonNull(out, "out");
+    Objects.requireNonNull(key, "key");
+    Objects.requireNonNull(arguments, "arguments");
+
+    final var template = this.templates.get(key);
+    if (template != null) {
+      template.render(out, arguments);
+      return;
+    }
+
+    out.append(key);
+    for (int index = 0; index < arguments.length; ++index) {
+      out.append(index == 0 ? ": " : ", ");
+      out.append(arguments[index]);
+    }
+  }
+
+  /**
+   * Render the message with the given key to a string.
+   *
+   * @param key       The message key
+   * @param arguments The message arguments
+   *
+   * @return The message
+   */
+
+  public String format(
+    final String key,
+    final Object... arguments)
+  {
+    final var out = new StringBuilder(64);
+    this.render(out, key, arguments);
+    return out.toString();
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.List;
+
+/**
+ * The failure of a built-in numeric check. This is the
+ * {@link NumberFormatException} counterpart of {@link VCheckFailure}, so
+ * that callers that catch {@link NumberFormatException} continue to observe
+ * malformed numbers; the message is held and rendered in the same way.
+ *
+ * @see VCheckFailure
+ * @see VMessages
+ */
+
+public final class VNumberCheckFailure
+  extends NumberFormatException
+{
+  private static final long serialVersionUID = 1L;
+
+  private final VMessage message;
+
+  VNumberCheckFailure(
+    final VMessageKey inKey,
+    final Object... inArguments)
+  {
+    this.message = VMessage.of(inKey, inArguments);
+  }
+
+  /**
+   * @return The message key
+   */
+
+  public String key()
+  {
+    return this.message.key();
+  }
+
+  /**
+   * @return The message arguments
+   */
+
+  public List<Object> arguments()
+  {
+    return this.message.arguments();
+  }
+
+  VMessage unrendered()
+  {
+    return this.message;
+  }
+
+  @Override
+  public String getMessage()
+  {
+    return this.message.render(VMessages.defaults());
+  }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A registered parameter.
+ */
+
+final class VParameter
+  implements VParameterType<Object>,
+  VParameterIntType,
+  VParameterLongType,
+  VParameterBooleanType
+{
+  private final String name;
+  private final VParameterCheckType<?> check;
+  private final VParameterCheckAsyncType<?> checkAsync;
+  private final VParameterLongCheckType checkPrimitive;
+  private final boolean isOptional;
+  private final Object defaultValue;
+  private final long defaultPrimitive;
+  private final VCheckCost cost;
+  private final int index;
+  private long profileExecutions;
+  private long profileFailures;
+  private long profileNanos;
+  private VDuplicatePolicy duplicatePolicy;
+  private boolean checked;
+  private Object parsed;
+  private long parsedPrimitive;
+
+  VParameter(
+    final String inName,
+    final VParameterCheckType<?> inCheck,
+    final VCheckCost inCost,
+    final boolean inIsOptional,
+    final Object inDefaultValue,
+    final int inIndex)
+  {
+    this.name =
+      Objects.requireNonNull(inName, "name");
+    this.check =
+      Objects.requireNonNull(inCheck, "check");
+    this.cost =
+      Objects.requireNonNull(inCost, "cost");
+    this.checkAsync =
+      null;
+    this.checkPrimitive =
+      null;
+    this.isOptional =
+      inIsOptional;
+    this.defaultValue =
+      Objects.requireNonNull(inDefaultValue, "defaultValue");
+    this.defaultPrimitive =
+      0L;
+    this.index =
+      inIndex;
+    this.duplicatePolicy =
+      VDuplicatePolicy.FIRST_WINS;
+  }
+
+  VParameter(
+    final String inName,
+    final VParameterCheckAsyncType<?> inCheck,
+    final boolean inIsOptional,
+    final int inIndex)
+  {
+    this.name =
+      Objects.requireNonNull(inName, "name");
+    this.check =
+      null;
+    this.cost =
+      VCheckCost.EXPENSIVE;
+    this.checkAsync =
+      Objects.requireNonNull(inCheck, "check");
+    this.checkPrimitive =
+      null;
+    this.isOptional =
+      inIsOptional;
+    this.defaultValue =
+      Optional.empty();
+    this.defaultPrimitive =
+      0L;
+    this.index =
+      inIndex;
+    this.duplicatePolicy =
+      VDuplicatePolicy.FIRST_WINS;
+  }
+
+  VParameter(
+    final String inName,
+    final VParameterLongCheckType inCheck,
+    final VCheckCost inCost,
+    final boolean inIsOptional,
+    final long inDefaultPrimitive,
+    final int inIndex)
+  {
+    this.name =
+      Objects.requireNonNull(inName, "name");
+    this.check =
+      null;
+    this.cost =
+      Objects.requireNonNull(inCost, "cost");
+    this.checkAsync =
+      null;
+    this.checkPrimitive =
+      Objects.requireNonNull(inCheck, "check");
+    this.isOptional =
+      inIsOptional;
+    this.defaultValue =
+      Optional.empty();
+    this.defaultPrimitive =
+      inDefaultPrimitive;
+    this.index =
+      inIndex;
+    this.duplicatePolicy =
+      VDuplicatePolicy.FIRST_WINS;
+  }
+
+  String name()
+  {
+    return this.name;
+  }
+
+  VParameterCheckType<?> check()
+  {
+    return this.check;
+  }
+
+  VParameterCheckAsyncType<?> checkAsync()
+  {
+    return this.checkAsync;
+  }
+
+  /**
+   * @return The check for parameters with primitive values, with all
+   * primitive values represented as {@code long} values
+   */
+
+  VParameterLongCheckType checkPrimitive()
+  {
+    return this.checkPrimitive;
+  }
+
+  boolean isPrimitive()
+  {
+    return this.checkPrimitive != null;
+  }
+
+  boolean isAsync()
+  {
+    return this.checkAsync != null;
+  }
+
+  boolean isOptional()
+  {
+    return this.isOptional;
+  }
+
+  /**
+   * @return The value taken by the parameter when it is not present
+   */
+
+  Object defaultValue()
+  {
+    return this.defaultValue;
+  }
+
+  /**
+   * @return The value taken by the parameter when it is not present, for
+   * parameters with primitive values
+   */
+
+  long defaultPrimitive()
+  {
+    return this.defaultPrimitive;
+  }
+
+  VDuplicatePolicy duplicatePolicy()
+  {
+    return this.duplicatePolicy;
+  }
+
+  void setDuplicatePolicy(
+    final VDuplicatePolicy policy)
+  {
+    this.duplicatePolicy = policy;
+  }
+
+  boolean isCollected()
+  {
+    return this.duplicatePolicy == VDuplicatePolicy.COLLECT_ALL;
+  }
+
+  VCheckCost cost()
+  {
+    return this.cost;
+  }
+
+  int index()
+  {
+    return this.index;
+  }
+
+  void setParsed(
+    final Object value)
+  {
+    this.checked = true;
+    this.parsed = value;
+  }
+
+  void setParsedPrimitive(
+    final long value)
+  {
+    this.checked = true;
+    this.parsedPrimitive = value;
+  }
+
+  long parsedPrimitive()
+  {
+    return this.parsedPrimitive;
+  }
+
+  /**
+   * Record the execution of a check for the purposes of adaptive ordering.
+   *
+   * @param nanos  The time taken
+   * @param failed {@code true} if the check failed
+   */
+
+  void profileRecord(
+    final long nanos,
+    final boolean failed)
+  {
+    ++this.profileExecutions;
+    this.profileNanos += nanos;
+    if (failed) {
+      ++this.profileFailures;
+    }
+  }
+
+  /**
+   * Calculate the expected cost of rejecting a request with this check. This
+   * is the average execution time divided by the (smoothed) failure rate;
+   * executing checks in ascending order of this score minimizes the expected
+   * time taken to find the first failure.
+   *
+   * @return The score
+   */
+
+  double profileScore()
+  {
+    final var executions = this.profileExecutions;
+    if (executions == 0L) {
+      return 0.0;
+    }
+
+    final var average =
+      (double) this.profileNanos / (double) executions;
+    final var failureRate =
+      ((double) this.profileFailures + 1.0) / ((double) executions + 2.0);
+
+    return average / failureRate;
+  }
+
+  @Override
+  public Object get()
+  {
+    this.checkChecked();
+    return this.parsed;
+  }
+
+  private void checkChecked()
+  {
+    if (!this.checked) {
+      throw new IllegalStateException(
+        "Parameters have not yet been validated!");
+    }
+  }
+
+  @Override
+  public int getInt()
+  {
+    this.checkChecked();
+    return (int) this.parsedPrimitive;
+  }
+
+  @Override
+  public long getLong()
+  {
+    this.checkChecked();
+    return this.parsedPrimitive;
+  }
+
+  @Override
+  public boolean getBoolean()
+  {
+    this.checkChecked();
+    return this.parsedPrimitive != 0L;
+  }
+}
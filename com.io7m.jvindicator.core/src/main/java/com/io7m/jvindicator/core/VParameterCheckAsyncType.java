@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * An asynchronous parameter check. Asynchronous checks are intended for
+ * checks that must perform I/O (such as looking up an identifier in a
+ * store). All asynchronous checks registered with a builder are started
+ * before any synchronous checks are executed, and are then awaited
+ * concurrently subject to the builder's deadline.
+ *
+ * @param <T> The type of returned values
+ *
+ * @see VindicationBuilderType#setAsyncDeadline(java.time.Duration)
+ * @see Vindication#onVirtualThread(VParameterCheckType)
+ */
+
+public interface VParameterCheckAsyncType<T>
+{
+  /**
+   * Start checking the given value and parse it as a value of {@code T}.
+   * The returned stage completes exceptionally if the value is invalid.
+   *
+   * @param value The value
+   *
+   * @return A value of {@code T}
+   *
+   * @throws Exception On errors
+   */
+
+  CompletionStage<T> check(String value)
+    throws Exception;
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A flight recorder event emitted for each synchronous parameter check that
+ * exceeds the configured threshold. The event is disabled by default, and
+ * the threshold can be changed in the recording settings.
+ */
+
+@Name("com.io7m.jvindicator.ParameterCheck")
+@Label("Vindication Parameter Check")
+@Description("The checking of a single parameter of a request.")
+@Category("Vindication")
+@Enabled(false)
+@StackTrace(false)
+@Threshold("1 ms")
+final class VParameterCheckEvent extends jdk.jfr.Event
+{
+  private static final EventType TYPE =
+    EventType.getEventType(VParameterCheckEvent.class);
+
+  @Label("Schema")
+  @Description("The name of the builder.")
+  private String schema;
+
+  @Label("Parameter")
+  @Description("The name of the parameter.")
+  private String parameter;
+
+  @Label("Succeeded")
+  @Description("Whether the value was valid.")
+  private boolean succeeded;
+
+  VParameterCheckEvent()
+  {
+
+  }
+
+  void setSchema(
+    final String inSchema)
+  {
+    this.schema = inSchema;
+  }
+
+  void setParameter(
+    final String inParameter)
+  {
+    this.parameter = inParameter;
+  }
+
+  void setSucceeded(
+    final boolean inSucceeded)
+  {
+    this.succeeded = inSucceeded;
+  }
+
+  /**
+   * @return {@code true} if the event is enabled in any running recording
+   */
+
+  static boolean isTypeEnabled()
+  {
+    return TYPE.isEnabled();
+  }
+}
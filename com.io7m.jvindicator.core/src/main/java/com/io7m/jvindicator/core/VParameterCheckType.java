@@ -36,4 +36,15 @@ public interface VParameterCheckType<T>
 
   T check(String value)
     throws Exception;
+
+  /**
+   * @return The declared relative cost of this check
+   *
+   * @see VCheckOrdering
+   */
+
+  default VCheckCost cost()
+  {
+    return VCheckCost.MODERATE;
+  }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Objects;
+
+/**
+ * A registered parameter family.
+ */
+
+final class VParameterFamily
+  implements VParameterType<Object>
+{
+  private static final int SEEN_RETAIN_LIMIT = 64;
+
+  private final String prefix;
+  private final boolean bracketed;
+  private final VParameterCheckType<String> keyCheck;
+  private final VParameterCheckType<?> valueCheck;
+  private final ArrayList<String> keys;
+  private final ArrayList<Object> values;
+  private HashSet<String> seen;
+  private boolean checked;
+  private Object parsed;
+
+  VParameterFamily(
+    final String inPrefix,
+    final VParameterCheckType<String> inKeyCheck,
+    final VParameterCheckType<?> inValueCheck)
+  {
+    this.prefix =
+      Objects.requireNonNull(inPrefix, "prefix");
+    this.keyCheck =
+      Objects.requireNonNull(inKeyCheck, "keyCheck");
+    this.valueCheck =
+      Objects.requireNonNull(inValueCheck, "valueCheck");
+    this.bracketed =
+      inPrefix.endsWith("[");
+    this.keys =
+      new ArrayList<>();
+    this.values =
+      new ArrayList<>();
+    this.seen =
+      new HashSet<>();
+  }
+
+  String prefix()
+  {
+    return this.prefix;
+  }
+
+  /**
+   * @param name A name that begins with the prefix of this family
+   *
+   * @return {@code true} if the name is the name of a member of this family
+   */
+
+  boolean isMember(
+    final String name)
+  {
+    final var length = name.length();
+    final var prefixLength = this.prefix.length();
+    if (this.bracketed) {
+      return length > prefixLength + 1 && name.charAt(length - 1) == ']';
+    }
+    return length > prefixLength;
+  }
+
+  /**
+   * Check the member with the given name and value.
+   *
+   * @param name  The member name
+   * @param value The member value
+   *
+   * @throws Exception If the key or value is rejected
+   */
+
+  void checkMember(
+    final String name,
+    final String value)
+    throws Exception
+  {
+    final var end =
+      this.bracketed ? name.length() - 1 : name.length();
+    final var key =
+      Objects.requireNonNull(
+        this.keyCheck.check(name.substring(this.prefix.length(), end)),
+        "key");
+
+    /*
+     * A repeated key keeps its first value, in line with the default
+     * treatment of repeated parameters.
+     */
+
+    if (!this.seen.add(key)) {
+      return;
+    }
+
+    final var parsedValue = this.valueCheck.check(value);
+    this.keys.add(key);
+    this.values.add(parsedValue);
+  }
+
+  void start()
+  {
+    this.clear();
+    this.setParsed(VFamilyValues.empty());
+  }
+
+  void finish()
+  {
+    this.setParsed(VFamilyValues.of(this.keys, this.values));
+    this.clear();
+  }
+
+  private void clear()
+  {
+    /*
+     * Clearing a hash set takes time proportional to its capacity, and so
+     * a set that grew for an unusually large request is replaced rather
+     * than cleared on every later request.
+     */
+
+    if (this.seen.size() > SEEN_RETAIN_LIMIT) {
+      this.seen = new HashSet<>();
+    } else {
+      this.seen.clear();
+    }
+    this.keys.clear();
+    this.values.clear();
+  }
+
+  private void setParsed(
+    final Object value)
+  {
+    this.checked = true;
+    this.parsed = value;
+  }
+
+  @Override
+  public Object get()
+  {
+    if (!this.checked) {
+      throw new IllegalStateException(
+        "Parameters have not yet been validated!");
+    }
+    return this.parsed;
+  }
+}
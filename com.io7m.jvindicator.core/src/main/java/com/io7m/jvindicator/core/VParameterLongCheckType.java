@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+/**
+ * A parameter check that parses values as a {@code long}. Checks of this type
+ * do not need to box their results, and so can be executed without
+ * allocating.
+ *
+ * @see VindicationBuilderType#addRequiredLongParameter(String, VParameterLongCheckType)
+ */
+
+public interface VParameterLongCheckType
+{
+  /**
+   * Check the given value and parse it as a {@code long}.
+   *
+   * @param value The value
+   *
+   * @return The parsed value
+   *
+   * @throws Exception On errors
+   */
+
+  long check(String value)
+    throws Exception;
+
+  /**
+   * @return The declared relative cost of this check
+   *
+   * @see VCheckOrdering
+   */
+
+  default VCheckCost cost()
+  {
+    return VCheckCost.CHEAP;
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compiled names of the parameters of a builder. Lookup tables are built
+ * once when the builder is compiled, so that inputs that parse raw bytes
+ * (such as header blocks) can find parameters without constructing strings,
+ * and so that case-insensitive matching costs no more than exact matching.
+ * The prefixes of parameter families are compiled into a trie that is
+ * consulted for names that are not the names of parameters.
+ */
+
+final class VParameterNames
+{
+  private static final VParameterNames EMPTY =
+    new VParameterNames(
+      Map.of(), null, null, null, new VParameterFamily[0], null);
+
+  private final Map<String, VParameter> exact;
+  private final VLookupTable<VParameter> exactTable;
+  private final VLookupTable<VParameter> foldedTable;
+  private final String foldedConflict;
+  private final VParameterFamily[] families;
+  private final VPrefixTrie familyPrefixes;
+
+  private VParameterNames(
+    final Map<String, VParameter> inExact,
+    final VLookupTable<VParameter> inExactTable,
+    final VLookupTable<VParameter> inFoldedTable,
+    final String inFoldedConflict,
+    final VParameterFamily[] inFamilies,
+    final VPrefixTrie inFamilyPrefixes)
+  {
+    this.exact = inExact;
+    this.exactTable = inExactTable;
+    this.foldedTable = inFoldedTable;
+    this.foldedConflict = inFoldedConflict;
+    this.families = inFamilies;
+    this.familyPrefixes = inFamilyPrefixes;
+  }
+
+  /**
+   * Compile the names of the given parameters.
+   *
+   * @param parameters The parameters, indexed by name
+   * @param families   The parameter families
+   *
+   * @return The compiled names
+   */
+
+  static VParameterNames compile(
+    final Map<String, VParameter> parameters,
+    final List<VParameterFamily> families)
+  {
+    if (parameters.isEmpty() && families.isEmpty()) {
+      return EMPTY;
+    }
+
+    final var familyArray = families.toArray(new VParameterFamily[0]);
+    final var familyPrefixes =
+      VPrefixTrie.create(
+        families.stream()
+          .map(VParameterFamily::prefix)
+          .toList()
+      );
+
+    if (parameters.isEmpty()) {
+      return new VParameterNames(
+        Map.of(), null, null, null, familyArray, familyPrefixes);
+    }
+
+    final var exact = new LinkedHashMap<>(parameters);
+    final var exactTable = VLookupTable.create(exact, false);
+
+    VLookupTable<VParameter> foldedTable;
+    String foldedConflict;
+    try {
+      foldedTable = VLookupTable.create(exact, true);
+      foldedConflict = null;
+    } catch (final IllegalArgumentException e) {
+      foldedTable = null;
+      foldedConflict = e.getMessage();
+    }
+
+    return new VParameterNames(
+      exact,
+      exactTable,
+      foldedTable,
+      foldedConflict,
+      familyArray,
+      familyPrefixes
+    );
+  }
+
+  /**
+   * @return The parameter families
+   */
+
+  VParameterFamily[] families()
+  {
+    return this.families;
+  }
+
+  /**
+   * @param name The name
+   *
+   * @return The index of the family of which the name is a member, or
+   * {@code -1}
+   */
+
+  int findFamily(
+    final String name)
+  {
+    if (this.families.length == 0) {
+      return -1;
+    }
+    final var index = this.familyPrefixes.find(name);
+    if (index < 0 || !this.families[index].isMember(name)) {
+      return -1;
+    }
+    return index;
+  }
+
+  /**
+   * @param data  The buffer
+   * @param start The start of the name
+   * @param end   The end of the name (exclusive)
+   *
+   * @return The index of the family with the longest prefix of the name,
+   * or {@code -1}
+   */
+
+  int findFamilyPrefix(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    if (this.families.length == 0) {
+      return -1;
+    }
+    return this.familyPrefixes.find(data, start, end);
+  }
+
+  /**
+   * @param name The name
+   *
+   * @return The index of the parameter with the given name, or {@code -1}
+   */
+
+  int find(
+    final String name)
+  {
+    final var parameter = this.exact.get(name);
+    return parameter == null ? -1 : parameter.index();
+  }
+
+  /**
+   * @param data  The buffer
+   * @param start The start of the name
+   * @param end   The end of the name (exclusive)
+   *
+   * @return The index of the parameter with the given name, or {@code -1}
+   */
+
+  int find(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    if (this.exactTable == null) {
+      return -1;
+    }
+    final var parameter = this.exactTable.find(data, start, end);
+    return parameter == null ? -1 : parameter.index();
+  }
+
+  /**
+   * @param data  The buffer
+   * @param start The start of the name
+   * @param end   The end of the name (exclusive)
+   *
+   * @return The index of the parameter with the given name, ignoring case,
+   * or {@code -1}
+   *
+   * @throws IllegalStateException If two parameter names differ only in case
+   */
+
+  int findIgnoringCase(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+    throws IllegalStateException
+  {
+    if (this.foldedConflict != null) {
+      throw new IllegalStateException(
+        "Parameter names cannot be matched case-insensitively: %s"
+          .formatted(this.foldedConflict)
+      );
+    }
+    if (this.foldedTable == null) {
+      return -1;
+    }
+    final var parameter = this.foldedTable.find(data, start, end);
+    return parameter == null ? -1 : parameter.index();
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable trie of prefixes, built once from a closed set of prefixes.
+ * A lookup walks the trie once from the start of a name and yields the
+ * longest registered prefix of the name. Lookups never allocate, including
+ * lookups of names given as raw bytes.
+ */
+
+final class VPrefixTrie
+{
+  private final Node root;
+
+  private VPrefixTrie(
+    final Node inRoot)
+  {
+    this.root = inRoot;
+  }
+
+  private static final class Node
+  {
+    private char[] labels;
+    private Node[] children;
+    private int value;
+
+    Node()
+    {
+      this.labels = new char[0];
+      this.children = new Node[0];
+      this.value = -1;
+    }
+
+    Node child(
+      final char c)
+    {
+      final var index = Arrays.binarySearch(this.labels, c);
+      return index < 0 ? null : this.children[index];
+    }
+
+    Node childOrCreate(
+      final char c)
+    {
+      final var index = Arrays.binarySearch(this.labels, c);
+      if (index >= 0) {
+        return this.children[index];
+      }
+
+      final var insert = -(index + 1);
+      final var count = this.labels.length;
+      final var newLabels = new char[count + 1];
+      final var newChildren = new Node[count + 1];
+      System.arraycopy(this.labels, 0, newLabels, 0, insert);
+      System.arraycopy(this.children, 0, newChildren, 0, insert);
+      System.arraycopy(
+        this.labels, insert, newLabels, insert + 1, count - insert);
+      System.arraycopy(
+        this.children, insert, newChildren, insert + 1, count - insert);
+
+      final var node = new Node();
+      newLabels[insert] = c;
+      newChildren[insert] = node;
+      this.labels = newLabels;
+      this.children = newChildren;
+      return node;
+    }
+  }
+
+  /**
+   * Build a trie.
+   *
+   * @param prefixes The prefixes, each of which is identified by its index
+   *
+   * @return A trie
+   *
+   * @throws IllegalArgumentException If a prefix is empty or is repeated
+   */
+
+  static VPrefixTrie create(
+    final List<String> prefixes)
+    throws IllegalArgumentException
+  {
+    final var root = new Node();
+    for (int index = 0; index < prefixes.size(); ++index) {
+      final var prefix = prefixes.get(index);
+      if (prefix.isEmpty()) {
+        throw new IllegalArgumentException("Prefixes must be non-empty.");
+      }
+
+      var node = root;
+      for (int charIndex = 0; charIndex < prefix.length(); ++charIndex) {
+        node = node.childOrCreate(prefix.charAt(charIndex));
+      }
+      if (node.value >= 0) {
+        throw new IllegalArgumentException(
+          "The prefix %s is repeated.".formatted(prefix));
+      }
+      node.value = index;
+    }
+    return new VPrefixTrie(root);
+  }
+
+  /**
+   * @param name The name
+   *
+   * @return The index of the longest prefix of the name, or {@code -1}
+   */
+
+  int find(
+    final String name)
+  {
+    var node = this.root;
+    var found = -1;
+    final var length = name.length();
+    for (int index = 0; index < length; ++index) {
+      node = node.child(name.charAt(index));
+      if (node == null) {
+        return found;
+      }
+      if (node.value >= 0) {
+        found = node.value;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * @param data  The buffer
+   * @param start The start of the name
+   * @param end   The end of the name (exclusive)
+   *
+   * @return The index of the longest prefix of the name, interpreting each
+   * byte as a single ISO-8859-1 character, or {@code -1}
+   */
+
+  int find(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    var node = this.root;
+    var found = -1;
+    for (int index = start; index < end; ++index) {
+      node = node.child((char) (data.get(index) & 0xff));
+      if (node == null) {
+        return found;
+      }
+      if (node.value >= 0) {
+        found = node.value;
+      }
+    }
+    return found;
+  }
+}
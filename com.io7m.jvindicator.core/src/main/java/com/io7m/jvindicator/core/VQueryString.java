@@ -0,0 +1,331 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single-pass parser for URL-encoded query strings, held either as
+ * strings or as raw bytes.
+ */
+
+final class VQueryString
+{
+  private VQueryString()
+  {
+
+  }
+
+  static void deliver(
+    final String query,
+    final VInputSinkType sink)
+  {
+    final var length = query.length();
+    var start = 0;
+
+    while (start <= length) {
+      var end = query.indexOf('&', start);
+      if (end < 0) {
+        end = length;
+      }
+      if (end > start && !deliverPair(query, start, end, sink)) {
+        return;
+      }
+      start = end + 1;
+    }
+  }
+
+  private static boolean deliverPair(
+    final String query,
+    final int start,
+    final int end,
+    final VInputSinkType sink)
+  {
+    final var equals = indexOf(query, start, end, '=');
+
+    final var name = decode(query, start, equals);
+    if (name == null) {
+      sink.malformed("The query string contains a malformed name.");
+      return false;
+    }
+
+    final var valueStart = Math.min(equals + 1, end);
+    final var index = sink.find(name);
+    if (index < 0) {
+      if (!sink.requiresAllNames()) {
+        return true;
+      }
+      return sink.unknown(name, 1, end - valueStart);
+    }
+
+    final var value = decode(query, valueStart, end);
+    if (value == null) {
+      sink.malformed(
+        "The query string contains a malformed value for the parameter %s."
+          .formatted(name)
+      );
+      return false;
+    }
+    return sink.value(index, value);
+  }
+
+  static void deliver(
+    final ByteBuffer data,
+    final VInputSinkType sink)
+  {
+    final var length = data.limit();
+    var start = data.position();
+
+    while (start <= length) {
+      final var end = indexOf(data, start, length, '&');
+      if (end > start && !deliverPair(data, start, end, sink)) {
+        return;
+      }
+      start = end + 1;
+    }
+  }
+
+  private static boolean deliverPair(
+    final ByteBuffer data,
+    final int start,
+    final int end,
+    final VInputSinkType sink)
+  {
+    final var equals = indexOf(data, start, end, '=');
+    final var valueStart = Math.min(equals + 1, end);
+
+    /*
+     * Names that contain no escapes are looked up directly in the buffer,
+     * so that parameters that are not registered never cause allocation.
+     */
+
+    final int index;
+    if (needsDecoding(data, start, equals)) {
+      final var name = decode(data, start, equals);
+      if (name == null) {
+        sink.malformed("The query string contains a malformed name.");
+        return false;
+      }
+      index = sink.find(name);
+    } else {
+      index = sink.find(data, start, equals);
+    }
+
+    if (index < 0) {
+      if (!sink.requiresAllNames()) {
+        return true;
+      }
+      return sink.unknown(
+        decodeName(data, start, equals), 1, end - valueStart);
+    }
+
+    final var value = decode(data, valueStart, end);
+    if (value == null) {
+      sink.malformed(
+        "The query string contains a malformed value for the parameter %s."
+          .formatted(sink.parameterName(index))
+      );
+      return false;
+    }
+    return sink.value(index, value);
+  }
+
+  private static String decodeName(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    final var name = decode(data, start, end);
+    if (name == null) {
+      return StandardCharsets.ISO_8859_1.decode(
+        data.slice(start, end - start)).toString();
+    }
+    return name;
+  }
+
+  private static int indexOf(
+    final String query,
+    final int start,
+    final int end,
+    final char c)
+  {
+    for (int index = start; index < end; ++index) {
+      if (query.charAt(index) == c) {
+        return index;
+      }
+    }
+    return end;
+  }
+
+  private static int indexOf(
+    final ByteBuffer data,
+    final int start,
+    final int end,
+    final char c)
+  {
+    for (int index = start; index < end; ++index) {
+      if (data.get(index) == c) {
+        return index;
+      }
+    }
+    return end;
+  }
+
+  private static boolean needsDecoding(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    for (int index = start; index < end; ++index) {
+      final var c = data.get(index);
+      if (c == '%' || c == '+' || c < 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Decode the given range of the given buffer. The bytes are
+   * interpreted as percent-encoded UTF-8.
+   *
+   * @param data  The buffer
+   * @param start The start of the range
+   * @param end   The end of the range (exclusive)
+   *
+   * @return The decoded text, or {@code null} if the text is malformed
+   */
+
+  static String decode(
+    final ByteBuffer data,
+    final int start,
+    final int end)
+  {
+    if (!needsDecoding(data, start, end)) {
+      return StandardCharsets.ISO_8859_1.decode(
+        data.slice(start, end - start)).toString();
+    }
+
+    final var bytes = new byte[end - start];
+    var count = 0;
+    var index = start;
+    while (index < end) {
+      final var c = data.get(index);
+      if (c == '+') {
+        bytes[count] = ' ';
+        ++index;
+      } else if (c == '%') {
+        if (index + 2 >= end) {
+          return null;
+        }
+        final var hi = Character.digit(data.get(index + 1), 16);
+        final var lo = Character.digit(data.get(index + 2), 16);
+        if (hi < 0 || lo < 0) {
+          return null;
+        }
+        bytes[count] = (byte) ((hi << 4) | lo);
+        index += 3;
+      } else {
+        bytes[count] = c;
+        ++index;
+      }
+      ++count;
+    }
+    return StandardCharsets.UTF_8.decode(ByteBuffer.wrap(bytes, 0, count))
+      .toString();
+  }
+
+  private static boolean needsDecoding(
+    final String text,
+    final int start,
+    final int end)
+  {
+    for (int index = start; index < end; ++index) {
+      final var c = text.charAt(index);
+      if (c == '%' || c == '+') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Decode the given range of the given text.
+   *
+   * @param text  The text
+   * @param start The start of the range
+   * @param end   The end of the range (exclusive)
+   *
+   * @return The decoded text, or {@code null} if the text is malformed
+   */
+
+  static String decode(
+    final String text,
+    final int start,
+    final int end)
+  {
+    if (!needsDecoding(text, start, end)) {
+      return text.substring(start, end);
+    }
+
+    final var bytes = new ByteArrayOutputStream(end - start);
+    var index = start;
+    while (index < end) {
+      final var c = text.charAt(index);
+      if (c == '+') {
+        bytes.write(' ');
+        ++index;
+      } else if (c == '%') {
+        if (index + 2 >= end) {
+          return null;
+        }
+        final var hi = Character.digit(text.charAt(index + 1), 16);
+        final var lo = Character.digit(text.charAt(index + 2), 16);
+        if (hi < 0 || lo < 0) {
+          return null;
+        }
+        bytes.write((hi << 4) | lo);
+        index += 3;
+      } else {
+        final var next = nextNonEncoded(text, index, end);
+        final var raw = text.substring(index, next);
+        bytes.writeBytes(raw.getBytes(StandardCharsets.UTF_8));
+        index = next;
+      }
+    }
+    return bytes.toString(StandardCharsets.UTF_8);
+  }
+
+  private static int nextNonEncoded(
+    final String text,
+    final int start,
+    final int end)
+  {
+    var index = start;
+    while (index < end) {
+      final var c = text.charAt(index);
+      if (c == '%' || c == '+') {
+        break;
+      }
+      ++index;
+    }
+    return index;
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+/**
+ * Limits on the shape of requests. Limits are checked in a single pass over
+ * the input before any parameter checks are executed, and checking stops at
+ * the first violated limit.
+ *
+ * @param maxParameters         The maximum number of distinct parameter
+ *                              names (including unregistered names)
+ * @param maxValuesPerParameter The maximum number of values for any single
+ *                              parameter name
+ * @param maxValueLength        The maximum length of any single value
+ * @param maxTotalLength        The maximum total length of all parameter
+ *                              names and values
+ *
+ * @see VindicationBuilderType#setRequestLimits(VRequestLimits)
+ */
+
+public record VRequestLimits(
+  int maxParameters,
+  int maxValuesPerParameter,
+  int maxValueLength,
+  long maxTotalLength)
+{
+  /**
+   * The name used in error reports for limits that apply to the request as a
+   * whole rather than to any single parameter.
+   */
+
+  public static final String REQUEST = "(request)";
+
+  private static final VRequestLimits UNLIMITED =
+    new VRequestLimits(
+      Integer.MAX_VALUE,
+      Integer.MAX_VALUE,
+      Integer.MAX_VALUE,
+      Long.MAX_VALUE
+    );
+
+  /**
+   * Limits on the shape of requests.
+   *
+   * @param maxParameters         The maximum number of distinct parameter
+   *                              names (including unregistered names)
+   * @param maxValuesPerParameter The maximum number of values for any single
+   *                              parameter name
+   * @param maxValueLength        The maximum length of any single value
+   * @param maxTotalLength        The maximum total length of all parameter
+   *                              names and values
+   */
+
+  public VRequestLimits
+  {
+    checkPositive(maxParameters, "maxParameters");
+    checkPositive(maxValuesPerParameter, "maxValuesPerParameter");
+    checkPositive(maxValueLength, "maxValueLength");
+    checkPositive(maxTotalLength, "maxTotalLength");
+  }
+
+  private static void checkPositive(
+    final long value,
+    final String name)
+  {
+    if (value <= 0L) {
+      throw new IllegalArgumentException(
+        "%s must be positive (received %d)".formatted(name, value));
+    }
+  }
+
+  /**
+   * @return Limits that permit everything
+   */
+
+  public static VRequestLimits unlimited()
+  {
+    return UNLIMITED;
+  }
+
+  /**
+   * @return {@code true} if these limits permit everything
+   */
+
+  public boolean isUnlimited()
+  {
+    return this.equals(UNLIMITED);
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A named schema declared in a registry. Builders are not thread-safe, and
+ * so the registry calls {@code definition} to populate each builder in the
+ * pool of builders that it holds for the schema.
+ *
+ * @param name       The schema name
+ * @param definition A function that registers parameters on a builder
+ * @param samples    Sample inputs that the schema accepts, used for warm-up
+ *
+ * @see VSchemaRegistry
+ */
+
+public record VSchema(
+  String name,
+  Consumer<VindicationBuilderType<Exception>> definition,
+  List<Map<String, List<String>>> samples)
+{
+  /**
+   * A named schema declared in a registry.
+   *
+   * @param name       The schema name
+   * @param definition A function that registers parameters on a builder
+   * @param samples    Sample inputs that the schema accepts, used for warm-up
+   */
+
+  public VSchema
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(definition, "definition");
+    samples = List.copyOf(samples);
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.core;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A builder borrowed from the pool of a schema in a registry. The builder
+ * may be used by one thread at a time until the lease is closed, at which
+ * point it is returned to the pool and must no longer be used. Closing a
+ * lease more than once has no effect.
+ *
+ * @see VSchemaRegistry#borrow(String)
+ */
+
+public final class VSchemaLease implements AutoCloseable
+{
+  private final VindicationBuilderType<Exception> builder;
+  private final Consumer<VindicationBuilderType<Exception>> onClose;
+  private boolean closed;
+
+  VSchemaLease(
+    final VindicationBuilderType<Exception> inBuilder,
+    final Consumer<VindicationBuilderType<Exception>> inOnClose)
+  {
+    this.builder =
+      Objects.requireNonNull(inBuilder, "builder");
+    this.onClose =
+      Objects.requireNonNull(inOnClose, "onClose");
+  }
+
+  /**
+   * @return The borrowed builder
+   *
+   * @throws IllegalStateException If the lease has been closed
+   */
+
+  public VindicationBuilderType<Exception> builder()
+    throws IllegalStateException
+  {
+    if (this.closed) {
+      throw new IllegalStateException("The lease has been closed.");
+    }
+    return this.builder;
+  }
+
+  /**
+   * Return the builder to the pool.
+   */
+
+  @Override
+  public void close()
+  {
+    if (!this.closed) {
+      this.closed = true;
+      this.onClose.accept(this.builder);
+    }
+  }
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A registry of schemas that are declared and compiled once at startup.
+ *
+ * <p>Builders are not thread-safe, and so the registry holds a bounded pool
+ * of builders for each schema, which callers borrow for the duration of a
+ * check and then return. The first builder of each schema is defined and
+ * compiled when the registry is created, and the time taken is reported as
+ * the compile time of the schema. Further builders are defined only when
+ * every pooled builder is in use, up to the size of the pool, and so the
+ * number of definitions is bounded regardless of the number of threads
+ * that perform checks. Callers that find every builder in use and the pool
+ * at its size wait for a builder to be returned.</p>
+ *
+ * <p>The optional warm-up routine runs each schema against its samples, and
+ * against invalid samples generated from them, so that the code paths used
+ * by checks are compiled by the JIT before traffic arrives. Warm-up uses
+ * pooled builders, and so the builders it warms are those later borrowed
+ * by callers.</p>
+ */
+
+public final class VSchemaRegistry
+{
+  private static final List<String> INVALID_VALUES =
+    List.of("", "-", "\u0000", "9".repeat(40));
+
+  private final Map<String, Entry> entries;
+
+  private VSchemaRegistry(
+    final Map<String, Entry> inEntries)
+  {
+    this.entries =
+      Objects.requireNonNull(inEntries, "entries");
+  }
+
+  /**
+   * Create a registry with pools of one builder per available processor,
+   * defining and compiling the first builder of each schema on the calling
+   * thread.
+   *
+   * @param schemas The schemas
+   *
+   * @return A registry
+   *
+   * @throws IllegalArgumentException If two schemas have the same name
+   */
+
+  public static VSchemaRegistry create(
+    final List<VSchema> schemas)
+    throws IllegalArgumentException
+  {
+    return create(schemas, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create a registry, defining and compiling the first builder of each
+   * schema on the calling thread.
+   *
+   * @param schemas  The schemas
+   * @param poolSize The maximum number of builders held for each schema
+   *
+   * @return A registry
+   *
+   * @throws IllegalArgumentException If two schemas have the same name, or
+   *                                  the pool size is not positive
+   */
+
+  public static VSchemaRegistry create(
+    final List<VSchema> schemas,
+    final int poolSize)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(schemas, "schemas");
+
+    if (poolSize < 1) {
+      throw new IllegalArgumentException(
+        "The pool size %d must be positive.".formatted(poolSize));
+    }
+
+    final var entries = new LinkedHashMap<String, Entry>(schemas.size());
+    for (final var schema : schemas) {
+      if (entries.containsKey(schema.name())) {
+        throw new IllegalArgumentException(
+          "A schema named %s has already been declared."
+            .formatted(schema.name()));
+      }
+
+      final var entry = new Entry(schema, poolSize);
+      entry.compileFirst();
+      entries.put(schema.name(), entry);
+    }
+    return new VSchemaRegistry(entries);
+  }
+
+  /**
+   * @return The names of the declared schemas, in declaration order
+   */
+
+  public List<String> names()
+  {
+    return List.copyOf(this.entries.keySet());
+  }
+
+  /**
+   * Borrow a builder for the given schema. The builder must not be shared
+   * with other threads, and must not be used after the lease is closed.
+   * If every builder in the pool is in use and the pool is at its size, the
+   * calling thread waits until a builder is returned.
+   *
+   * @param name The schema name
+   *
+   * @return A lease on a builder
+   *
+   * @throws IllegalArgumentException If no such schema has been declared
+   * @throws InterruptedException     If the calling thread is interrupted
+   *                                  while waiting for a builder
+   */
+
+  public VSchemaLease borrow(
+    final String name)
+    throws IllegalArgumentException, InterruptedException
+  {
+    final var entry = this.entry(name);
+    return new VSchemaLease(entry.take(), entry::release);
+  }
+
+  private Entry entry(
+    final String name)
+  {
+    Objects.requireNonNull(name, "name");
+
+    final var entry = this.entries.get(name);
+    if (entry == null) {
+      throw new IllegalArgumentException(
+        "No schema named %s has been declared.".formatted(name));
+    }
+    return entry;
+  }
+
+  /**
+   * Warm up every schema on the calling thread, using a builder borrowed
+   * from the pool of each schema. Each schema is checked against each of
+   * its samples, and against invalid samples generated by removing each
+   * parameter from a sample and by replacing the values of each parameter
+   * with malformed values, {@code iterations} times. Asynchronous checks
+   * are executed as usual.
+   *
+   * @param iterations The number of times to check each sample
+   *
+   * @throws IllegalArgumentException If the number of iterations is negative
+   * @throws IllegalStateException    If a schema rejects one of its samples
+   * @throws InterruptedException     If the calling thread is interrupted
+   *                                  while waiting for a builder
+   */
+
+  public void warmUp(
+    final int iterations)
+    throws IllegalArgumentException, IllegalStateException, InterruptedException
+  {
+    if (iterations < 0) {
+      throw new IllegalArgumentException(
+        "The number of iterations must be non-negative (received %d)."
+          .formatted(iterations));
+    }
+
+    for (final var entry : this.entries.values()) {
+      entry.warmUp(iterations);
+    }
+  }
+
+  /**
+   * @return The startup cost of each schema, in declaration order
+   */
+
+  public List<VSchemaStatistics> statistics()
+  {
+    final var results = new ArrayList<VSchemaStatistics>(this.entries.size());
+    for (final var entry : this.entries.values()) {
+      results.add(entry.statistics());
+    }
+    return List.copyOf(results);
+  }
+
+  private static List<Map<String, List<String>>> invalidSamples(
+    final List<Map<String, List<String>>> samples)
+  {
+    final var results = new ArrayList<Map<String, List<String>>>();
+    results.add(Map.of());
+
+    for (final var sample : samples) {
+      for (final var name : sample.keySet()) {
+        final var without = new LinkedHashMap<>(sample);
+        without.remove(name);
+        results.add(without);
+
+        for (final var value : INVALID_VALUES) {
+          final var replaced = new LinkedHashMap<>(sample);
+          replaced.put(name, List.of(value));
+          results.add(replaced);
+        }
+      }
+    }
+    return results;
+  }
+
+  private static final class Entry
+  {
+    private final VSchema schema;
+    private final ArrayBlockingQueue<VindicationBuilderType<Exception>> idle;
+    private final AtomicInteger created;
+    private final int poolSize;
+    private final List<Map<String, List<String>>> invalid;
+    private volatile Duration compileTime;
+    private volatile Duration warmUpTime;
+    private volatile long warmUpChecks;
+    private volatile long warmUpRejects;
+
+    Entry(
+      final VSchema inSchema,
+      final int inPoolSize)
+    {
+      this.schema =
+        Objects.requireNonNull(inSchema, "schema");
+      this.poolSize =
+        inPoolSize;
+      this.idle =
+        new ArrayBlockingQueue<>(inPoolSize);
+      this.created =
+        new AtomicInteger();
+      this.invalid =
+        invalidSamples(inSchema.samples());
+      this.compileTime =
+        Duration.ZERO;
+      this.warmUpTime =
+        Duration.ZERO;
+    }
+
+    private VindicationBuilderType<Exception> define()
+    {
+      final var builder = Vindication.start();
+      builder.setName(this.schema.name());
+      this.schema.definition().accept(builder);
+      builder.compile();
+      return builder;
+    }
+
+    void compileFirst()
+    {
+      final var timeThen = System.nanoTime();
+      final var builder = this.define();
+      this.compileTime = Duration.ofNanos(System.nanoTime() - timeThen);
+      this.created.set(1);
+      this.idle.add(builder);
+    }
+
+    VindicationBuilderType<Exception> take()
+      throws InterruptedException
+    {
+      final var builder = this.idle.poll();
+      if (builder != null) {
+        return builder;
+      }
+
+      final var size = this.poolSize;
+      if (this.created.getAndUpdate(n -> n < size ? n + 1 : n) < size) {
+        try {
+          return this.define();
+        } catch (final RuntimeException e) {
+          this.created.decrementAndGet();
+          throw e;
+        }
+      }
+      return this.idle.take();
+    }
+
+    void release(
+      final VindicationBuilderType<Exception> builder)
+    {
+      this.idle.add(builder);
+    }
+
+    void warmUp(
+      final int iterations)
+      throws InterruptedException
+    {
+      final var builder = this.take();
+      try {
+        this.warmUpWith(builder, iterations);
+      } finally {
+        this.release(builder);
+      }
+    }
+
+    private void warmUpWith(
+      final VindicationBuilderType<Exception> builder,
+      final int iterations)
+    {
+      final var samples = this.schema.samples();
+
+      var checks = 0L;
+      var rejects = 0L;
+      final var timeThen = System.nanoTime();
+      for (int iteration = 0; iteration < iterations; ++iteration) {
+        for (final var sample : samples) {
+          this.checkValid(builder, sample);
+        }
+        for (final var sample : this.invalid) {
+          if (!checkInvalid(builder, sample)) {
+            ++rejects;
+          }
+        }
+        checks += samples.size() + this.invalid.size();
+      }
+
+      this.warmUpTime = Duration.ofNanos(System.nanoTime() - timeThen);
+      this.warmUpChecks = checks;
+      this.warmUpRejects = rejects;
+    }
+
+    private void checkValid(
+      final VindicationBuilderType<Exception> builder,
+      final Map<String, List<String>> sample)
+    {
+      try {
+        builder.check(sample);
+      } catch (final Exception e) {
+        throw new IllegalStateException(
+          "Schema %s rejected one of its own samples: %s"
+            .formatted(this.schema.name(), e.getMessage()),
+          e
+        );
+      }
+    }
+
+    private static boolean checkInvalid(
+      final VindicationBuilderType<Exception> builder,
+      final Map<String, List<String>> sample)
+    {
+      try {
+        builder.check(sample);
+        return true;
+      } catch (final Exception e) {
+        return false;
+      }
+    }
+
+    VSchemaStatistics statistics()
+    {
+      return new VSchemaStatistics(
+        this.schema.name(),
+        this.compileTime,
+        this.warmUpTime,
+        this.warmUpChecks,
+        this.warmUpRejects
+      );
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The startup cost of a schema in a registry.
+ *
+ * @param name          The schema name
+ * @param compileTime   The time taken to define and compile the first
+ *                      builder of the schema
+ * @param warmUpTime    The time taken to warm up the schema, or zero if the
+ *                      schema has not been warmed up
+ * @param warmUpChecks  The number of checks executed during warm-up
+ * @param warmUpRejects The number of generated invalid samples that were
+ *                      rejected during warm-up
+ *
+ * @see VSchemaRegistry#statistics()
+ */
+
+public record VSchemaStatistics(
+  String name,
+  Duration compileTime,
+  Duration warmUpTime,
+  long warmUpChecks,
+  long warmUpRejects)
+{
+  /**
+   * The startup cost of a schema in a registry.
+   *
+   * @param name          The schema name
+   * @param compileTime   The time taken to define and compile the first
+   *                      builder of the schema
+   * @param warmUpTime    The time taken to warm up the schema, or zero if the
+   *                      schema has not been warmed up
+   * @param warmUpChecks  The number of checks executed during warm-up
+   * @param warmUpRejects The number of generated invalid samples that were
+   *                      rejected during warm-up
+   */
+
+  public VSchemaStatistics
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(compileTime, "compileTime");
+    Objects.requireNonNull(warmUpTime, "warmUpTime");
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The result of validating a single input in a validation stage: either a
+ * parsed value, or the exception that rejected the input.
+ *
+ * @param sequence The position of the input in the stream, starting at zero
+ * @param value    The parsed value, if the input was accepted
+ * @param error    The exception, if the input was rejected
+ * @param <R>      The type of parsed values
+ *
+ * @see VValidationProcessor
+ */
+
+public record VValidated<R>(
+  long sequence,
+  Optional<R> value,
+  Optional<Exception> error)
+{
+  /**
+   * The result of validating a single input in a validation stage.
+   *
+   * @param sequence The position of the input in the stream, starting at zero
+   * @param value    The parsed value, if the input was accepted
+   * @param error    The exception, if the input was rejected
+   */
+
+  public VValidated
+  {
+    Objects.requireNonNull(value, "value");
+    Objects.requireNonNull(error, "error");
+
+    if (value.isPresent() == error.isPresent()) {
+      throw new IllegalArgumentException(
+        "Exactly one of a value or an error must be present.");
+    }
+  }
+
+  /**
+   * @param sequence The position of the input in the stream
+   * @param value    The parsed value
+   * @param <R>      The type of parsed values
+   *
+   * @return The result of an accepted input
+   */
+
+  public static <R> VValidated<R> valid(
+    final long sequence,
+    final R value)
+  {
+    return new VValidated<>(sequence, Optional.of(value), Optional.empty());
+  }
+
+  /**
+   * @param sequence The position of the input in the stream
+   * @param error    The exception that rejected the input
+   * @param <R>      The type of parsed values
+   *
+   * @return The result of a rejected input
+   */
+
+  public static <R> VValidated<R> invalid(
+    final long sequence,
+    final Exception error)
+  {
+    return new VValidated<>(sequence, Optional.empty(), Optional.of(error));
+  }
+
+  /**
+   * @return {@code true} if the input was accepted
+   */
+
+  public boolean isValid()
+  {
+    return this.value.isPresent();
+  }
+}
@@ -0,0 +1,487 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A validation stage for reactive pipelines: a processor that checks each
+ * received input against a schema and emits a {@link VValidated} result
+ * for each input, accepted or rejected.
+ *
+ * <p>The schema is given as a definition that registers parameters on a
+ * fresh builder and returns a function that reads the checked parameters
+ * into a result value. Builders are not thread-safe, and so the definition
+ * is evaluated once for each concurrent worker, up to the configured
+ * parallelism, and each builder is only used by one worker at a time.</p>
+ *
+ * <p>The processor respects downstream demand: it requests at most
+ * {@code bufferSize} inputs from upstream ahead of the results consumed
+ * downstream, and requests more only as results are delivered. Checks
+ * that block (such as asynchronous checks awaited by a builder) occupy a
+ * worker on the configured executor for their duration.</p>
+ *
+ * <p>Upstream completion and upstream errors are delivered downstream
+ * after the results of every received input have been delivered.</p>
+ *
+ * @param <R> The type of parsed values
+ *
+ * @see VValidationProcessorConfiguration
+ */
+
+public final class VValidationProcessor<R>
+  implements Flow.Processor<VInputType, VValidated<R>>
+{
+  private final Function<VindicationBuilderType<Exception>, Supplier<R>>
+    definition;
+  private final VValidationProcessorConfiguration configuration;
+  private final ConcurrentLinkedQueue<Worker<R>> workers;
+  private final AtomicInteger wip;
+  private final Object lock;
+  private final ArrayDeque<Task> pending;
+  private final ArrayDeque<VValidated<R>> ready;
+  private final Object[] reorder;
+  private Flow.Subscription upstream;
+  private Flow.Subscriber<? super VValidated<R>> downstream;
+  private boolean subscribing;
+  private long demand;
+  private long received;
+  private long emitted;
+  private int running;
+  private boolean upstreamDone;
+  private Throwable upstreamError;
+  private Throwable failure;
+  private boolean cancelled;
+  private boolean terminated;
+
+  private VValidationProcessor(
+    final Function<VindicationBuilderType<Exception>, Supplier<R>>
+      inDefinition,
+    final VValidationProcessorConfiguration inConfiguration)
+  {
+    this.definition =
+      Objects.requireNonNull(inDefinition, "definition");
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.workers =
+      new ConcurrentLinkedQueue<>();
+    this.wip =
+      new AtomicInteger();
+    this.lock =
+      new Object();
+    this.pending =
+      new ArrayDeque<>(inConfiguration.parallelism());
+    this.ready =
+      new ArrayDeque<>();
+    this.reorder =
+      new Object[inConfiguration.bufferSize()];
+  }
+
+  /**
+   * Create a validation stage.
+   *
+   * @param definition    A function that registers parameters on a builder,
+   *                      and returns a function that reads the checked
+   *                      parameters into a result value
+   * @param configuration The configuration
+   * @param <R>           The type of parsed values
+   *
+   * @return A validation stage
+   */
+
+  public static <R> VValidationProcessor<R> create(
+    final Function<VindicationBuilderType<Exception>, Supplier<R>> definition,
+    final VValidationProcessorConfiguration configuration)
+  {
+    return new VValidationProcessor<>(definition, configuration);
+  }
+
+  @Override
+  public void subscribe(
+    final Flow.Subscriber<? super VValidated<R>> subscriber)
+  {
+    Objects.requireNonNull(subscriber, "subscriber");
+
+    synchronized (this.lock) {
+      if (this.subscribing) {
+        subscriber.onSubscribe(new Rejected());
+        subscriber.onError(new IllegalStateException(
+          "This processor already has a subscriber."));
+        return;
+      }
+      this.subscribing = true;
+    }
+
+    subscriber.onSubscribe(new Downstream());
+
+    synchronized (this.lock) {
+      this.downstream = subscriber;
+    }
+    this.drain();
+  }
+
+  @Override
+  public void onSubscribe(
+    final Flow.Subscription subscription)
+  {
+    Objects.requireNonNull(subscription, "subscription");
+
+    synchronized (this.lock) {
+      if (this.upstream != null || this.cancelled) {
+        subscription.cancel();
+        return;
+      }
+      this.upstream = subscription;
+    }
+    subscription.request(this.configuration.bufferSize());
+  }
+
+  @Override
+  public void onNext(
+    final VInputType item)
+  {
+    Objects.requireNonNull(item, "item");
+
+    synchronized (this.lock) {
+      if (this.upstreamDone || this.isFinished()) {
+        return;
+      }
+      if (this.received - this.emitted >= this.configuration.bufferSize()) {
+        this.failLocked(new IllegalStateException(
+          "Upstream delivered more inputs than were requested."));
+      } else {
+        this.pending.add(new Task(this.received, item));
+        ++this.received;
+      }
+    }
+    this.launch();
+    this.drain();
+  }
+
+  @Override
+  public void onError(
+    final Throwable throwable)
+  {
+    Objects.requireNonNull(throwable, "throwable");
+
+    synchronized (this.lock) {
+      if (this.upstreamDone) {
+        return;
+      }
+      this.upstreamDone = true;
+      this.upstreamError = throwable;
+    }
+    this.drain();
+  }
+
+  @Override
+  public void onComplete()
+  {
+    synchronized (this.lock) {
+      this.upstreamDone = true;
+    }
+    this.drain();
+  }
+
+  private void launch()
+  {
+    final Task task;
+    synchronized (this.lock) {
+      if (this.running >= this.configuration.parallelism()
+          || this.pending.isEmpty()) {
+        return;
+      }
+      task = this.pending.poll();
+      ++this.running;
+    }
+
+    try {
+      this.configuration.executor().execute(() -> this.run(task));
+    } catch (final RejectedExecutionException e) {
+      this.finish(VValidated.invalid(task.sequence, e));
+    }
+  }
+
+  private void run(
+    final Task task)
+  {
+    Worker<R> worker = null;
+    VValidated<R> result;
+    try {
+      worker = this.worker();
+      worker.builder.check(task.input);
+      result = VValidated.valid(task.sequence, worker.extractor.get());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result = VValidated.invalid(task.sequence, e);
+    } catch (final Exception e) {
+      result = VValidated.invalid(task.sequence, e);
+    }
+
+    if (worker != null) {
+      this.workers.offer(worker);
+    }
+    this.finish(result);
+  }
+
+  private Worker<R> worker()
+  {
+    final var existing = this.workers.poll();
+    if (existing != null) {
+      return existing;
+    }
+
+    final var builder = Vindication.start();
+    final var extractor = this.definition.apply(builder);
+    builder.compile();
+    return new Worker<>(builder, extractor);
+  }
+
+  private void finish(
+    final VValidated<R> result)
+  {
+    synchronized (this.lock) {
+      --this.running;
+      if (!this.isFinished()) {
+        if (this.configuration.ordering() == VStreamOrdering.ORDERED) {
+          this.reorder[this.slot(result.sequence())] = result;
+        } else {
+          this.ready.add(result);
+        }
+      }
+    }
+    this.launch();
+    this.drain();
+  }
+
+  private int slot(
+    final long sequence)
+  {
+    return (int) (sequence % this.reorder.length);
+  }
+
+  @SuppressWarnings("unchecked")
+  private VValidated<R> pollReady()
+  {
+    if (this.configuration.ordering() == VStreamOrdering.UNORDERED) {
+      return this.ready.poll();
+    }
+
+    final var slot = this.slot(this.emitted);
+    final var result = (VValidated<R>) this.reorder[slot];
+    this.reorder[slot] = null;
+    return result;
+  }
+
+  private void drain()
+  {
+    if (this.wip.getAndIncrement() != 0) {
+      return;
+    }
+
+    var missed = 1;
+    do {
+      this.emitReady();
+      this.terminateIfDone();
+      missed = this.wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void emitReady()
+  {
+    var count = 0L;
+    Flow.Subscription subscription;
+
+    while (true) {
+      final VValidated<R> next;
+      final Flow.Subscriber<? super VValidated<R>> subscriber;
+
+      synchronized (this.lock) {
+        subscription = this.upstream;
+        subscriber = this.downstream;
+        if (subscriber == null || this.isFinished() || this.demand == 0L) {
+          break;
+        }
+        next = this.pollReady();
+        if (next == null) {
+          break;
+        }
+        if (this.demand != Long.MAX_VALUE) {
+          --this.demand;
+        }
+        ++this.emitted;
+        ++count;
+      }
+      subscriber.onNext(next);
+    }
+
+    if (count > 0L && subscription != null) {
+      subscription.request(count);
+    }
+  }
+
+  /**
+   * Fail the stage. No further results are emitted, and buffered results
+   * are discarded.
+   *
+   * @param error The error delivered downstream
+   */
+
+  private void failLocked(
+    final Throwable error)
+  {
+    if (this.failure != null) {
+      return;
+    }
+    this.failure = error;
+    this.upstreamDone = true;
+    this.pending.clear();
+    this.ready.clear();
+    Arrays.fill(this.reorder, null);
+  }
+
+  private boolean isFinished()
+  {
+    return this.cancelled || this.terminated || this.failure != null;
+  }
+
+  private void terminateIfDone()
+  {
+    final Flow.Subscriber<? super VValidated<R>> subscriber;
+    final Throwable error;
+    final boolean failed;
+
+    synchronized (this.lock) {
+      subscriber = this.downstream;
+      if (subscriber == null || this.terminated || this.cancelled) {
+        return;
+      }
+
+      if (this.failure != null) {
+        error = this.failure;
+      } else if (this.upstreamDone && this.emitted == this.received) {
+        error = this.upstreamError;
+      } else {
+        return;
+      }
+      this.terminated = true;
+      failed = this.failure != null;
+    }
+
+    if (failed) {
+      this.cancelUpstream();
+    }
+    if (error == null) {
+      subscriber.onComplete();
+    } else {
+      subscriber.onError(error);
+    }
+  }
+
+  private void cancelUpstream()
+  {
+    final Flow.Subscription subscription;
+    synchronized (this.lock) {
+      subscription = this.upstream;
+    }
+    if (subscription != null) {
+      subscription.cancel();
+    }
+  }
+
+  private record Task(
+    long sequence,
+    VInputType input)
+  {
+
+  }
+
+  private record Worker<T>(
+    VindicationBuilderType<Exception> builder,
+    Supplier<T> extractor)
+  {
+
+  }
+
+  private static final class Rejected implements Flow.Subscription
+  {
+    Rejected()
+    {
+
+    }
+
+    @Override
+    public void request(
+      final long n)
+    {
+
+    }
+
+    @Override
+    public void cancel()
+    {
+
+    }
+  }
+
+  private final class Downstream implements Flow.Subscription
+  {
+    Downstream()
+    {
+
+    }
+
+    @Override
+    public void request(
+      final long n)
+    {
+      final var processor = VValidationProcessor.this;
+      synchronized (processor.lock) {
+        if (n <= 0L) {
+          processor.failLocked(new IllegalArgumentException(
+            "Requested a non-positive number of items (%d)".formatted(n)));
+        } else {
+          final var sum = processor.demand + n;
+          processor.demand = sum < 0L ? Long.MAX_VALUE : sum;
+        }
+      }
+      processor.drain();
+    }
+
+    @Override
+    public void cancel()
+    {
+      final var processor = VValidationProcessor.this;
+      synchronized (processor.lock) {
+        processor.cancelled = true;
+        processor.pending.clear();
+        processor.ready.clear();
+        Arrays.fill(processor.reorder, null);
+      }
+      processor.cancelUpstream();
+    }
+  }
+}
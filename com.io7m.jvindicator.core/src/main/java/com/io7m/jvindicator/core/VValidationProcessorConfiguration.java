@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The configuration of a validation stage.
+ *
+ * @param parallelism The maximum number of inputs validated concurrently
+ * @param bufferSize  The maximum number of inputs requested from upstream
+ *                    that have not yet been emitted downstream
+ * @param ordering    The order in which results are emitted
+ * @param executor    The executor on which inputs are validated
+ *
+ * @see VValidationProcessor
+ */
+
+public record VValidationProcessorConfiguration(
+  int parallelism,
+  int bufferSize,
+  VStreamOrdering ordering,
+  Executor executor)
+{
+  private static final int DEFAULT_BUFFER_SIZE = 256;
+
+  /**
+   * The configuration of a validation stage.
+   *
+   * @param parallelism The maximum number of inputs validated concurrently
+   * @param bufferSize  The maximum number of inputs requested from upstream
+   *                    that have not yet been emitted downstream
+   * @param ordering    The order in which results are emitted
+   * @param executor    The executor on which inputs are validated
+   */
+
+  public VValidationProcessorConfiguration
+  {
+    Objects.requireNonNull(ordering, "ordering");
+    Objects.requireNonNull(executor, "executor");
+
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException(
+        "parallelism must be positive (received %d)".formatted(parallelism));
+    }
+    if (bufferSize < parallelism) {
+      throw new IllegalArgumentException(
+        "bufferSize %d must be at least the parallelism %d"
+          .formatted(bufferSize, parallelism));
+    }
+  }
+
+  /**
+   * @param ordering The order in which results are emitted
+   *
+   * @return A configuration that validates one input per available processor
+   * on the common pool
+   */
+
+  public static VValidationProcessorConfiguration defaults(
+    final VStreamOrdering ordering)
+  {
+    final var parallelism = Runtime.getRuntime().availableProcessors();
+    return new VValidationProcessorConfiguration(
+      parallelism,
+      Math.max(parallelism, DEFAULT_BUFFER_SIZE),
+      ordering,
+      ForkJoinPool.commonPool()
+    );
+  }
+}
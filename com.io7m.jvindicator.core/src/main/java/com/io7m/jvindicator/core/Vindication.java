@@ -17,15 +17,18 @@
 package com.io7m.jvindicator.core;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
 
 /**
  * Functions to validate servlet arguments.
@@ -33,21 +36,37 @@ import java.util.function.Function;
 
 public final class Vindication
 {
-  private static final String ERROR_MISSING =
-    "The parameter is required but was missing.";
-
   private Vindication()
   {
 
   }
 
+  /**
+   * Declare the relative cost of the given check.
+   *
+   * @param cost  The cost
+   * @param check The check
+   * @param <T>   The type of returned values
+   *
+   * @return A check with the given declared cost
+   *
+   * @see VCheckOrdering
+   */
+
+  public static <T> VParameterCheckType<T> withCost(
+    final VCheckCost cost,
+    final VParameterCheckType<T> check)
+  {
+    return new CostedCheck<>(cost, check);
+  }
+
   /**
    * @return A parameter check that simply returns the string
    */
 
   public static VParameterCheckType<String> strings()
   {
-    return value -> value;
+    return withCost(VCheckCost.TRIVIAL, value -> value);
   }
 
   /**
@@ -56,16 +75,19 @@ public final class Vindication
 
   public static VParameterCheckType<Boolean> booleans()
   {
-    return value -> {
-      return switch (value) {
-        case "true" -> Boolean.TRUE;
-        case "false" -> Boolean.FALSE;
-        default -> throw new IllegalArgumentException(
-          "Could not parse the value %s as a boolean."
-            .formatted(value)
-        );
-      };
-    };
+    return withCost(
+      VCheckCost.TRIVIAL,
+      value -> {
+        return switch (value) {
+          case "true" -> Boolean.TRUE;
+          case "false" -> Boolean.FALSE;
+          default -> throw new VCheckFailure(
+            VMessageKey.BOOLEAN_INVALID,
+            value
+          );
+        };
+      }
+    );
   }
 
   /**
@@ -74,16 +96,20 @@ public final class Vindication
 
   public static VParameterCheckType<UUID> uuids()
   {
-    return value -> {
-      try {
-        return UUID.fromString(value);
-      } catch (final IllegalArgumentException e) {
-        throw new IllegalArgumentException(
-          "Could not parse the value %s as a UUID: %s"
-            .formatted(value, e.getMessage())
-        );
+    return withCost(
+      VCheckCost.CHEAP,
+      value -> {
+        try {
+          return UUID.fromString(value);
+        } catch (final IllegalArgumentException e) {
+          throw new VCheckFailure(
+            VMessageKey.UUID_INVALID,
+            value,
+            e.getMessage()
+          );
+        }
       }
-    };
+    );
   }
 
   /**
@@ -92,7 +118,7 @@ public final class Vindication
 
   public static VParameterCheckType<OffsetDateTime> offsetDateTimes()
   {
-    return OffsetDateTime::parse;
+    return withCost(VCheckCost.EXPENSIVE, OffsetDateTime::parse);
   }
 
   /**
@@ -101,16 +127,19 @@ public final class Vindication
 
   public static VParameterCheckType<BigInteger> integerBig()
   {
-    return value -> {
-      try {
-        return new BigInteger(value);
-      } catch (final NumberFormatException e) {
-        throw new NumberFormatException(
-          "Could not parse the value %s as an integer."
-            .formatted(value)
-        );
+    return withCost(
+      VCheckCost.EXPENSIVE,
+      value -> {
+        try {
+          return new BigInteger(value);
+        } catch (final NumberFormatException e) {
+          throw new VNumberCheckFailure(
+            VMessageKey.INTEGER_INVALID,
+            value
+          );
+        }
       }
-    };
+    );
   }
 
   /**
@@ -119,16 +148,12 @@ public final class Vindication
 
   public static VParameterCheckType<Integer> integerUnsigned()
   {
-    return value -> {
-      try {
-        return Integer.valueOf(Integer.parseUnsignedInt(value));
-      } catch (final NumberFormatException e) {
-        throw new NumberFormatException(
-          "Could not parse the value %s as an unsigned integer."
-            .formatted(value)
-        );
+    return withCost(
+      VCheckCost.CHEAP,
+      value -> {
+        return Integer.valueOf(parseUnsignedInt(value));
       }
-    };
+    );
   }
 
   /**
@@ -137,16 +162,12 @@ public final class Vindication
 
   public static VParameterCheckType<Long> integerUnsignedLong()
   {
-    return value -> {
-      try {
-        return Long.valueOf(Long.parseUnsignedLong(value));
-      } catch (final NumberFormatException e) {
-        throw new NumberFormatException(
-          "Could not parse the value %s as an unsigned integer."
-            .formatted(value)
-        );
+    return withCost(
+      VCheckCost.CHEAP,
+      value -> {
+        return Long.valueOf(parseUnsignedLong(value));
       }
-    };
+    );
   }
 
   /**
@@ -155,51 +176,774 @@ public final class Vindication
 
   public static VParameterCheckType<Integer> integerSigned()
   {
+    return withCost(
+      VCheckCost.CHEAP,
+      value -> {
+        return Integer.valueOf(parseSignedInt(value));
+      }
+    );
+  }
+
+  /**
+   * @return A signed integer parser
+   */
+
+  public static VParameterCheckType<Long> integerSignedLong()
+  {
+    return withCost(
+      VCheckCost.CHEAP,
+      value -> {
+        return Long.valueOf(parseSignedLong(value));
+      }
+    );
+  }
+
+  /**
+   * @return A floating point parser
+   */
+
+  public static VParameterCheckType<Double> doubles()
+  {
+    return withCost(
+      VCheckCost.MODERATE,
+      value -> {
+        try {
+          return Double.valueOf(Double.parseDouble(value));
+        } catch (final NumberFormatException e) {
+          throw new VNumberCheckFailure(
+            VMessageKey.FLOATING_INVALID,
+            value
+          );
+        }
+      }
+    );
+  }
+
+  /**
+   * A signed integer parser that additionally requires values to be in the
+   * inclusive range {@code [min, max]}. The comparison is performed on the
+   * primitive value.
+   *
+   * @param min The inclusive lower bound
+   * @param max The inclusive upper bound
+   *
+   * @return A signed integer parser
+   *
+   * @throws IllegalArgumentException If {@code min > max}
+   */
+
+  public static VParameterCheckType<Integer> inRange(
+    final int min,
+    final int max)
+    throws IllegalArgumentException
+  {
+    checkRange(min, max);
+
+    return withCost(
+      VCheckCost.CHEAP,
+      value -> {
+        final var x = parseSignedInt(value);
+        if (x < min || x > max) {
+          throw errorRange(value, min, max);
+        }
+        return Integer.valueOf(x);
+      }
+    );
+  }
+
+  /**
+   * A signed integer parser that additionally requires values to be in the
+   * inclusive range {@code [min, max]}. The comparison is performed on the
+   * primitive value.
+   *
+   * @param min The inclusive lower bound
+   * @param max The inclusive upper bound
+   *
+   * @return A signed integer parser
+   *
+   * @throws IllegalArgumentException If {@code min > max}
+   */
+
+  public static VParameterCheckType<Long> inRange(
+    final long min,
+    final long max)
+    throws IllegalArgumentException
+  {
+    checkRange(min, max);
+
+    return withCost(
+      VCheckCost.CHEAP,
+      value -> {
+        final var x = parseSignedLong(value);
+        if (x < min || x > max) {
+          throw errorRange(value, min, max);
+        }
+        return Long.valueOf(x);
+      }
+    );
+  }
+
+  /**
+   * A signed integer parser that produces unboxed {@code int} values.
+   *
+   * @return A signed integer parser
+   *
+   * @see VindicationBuilderType#addRequiredIntParameter(String, VParameterIntCheckType)
+   */
+
+  public static VParameterIntCheckType primitiveInts()
+  {
+    return Vindication::parseSignedInt;
+  }
+
+  /**
+   * A signed integer parser that produces unboxed {@code int} values, and
+   * additionally requires values to be in the inclusive range
+   * {@code [min, max]}.
+   *
+   * @param min The inclusive lower bound
+   * @param max The inclusive upper bound
+   *
+   * @return A signed integer parser
+   *
+   * @throws IllegalArgumentException If {@code min > max}
+   */
+
+  public static VParameterIntCheckType primitiveIntsInRange(
+    final int min,
+    final int max)
+    throws IllegalArgumentException
+  {
+    checkRange(min, max);
+
     return value -> {
-      try {
-        return Integer.valueOf(Integer.parseInt(value));
-      } catch (final NumberFormatException e) {
-        throw new NumberFormatException(
-          "Could not parse the value %s as a signed integer."
-            .formatted(value)
-        );
+      final var x = parseSignedInt(value);
+      if (x < min || x > max) {
+        throw errorRange(value, min, max);
       }
+      return x;
     };
   }
 
   /**
+   * A signed integer parser that produces unboxed {@code long} values.
+   *
    * @return A signed integer parser
+   *
+   * @see VindicationBuilderType#addRequiredLongParameter(String, VParameterLongCheckType)
    */
 
-  public static VParameterCheckType<Long> integerSignedLong()
+  public static VParameterLongCheckType primitiveLongs()
   {
+    return Vindication::parseSignedLong;
+  }
+
+  /**
+   * A signed integer parser that produces unboxed {@code long} values, and
+   * additionally requires values to be in the inclusive range
+   * {@code [min, max]}.
+   *
+   * @param min The inclusive lower bound
+   * @param max The inclusive upper bound
+   *
+   * @return A signed integer parser
+   *
+   * @throws IllegalArgumentException If {@code min > max}
+   */
+
+  public static VParameterLongCheckType primitiveLongsInRange(
+    final long min,
+    final long max)
+    throws IllegalArgumentException
+  {
+    checkRange(min, max);
+
     return value -> {
-      try {
-        return Long.valueOf(Long.parseLong(value));
-      } catch (final NumberFormatException e) {
-        throw new NumberFormatException(
-          "Could not parse the value %s as a signed integer."
-            .formatted(value)
-        );
+      final var x = parseSignedLong(value);
+      if (x < min || x > max) {
+        throw errorRange(value, min, max);
       }
+      return x;
     };
   }
 
   /**
-   * @return A floating point parser
+   * A boolean parser that produces unboxed {@code boolean} values.
+   *
+   * @return A boolean parser
+   *
+   * @see VindicationBuilderType#addRequiredBooleanParameter(String, VParameterBooleanCheckType)
    */
 
-  public static VParameterCheckType<Double> doubles()
+  public static VParameterBooleanCheckType primitiveBooleans()
   {
     return value -> {
-      try {
-        return Double.valueOf(Double.parseDouble(value));
-      } catch (final NumberFormatException e) {
-        throw new NumberFormatException(
-          "Could not parse the value %s as a floating point value."
-            .formatted(value)
+      return switch (value) {
+        case "true" -> true;
+        case "false" -> false;
+        default -> throw new VCheckFailure(
+          VMessageKey.BOOLEAN_INVALID,
+          value
         );
+      };
+    };
+  }
+
+  private static int parseSignedInt(
+    final String value)
+  {
+    final var x = VDecimal.parseInt(value);
+    if (VDecimal.statusOfInt(x) != VDecimalStatus.VALID) {
+      throw new VNumberCheckFailure(
+        VMessageKey.INTEGER_SIGNED_INVALID,
+        value
+      );
+    }
+    return (int) x;
+  }
+
+  private static int parseUnsignedInt(
+    final String value)
+  {
+    final var x = VDecimal.parseUnsignedInt(value);
+    if (VDecimal.statusOfInt(x) != VDecimalStatus.VALID) {
+      throw new VNumberCheckFailure(
+        VMessageKey.INTEGER_UNSIGNED_INVALID,
+        value
+      );
+    }
+    return (int) x;
+  }
+
+  private static long parseSignedLong(
+    final String value)
+  {
+    final var x = VDecimal.parseLong(value);
+    if (x == VDecimal.LONG_FAILED
+      && VDecimal.checkLong(value) != VDecimalStatus.VALID) {
+      throw new VNumberCheckFailure(
+        VMessageKey.INTEGER_SIGNED_INVALID,
+        value
+      );
+    }
+    return x;
+  }
+
+  private static long parseUnsignedLong(
+    final String value)
+  {
+    final var x = VDecimal.parseUnsignedLong(value);
+    if (x == VDecimal.LONG_FAILED
+      && VDecimal.checkUnsignedLong(value) != VDecimalStatus.VALID) {
+      throw new VNumberCheckFailure(
+        VMessageKey.INTEGER_UNSIGNED_INVALID,
+        value
+      );
+    }
+    return x;
+  }
+
+  private static void checkRange(
+    final long min,
+    final long max)
+  {
+    if (min > max) {
+      throw new IllegalArgumentException(
+        "The lower bound %d must be <= the upper bound %d."
+          .formatted(Long.valueOf(min), Long.valueOf(max))
+      );
+    }
+  }
+
+  private static IllegalArgumentException errorRange(
+    final String value,
+    final long min,
+    final long max)
+  {
+    return new VCheckFailure(
+      VMessageKey.VALUE_OUT_OF_RANGE,
+      value,
+      Long.valueOf(min),
+      Long.valueOf(max)
+    );
+  }
+
+  /**
+   * A string check that requires the length of values to be in the
+   * inclusive range {@code [min, max]}.
+   *
+   * @param min The inclusive minimum length
+   * @param max The inclusive maximum length
+   *
+   * @return A string check
+   *
+   * @throws IllegalArgumentException If {@code min > max} or {@code min < 0}
+   */
+
+  public static VParameterCheckType<String> lengthBetween(
+    final int min,
+    final int max)
+    throws IllegalArgumentException
+  {
+    checkLengthRange(min, max);
+
+    return withCost(
+      VCheckCost.TRIVIAL,
+      value -> {
+        checkLength(value, min, max);
+        return value;
+      }
+    );
+  }
+
+  private static void checkLengthRange(
+    final int min,
+    final int max)
+  {
+    checkRange(min, max);
+    if (min < 0) {
+      throw new IllegalArgumentException(
+        "The minimum length %d must be non-negative."
+          .formatted(Integer.valueOf(min))
+      );
+    }
+  }
+
+  private static void checkLength(
+    final String value,
+    final int min,
+    final int max)
+  {
+    final var length = value.length();
+    if (length < min || length > max) {
+      throw new VCheckFailure(
+        VMessageKey.LENGTH_OUT_OF_RANGE,
+        Integer.valueOf(length),
+        Integer.valueOf(min),
+        Integer.valueOf(max)
+      );
+    }
+  }
+
+  /**
+   * A string check that requires values to match the given regular
+   * expression. The expression is compiled once, when this method is called.
+   * The length of each value is checked against {@code maxLength} before the
+   * expression is evaluated, bounding the cost of evaluation.
+   *
+   * @param regex     The regular expression
+   * @param maxLength The maximum length of values
+   *
+   * @return A string check
+   *
+   * @throws IllegalArgumentException If the expression is invalid, or
+   *                                  {@code maxLength < 0}
+   */
+
+  public static VParameterCheckType<String> matching(
+    final String regex,
+    final int maxLength)
+    throws IllegalArgumentException
+  {
+    return matching(Pattern.compile(regex), maxLength);
+  }
+
+  /**
+   * A string check that requires values to match the given pattern. The
+   * length of each value is checked against {@code maxLength} before the
+   * pattern is evaluated, bounding the cost of evaluation.
+   *
+   * @param pattern   The pattern
+   * @param maxLength The maximum length of values
+   *
+   * @return A string check
+   *
+   * @throws IllegalArgumentException If {@code maxLength < 0}
+   */
+
+  public static VParameterCheckType<String> matching(
+    final Pattern pattern,
+    final int maxLength)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(pattern, "pattern");
+    checkLengthRange(0, maxLength);
+
+    return withCost(
+      VCheckCost.MODERATE,
+      value -> {
+        checkLength(value, 0, maxLength);
+        if (!pattern.matcher(value).matches()) {
+          throw new VCheckFailure(
+            VMessageKey.PATTERN_MISMATCH,
+            value,
+            pattern
+          );
+        }
+        return value;
+      }
+    );
+  }
+
+  /**
+   * A string check that requires values to be one of the given values.
+   *
+   * @param values The permitted values
+   *
+   * @return A string check
+   *
+   * @throws IllegalArgumentException If no values are provided, or a value
+   *                                  is duplicated
+   */
+
+  public static VParameterCheckType<String> oneOf(
+    final String... values)
+    throws IllegalArgumentException
+  {
+    final var entries = new LinkedHashMap<String, String>(values.length);
+    for (final var value : values) {
+      Objects.requireNonNull(value, "value");
+      if (entries.put(value, value) != null) {
+        throw new IllegalArgumentException(
+          "The value %s is duplicated.".formatted(value));
       }
+    }
+    return lookup(VLookupTable.create(entries, false));
+  }
+
+  /**
+   * A parser for the constants of the given enum type. Values must exactly
+   * match the name of a constant.
+   *
+   * @param type The enum type
+   * @param <E>  The type of enum
+   *
+   * @return An enum parser
+   */
+
+  public static <E extends Enum<E>> VParameterCheckType<E> enums(
+    final Class<E> type)
+  {
+    return lookup(VLookupTable.create(enumConstants(type), false));
+  }
+
+  /**
+   * A parser for the constants of the given enum type. Values must match the
+   * name of a constant, ignoring case. Matching does not allocate.
+   *
+   * @param type The enum type
+   * @param <E>  The type of enum
+   *
+   * @return An enum parser
+   *
+   * @throws IllegalArgumentException If two constant names differ only in
+   *                                  case
+   */
+
+  public static <E extends Enum<E>> VParameterCheckType<E> enumsIgnoringCase(
+    final Class<E> type)
+    throws IllegalArgumentException
+  {
+    return lookup(VLookupTable.create(enumConstants(type), true));
+  }
+
+  private static <E extends Enum<E>> Map<String, E> enumConstants(
+    final Class<E> type)
+  {
+    Objects.requireNonNull(type, "type");
+
+    final var constants = type.getEnumConstants();
+    final var entries = new LinkedHashMap<String, E>(constants.length);
+    for (final var constant : constants) {
+      entries.put(constant.name(), constant);
+    }
+    return entries;
+  }
+
+  /**
+   * A parser for a closed set of values. Each key of {@code values} is a
+   * permitted input, and is mapped to the associated value. Multiple keys
+   * may be mapped to the same value in order to specify aliases.
+   *
+   * @param values The permitted values
+   * @param <T>    The type of returned values
+   *
+   * @return A parser
+   *
+   * @throws IllegalArgumentException If no values are provided
+   */
+
+  public static <T> VParameterCheckType<T> closedSet(
+    final Map<String, ? extends T> values)
+    throws IllegalArgumentException
+  {
+    return lookup(VLookupTable.create(values, false));
+  }
+
+  /**
+   * A parser for a closed set of values. Each key of {@code values} is a
+   * permitted input (ignoring case), and is mapped to the associated value.
+   * Multiple keys may be mapped to the same value in order to specify
+   * aliases. Matching does not allocate.
+   *
+   * @param values The permitted values
+   * @param <T>    The type of returned values
+   *
+   * @return A parser
+   *
+   * @throws IllegalArgumentException If no values are provided, or two keys
+   *                                  differ only in case
+   */
+
+  public static <T> VParameterCheckType<T> closedSetIgnoringCase(
+    final Map<String, ? extends T> values)
+    throws IllegalArgumentException
+  {
+    return lookup(VLookupTable.create(values, true));
+  }
+
+  /**
+   * A string check that returns a canonical instance of each value, for
+   * parameters with few distinct values. Each check holds its own bounded
+   * table of canonical strings, shared by every thread that uses the check,
+   * and so a new check should be created for each parameter. A value is
+   * admitted to the table the second time it is seen; values that are seen
+   * only once, and values longer than {@code maxLength}, are never admitted.
+   * The table holds at most {@code maxEntries} values, and values that stop
+   * recurring age out and are replaced by values that need room, so values
+   * sent to fill the table cannot keep out the values that legitimately
+   * recur. Values that are not in the table are returned unchanged.
+   * Returning a value that is already in the table does not allocate.
+   *
+   * @param maxEntries The maximum number of canonical values
+   * @param maxLength  The maximum length of canonical values
+   *
+   * @return A string check
+   *
+   * @throws IllegalArgumentException If either bound is not positive
+   */
+
+  public static VParameterCheckType<String> interned(
+    final int maxEntries,
+    final int maxLength)
+    throws IllegalArgumentException
+  {
+    return interned(List.of(), maxEntries, maxLength);
+  }
+
+  /**
+   * A string check that returns a canonical instance of each value, with
+   * the given known values admitted to the table when it is created. Known
+   * values are canonical from their first sighting, and occupy their
+   * entries regardless of the values that clients send.
+   *
+   * @param known      The known values
+   * @param maxEntries The maximum number of canonical values
+   * @param maxLength  The maximum length of canonical values
+   *
+   * @return A string check
+   *
+   * @throws IllegalArgumentException If either bound is not positive, or
+   *                                  the known values do not fit within
+   *                                  the bounds
+   * @see #interned(int, int)
+   */
+
+  public static VParameterCheckType<String> interned(
+    final Collection<String> known,
+    final int maxEntries,
+    final int maxLength)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(known, "known");
+
+    final var table = new VInternTable(known, maxEntries, maxLength);
+    return withCost(VCheckCost.TRIVIAL, table::intern);
+  }
+
+  private static <T> VParameterCheckType<T> lookup(
+    final VLookupTable<T> table)
+  {
+    return withCost(
+      VCheckCost.TRIVIAL,
+      value -> {
+        final var result = table.find(value);
+        if (result == null) {
+          throw new VCheckFailure(
+            VMessageKey.VALUE_NOT_PERMITTED,
+            value,
+            table.names()
+          );
+        }
+        return result;
+      }
+    );
+  }
+
+  /**
+   * A hexadecimal decoder. Each value is decoded into a newly allocated
+   * buffer of exactly the decoded size.
+   *
+   * @param maxBytes The maximum number of decoded bytes
+   *
+   * @return A read-only view of the decoded bytes
+   *
+   * @see #hex(int, IntFunction)
+   */
+
+  public static VParameterCheckType<ByteBuffer> hex(
+    final int maxBytes)
+  {
+    return hex(maxBytes, ByteBuffer::allocate);
+  }
+
+  /**
+   * A hexadecimal decoder. The length of each value is checked against
+   * {@code maxBytes} before any decoding takes place, and values are then
+   * validated and decoded in a single pass directly into a buffer obtained
+   * from {@code buffers}. The function is passed the exact number of decoded
+   * bytes, and must return a buffer with at least that many bytes remaining;
+   * the decoded bytes are written at the buffer's current position, and the
+   * position is advanced past them.
+   *
+   * @param maxBytes The maximum number of decoded bytes
+   * @param buffers  A source of buffers
+   *
+   * @return A read-only view of the decoded bytes
+   *
+   * @see #perThreadBuffers(int)
+   */
+
+  public static VParameterCheckType<ByteBuffer> hex(
+    final int maxBytes,
+    final IntFunction<ByteBuffer> buffers)
+  {
+    return VBinary.check(VBinary.Alphabet.HEX_DIGITS, maxBytes, buffers);
+  }
+
+  /**
+   * A base64 decoder (RFC 4648 section 4, with optional padding). Each value
+   * is decoded into a newly allocated buffer of exactly the decoded size.
+   *
+   * @param maxBytes The maximum number of decoded bytes
+   *
+   * @return A read-only view of the decoded bytes
+   *
+   * @see #base64(int, IntFunction)
+   */
+
+  public static VParameterCheckType<ByteBuffer> base64(
+    final int maxBytes)
+  {
+    return base64(maxBytes, ByteBuffer::allocate);
+  }
+
+  /**
+   * A base64 decoder (RFC 4648 section 4, with optional padding). Decoding
+   * behaves as described in {@link #hex(int, IntFunction)}.
+   *
+   * @param maxBytes The maximum number of decoded bytes
+   * @param buffers  A source of buffers
+   *
+   * @return A read-only view of the decoded bytes
+   */
+
+  public static VParameterCheckType<ByteBuffer> base64(
+    final int maxBytes,
+    final IntFunction<ByteBuffer> buffers)
+  {
+    return VBinary.check(VBinary.Alphabet.BASE64_STANDARD, maxBytes, buffers);
+  }
+
+  /**
+   * A URL-safe base64 decoder (RFC 4648 section 5, with optional padding).
+   * Each value is decoded into a newly allocated buffer of exactly the
+   * decoded size.
+   *
+   * @param maxBytes The maximum number of decoded bytes
+   *
+   * @return A read-only view of the decoded bytes
+   */
+
+  public static VParameterCheckType<ByteBuffer> base64Url(
+    final int maxBytes)
+  {
+    return base64Url(maxBytes, ByteBuffer::allocate);
+  }
+
+  /**
+   * A URL-safe base64 decoder (RFC 4648 section 5, with optional padding).
+   * Decoding behaves as described in {@link #hex(int, IntFunction)}.
+   *
+   * @param maxBytes The maximum number of decoded bytes
+   * @param buffers  A source of buffers
+   *
+   * @return A read-only view of the decoded bytes
+   */
+
+  public static VParameterCheckType<ByteBuffer> base64Url(
+    final int maxBytes,
+    final IntFunction<ByteBuffer> buffers)
+  {
+    return VBinary.check(VBinary.Alphabet.BASE64_URL_SAFE, maxBytes, buffers);
+  }
+
+  /**
+   * A source of pooled buffers for binary decoders. Each calling thread is
+   * given its own buffer of the given capacity, which is cleared and reused
+   * for every value. A decoded value is therefore only valid until the same
+   * check is next executed on the same thread; a separate source should be
+   * used for each parameter.
+   *
+   * @param capacity The buffer capacity
+   *
+   * @return A source of buffers
+   */
+
+  public static IntFunction<ByteBuffer> perThreadBuffers(
+    final int capacity)
+  {
+    return VBinary.perThreadBuffers(capacity);
+  }
+
+  /**
+   * Adapt a synchronous check to an asynchronous check that executes the
+   * given check on a new virtual thread for each value. This is suitable for
+   * checks that perform blocking I/O. Cancelling the returned future (as
+   * happens when the deadline expires, or when checking stops early)
+   * interrupts the thread.
+   *
+   * @param check The synchronous check
+   * @param <T>   The type of returned values
+   *
+   * @return An asynchronous check
+   */
+
+  public static <T> VParameterCheckAsyncType<T> onVirtualThread(
+    final VParameterCheckType<T> check)
+  {
+    Objects.requireNonNull(check, "check");
+
+    return value -> {
+      final var future = new CompletableFuture<T>();
+      final var thread =
+        Thread.ofVirtual()
+          .name("com.io7m.jvindicator.check")
+          .unstarted(() -> {
+            try {
+              future.complete(check.check(value));
+            } catch (final Exception e) {
+              future.completeExceptionally(e);
+            }
+          });
+
+      future.whenComplete((result, exception) -> {
+        if (future.isCancelled()) {
+          thread.interrupt();
+        }
+      });
+      thread.start();
+      return future;
     };
   }
 
@@ -243,7 +987,7 @@ public final class Vindication
   public static <E extends Exception> VindicationBuilderType<E> startWithFormatter(
     final Function<Map<String, String>, E> inExceptions)
   {
-    return new Builder<>(inExceptions);
+    return new VindicationBuilder<>(inExceptions);
   }
 
   /**
@@ -277,142 +1021,23 @@ public final class Vindication
     };
   }
 
-  private static final class Parameter
-    implements VParameterType<Object>
+  private record CostedCheck<T>(
+    VCheckCost cost,
+    VParameterCheckType<T> delegate)
+    implements VParameterCheckType<T>
   {
-    private final String name;
-    private final VParameterCheckType<?> check;
-    private final boolean isOptional;
-    private boolean checked;
-    private Object parsed;
-
-    Parameter(
-      final String inName,
-      final VParameterCheckType<?> inCheck,
-      final boolean inIsOptional)
-    {
-      this.name =
-        Objects.requireNonNull(inName, "name");
-      this.check =
-        Objects.requireNonNull(inCheck, "check");
-      this.isOptional =
-        inIsOptional;
-    }
-
-    @Override
-    public Object get()
-    {
-      if (!this.checked) {
-        throw new IllegalStateException(
-          "Parameters have not yet been validated!");
-      }
-      return this.parsed;
-    }
-  }
-
-  private static final class Builder<E extends Exception>
-    implements VindicationBuilderType<E>
-  {
-    private Function<Map<String, String>, E> onFailure;
-    private Map<String, Parameter> parameters;
-
-    private Builder(
-      final Function<Map<String, String>, E> inExceptions)
+    private CostedCheck
     {
-      this.onFailure =
-        Objects.requireNonNull(inExceptions, "exceptions");
-      this.parameters =
-        new HashMap<>();
+      Objects.requireNonNull(cost, "cost");
+      Objects.requireNonNull(delegate, "delegate");
     }
 
     @Override
-    public <T> VParameterType<T> addRequiredParameter(
-      final String name,
-      final VParameterCheckType<T> check)
+    public T check(
+      final String value)
+      throws Exception
     {
-      Objects.requireNonNull(name, "name");
-      Objects.requireNonNull(check, "check");
-
-      this.checkParameterNotRegistered(name);
-      final var parameter = new Parameter(name, check, false);
-      this.parameters.put(name, parameter);
-      return (VParameterType<T>) parameter;
-    }
-
-    private void checkParameterNotRegistered(
-      final String name)
-    {
-      if (this.parameters.containsKey(name)) {
-        throw new IllegalArgumentException(
-          "A parameter named %s has already been registered."
-            .formatted(name));
-      }
-    }
-
-    @Override
-    public <T> VParameterType<Optional<T>> addOptionalParameter(
-      final String name,
-      final VParameterCheckType<T> check)
-    {
-      Objects.requireNonNull(name, "name");
-      Objects.requireNonNull(check, "check");
-
-      this.checkParameterNotRegistered(name);
-      final var parameter =
-        new Parameter(
-          name,
-          value -> Optional.of(check.check(value)),
-          true
-        );
-      this.parameters.put(name, parameter);
-      return (VParameterType<Optional<T>>) (Object) parameter;
-    }
-
-    @Override
-    public void check(
-      final Map<String, List<String>> input)
-      throws E
-    {
-      Objects.requireNonNull(input, "input");
-
-      final var exceptions = new ArrayList<Throwable>();
-      final var errors = new HashMap<String, String>();
-
-      PARAMETER_LOOP:
-      for (final var parameter : this.parameters.values()) {
-        parameter.checked = true;
-
-        final var inputValues = input.get(parameter.name);
-        if (inputValues == null) {
-          if (!parameter.isOptional) {
-            errors.put(parameter.name, ERROR_MISSING);
-          }
-          parameter.parsed = Optional.empty();
-          continue;
-        }
-
-        for (final var value : inputValues) {
-          try {
-            parameter.parsed = parameter.check.check(
-              Objects.requireNonNull(value, "value")
-            );
-            continue PARAMETER_LOOP;
-          } catch (final Exception e) {
-            exceptions.add(e);
-            errors.put(parameter.name, e.getMessage());
-            continue PARAMETER_LOOP;
-          }
-        }
-
-        errors.put(parameter.name, ERROR_MISSING);
-        parameter.parsed = Optional.empty();
-      }
-
-      if (!errors.isEmpty()) {
-        final var ex = this.onFailure.apply(errors);
-        exceptions.forEach(ex::addSuppressed);
-        throw ex;
-      }
+      return this.delegate.check(value);
     }
   }
 }
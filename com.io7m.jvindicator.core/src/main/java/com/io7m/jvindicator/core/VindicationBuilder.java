@@ -0,0 +1,911 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.core;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * The default builder implementation.
+ *
+ * @param <E> The type of thrown exceptions
+ */
+
+final class VindicationBuilder<E extends Exception>
+  implements VindicationBuilderType<E>
+{
+  private static final Duration ASYNC_DEADLINE_DEFAULT =
+    Duration.ofSeconds(30L);
+
+  /**
+   * The number of executed checks between reorderings in adaptive mode.
+   */
+
+  private static final int ADAPTIVE_REORDER_PERIOD = 1024;
+
+  private static final int UNKNOWN_REPORT_LIMIT_DEFAULT = 8;
+
+  private static final String NAME_DEFAULT = "unnamed";
+
+  private static final Comparator<VParameter> DECLARED_ORDER =
+    Comparator.comparing(VParameter::cost)
+      .thenComparingInt(VParameter::index);
+
+  private static final Comparator<VParameter> ADAPTIVE_ORDER =
+    Comparator.comparingDouble(VParameter::profileScore)
+      .thenComparing(DECLARED_ORDER);
+
+  private final Function<Map<String, String>, E> onFailure;
+  private final Map<String, VParameter> parameters;
+  private final Map<String, VParameterFamily> families;
+  private final StringBuilder messageBuffer;
+  private String schemaName;
+  private Duration asyncDeadline;
+  private VCheckOrdering ordering;
+  private VRequestLimits limits;
+  private boolean rejectUnknown;
+  private int unknownReportLimit;
+  private boolean failFast;
+  private VParameter[] compiledAll;
+  private VParameterNames compiledNames;
+  private VCheckRun compiledRun;
+  private VParameter[] compiledSync;
+  private int checksSinceReorder;
+  private int memoEntries;
+  private VMemo memo;
+  private VMessages messages;
+  private boolean lazyMessages;
+  private VLatencyMetrics latencyMetrics;
+  private VLatencyHistogram[] compiledLatency;
+
+  VindicationBuilder(
+    final Function<Map<String, String>, E> inExceptions)
+  {
+    this.onFailure =
+      Objects.requireNonNull(inExceptions, "exceptions");
+    this.parameters =
+      new LinkedHashMap<>();
+    this.families =
+      new LinkedHashMap<>();
+    this.schemaName =
+      NAME_DEFAULT;
+    this.asyncDeadline =
+      ASYNC_DEADLINE_DEFAULT;
+    this.ordering =
+      VCheckOrdering.DECLARED_COST;
+    this.failFast =
+      false;
+    this.limits =
+      VRequestLimits.unlimited();
+    this.rejectUnknown =
+      false;
+    this.unknownReportLimit =
+      UNKNOWN_REPORT_LIMIT_DEFAULT;
+    this.messages =
+      VMessages.defaults();
+    this.messageBuffer =
+      new StringBuilder(128);
+    this.latencyMetrics =
+      VLatencyMetrics.disabled();
+  }
+
+  @Override
+  public <T> VParameterType<T> addRequiredParameter(
+    final String name,
+    final VParameterCheckType<T> check)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+
+    this.checkParameterNotRegistered(name);
+    final var parameter =
+      new VParameter(
+        name,
+        check,
+        check.cost(),
+        false,
+        Optional.empty(),
+        this.parameters.size()
+      );
+    this.register(parameter);
+    return (VParameterType<T>) (Object) parameter;
+  }
+
+  private void register(
+    final VParameter parameter)
+  {
+    this.parameters.put(parameter.name(), parameter);
+    this.compiledAll = null;
+    this.compiledNames = null;
+    this.compiledSync = null;
+    this.compiledLatency = null;
+    this.memo = null;
+  }
+
+  private void checkParameterNotRegistered(
+    final String name)
+  {
+    if (this.parameters.containsKey(name)) {
+      throw new IllegalArgumentException(
+        "A parameter named %s has already been registered."
+          .formatted(name));
+    }
+  }
+
+  @Override
+  public <T> VParameterType<Optional<T>> addOptionalParameter(
+    final String name,
+    final VParameterCheckType<T> check)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+
+    this.checkParameterNotRegistered(name);
+    final VParameterCheckType<Optional<T>> wrapped =
+      value -> Optional.of(check.check(value));
+    final var parameter =
+      new VParameter(
+        name,
+        wrapped,
+        check.cost(),
+        true,
+        Optional.empty(),
+        this.parameters.size()
+      );
+    this.register(parameter);
+    return (VParameterType<Optional<T>>) (Object) parameter;
+  }
+
+  @Override
+  public <T> VParameterType<List<T>> addCollectedParameter(
+    final String name,
+    final VParameterCheckType<T> check)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+
+    this.checkParameterNotRegistered(name);
+    final var parameter =
+      new VParameter(
+        name,
+        check,
+        check.cost(),
+        true,
+        List.of(),
+        this.parameters.size()
+      );
+    parameter.setDuplicatePolicy(VDuplicatePolicy.COLLECT_ALL);
+    this.register(parameter);
+    return (VParameterType<List<T>>) (Object) parameter;
+  }
+
+  @Override
+  public <T> VParameterType<VFamilyValues<T>> addParameterFamily(
+    final String prefix,
+    final VParameterCheckType<String> keyCheck,
+    final VParameterCheckType<T> valueCheck)
+  {
+    Objects.requireNonNull(prefix, "prefix");
+    Objects.requireNonNull(keyCheck, "keyCheck");
+    Objects.requireNonNull(valueCheck, "valueCheck");
+
+    if (prefix.isEmpty()) {
+      throw new IllegalArgumentException(
+        "A parameter family prefix must be non-empty.");
+    }
+    if (this.families.containsKey(prefix)) {
+      throw new IllegalArgumentException(
+        "A parameter family with prefix %s has already been registered."
+          .formatted(prefix));
+    }
+
+    final var family = new VParameterFamily(prefix, keyCheck, valueCheck);
+    this.families.put(prefix, family);
+    this.compiledAll = null;
+    this.compiledNames = null;
+    this.compiledSync = null;
+    this.memo = null;
+    return (VParameterType<VFamilyValues<T>>) (Object) family;
+  }
+
+  @Override
+  public <T> VParameterType<T> addDefaultedParameter(
+    final String name,
+    final VParameterCheckType<T> check,
+    final String defaultValue)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+    Objects.requireNonNull(defaultValue, "defaultValue");
+
+    this.checkParameterNotRegistered(name);
+
+    final T parsed;
+    try {
+      parsed = check.check(defaultValue);
+    } catch (final Exception e) {
+      throw invalidDefault(name, defaultValue, e);
+    }
+    if (parsed == null) {
+      throw new IllegalArgumentException(
+        "The default value %s for parameter %s was parsed as null."
+          .formatted(defaultValue, name));
+    }
+
+    final var parameter =
+      new VParameter(
+        name,
+        check,
+        check.cost(),
+        true,
+        parsed,
+        this.parameters.size()
+      );
+    this.register(parameter);
+    return (VParameterType<T>) (Object) parameter;
+  }
+
+  private static IllegalArgumentException invalidDefault(
+    final String name,
+    final String defaultValue,
+    final Exception e)
+  {
+    return new IllegalArgumentException(
+      "The default value %s for parameter %s is invalid: %s"
+        .formatted(defaultValue, name, e.getMessage()),
+      e
+    );
+  }
+
+  @Override
+  public VParameterIntType addRequiredIntParameter(
+    final String name,
+    final VParameterIntCheckType check)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+
+    final VParameterLongCheckType widened = check::check;
+    return this.addRequiredPrimitive(name, widened, check.cost());
+  }
+
+  @Override
+  public VParameterIntType addDefaultedIntParameter(
+    final String name,
+    final VParameterIntCheckType check,
+    final String defaultValue)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+
+    final VParameterLongCheckType widened = check::check;
+    return this.addDefaultedPrimitive(
+      name, widened, check.cost(), defaultValue);
+  }
+
+  @Override
+  public VParameterLongType addDefaultedLongParameter(
+    final String name,
+    final VParameterLongCheckType check,
+    final String defaultValue)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+
+    return this.addDefaultedPrimitive(
+      name, check, check.cost(), defaultValue);
+  }
+
+  @Override
+  public VParameterBooleanType addDefaultedBooleanParameter(
+    final String name,
+    final VParameterBooleanCheckType check,
+    final String defaultValue)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+
+    final VParameterLongCheckType widened =
+      value -> check.check(value) ? 1L : 0L;
+    return this.addDefaultedPrimitive(
+      name, widened, check.cost(), defaultValue);
+  }
+
+  @Override
+  public VParameterLongType addRequiredLongParameter(
+    final String name,
+    final VParameterLongCheckType check)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+
+    return this.addRequiredPrimitive(name, check, check.cost());
+  }
+
+  @Override
+  public VParameterBooleanType addRequiredBooleanParameter(
+    final String name,
+    final VParameterBooleanCheckType check)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+
+    final VParameterLongCheckType widened =
+      value -> check.check(value) ? 1L : 0L;
+    return this.addRequiredPrimitive(name, widened, check.cost());
+  }
+
+  private VParameter addRequiredPrimitive(
+    final String name,
+    final VParameterLongCheckType check,
+    final VCheckCost cost)
+  {
+    this.checkParameterNotRegistered(name);
+    final var parameter =
+      new VParameter(name, check, cost, false, 0L, this.parameters.size());
+    this.register(parameter);
+    return parameter;
+  }
+
+  private VParameter addDefaultedPrimitive(
+    final String name,
+    final VParameterLongCheckType check,
+    final VCheckCost cost,
+    final String defaultValue)
+  {
+    Objects.requireNonNull(defaultValue, "defaultValue");
+
+    this.checkParameterNotRegistered(name);
+
+    final long parsed;
+    try {
+      parsed = check.check(defaultValue);
+    } catch (final Exception e) {
+      throw invalidDefault(name, defaultValue, e);
+    }
+
+    final var parameter =
+      new VParameter(name, check, cost, true, parsed, this.parameters.size());
+    this.register(parameter);
+    return parameter;
+  }
+
+  @Override
+  public <T> VParameterType<T> addRequiredParameterAsync(
+    final String name,
+    final VParameterCheckAsyncType<T> check)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+
+    this.checkParameterNotRegistered(name);
+    final var parameter =
+      new VParameter(name, check, false, this.parameters.size());
+    this.register(parameter);
+    return (VParameterType<T>) (Object) parameter;
+  }
+
+  @Override
+  public <T> VParameterType<Optional<T>> addOptionalParameterAsync(
+    final String name,
+    final VParameterCheckAsyncType<T> check)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(check, "check");
+
+    this.checkParameterNotRegistered(name);
+    final VParameterCheckAsyncType<Optional<T>> wrapped =
+      value -> check.check(value).thenApply(Optional::of);
+    final var parameter =
+      new VParameter(name, wrapped, true, this.parameters.size());
+    this.register(parameter);
+    return (VParameterType<Optional<T>>) (Object) parameter;
+  }
+
+  @Override
+  public void setAsyncDeadline(
+    final Duration deadline)
+  {
+    Objects.requireNonNull(deadline, "deadline");
+
+    if (deadline.isNegative()) {
+      throw new IllegalArgumentException(
+        "The deadline %s must be non-negative."
+          .formatted(deadline));
+    }
+    this.asyncDeadline = deadline;
+  }
+
+  @Override
+  public void setCheckOrdering(
+    final VCheckOrdering inOrdering)
+  {
+    this.ordering = Objects.requireNonNull(inOrdering, "ordering");
+    this.compiledSync = null;
+    this.memo = null;
+  }
+
+  @Override
+  public void setDuplicatePolicy(
+    final String name,
+    final VDuplicatePolicy policy)
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(policy, "policy");
+
+    final var parameter = this.parameters.get(name);
+    if (parameter == null) {
+      throw new IllegalArgumentException(
+        "No parameter named %s has been registered.".formatted(name));
+    }
+    if (parameter.isCollected() || policy == VDuplicatePolicy.COLLECT_ALL) {
+      throw new IllegalArgumentException(
+        "The duplicate policy of parameter %s cannot be changed to or from %s."
+          .formatted(name, VDuplicatePolicy.COLLECT_ALL));
+    }
+    parameter.setDuplicatePolicy(policy);
+    this.memo = null;
+  }
+
+  @Override
+  public void setFailFast(
+    final boolean inFailFast)
+  {
+    this.failFast = inFailFast;
+    this.memo = null;
+  }
+
+  @Override
+  public void setRequestLimits(
+    final VRequestLimits inLimits)
+  {
+    this.limits = Objects.requireNonNull(inLimits, "limits");
+  }
+
+  @Override
+  public void setRejectUnknownParameters(
+    final boolean reject)
+  {
+    this.rejectUnknown = reject;
+  }
+
+  @Override
+  public void setUnknownParameterReportLimit(
+    final int limit)
+  {
+    if (limit < 0) {
+      throw new IllegalArgumentException(
+        "The report limit %d must be non-negative.".formatted(limit));
+    }
+    this.unknownReportLimit = limit;
+  }
+
+  @Override
+  public void setName(
+    final String inName)
+  {
+    this.schemaName = Objects.requireNonNull(inName, "name");
+    this.compiledLatency = null;
+  }
+
+  @Override
+  public void setLatencyMetrics(
+    final VLatencyMetrics metrics)
+  {
+    this.latencyMetrics = Objects.requireNonNull(metrics, "metrics");
+    this.compiledLatency = null;
+  }
+
+  @Override
+  public void setMessages(
+    final VMessages inMessages)
+  {
+    this.messages = Objects.requireNonNull(inMessages, "messages");
+  }
+
+  @Override
+  public void setLazyMessages(
+    final boolean lazy)
+  {
+    this.lazyMessages = lazy;
+  }
+
+  @Override
+  public void setMemoization(
+    final int maxEntries)
+  {
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException(
+        "The number of entries %d must be non-negative."
+          .formatted(maxEntries));
+    }
+    this.memoEntries = maxEntries;
+    this.memo = null;
+  }
+
+  @Override
+  public void compile()
+  {
+    if (this.compiledAll == null) {
+      this.compiledAll =
+        this.parameters.values()
+          .toArray(new VParameter[0]);
+      this.compiledNames =
+        VParameterNames.compile(
+          this.parameters, List.copyOf(this.families.values()));
+      this.compiledRun =
+        new VCheckRun(this.compiledAll, this.compiledNames);
+    }
+
+    if (this.compiledSync == null) {
+      this.compiledSync =
+        this.parameters.values()
+          .stream()
+          .filter(p -> !p.isAsync())
+          .sorted(DECLARED_ORDER)
+          .toArray(VParameter[]::new);
+      this.checksSinceReorder = 0;
+    }
+
+    if (this.compiledLatency == null) {
+      this.compiledLatency = this.compileLatency();
+    }
+
+    if (this.memo == null && this.memoEntries > 0 && !this.anyUnmemoizable()) {
+      this.memo = new VMemo(this.memoEntries);
+    }
+  }
+
+  private VLatencyHistogram[] compileLatency()
+  {
+    if (!this.latencyMetrics.isEnabled()) {
+      return new VLatencyHistogram[0];
+    }
+
+    final var histograms = new VLatencyHistogram[this.compiledAll.length];
+    for (final var parameter : this.compiledAll) {
+      histograms[parameter.index()] =
+        this.latencyMetrics.histogram(this.schemaName, parameter.name());
+    }
+    return histograms;
+  }
+
+  private boolean anyUnmemoizable()
+  {
+    if (!this.families.isEmpty()) {
+      return true;
+    }
+    for (final var parameter : this.compiledAll) {
+      if (parameter.isAsync() || parameter.isCollected()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void compileReorderAdaptive()
+  {
+    if (this.ordering != VCheckOrdering.ADAPTIVE || !this.failFast) {
+      return;
+    }
+    if (this.checksSinceReorder < ADAPTIVE_REORDER_PERIOD) {
+      return;
+    }
+
+    Arrays.sort(this.compiledSync, ADAPTIVE_ORDER);
+    this.checksSinceReorder = 0;
+  }
+
+  @Override
+  public void check(
+    final VInputType input)
+    throws E
+  {
+    Objects.requireNonNull(input, "input");
+    this.checkRecorded(input, null);
+  }
+
+  @Override
+  public VCheckResult checkIncremental(
+    final VCheckResult previous,
+    final VInputType input)
+    throws E
+  {
+    Objects.requireNonNull(previous, "previous");
+    Objects.requireNonNull(input, "input");
+
+    this.compile();
+    if (previous.isFrom(this.compiledAll)) {
+      this.checkRecorded(input, previous);
+    } else {
+      this.checkRecorded(input, null);
+    }
+    return this.capture();
+  }
+
+  @Override
+  public VCheckResult checkIncremental(
+    final VInputType input)
+    throws E
+  {
+    Objects.requireNonNull(input, "input");
+
+    this.checkRecorded(input, null);
+    return this.capture();
+  }
+
+  private VCheckResult capture()
+  {
+    return VCheckResult.capture(
+      this.compiledAll,
+      this.compiledNames.families(),
+      this.compiledRun
+    );
+  }
+
+  private void checkRecorded(
+    final VInputType input,
+    final VCheckResult previous)
+    throws E
+  {
+    if (!VCheckEvent.isTypeEnabled()) {
+      this.checkInput(input, previous);
+      return;
+    }
+
+    final var event = new VCheckEvent();
+    event.begin();
+    var succeeded = false;
+    try {
+      this.checkInput(input, previous);
+      succeeded = true;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.setSchema(this.schemaName);
+        event.setParameterCount(this.parameters.size());
+        event.setOutcome(
+          succeeded ? VCheckEvent.OUTCOME_SUCCEEDED : VCheckEvent.OUTCOME_FAILED);
+        event.commit();
+      }
+    }
+  }
+
+  private void checkInput(
+    final VInputType input,
+    final VCheckResult previous)
+    throws E
+  {
+    this.compile();
+    this.compileReorderAdaptive();
+
+    final var run = this.compiledRun;
+    run.start(this.limits, this.rejectUnknown, this.unknownReportLimit);
+
+    /*
+     * Deliver the input to the run. The shape of the request is checked, and
+     * unknown parameters are detected, as the input is delivered.
+     */
+
+    input.deliver(run);
+    run.endInput();
+    if (run.isStopped() || this.failFast && run.hasErrors()) {
+      throw this.fail(run);
+    }
+
+    if (previous != null || this.memo == null || run.hasErrors()) {
+      if (!this.checkAll(run, previous)) {
+        throw this.fail(run);
+      }
+      return;
+    }
+
+    /*
+     * Consult the memo using the canonical form of the delivered values.
+     */
+
+    final var key = run.memoKey();
+    final var outcome = this.memo.get(key);
+    if (outcome != null) {
+      if (outcome.isSuccess()) {
+        outcome.apply(this.compiledAll);
+        return;
+      }
+      final var ex = this.onFailure.apply(this.render(outcome.errors()));
+      outcome.exceptions().forEach(ex::addSuppressed);
+      throw ex;
+    }
+
+    if (this.checkAll(run, null)) {
+      this.memo.put(key, VMemo.Outcome.success(this.compiledAll));
+      return;
+    }
+    this.memo.put(key, VMemo.Outcome.failure(run));
+    throw this.fail(run);
+  }
+
+  /**
+   * Execute all checks for the delivered input.
+   *
+   * @param run      The current run
+   * @param previous The result of a previous check whose parsed values may
+   *                 be reused, or {@code null}
+   *
+   * @return {@code false} if any check failed
+   */
+
+  private boolean checkAll(
+    final VCheckRun run,
+    final VCheckResult previous)
+  {
+    /*
+     * Check for the presence of every parameter before doing any parsing.
+     */
+
+    run.checkPresence();
+    if (this.failFast && run.hasErrors()) {
+      return false;
+    }
+
+    /*
+     * Start all asynchronous checks first so that they can proceed
+     * concurrently with the synchronous checks.
+     */
+
+    run.startAsync();
+    if (this.failFast && run.hasErrors()) {
+      return false;
+    }
+
+    if (!this.checkSync(run, previous)) {
+      return false;
+    }
+    if (!run.checkFamilies(this.failFast) && this.failFast) {
+      return false;
+    }
+
+    run.awaitAsync(this.asyncDeadline);
+    return !run.hasErrors();
+  }
+
+  /**
+   * Execute all synchronous checks in the current order.
+   *
+   * @param run      The current run
+   * @param previous The result of a previous check whose parsed values may
+   *                 be reused, or {@code null}
+   *
+   * @return {@code false} if checking stopped early due to fail-fast mode
+   */
+
+  private boolean checkSync(
+    final VCheckRun run,
+    final VCheckResult previous)
+  {
+    final var profiling =
+      this.ordering == VCheckOrdering.ADAPTIVE;
+    final var recording =
+      VParameterCheckEvent.isTypeEnabled();
+    final var measuring =
+      this.compiledLatency.length > 0;
+
+    for (final var parameter : this.compiledSync) {
+      if (!run.hasValue(parameter)) {
+        continue;
+      }
+      if (previous != null
+          && previous.reuse(parameter, run.rawValue(parameter))) {
+        continue;
+      }
+
+      final boolean failed;
+      if (profiling || recording || measuring) {
+        failed =
+          this.checkSyncTimed(run, parameter, profiling, recording);
+      } else {
+        failed = !run.checkSync(parameter);
+      }
+
+      if (failed && this.failFast) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean checkSyncTimed(
+    final VCheckRun run,
+    final VParameter parameter,
+    final boolean profiling,
+    final boolean recording)
+  {
+    final VParameterCheckEvent event;
+    if (recording) {
+      event = new VParameterCheckEvent();
+      event.begin();
+    } else {
+      event = null;
+    }
+
+    final var timeThen = System.nanoTime();
+    final var failed = !run.checkSync(parameter);
+    final var elapsed = System.nanoTime() - timeThen;
+    if (profiling) {
+      parameter.profileRecord(elapsed, failed);
+      ++this.checksSinceReorder;
+    }
+    if (this.compiledLatency.length > 0) {
+      final var value = run.rawValue(parameter);
+      this.compiledLatency[parameter.index()]
+        .record(elapsed, value == null ? 0 : value.length());
+    }
+
+    if (event != null) {
+      this.commitEvent(event, parameter, failed);
+    }
+    return failed;
+  }
+
+  private void commitEvent(
+    final VParameterCheckEvent event,
+    final VParameter parameter,
+    final boolean failed)
+  {
+    event.end();
+    if (event.shouldCommit()) {
+      event.setSchema(this.schemaName);
+      event.setParameter(parameter.name());
+      event.setSucceeded(!failed);
+      event.commit();
+    }
+  }
+
+  private E fail(
+    final VCheckRun run)
+  {
+    run.cancelAsync();
+    final var ex = this.onFailure.apply(this.render(run.errors()));
+    run.exceptions().forEach(ex::addSuppressed);
+    return ex;
+  }
+
+  private Map<String, String> render(
+    final Map<String, VMessage> errors)
+  {
+    if (this.lazyMessages) {
+      return new VLazyErrors(errors, this.messages);
+    }
+
+    final var out = this.messageBuffer;
+    final var rendered = new HashMap<String, String>(errors.size() * 2);
+    for (final var entry : errors.entrySet()) {
+      out.setLength(0);
+      entry.getValue().render(out, this.messages);
+      rendered.put(entry.getKey(), out.toString());
+    }
+    return rendered;
+  }
+}
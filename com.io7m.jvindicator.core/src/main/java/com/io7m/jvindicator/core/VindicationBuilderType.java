@@ -16,10 +16,10 @@
 
 package com.io7m.jvindicator.core;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * The vindication builder. Parameters must be added and then all parameters
@@ -69,6 +69,439 @@ public interface VindicationBuilderType<E extends Exception>
     VParameterCheckType<T> check)
     throws IllegalArgumentException;
 
+  /**
+   * Add a parameter that collects every value it is given. Each value is
+   * parsed with the given {@code check} function, and the parsed values are
+   * returned in the order in which they were delivered. If the parameter is
+   * not present, the list is empty.
+   *
+   * @param name  The parameter name
+   * @param check The check
+   * @param <T>   The type of parameter values
+   *
+   * @return A parameter
+   *
+   * @throws IllegalArgumentException If a parameter with the given name is
+   *                                  already defined
+   *
+   * @see VDuplicatePolicy#COLLECT_ALL
+   */
+
+  <T> VParameterType<List<T>> addCollectedParameter(
+    String name,
+    VParameterCheckType<T> check)
+    throws IllegalArgumentException;
+
+  /**
+   * Add a family of parameters whose names begin with the given prefix, such
+   * as {@code filter[status]} or {@code sort.created}. The part of the name
+   * following the prefix is the key of the member; if the prefix ends with
+   * {@code [}, member names must end with {@code ]}, and the key is the text
+   * between the brackets. Each key is checked with {@code keyCheck}, and each
+   * value is parsed with {@code valueCheck}. If a key is given more than once,
+   * the first value is used. Failures are reported under the full name of
+   * the member. Parameters registered by name take precedence over families,
+   * and the family with the longest matching prefix is used. If no members
+   * are present, the returned values are empty.
+   *
+   * @param prefix     The name prefix
+   * @param keyCheck   The check for member keys
+   * @param valueCheck The check for member values
+   * @param <T>        The type of parameter values
+   *
+   * @return A parameter
+   *
+   * @throws IllegalArgumentException If the prefix is empty, or a family with
+   *                                  the given prefix is already defined
+   */
+
+  <T> VParameterType<VFamilyValues<T>> addParameterFamily(
+    String prefix,
+    VParameterCheckType<String> keyCheck,
+    VParameterCheckType<T> valueCheck)
+    throws IllegalArgumentException;
+
+  /**
+   * Add an optional parameter with a default value. The parameter, if
+   * present, will be parsed with the given {@code check} function. The
+   * default value is parsed with the same function when the parameter is
+   * added, and the parsed value is shared by every check in which the
+   * parameter is not present.
+   *
+   * @param name         The parameter name
+   * @param check        The check
+   * @param defaultValue The unparsed default value
+   * @param <T>          The type of parameter values
+   *
+   * @return A parameter
+   *
+   * @throws IllegalArgumentException If a parameter with the given name is
+   *                                  already defined, or if the default value
+   *                                  is rejected by {@code check}
+   */
+
+  <T> VParameterType<T> addDefaultedParameter(
+    String name,
+    VParameterCheckType<T> check,
+    String defaultValue)
+    throws IllegalArgumentException;
+
+  /**
+   * Add a required parameter with {@code int} values. The parameter, if
+   * present, will be parsed with the given {@code check} function, and the
+   * parsed value is stored without boxing. If the parameter is not present,
+   * then {@link #check(Map)} will raise an exception.
+   *
+   * @param name  The parameter name
+   * @param check The check
+   *
+   * @return A parameter
+   *
+   * @throws IllegalArgumentException If a parameter with the given name is
+   *                                  already defined
+   */
+
+  VParameterIntType addRequiredIntParameter(
+    String name,
+    VParameterIntCheckType check)
+    throws IllegalArgumentException;
+
+  /**
+   * Add a required parameter with {@code long} values. The parameter, if
+   * present, will be parsed with the given {@code check} function, and the
+   * parsed value is stored without boxing. If the parameter is not present,
+   * then {@link #check(Map)} will raise an exception.
+   *
+   * @param name  The parameter name
+   * @param check The check
+   *
+   * @return A parameter
+   *
+   * @throws IllegalArgumentException If a parameter with the given name is
+   *                                  already defined
+   */
+
+  VParameterLongType addRequiredLongParameter(
+    String name,
+    VParameterLongCheckType check)
+    throws IllegalArgumentException;
+
+  /**
+   * Add a required parameter with {@code boolean} values. The parameter, if
+   * present, will be parsed with the given {@code check} function, and the
+   * parsed value is stored without boxing. If the parameter is not present,
+   * then {@link #check(Map)} will raise an exception.
+   *
+   * @param name  The parameter name
+   * @param check The check
+   *
+   * @return A parameter
+   *
+   * @throws IllegalArgumentException If a parameter with the given name is
+   *                                  already defined
+   */
+
+  VParameterBooleanType addRequiredBooleanParameter(
+    String name,
+    VParameterBooleanCheckType check)
+    throws IllegalArgumentException;
+
+  /**
+   * Add an optional parameter with {@code int} values and a default value.
+   * The parameter, if present, will be parsed with the given {@code check}
+   * function. The default value is parsed with the same function when the
+   * parameter is added.
+   *
+   * @param name         The parameter name
+   * @param check        The check
+   * @param defaultValue The unparsed default value
+   *
+   * @return A parameter
+   *
+   * @throws IllegalArgumentException If a parameter with the given name is
+   *                                  already defined, or if the default value
+   *                                  is rejected by {@code check}
+   */
+
+  VParameterIntType addDefaultedIntParameter(
+    String name,
+    VParameterIntCheckType check,
+    String defaultValue)
+    throws IllegalArgumentException;
+
+  /**
+   * Add an optional parameter with {@code long} values and a default value.
+   * The parameter, if present, will be parsed with the given {@code check}
+   * function. The default value is parsed with the same function when the
+   * parameter is added.
+   *
+   * @param name         The parameter name
+   * @param check        The check
+   * @param defaultValue The unparsed default value
+   *
+   * @return A parameter
+   *
+   * @throws IllegalArgumentException If a parameter with the given name is
+   *                                  already defined, or if the default value
+   *                                  is rejected by {@code check}
+   */
+
+  VParameterLongType addDefaultedLongParameter(
+    String name,
+    VParameterLongCheckType check,
+    String defaultValue)
+    throws IllegalArgumentException;
+
+  /**
+   * Add an optional parameter with {@code boolean} values and a default value.
+   * The parameter, if present, will be parsed with the given {@code check}
+   * function. The default value is parsed with the same function when the
+   * parameter is added.
+   *
+   * @param name         The parameter name
+   * @param check        The check
+   * @param defaultValue The unparsed default value
+   *
+   * @return A parameter
+   *
+   * @throws IllegalArgumentException If a parameter with the given name is
+   *                                  already defined, or if the default value
+   *                                  is rejected by {@code check}
+   */
+
+  VParameterBooleanType addDefaultedBooleanParameter(
+    String name,
+    VParameterBooleanCheckType check,
+    String defaultValue)
+    throws IllegalArgumentException;
+
+  /**
+   * Add a required parameter checked asynchronously. The parameter, if
+   * present, will be parsed with the given {@code check} function
+   * concurrently with any other asynchronous checks. If the parameter is not
+   * present, then {@link #check(Map)} will raise an exception.
+   *
+   * @param name  The parameter name
+   * @param check The check
+   * @param <T>   The type of parameter values
+   *
+   * @return A parameter
+   *
+   * @throws IllegalArgumentException If a parameter with the given name is
+   *                                  already defined
+   * @see #setAsyncDeadline(Duration)
+   */
+
+  <T> VParameterType<T> addRequiredParameterAsync(
+    String name,
+    VParameterCheckAsyncType<T> check)
+    throws IllegalArgumentException;
+
+  /**
+   * Add an optional parameter checked asynchronously. The parameter, if
+   * present, will be parsed with the given {@code check} function
+   * concurrently with any other asynchronous checks.
+   *
+   * @param name  The parameter name
+   * @param check The check
+   * @param <T>   The type of parameter values
+   *
+   * @return A parameter
+   *
+   * @throws IllegalArgumentException If a parameter with the given name is
+   *                                  already defined
+   * @see #setAsyncDeadline(Duration)
+   */
+
+  <T> VParameterType<Optional<T>> addOptionalParameterAsync(
+    String name,
+    VParameterCheckAsyncType<T> check)
+    throws IllegalArgumentException;
+
+  /**
+   * Set the overall deadline for asynchronous checks. The deadline applies
+   * to all asynchronous checks executed during a single call to
+   * {@link #check(Map)}, and is measured from the point at which the
+   * asynchronous checks are started (before any synchronous checks are
+   * executed); any check that has not completed when the deadline expires
+   * is cancelled and reported as a failure.
+   *
+   * @param deadline The deadline
+   *
+   * @throws IllegalArgumentException If the deadline is negative
+   */
+
+  void setAsyncDeadline(Duration deadline)
+    throws IllegalArgumentException;
+
+  /**
+   * Set the order in which synchronous checks are executed. The default is
+   * {@link VCheckOrdering#DECLARED_COST}.
+   *
+   * @param ordering The ordering
+   */
+
+  void setCheckOrdering(VCheckOrdering ordering);
+
+  /**
+   * Set the treatment of the given parameter when it is given more than one
+   * value. The default policy is {@link VDuplicatePolicy#FIRST_WINS}.
+   *
+   * @param name   The parameter name
+   * @param policy The policy
+   *
+   * @throws IllegalArgumentException If no parameter with the given name is
+   *                                  registered, or if either the parameter
+   *                                  or the policy is
+   *                                  {@link VDuplicatePolicy#COLLECT_ALL}
+   */
+
+  void setDuplicatePolicy(
+    String name,
+    VDuplicatePolicy policy)
+    throws IllegalArgumentException;
+
+  /**
+   * Set whether checking should stop at the first failure. By default, all
+   * parameters are checked and every failure is reported. In fail-fast mode,
+   * only the failures found up to and including the first failing check are
+   * reported; the presence of required parameters is always checked first,
+   * and so missing parameters are reported without any values being parsed.
+   *
+   * @param failFast {@code true} if checking should stop at the first failure
+   */
+
+  void setFailFast(boolean failFast);
+
+  /**
+   * Set the limits on the shape of requests. Limits are checked before any
+   * parameter checks are executed. The default is
+   * {@link VRequestLimits#unlimited()}.
+   *
+   * @param limits The limits
+   */
+
+  void setRequestLimits(VRequestLimits limits);
+
+  /**
+   * Set whether parameters that have not been registered with this builder
+   * should be reported as errors. By default, unregistered parameters are
+   * ignored. Unregistered parameters are detected in the same pass over the
+   * input that checks the request limits.
+   *
+   * @param reject {@code true} if unknown parameters should be rejected
+   *
+   * @see #setUnknownParameterReportLimit(int)
+   * @see #setRequestLimits(VRequestLimits)
+   */
+
+  void setRejectUnknownParameters(boolean reject);
+
+  /**
+   * Set the maximum number of unknown parameter names that will be
+   * individually reported when unknown parameters are rejected. Any further
+   * unknown parameters are counted, but not named, in the error report.
+   *
+   * @param limit The limit
+   *
+   * @throws IllegalArgumentException If the limit is negative
+   */
+
+  void setUnknownParameterReportLimit(int limit)
+    throws IllegalArgumentException;
+
+  /**
+   * Set the name of this builder. The name is used to identify the builder
+   * in diagnostics such as flight recorder events. The default name is
+   * {@code unnamed}.
+   *
+   * <p>Each check emits a {@code com.io7m.jvindicator.Check} flight recorder
+   * event, and each synchronous parameter check that exceeds a threshold
+   * emits a {@code com.io7m.jvindicator.ParameterCheck} event. Both events
+   * are disabled by default, and are not constructed unless enabled in a
+   * running recording.</p>
+   *
+   * @param name The name
+   */
+
+  void setName(String name);
+
+  /**
+   * Set the metrics into which the latency of each synchronous parameter
+   * check is recorded, keyed by the name of this builder and the name of
+   * the parameter. The default is {@link VLatencyMetrics#disabled()}.
+   *
+   * @param metrics The metrics
+   *
+   * @see #setName(String)
+   */
+
+  void setLatencyMetrics(VLatencyMetrics metrics);
+
+  /**
+   * Set the messages used to report errors. Messages are rendered in the
+   * locale of the given messages when a check fails, and so the messages
+   * may be changed before each check to choose a locale per request. The
+   * default messages are {@link VMessages#defaults()}. Changing the
+   * messages does not clear the memo.
+   *
+   * @param messages The messages
+   *
+   * @see VMessages#forLocale(java.util.Locale)
+   */
+
+  void setMessages(VMessages messages);
+
+  /**
+   * Enable or disable lazy rendering of error messages. If enabled, the map
+   * of errors passed to the failure formatter renders each message only
+   * when the message is read, and renders it again each time it is read.
+   * This is useful with formatters that retain the map and build their
+   * message on demand; formatters such as
+   * {@link Vindication#prettyFormatter(java.util.function.Function)} read
+   * every message immediately. Lazy rendering is disabled by default.
+   *
+   * @param lazy {@code true} if messages should be rendered lazily
+   */
+
+  void setLazyMessages(boolean lazy);
+
+  /**
+   * Enable memoization of the outcomes of checks. The outcome of each check
+   * is stored, keyed by the values of the registered parameters, and a
+   * subsequent check with identical values returns the stored parsed values
+   * (or raises the stored errors) without executing any parameter checks.
+   * Unregistered parameters do not affect the key. Requests that violate
+   * limits or contain rejected unknown parameters are never memoized.
+   *
+   * <p>Memoization is only appropriate if every check is a pure function of
+   * its input and returns immutable values; in particular, it must not be
+   * used with checks that return pooled buffers. Memoization is not applied
+   * if any asynchronous or collected parameters are registered. The memo is
+   * cleared whenever parameters are registered or the checking behaviour is
+   * changed.</p>
+   *
+   * @param maxEntries The maximum number of stored outcomes, with the least
+   *                   recently used outcome being evicted first, or
+   *                   {@code 0} to disable memoization (the default)
+   *
+   * @throws IllegalArgumentException If the number of entries is negative
+   */
+
+  void setMemoization(int maxEntries)
+    throws IllegalArgumentException;
+
+  /**
+   * Compile the registered parameters ahead of the first check. Builders
+   * compile themselves on the first check after any change, and so calling
+   * this method is never required; it allows the cost of compilation to be
+   * paid (and measured) at startup.
+   *
+   * @see VSchemaRegistry
+   */
+
+  void compile();
+
   /**
    * Check the given parameters.
    *
@@ -81,12 +514,7 @@ public interface VindicationBuilderType<E extends Exception>
     final Map<String, String[]> parameters)
     throws E
   {
-    this.check(
-      parameters.entrySet()
-        .stream()
-        .map(e -> Map.entry(e.getKey(), List.of(e.getValue())))
-        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
-    );
+    this.check(VInputs.ofArrayMap(parameters));
   }
 
   /**
@@ -97,6 +525,75 @@ public interface VindicationBuilderType<E extends Exception>
    * @throws E On errors
    */
 
-  void check(Map<String, List<String>> parameters)
+  default void check(
+    final Map<String, List<String>> parameters)
+    throws E
+  {
+    this.check(VInputs.ofMap(parameters));
+  }
+
+  /**
+   * Check the parameters delivered by the given input.
+   *
+   * <p>A successful check does not allocate, once warmed up, if all of
+   * the following hold:</p>
+   *
+   * <ul>
+   *   <li>All parameters are required or defaulted, and are either
+   *   primitive parameters or string parameters whose checks do not
+   *   allocate.</li>
+   *   <li>The input reads only registered names: neither request limits
+   *   nor rejection of unknown parameters are enabled. Examples are
+   *   {@link VInputs#ofMap(Map)} and {@link VInputs#ofArrayMap(Map)}.</li>
+   *   <li>Memoization and flight recorder events are disabled.</li>
+   * </ul>
+   *
+   * @param input The input
+   *
+   * @throws E On errors
+   */
+
+  void check(VInputType input)
+    throws E;
+
+  /**
+   * Check the parameters delivered by the given input, and capture the
+   * result so that a subsequent input can be checked incrementally.
+   *
+   * @param input The input
+   *
+   * @return The immutable result of the check
+   *
+   * @throws E On errors
+   *
+   * @see #checkIncremental(VCheckResult, VInputType)
+   */
+
+  VCheckResult checkIncremental(VInputType input)
+    throws E;
+
+  /**
+   * Check the parameters delivered by the given input incrementally. The
+   * parsed value of a parameter is reused from the previous result, rather
+   * than checked again, if its raw value is unchanged; raw values are
+   * compared by length, then by hash code, and then by content. Every other
+   * step of a check is performed as usual: request limits, unknown and
+   * missing parameters, and duplicate values are checked for the new input,
+   * and asynchronous checks, collected parameters and parameter families
+   * are always checked again. Previous results produced by a different
+   * builder, or before a parameter was registered, are ignored, and the
+   * input is checked in full.
+   *
+   * @param previous The result of a previous check
+   * @param input    The input
+   *
+   * @return The immutable result of the check
+   *
+   * @throws E On errors
+   */
+
+  VCheckResult checkIncremental(
+    VCheckResult previous,
+    VInputType input)
     throws E;
 }
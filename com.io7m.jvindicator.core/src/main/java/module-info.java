@@ -23,5 +23,7 @@ module com.io7m.jvindicator.core
   requires static org.osgi.annotation.bundle;
   requires static org.osgi.annotation.versioning;
 
+  requires jdk.jfr;
+
   exports com.io7m.jvindicator.core;
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A load test harness that drives generated requests through a schema from
+ * increasing numbers of platform and virtual threads, and measures the
+ * throughput, latency percentiles, and allocation rate of each run.
+ *
+ * @see VLoadTestMain
+ */
+
+public final class VLoadTest
+{
+  private VLoadTest()
+  {
+
+  }
+
+  /**
+   * Execute a load test.
+   *
+   * @param configuration The configuration
+   * @param onResult      A function that receives each result as it is
+   *                      produced
+   *
+   * @return The results
+   *
+   * @throws InterruptedException If interrupted
+   */
+
+  public static List<VLoadTestResult> run(
+    final VLoadTestConfiguration configuration,
+    final Consumer<VLoadTestResult> onResult)
+    throws InterruptedException
+  {
+    Objects.requireNonNull(configuration, "configuration");
+    Objects.requireNonNull(onResult, "onResult");
+
+    final var results = new ArrayList<VLoadTestResult>();
+    for (final var kind : configuration.threadKinds()) {
+      for (final var strategy : configuration.strategies()) {
+        for (final var threads : configuration.threadCounts()) {
+          final var result =
+            new VLoadTestRun(configuration, kind, strategy, threads.intValue())
+              .execute();
+          results.add(result);
+          onResult.accept(result);
+        }
+      }
+    }
+    return List.copyOf(results);
+  }
+}
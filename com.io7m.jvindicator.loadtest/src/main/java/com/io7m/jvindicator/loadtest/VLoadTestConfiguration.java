@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The configuration of a load test.
+ *
+ * @param threadCounts The numbers of threads to test, in order
+ * @param threadKinds  The kinds of threads to test
+ * @param strategies   The builder strategies to test
+ * @param warmup       The warm-up time for each run
+ * @param duration     The measured time for each run
+ * @param invalidRatio The fraction of requests that are invalid, in the
+ *                     range {@code [0, 1]}
+ */
+
+public record VLoadTestConfiguration(
+  List<Integer> threadCounts,
+  List<VLoadTestThreadKind> threadKinds,
+  List<VLoadTestStrategy> strategies,
+  Duration warmup,
+  Duration duration,
+  double invalidRatio)
+{
+  /**
+   * The configuration of a load test.
+   *
+   * @param threadCounts The numbers of threads to test, in order
+   * @param threadKinds  The kinds of threads to test
+   * @param strategies   The builder strategies to test
+   * @param warmup       The warm-up time for each run
+   * @param duration     The measured time for each run
+   * @param invalidRatio The fraction of requests that are invalid, in the
+   *                     range {@code [0, 1]}
+   */
+
+  public VLoadTestConfiguration
+  {
+    threadCounts = List.copyOf(threadCounts);
+    threadKinds = List.copyOf(threadKinds);
+    strategies = List.copyOf(strategies);
+    Objects.requireNonNull(warmup, "warmup");
+    Objects.requireNonNull(duration, "duration");
+
+    for (final var count : threadCounts) {
+      if (count.intValue() < 1) {
+        throw new IllegalArgumentException(
+          "Thread counts must be positive (got %d)".formatted(count));
+      }
+    }
+    if (warmup.isNegative() || duration.isNegative() || duration.isZero()) {
+      throw new IllegalArgumentException(
+        "The warm-up must be non-negative and the duration positive.");
+    }
+    if (!(invalidRatio >= 0.0 && invalidRatio <= 1.0)) {
+      throw new IllegalArgumentException(
+        "The invalid ratio %s must be in the range [0, 1]."
+          .formatted(Double.valueOf(invalidRatio)));
+    }
+  }
+
+  /**
+   * @param maxThreads The maximum number of threads
+   *
+   * @return The powers of two up to {@code maxThreads}, followed by
+   * {@code maxThreads} if it is not itself a power of two
+   */
+
+  public static List<Integer> scaling(
+    final int maxThreads)
+  {
+    if (maxThreads < 1) {
+      throw new IllegalArgumentException(
+        "Thread counts must be positive (got %d)".formatted(maxThreads));
+    }
+
+    final var counts = new ArrayList<Integer>();
+    for (int count = 1; count <= maxThreads; count <<= 1) {
+      counts.add(Integer.valueOf(count));
+      if (count > Integer.MAX_VALUE >>> 1) {
+        break;
+      }
+    }
+    if (Integer.bitCount(maxThreads) != 1) {
+      counts.add(Integer.valueOf(maxThreads));
+    }
+    return List.copyOf(counts);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.loadtest;
+
+/**
+ * A histogram of latencies in nanoseconds. Values are recorded into
+ * buckets that cover each power of two with sixteen linear sub-buckets, so
+ * that any reported percentile is within about 6% of the true value.
+ * Histograms are not thread-safe; each thread records into its own
+ * histogram, and histograms are merged afterwards.
+ */
+
+final class VLoadTestHistogram
+{
+  private static final int SUB_BITS = 4;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+  private final long[] counts;
+  private long total;
+  private long max;
+
+  VLoadTestHistogram()
+  {
+    this.counts = new long[BUCKETS];
+  }
+
+  private static int bucketOf(
+    final long value)
+  {
+    if (value < SUB_COUNT) {
+      return (int) value;
+    }
+    final var exponent = 63 - Long.numberOfLeadingZeros(value);
+    final var sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+    return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+  }
+
+  private static long lowerBoundOf(
+    final int bucket)
+  {
+    if (bucket < SUB_COUNT) {
+      return bucket;
+    }
+    final var exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+    final var sub = (long) (bucket % SUB_COUNT);
+    return (1L << exponent) | (sub << (exponent - SUB_BITS));
+  }
+
+  void record(
+    final long nanos)
+  {
+    final var value = Math.max(0L, nanos);
+    ++this.counts[bucketOf(value)];
+    ++this.total;
+    this.max = Math.max(this.max, value);
+  }
+
+  void add(
+    final VLoadTestHistogram other)
+  {
+    for (int index = 0; index < BUCKETS; ++index) {
+      this.counts[index] += other.counts[index];
+    }
+    this.total += other.total;
+    this.max = Math.max(this.max, other.max);
+  }
+
+  long total()
+  {
+    return this.total;
+  }
+
+  long max()
+  {
+    return this.max;
+  }
+
+  /**
+   * @param quantile The quantile in the range {@code [0, 1]}
+   *
+   * @return The lower bound of the bucket containing the given quantile
+   */
+
+  long valueAt(
+    final double quantile)
+  {
+    if (this.total == 0L) {
+      return 0L;
+    }
+
+    final var rank =
+      Math.max(1L, (long) Math.ceil(quantile * (double) this.total));
+    var seen = 0L;
+    for (int index = 0; index < BUCKETS; ++index) {
+      seen += this.counts[index];
+      if (seen >= rank) {
+        return Math.min(lowerBoundOf(index), this.max);
+      }
+    }
+    return this.max;
+  }
+}
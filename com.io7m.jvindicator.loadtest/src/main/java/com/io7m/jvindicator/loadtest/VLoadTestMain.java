@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static com.io7m.jvindicator.loadtest.VLoadTest.run;
+
+/**
+ * The command-line entry point for the load test harness. Each result is
+ * written as one JSON object per line.
+ *
+ * <p>Usage:</p>
+ *
+ * <pre>
+ * java -p core.jar:loadtest.jar -m com.io7m.jvindicator.loadtest/com.io7m.jvindicator.loadtest.VLoadTestMain
+ *   [--max-threads N] [--thread-kinds platform,virtual]
+ *   [--strategies reused_per_thread,built_per_request]
+ *   [--warmup-ms N] [--duration-ms N] [--invalid-ratio R] [--output FILE]
+ * </pre>
+ */
+
+public final class VLoadTestMain
+{
+  private static final Duration WARMUP_DEFAULT = Duration.ofSeconds(2L);
+  private static final Duration DURATION_DEFAULT = Duration.ofSeconds(5L);
+  private static final double INVALID_RATIO_DEFAULT = 0.1;
+  private static final Set<String> OPTIONS =
+    Set.of(
+      "--duration-ms",
+      "--invalid-ratio",
+      "--max-threads",
+      "--output",
+      "--strategies",
+      "--thread-kinds",
+      "--warmup-ms"
+    );
+  private static final String USAGE =
+    "usage: [--max-threads N] [--thread-kinds platform,virtual] "
+      + "[--strategies reused_per_thread,built_per_request] "
+      + "[--warmup-ms N] [--duration-ms N] [--invalid-ratio R] "
+      + "[--output FILE]";
+
+  private VLoadTestMain()
+  {
+
+  }
+
+  /**
+   * The main entry point.
+   *
+   * @param args Command-line arguments
+   *
+   * @throws Exception On errors
+   */
+
+  public static void main(
+    final String[] args)
+    throws Exception
+  {
+    final Map<String, String> options;
+    final VLoadTestConfiguration configuration;
+    try {
+      options = parseOptions(args);
+      configuration = configuration(options);
+    } catch (final IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      System.exit(1);
+      return;
+    }
+
+    final var output = options.get("--output");
+    if (output == null) {
+      run(configuration, result -> System.out.println(result.toJSON()));
+      return;
+    }
+
+    try (var stream = new PrintStream(
+      Files.newOutputStream(Paths.get(output)),
+      true,
+      StandardCharsets.UTF_8)) {
+      run(configuration, result -> stream.println(result.toJSON()));
+    } catch (final IOException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  private static Map<String, String> parseOptions(
+    final String[] args)
+  {
+    final var options = new HashMap<String, String>();
+    for (int index = 0; index < args.length; index += 2) {
+      final var name = args[index];
+      if (!OPTIONS.contains(name)) {
+        throw new IllegalArgumentException(
+          "Unrecognized option: %s".formatted(name));
+      }
+      if (index + 1 >= args.length) {
+        throw new IllegalArgumentException(
+          "Option %s requires a value".formatted(name));
+      }
+      options.put(name, args[index + 1]);
+    }
+    return options;
+  }
+
+  private static VLoadTestConfiguration configuration(
+    final Map<String, String> options)
+  {
+    final var maxThreads =
+      Integer.parseInt(options.getOrDefault(
+        "--max-threads",
+        Integer.toString(Runtime.getRuntime().availableProcessors())));
+
+    final var kinds =
+      enums(
+        VLoadTestThreadKind.class,
+        options.getOrDefault("--thread-kinds", "platform,virtual"));
+    final var strategies =
+      enums(
+        VLoadTestStrategy.class,
+        options.getOrDefault(
+          "--strategies", "reused_per_thread,built_per_request"));
+
+    final var warmup =
+      options.containsKey("--warmup-ms")
+        ? Duration.ofMillis(Long.parseLong(options.get("--warmup-ms")))
+        : WARMUP_DEFAULT;
+    final var duration =
+      options.containsKey("--duration-ms")
+        ? Duration.ofMillis(Long.parseLong(options.get("--duration-ms")))
+        : DURATION_DEFAULT;
+    final var invalid =
+      options.containsKey("--invalid-ratio")
+        ? Double.parseDouble(options.get("--invalid-ratio"))
+        : INVALID_RATIO_DEFAULT;
+
+    return new VLoadTestConfiguration(
+      VLoadTestConfiguration.scaling(maxThreads),
+      kinds,
+      strategies,
+      warmup,
+      duration,
+      invalid
+    );
+  }
+
+  private static <T extends Enum<T>> List<T> enums(
+    final Class<T> clazz,
+    final String text)
+  {
+    final var results = new ArrayList<T>();
+    for (final var name : text.split(",")) {
+      results.add(Enum.valueOf(clazz, name.trim().toUpperCase(Locale.ROOT)));
+    }
+    return List.copyOf(results);
+  }
+}
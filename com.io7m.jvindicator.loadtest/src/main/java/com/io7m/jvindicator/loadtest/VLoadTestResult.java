@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.loadtest;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The result of a single load test run.
+ *
+ * @param threadKind          The kind of threads
+ * @param strategy            The builder strategy
+ * @param threads             The number of threads
+ * @param operations          The number of completed checks
+ * @param rejected            The number of checks that rejected the request
+ * @param durationNanos       The measured duration
+ * @param latencyP50Nanos     The median latency
+ * @param latencyP90Nanos     The 90th percentile latency
+ * @param latencyP99Nanos     The 99th percentile latency
+ * @param latencyP999Nanos    The 99.9th percentile latency
+ * @param latencyMaxNanos     The maximum latency
+ * @param allocatedBytes      The number of bytes allocated by all threads
+ *                            during the run
+ */
+
+public record VLoadTestResult(
+  VLoadTestThreadKind threadKind,
+  VLoadTestStrategy strategy,
+  int threads,
+  long operations,
+  long rejected,
+  long durationNanos,
+  long latencyP50Nanos,
+  long latencyP90Nanos,
+  long latencyP99Nanos,
+  long latencyP999Nanos,
+  long latencyMaxNanos,
+  long allocatedBytes)
+{
+  /**
+   * The result of a single load test run.
+   *
+   * @param threadKind          The kind of threads
+   * @param strategy            The builder strategy
+   * @param threads             The number of threads
+   * @param operations          The number of completed checks
+   * @param rejected            The number of checks that rejected the request
+   * @param durationNanos       The measured duration
+   * @param latencyP50Nanos     The median latency
+   * @param latencyP90Nanos     The 90th percentile latency
+   * @param latencyP99Nanos     The 99th percentile latency
+   * @param latencyP999Nanos    The 99.9th percentile latency
+   * @param latencyMaxNanos     The maximum latency
+   * @param allocatedBytes      The number of bytes allocated by all threads
+   *                            during the run
+   */
+
+  public VLoadTestResult
+  {
+    Objects.requireNonNull(threadKind, "threadKind");
+    Objects.requireNonNull(strategy, "strategy");
+  }
+
+  /**
+   * @return The throughput in checks per second
+   */
+
+  public double throughputPerSecond()
+  {
+    return (double) this.operations * 1.0e9 / (double) this.durationNanos;
+  }
+
+  /**
+   * @return The allocation rate in bytes per second
+   */
+
+  public double allocatedBytesPerSecond()
+  {
+    return (double) this.allocatedBytes * 1.0e9 / (double) this.durationNanos;
+  }
+
+  /**
+   * @return The mean number of bytes allocated per check
+   */
+
+  public double allocatedBytesPerOperation()
+  {
+    if (this.operations == 0L) {
+      return 0.0;
+    }
+    return (double) this.allocatedBytes / (double) this.operations;
+  }
+
+  /**
+   * @return The result as a single-line JSON object
+   */
+
+  public String toJSON()
+  {
+    return String.format(
+      Locale.ROOT,
+      "{\"threadKind\":\"%s\",\"strategy\":\"%s\",\"threads\":%d,"
+        + "\"operations\":%d,\"rejected\":%d,\"durationNanos\":%d,"
+        + "\"throughputPerSecond\":%.1f,"
+        + "\"latencyNanos\":{\"p50\":%d,\"p90\":%d,\"p99\":%d,\"p999\":%d,"
+        + "\"max\":%d},"
+        + "\"allocatedBytes\":%d,\"allocatedBytesPerSecond\":%.1f,"
+        + "\"allocatedBytesPerOperation\":%.1f}",
+      this.threadKind,
+      this.strategy,
+      Integer.valueOf(this.threads),
+      Long.valueOf(this.operations),
+      Long.valueOf(this.rejected),
+      Long.valueOf(this.durationNanos),
+      Double.valueOf(this.throughputPerSecond()),
+      Long.valueOf(this.latencyP50Nanos),
+      Long.valueOf(this.latencyP90Nanos),
+      Long.valueOf(this.latencyP99Nanos),
+      Long.valueOf(this.latencyP999Nanos),
+      Long.valueOf(this.latencyMaxNanos),
+      Long.valueOf(this.allocatedBytes),
+      Double.valueOf(this.allocatedBytesPerSecond()),
+      Double.valueOf(this.allocatedBytesPerOperation())
+    );
+  }
+}
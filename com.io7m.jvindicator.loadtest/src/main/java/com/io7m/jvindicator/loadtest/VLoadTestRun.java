@@ -0,0 +1,255 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.loadtest;
+
+import com.io7m.jvindicator.core.VInputType;
+import com.io7m.jvindicator.core.VindicationBuilderType;
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The execution of a single load test run.
+ */
+
+final class VLoadTestRun
+{
+  private static final int REQUEST_POOL_SIZE = 4096;
+  private static final long REQUEST_POOL_SEED = 0x6a76696e64696361L;
+
+  private final VLoadTestThreadKind threadKind;
+  private final VLoadTestStrategy strategy;
+  private final int threads;
+  private final VLoadTestConfiguration configuration;
+
+  VLoadTestRun(
+    final VLoadTestConfiguration inConfiguration,
+    final VLoadTestThreadKind inThreadKind,
+    final VLoadTestStrategy inStrategy,
+    final int inThreads)
+  {
+    this.configuration = inConfiguration;
+    this.threadKind = inThreadKind;
+    this.strategy = inStrategy;
+    this.threads = inThreads;
+  }
+
+  /**
+   * The measurement window. The fields are written by the coordinating
+   * thread before the workers are released, and are therefore visible to
+   * the workers without further synchronization.
+   */
+
+  private static final class Window
+  {
+    private final CountDownLatch ready;
+    private final CountDownLatch go;
+    private long measureStart;
+    private long measureEnd;
+
+    Window(
+      final int threads)
+    {
+      this.ready = new CountDownLatch(threads);
+      this.go = new CountDownLatch(1);
+    }
+  }
+
+  private static final class Worker implements Runnable
+  {
+    private final VInputType[] inputs;
+    private final VLoadTestStrategy strategy;
+    private final Window window;
+    private final VLoadTestHistogram histogram;
+    private int next;
+    private long rejected;
+
+    Worker(
+      final VInputType[] inInputs,
+      final VLoadTestStrategy inStrategy,
+      final Window inWindow,
+      final int inFirst)
+    {
+      this.inputs = inInputs;
+      this.strategy = inStrategy;
+      this.window = inWindow;
+      this.next = inFirst;
+      this.histogram = new VLoadTestHistogram();
+    }
+
+    @Override
+    public void run()
+    {
+      final var reused =
+        this.strategy == VLoadTestStrategy.REUSED_PER_THREAD
+          ? VLoadTestSchema.create()
+          : null;
+      final var mask = this.inputs.length - 1;
+
+      /*
+       * Execute one check before waiting for the other workers, so that
+       * one-time initialization costs do not land inside the warmup window.
+       */
+
+      checkOne(reused, this.inputs[this.next & mask]);
+      this.window.ready.countDown();
+      try {
+        this.window.go.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+
+      final var measureStart = this.window.measureStart;
+      final var measureEnd = this.window.measureEnd;
+
+      while (true) {
+        final var timeThen = System.nanoTime();
+        if (timeThen - measureEnd >= 0L) {
+          return;
+        }
+
+        final var input = this.inputs[this.next & mask];
+        ++this.next;
+        final var failed = checkOne(reused, input);
+        final var timeNow = System.nanoTime();
+
+        if (timeThen - measureStart >= 0L) {
+          this.histogram.record(timeNow - timeThen);
+          if (failed) {
+            ++this.rejected;
+          }
+        }
+      }
+    }
+
+    private static boolean checkOne(
+      final VindicationBuilderType<Exception> reused,
+      final VInputType input)
+    {
+      final var builder =
+        reused != null ? reused : VLoadTestSchema.create();
+      try {
+        builder.check(input);
+        return false;
+      } catch (final Exception e) {
+        return true;
+      }
+    }
+  }
+
+  private static void sleepUntil(
+    final long deadline)
+  {
+    while (true) {
+      final var remaining = deadline - System.nanoTime();
+      if (remaining <= 0L) {
+        return;
+      }
+      LockSupport.parkNanos(remaining);
+    }
+  }
+
+  private Thread start(
+    final Runnable worker,
+    final int index)
+  {
+    final var name = "com.io7m.jvindicator.loadtest[%d]".formatted(index);
+    return switch (this.threadKind) {
+      case PLATFORM -> Thread.ofPlatform().name(name).start(worker);
+      case VIRTUAL -> Thread.ofVirtual().name(name).start(worker);
+    };
+  }
+
+  VLoadTestResult execute()
+    throws InterruptedException
+  {
+    final var memory =
+      (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (memory.isThreadAllocatedMemorySupported()) {
+      memory.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    final var inputs =
+      VLoadTestSchema.requests(
+        REQUEST_POOL_SIZE,
+        this.configuration.invalidRatio(),
+        REQUEST_POOL_SEED
+      );
+
+    final var window = new Window(this.threads);
+    final var workers = new ArrayList<Worker>(this.threads);
+    final var started = new ArrayList<Thread>(this.threads);
+    for (int index = 0; index < this.threads; ++index) {
+      final var worker =
+        new Worker(
+          inputs,
+          this.strategy,
+          window,
+          index * (REQUEST_POOL_SIZE / this.threads + 1)
+        );
+      workers.add(worker);
+      started.add(this.start(worker, index));
+    }
+
+    window.ready.await();
+    final var measureStart =
+      System.nanoTime() + this.configuration.warmup().toNanos();
+    final var measureEnd =
+      measureStart + this.configuration.duration().toNanos();
+    window.measureStart = measureStart;
+    window.measureEnd = measureEnd;
+    window.go.countDown();
+
+    sleepUntil(measureStart);
+    final var allocatedThen = memory.getTotalThreadAllocatedBytes();
+    sleepUntil(measureEnd);
+    final var allocatedNow = memory.getTotalThreadAllocatedBytes();
+
+    for (final var thread : started) {
+      thread.join();
+    }
+
+    final var histogram = new VLoadTestHistogram();
+    var rejected = 0L;
+    for (final var worker : workers) {
+      histogram.add(worker.histogram);
+      rejected += worker.rejected;
+    }
+
+    final var allocated =
+      allocatedThen < 0L || allocatedNow < 0L ? -1L : allocatedNow - allocatedThen;
+
+    return new VLoadTestResult(
+      this.threadKind,
+      this.strategy,
+      this.threads,
+      histogram.total(),
+      rejected,
+      measureEnd - measureStart,
+      histogram.valueAt(0.5),
+      histogram.valueAt(0.9),
+      histogram.valueAt(0.99),
+      histogram.valueAt(0.999),
+      histogram.max(),
+      allocated
+    );
+  }
+}
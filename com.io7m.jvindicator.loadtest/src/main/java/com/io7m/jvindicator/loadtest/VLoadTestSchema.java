@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.loadtest;
+
+import com.io7m.jvindicator.core.VInputType;
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.VindicationBuilderType;
+import com.io7m.jvindicator.core.Vindication;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * A schema resembling that of a typical paged list endpoint, along with a
+ * pool of generated requests.
+ */
+
+final class VLoadTestSchema
+{
+  private static final String[] SORTS = {"created", "updated", "name"};
+
+  private VLoadTestSchema()
+  {
+
+  }
+
+  /**
+   * @return A new builder for the schema
+   */
+
+  static VindicationBuilderType<Exception> create()
+  {
+    final var v = Vindication.start();
+    v.setName("list");
+    v.addRequiredParameter("tenant", Vindication.uuids());
+    v.addRequiredIntParameter("limit", Vindication.primitiveIntsInRange(1, 1000));
+    v.addRequiredLongParameter(
+      "offset", Vindication.primitiveLongsInRange(0L, Long.MAX_VALUE));
+    v.addRequiredParameter("sort", Vindication.oneOf(SORTS));
+    v.addOptionalParameter("order", Vindication.oneOf("asc", "desc"));
+    v.addRequiredBooleanParameter(
+      "archived", Vindication.primitiveBooleans());
+    v.addOptionalParameter("q", Vindication.matching("[a-zA-Z0-9 ]*", 64));
+    v.addOptionalParameter("since", Vindication.offsetDateTimes());
+    return v;
+  }
+
+  /**
+   * Generate a pool of requests.
+   *
+   * @param size         The number of requests (a power of two)
+   * @param invalidRatio The fraction of invalid requests
+   * @param seed         The random seed
+   *
+   * @return The requests
+   */
+
+  static VInputType[] requests(
+    final int size,
+    final double invalidRatio,
+    final long seed)
+  {
+    final var random = new SplittableRandom(seed);
+    final var inputs = new VInputType[size];
+    for (int index = 0; index < size; ++index) {
+      final var invalid = random.nextDouble() < invalidRatio;
+      inputs[index] = VInputs.ofArrayMap(request(random, invalid));
+    }
+    return inputs;
+  }
+
+  private static HashMap<String, String[]> request(
+    final SplittableRandom random,
+    final boolean invalid)
+  {
+    final var map = new HashMap<String, String[]>();
+    map.put("tenant", one(new UUID(random.nextLong(), random.nextLong())));
+    map.put("limit", one(Integer.toString(random.nextInt(1, 1001))));
+    map.put("offset", one(Long.toString(random.nextLong(0L, 1_000_000L))));
+    map.put("sort", one(SORTS[random.nextInt(SORTS.length)]));
+    map.put("archived", one(Boolean.toString(random.nextBoolean())));
+    map.put("utm_source", one("newsletter"));
+
+    if (random.nextBoolean()) {
+      map.put("order", one(random.nextBoolean() ? "asc" : "desc"));
+    }
+    if (random.nextInt(4) == 0) {
+      map.put("q", one("search term " + random.nextInt(1000)));
+    }
+    if (random.nextInt(4) == 0) {
+      final var time =
+        OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)
+          .plusSeconds(random.nextLong(0L, 100_000_000L));
+      map.put("since", one(time));
+    }
+
+    if (invalid) {
+      switch (random.nextInt(4)) {
+        case 0 -> map.put("limit", one("0"));
+        case 1 -> map.put("tenant", one("not-a-uuid"));
+        case 2 -> map.put("sort", one("size"));
+        default -> map.remove("archived");
+      }
+    }
+    return map;
+  }
+
+  private static String[] one(
+    final Object value)
+  {
+    return new String[]{value.toString()};
+  }
+}
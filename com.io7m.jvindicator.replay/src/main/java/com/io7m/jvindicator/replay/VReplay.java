@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Replay recorded query strings against schemas.
+ *
+ * <p>Each file is split into chunks at line boundaries, and the chunks are
+ * memory-mapped and checked in parallel. Lines are parsed directly from the
+ * mapped bytes with {@link com.io7m.jvindicator.core.VInputs#ofForm(ByteBuffer)};
+ * lines are never decoded to strings as a whole, and only the values of
+ * registered parameters are decoded. The counts from each chunk are merged
+ * once all chunks have been checked.</p>
+ */
+
+public final class VReplay
+{
+  private static final int SCAN_BUFFER_SIZE = 8192;
+
+  private VReplay()
+  {
+
+  }
+
+  /**
+   * Replay the configured files against the configured schemas.
+   *
+   * @param configuration The configuration
+   *
+   * @return A report of the accepted and rejected lines
+   *
+   * @throws IOException          On I/O errors
+   * @throws InterruptedException If interrupted
+   */
+
+  public static VReplayReport replay(
+    final VReplayConfiguration configuration)
+    throws IOException, InterruptedException
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    final var timeThen = System.nanoTime();
+    final var chunks = new ArrayList<VReplayChunk>();
+    for (final var file : configuration.files()) {
+      chunks.addAll(split(file, configuration.chunkSize()));
+    }
+
+    final var schemas = configuration.schemas();
+    final var total =
+      new VReplayTally(schemas.size(), configuration.maxDistinctErrors());
+
+    try (var executor =
+           Executors.newFixedThreadPool(configuration.parallelism())) {
+      final var futures = new ArrayList<Future<VReplayTally>>(chunks.size());
+      for (final var chunk : chunks) {
+        futures.add(executor.submit(new VReplayTask(configuration, chunk)));
+      }
+      for (final var future : futures) {
+        total.add(await(future));
+      }
+    }
+
+    final var reports = new ArrayList<VReplaySchemaReport>(schemas.size());
+    for (int index = 0; index < schemas.size(); ++index) {
+      reports.add(total.report(index, schemas.get(index).name()));
+    }
+
+    return new VReplayReport(
+      total.lines(),
+      total.bytes(),
+      Duration.ofNanos(System.nanoTime() - timeThen),
+      reports
+    );
+  }
+
+  private static VReplayTally await(
+    final Future<VReplayTally> future)
+    throws IOException, InterruptedException
+  {
+    try {
+      return future.get();
+    } catch (final ExecutionException e) {
+      final var cause = e.getCause();
+      if (cause instanceof IOException io) {
+        throw io;
+      }
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Split the given file into chunks of approximately {@code chunkSize}
+   * bytes, extending each chunk to the end of the line in which it would
+   * otherwise end.
+   *
+   * @param file      The file
+   * @param chunkSize The approximate chunk size
+   *
+   * @return The chunks
+   *
+   * @throws IOException On I/O errors
+   */
+
+  static List<VReplayChunk> split(
+    final Path file,
+    final int chunkSize)
+    throws IOException
+  {
+    final var chunks = new ArrayList<VReplayChunk>();
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var size = channel.size();
+      final var scan = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+
+      var start = 0L;
+      while (start < size) {
+        final var end =
+          lineBoundary(channel, scan, Math.min(size, start + chunkSize), size);
+        if (end - start > Integer.MAX_VALUE) {
+          throw new IOException(
+            "%s: The line at offset %d is too long to be mapped."
+              .formatted(file, Long.valueOf(start)));
+        }
+        chunks.add(new VReplayChunk(file, start, end));
+        start = end;
+      }
+    }
+    return chunks;
+  }
+
+  private static long lineBoundary(
+    final FileChannel channel,
+    final ByteBuffer scan,
+    final long position,
+    final long size)
+    throws IOException
+  {
+    var offset = position;
+    while (offset < size) {
+      scan.clear();
+      final var read = channel.read(scan, offset);
+      if (read <= 0) {
+        break;
+      }
+      for (int index = 0; index < read; ++index) {
+        if (scan.get(index) == '\n') {
+          return offset + index + 1;
+        }
+      }
+      offset += read;
+    }
+    return size;
+  }
+}
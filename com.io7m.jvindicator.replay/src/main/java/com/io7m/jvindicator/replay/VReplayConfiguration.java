@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.replay;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The configuration for a replay.
+ *
+ * @param files             The access log files, each containing one
+ *                          URL-encoded query string per line
+ * @param schemas           The schemas against which each line is checked
+ * @param parallelism       The number of threads that check lines
+ * @param chunkSize         The approximate size in bytes of the chunks into
+ *                          which files are split
+ * @param maxDistinctErrors The maximum number of distinct error messages
+ *                          counted for each parameter, and of distinct
+ *                          parameters counted for each schema; further
+ *                          messages are counted together under
+ *                          {@link #OTHER_ERRORS}, and further parameters
+ *                          under {@link #OTHER_PARAMETERS}
+ */
+
+public record VReplayConfiguration(
+  List<Path> files,
+  List<VReplaySchema> schemas,
+  int parallelism,
+  int chunkSize,
+  int maxDistinctErrors)
+{
+  /**
+   * The key under which error messages beyond the
+   * {@link #maxDistinctErrors()} limit are counted.
+   */
+
+  public static final String OTHER_ERRORS = "(other)";
+
+  /**
+   * The key under which the errors of parameters beyond the
+   * {@link #maxDistinctErrors()} limit are counted.
+   */
+
+  public static final String OTHER_PARAMETERS = "(other)";
+
+  private static final int CHUNK_SIZE_DEFAULT = 64 * 1024 * 1024;
+  private static final int MAX_DISTINCT_ERRORS_DEFAULT = 100;
+
+  /**
+   * The configuration for a replay.
+   *
+   * @param files             The access log files, each containing one
+   *                          URL-encoded query string per line
+   * @param schemas           The schemas against which each line is checked
+   * @param parallelism       The number of threads that check lines
+   * @param chunkSize         The approximate size in bytes of the chunks into
+   *                          which files are split
+   * @param maxDistinctErrors The maximum number of distinct error messages
+   *                          counted for each parameter, and of distinct
+   *                          parameters counted for each schema
+   */
+
+  public VReplayConfiguration
+  {
+    files = List.copyOf(files);
+    schemas = List.copyOf(schemas);
+
+    if (schemas.isEmpty()) {
+      throw new IllegalArgumentException("At least one schema is required.");
+    }
+
+    final var names = new HashSet<String>();
+    for (final var schema : schemas) {
+      Objects.requireNonNull(schema, "schema");
+      if (!names.add(schema.name())) {
+        throw new IllegalArgumentException(
+          "A schema named %s has already been specified."
+            .formatted(schema.name()));
+      }
+    }
+
+    if (parallelism < 1) {
+      throw new IllegalArgumentException(
+        "The parallelism %d must be positive.".formatted(parallelism));
+    }
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException(
+        "The chunk size %d must be positive.".formatted(chunkSize));
+    }
+    if (maxDistinctErrors < 0) {
+      throw new IllegalArgumentException(
+        "The number of distinct errors %d must be non-negative."
+          .formatted(maxDistinctErrors));
+    }
+  }
+
+  /**
+   * Create a configuration that uses one thread per available processor and
+   * default chunk sizes and error limits.
+   *
+   * @param files   The access log files
+   * @param schemas The schemas against which each line is checked
+   *
+   * @return A configuration
+   */
+
+  public static VReplayConfiguration of(
+    final List<Path> files,
+    final List<VReplaySchema> schemas)
+  {
+    return new VReplayConfiguration(
+      files,
+      schemas,
+      Runtime.getRuntime().availableProcessors(),
+      CHUNK_SIZE_DEFAULT,
+      MAX_DISTINCT_ERRORS_DEFAULT
+    );
+  }
+}
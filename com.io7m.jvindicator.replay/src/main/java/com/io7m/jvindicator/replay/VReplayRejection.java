@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.replay;
+
+import java.util.Map;
+
+/**
+ * The exception raised by replay builders. The exception carries the
+ * errors reported by the builder and does not capture a stack trace, as
+ * rejections are expected to be frequent.
+ */
+
+final class VReplayRejection extends Exception
+{
+  private static final long serialVersionUID = 1L;
+
+  private final Map<String, String> errors;
+
+  VReplayRejection(
+    final Map<String, String> inErrors)
+  {
+    super(null, null, false, false);
+    this.errors = inErrors;
+  }
+
+  Map<String, String> errors()
+  {
+    return this.errors;
+  }
+}
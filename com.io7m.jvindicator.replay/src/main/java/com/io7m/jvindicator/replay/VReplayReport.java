@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.replay;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The results of a replay.
+ *
+ * @param lines   The number of lines read
+ * @param bytes   The number of bytes read, excluding line terminators
+ * @param elapsed The time taken
+ * @param schemas The results for each schema, in configuration order
+ */
+
+public record VReplayReport(
+  long lines,
+  long bytes,
+  Duration elapsed,
+  List<VReplaySchemaReport> schemas)
+{
+  /**
+   * The results of a replay.
+   *
+   * @param lines   The number of lines read
+   * @param bytes   The number of bytes read, excluding line terminators
+   * @param elapsed The time taken
+   * @param schemas The results for each schema, in configuration order
+   */
+
+  public VReplayReport
+  {
+    Objects.requireNonNull(elapsed, "elapsed");
+    schemas = List.copyOf(schemas);
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.replay;
+
+import com.io7m.jvindicator.core.VindicationBuilderType;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A named schema against which recorded requests are replayed. Builders are
+ * not thread-safe, and so the replay calls {@code definition} to populate a
+ * fresh builder for each unit of work.
+ *
+ * @param name       The schema name
+ * @param definition A function that registers parameters on a builder
+ */
+
+public record VReplaySchema(
+  String name,
+  Consumer<VindicationBuilderType<?>> definition)
+{
+  /**
+   * A named schema against which recorded requests are replayed.
+   *
+   * @param name       The schema name
+   * @param definition A function that registers parameters on a builder
+   */
+
+  public VReplaySchema
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(definition, "definition");
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.replay;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The results of replaying recorded requests against a single schema.
+ *
+ * @param name       The schema name
+ * @param accepted   The number of accepted lines
+ * @param rejected   The number of rejected lines
+ * @param rejections The number of rejections for each parameter, broken down
+ *                   by error message, sorted by parameter name and message
+ */
+
+public record VReplaySchemaReport(
+  String name,
+  long accepted,
+  long rejected,
+  Map<String, Map<String, Long>> rejections)
+{
+  /**
+   * The results of replaying recorded requests against a single schema.
+   *
+   * @param name       The schema name
+   * @param accepted   The number of accepted lines
+   * @param rejected   The number of rejected lines
+   * @param rejections The number of rejections for each parameter, broken
+   *                   down by error message, sorted by parameter name and
+   *                   message
+   */
+
+  public VReplaySchemaReport
+  {
+    Objects.requireNonNull(name, "name");
+    Objects.requireNonNull(rejections, "rejections");
+  }
+}
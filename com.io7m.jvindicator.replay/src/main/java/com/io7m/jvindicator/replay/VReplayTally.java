@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.replay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The counts accumulated by one unit of work.
+ */
+
+final class VReplayTally
+{
+  private final int maxDistinctErrors;
+  private final long[] accepted;
+  private final long[] rejected;
+  private final List<Map<String, Map<String, Long>>> rejections;
+  private long lines;
+  private long bytes;
+
+  VReplayTally(
+    final int schemaCount,
+    final int inMaxDistinctErrors)
+  {
+    this.maxDistinctErrors = inMaxDistinctErrors;
+    this.accepted = new long[schemaCount];
+    this.rejected = new long[schemaCount];
+    this.rejections = new ArrayList<>(schemaCount);
+    for (int index = 0; index < schemaCount; ++index) {
+      this.rejections.add(new HashMap<>());
+    }
+  }
+
+  void line(
+    final int length)
+  {
+    ++this.lines;
+    this.bytes += length;
+  }
+
+  void accept(
+    final int schema)
+  {
+    ++this.accepted[schema];
+  }
+
+  void reject(
+    final int schema,
+    final Map<String, String> errors)
+  {
+    ++this.rejected[schema];
+    for (final var entry : errors.entrySet()) {
+      this.count(schema, entry.getKey(), entry.getValue(), 1L);
+    }
+  }
+
+  private void count(
+    final int schema,
+    final String parameter,
+    final String error,
+    final long count)
+  {
+    final var byParameter = this.rejections.get(schema);
+
+    /*
+     * Parameter names are as unbounded as error messages when unknown
+     * parameters are rejected, so both are limited. All errors for
+     * parameters beyond the limit are counted in a single bucket.
+     */
+
+    var byError = byParameter.get(parameter);
+    if (byError == null) {
+      if (distinct(byParameter, VReplayConfiguration.OTHER_PARAMETERS)
+          >= this.maxDistinctErrors) {
+        byParameter.computeIfAbsent(
+            VReplayConfiguration.OTHER_PARAMETERS, k -> new HashMap<>())
+          .merge(
+            VReplayConfiguration.OTHER_ERRORS,
+            Long.valueOf(count),
+            Long::sum
+          );
+        return;
+      }
+      byError = new HashMap<>();
+      byParameter.put(parameter, byError);
+    }
+
+    var key = error == null ? "" : error;
+    if (!byError.containsKey(key)
+        && distinct(byError, VReplayConfiguration.OTHER_ERRORS)
+           >= this.maxDistinctErrors) {
+      key = VReplayConfiguration.OTHER_ERRORS;
+    }
+    byError.merge(key, Long.valueOf(count), Long::sum);
+  }
+
+  private static int distinct(
+    final Map<String, ?> counts,
+    final String overflow)
+  {
+    final var size = counts.size();
+    if (counts.containsKey(overflow)) {
+      return size - 1;
+    }
+    return size;
+  }
+
+  void add(
+    final VReplayTally other)
+  {
+    this.lines += other.lines;
+    this.bytes += other.bytes;
+    for (int schema = 0; schema < this.accepted.length; ++schema) {
+      this.accepted[schema] += other.accepted[schema];
+      this.rejected[schema] += other.rejected[schema];
+      for (final var byParameter : other.rejections.get(schema).entrySet()) {
+        for (final var byError : byParameter.getValue().entrySet()) {
+          this.count(
+            schema,
+            byParameter.getKey(),
+            byError.getKey(),
+            byError.getValue().longValue()
+          );
+        }
+      }
+    }
+  }
+
+  long lines()
+  {
+    return this.lines;
+  }
+
+  long bytes()
+  {
+    return this.bytes;
+  }
+
+  VReplaySchemaReport report(
+    final int schema,
+    final String name)
+  {
+    final var results = new TreeMap<String, Map<String, Long>>();
+    for (final var entry : this.rejections.get(schema).entrySet()) {
+      results.put(
+        entry.getKey(),
+        Collections.unmodifiableSortedMap(new TreeMap<>(entry.getValue()))
+      );
+    }
+    return new VReplaySchemaReport(
+      name,
+      this.accepted[schema],
+      this.rejected[schema],
+      Collections.unmodifiableSortedMap(results)
+    );
+  }
+}
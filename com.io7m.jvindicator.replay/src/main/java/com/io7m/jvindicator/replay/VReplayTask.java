@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.jvindicator.replay;
+
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.Vindication;
+import com.io7m.jvindicator.core.VindicationBuilderType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A unit of work: the checking of every line in a single chunk against
+ * every schema.
+ */
+
+final class VReplayTask implements Callable<VReplayTally>
+{
+  private final VReplayConfiguration configuration;
+  private final VReplayChunk chunk;
+
+  VReplayTask(
+    final VReplayConfiguration inConfiguration,
+    final VReplayChunk inChunk)
+  {
+    this.configuration = inConfiguration;
+    this.chunk = inChunk;
+  }
+
+  private static int lineEnd(
+    final ByteBuffer data,
+    final int start,
+    final int limit)
+  {
+    for (int index = start; index < limit; ++index) {
+      if (data.get(index) == '\n') {
+        return index;
+      }
+    }
+    return limit;
+  }
+
+  @Override
+  public VReplayTally call()
+    throws IOException
+  {
+    final var schemas = this.configuration.schemas();
+    final var builders =
+      new ArrayList<VindicationBuilderType<VReplayRejection>>(schemas.size());
+    for (final var schema : schemas) {
+      final var builder =
+        Vindication.startWithFormatter(VReplayRejection::new);
+      builder.setName(schema.name());
+      schema.definition().accept(builder);
+      builders.add(builder);
+    }
+
+    final var tally =
+      new VReplayTally(schemas.size(), this.configuration.maxDistinctErrors());
+
+    try (var channel =
+           FileChannel.open(this.chunk.file(), StandardOpenOption.READ)) {
+      final var data =
+        channel.map(
+          FileChannel.MapMode.READ_ONLY,
+          this.chunk.start(),
+          this.chunk.end() - this.chunk.start()
+        );
+      this.replay(data, builders, tally);
+    }
+    return tally;
+  }
+
+  private void replay(
+    final ByteBuffer data,
+    final List<VindicationBuilderType<VReplayRejection>> builders,
+    final VReplayTally tally)
+  {
+    /*
+     * A single view of the chunk is repositioned over each line in turn, so
+     * that neither the view nor the input need to be allocated per line.
+     */
+
+    final var view = data.duplicate();
+    final var input = VInputs.ofForm(view);
+    final var limit = data.limit();
+    final var count = builders.size();
+
+    var next = 0;
+    while (next < limit) {
+      final var newline = lineEnd(data, next, limit);
+      var start = next;
+      var end = newline;
+      next = newline + 1;
+
+      if (end > start && data.get(end - 1) == '\r') {
+        --end;
+      }
+      if (end > start && data.get(start) == '?') {
+        ++start;
+      }
+
+      view.limit(end);
+      view.position(start);
+      tally.line(end - start);
+
+      for (int index = 0; index < count; ++index) {
+        try {
+          builders.get(index).check(input);
+          tally.accept(index);
+        } catch (final VReplayRejection e) {
+          tally.reject(index, e.errors());
+        }
+      }
+    }
+  }
+}
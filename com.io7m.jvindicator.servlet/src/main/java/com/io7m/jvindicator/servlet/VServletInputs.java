@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.servlet;
+
+import com.io7m.jvindicator.core.VInputSinkType;
+import com.io7m.jvindicator.core.VInputType;
+import com.io7m.jvindicator.core.VInputs;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Inputs that read parameters directly from servlet requests.
+ */
+
+public final class VServletInputs
+{
+  private static final String FORM_CONTENT_TYPE =
+    "application/x-www-form-urlencoded";
+
+  private VServletInputs()
+  {
+
+  }
+
+  /**
+   * An input that reads parameters from the given request using the
+   * standard servlet parameter methods. Unless the builder requires every
+   * parameter name (in order to enforce request limits or reject unknown
+   * parameters), the values of only the registered parameters are requested
+   * with {@link HttpServletRequest#getParameterValues(String)}, and the
+   * request's parameter map is never requested.
+   *
+   * @param request The request
+   *
+   * @return An input
+   */
+
+  public static VInputType parameters(
+    final HttpServletRequest request)
+  {
+    Objects.requireNonNull(request, "request");
+    return sink -> deliverParameters(request, sink);
+  }
+
+  /**
+   * An input that parses the raw query string of the given request,
+   * bypassing the container's parameter handling entirely. Parameters sent
+   * in the request body are not seen by this input.
+   *
+   * @param request The request
+   *
+   * @return An input
+   *
+   * @see VInputs#ofQueryString(String)
+   */
+
+  public static VInputType queryString(
+    final HttpServletRequest request)
+  {
+    Objects.requireNonNull(request, "request");
+    return sink -> VInputs.ofQueryString(request.getQueryString()).deliver(sink);
+  }
+
+  /**
+   * An input that parses the raw query string of the given request if the
+   * request does not have a URL-encoded form body, and otherwise reads
+   * parameters using the standard servlet parameter methods.
+   *
+   * @param request The request
+   *
+   * @return An input
+   *
+   * @see #queryString(HttpServletRequest)
+   * @see #parameters(HttpServletRequest)
+   */
+
+  public static VInputType automatic(
+    final HttpServletRequest request)
+  {
+    Objects.requireNonNull(request, "request");
+
+    final var contentType = request.getContentType();
+    if (contentType != null
+        && contentType.toLowerCase(Locale.ROOT).startsWith(FORM_CONTENT_TYPE)) {
+      return parameters(request);
+    }
+    return queryString(request);
+  }
+
+  private static void deliverParameters(
+    final HttpServletRequest request,
+    final VInputSinkType sink)
+  {
+    if (!sink.requiresAllNames()) {
+      final var count = sink.parameterCount();
+      for (int index = 0; index < count; ++index) {
+        final var values =
+          request.getParameterValues(sink.parameterName(index));
+        if (values != null && !sink.values(index, Arrays.asList(values))) {
+          return;
+        }
+      }
+      return;
+    }
+
+    final var names = request.getParameterNames();
+    while (names.hasMoreElements()) {
+      final var name = names.nextElement();
+      final var values = request.getParameterValues(name);
+      final var list = values == null ? new String[0] : values;
+      final var index = sink.find(name);
+      final boolean proceed;
+      if (index < 0) {
+        proceed = sink.unknown(name, list.length, lengthOf(list));
+      } else {
+        proceed = sink.values(index, Arrays.asList(list));
+      }
+      if (!proceed) {
+        return;
+      }
+    }
+  }
+
+  private static long lengthOf(
+    final String[] values)
+  {
+    var total = 0L;
+    for (final var value : values) {
+      total += value == null ? 0L : value.length();
+    }
+    return total;
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VCheckOrdering;
+import com.io7m.jvindicator.core.VInputType;
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.VindicationBuilderType;
+import com.io7m.jvindicator.core.Vindication;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationAllocationTest
+{
+  private static final int WARMUP = 200_000;
+  private static final int ITERATIONS = 200_000;
+
+  /**
+   * The maximum number of measured rounds. The JIT compiler works in the
+   * background, and so on a loaded machine the warmup may end before the
+   * check path has been compiled; the best round is taken as the result.
+   */
+
+  private static final int ROUNDS = 10;
+
+  /**
+   * The number of bytes that may be allocated across all measured iterations.
+   * A single allocation per iteration would exceed this by several orders
+   * of magnitude.
+   */
+
+  private static final long ALLOWED_BYTES = 64L * 1024L;
+
+  private static long measure(
+    final VindicationBuilderType<Exception> v,
+    final VInputType input)
+    throws Exception
+  {
+    final var threads =
+      (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assertTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    for (int index = 0; index < WARMUP; ++index) {
+      v.check(input);
+    }
+
+    var best = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; ++round) {
+      final var before = threads.getCurrentThreadAllocatedBytes();
+      for (int index = 0; index < ITERATIONS; ++index) {
+        v.check(input);
+      }
+      best = Math.min(best, threads.getCurrentThreadAllocatedBytes() - before);
+      if (best < ALLOWED_BYTES) {
+        break;
+      }
+    }
+    return best;
+  }
+
+  private static void checkAllocations(
+    final VindicationBuilderType<Exception> v,
+    final VInputType input)
+    throws Exception
+  {
+    final var allocated = measure(v, input);
+    assertTrue(
+      allocated < ALLOWED_BYTES,
+      "Allocated %d bytes over %d checks".formatted(
+        Long.valueOf(allocated),
+        Integer.valueOf(ITERATIONS))
+    );
+  }
+
+  /**
+   * Successful checks of string and primitive parameters do not allocate.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testNoAllocationMap()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredIntParameter("p0", Vindication.primitiveInts());
+    final var p1 =
+      v.addRequiredLongParameter(
+        "p1", Vindication.primitiveLongsInRange(0L, 1_000_000_000_000L));
+    final var p2 =
+      v.addRequiredBooleanParameter("p2", Vindication.primitiveBooleans());
+    final var p3 =
+      v.addRequiredParameter("p3", Vindication.strings());
+    final var p4 =
+      v.addRequiredIntParameter("p4", Vindication.primitiveIntsInRange(0, 10));
+
+    final var input = VInputs.ofMap(Map.of(
+      "p0", List.of("-123456"),
+      "p1", List.of("999999999999"),
+      "p2", List.of("true"),
+      "p3", List.of("hello"),
+      "p4", List.of("10"),
+      "other", List.of("x")
+    ));
+
+    checkAllocations(v, input);
+
+    assertEquals(-123456, p0.getInt());
+    assertEquals(999_999_999_999L, p1.getLong());
+    assertTrue(p2.getBoolean());
+    assertEquals("hello", p3.get());
+    assertEquals(10, p4.getInt());
+  }
+
+  /**
+   * Successful checks of array-typed maps in adaptive, fail-fast mode do
+   * not allocate.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testNoAllocationArrayMapAdaptive()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    v.setFailFast(true);
+    v.setCheckOrdering(VCheckOrdering.ADAPTIVE);
+
+    final var p0 =
+      v.addRequiredIntParameter("p0", Vindication.primitiveInts());
+    final var p1 =
+      v.addRequiredParameter("p1", Vindication.lengthBetween(1, 10));
+
+    final var input = VInputs.ofArrayMap(Map.of(
+      "p0", new String[]{"1000000"},
+      "p1", new String[]{"abc"}
+    ));
+
+    checkAllocations(v, input);
+
+    assertEquals(1_000_000, p0.getInt());
+    assertEquals("abc", p1.get());
+  }
+
+  /**
+   * Missing defaulted parameters do not allocate.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testNoAllocationDefaulted()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var limit =
+      v.addDefaultedIntParameter(
+        "limit", Vindication.primitiveIntsInRange(1, 1000), "100");
+    final var offset =
+      v.addDefaultedLongParameter(
+        "offset", Vindication.primitiveLongs(), "0");
+    final var sort =
+      v.addDefaultedParameter("sort", Vindication.strings(), "name");
+
+    final var input = VInputs.ofArrayMap(Map.of(
+      "offset", new String[]{"20"}
+    ));
+
+    checkAllocations(v, input);
+
+    assertEquals(100, limit.getInt());
+    assertEquals(20L, offset.getLong());
+    assertEquals("name", sort.get());
+  }
+
+  /**
+   * Checks that return canonical values from an intern table do not
+   * allocate.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testNoAllocationInterned()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var sort =
+      v.addRequiredParameter("sort", Vindication.interned(16, 32));
+
+    final var input = VInputs.ofArrayMap(Map.of(
+      "sort", new String[]{"descending"}
+    ));
+
+    checkAllocations(v, input);
+
+    assertEquals("descending", sort.get());
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VParameterCheckType;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationAsyncTest
+{
+  private static <T> VParameterCheckType<T> slowly(
+    final VParameterCheckType<T> check)
+  {
+    return value -> {
+      Thread.sleep(500L);
+      return check.check(value);
+    };
+  }
+
+  /**
+   * Asynchronous checks run concurrently.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAsyncConcurrent()
+    throws Exception
+  {
+    final var v =
+      Vindication.start();
+    final var p0 =
+      v.addRequiredParameterAsync(
+        "p0", Vindication.onVirtualThread(slowly(Vindication.uuids())));
+    final var p1 =
+      v.addRequiredParameterAsync(
+        "p1", Vindication.onVirtualThread(slowly(Vindication.integerSigned())));
+    final var p2 =
+      v.addOptionalParameterAsync(
+        "p2", Vindication.onVirtualThread(slowly(Vindication.booleans())));
+    final var p3 =
+      v.addRequiredParameter("p3", Vindication.strings());
+
+    final var timeThen = System.nanoTime();
+    v.checkArrayTyped(Map.ofEntries(
+      Map.entry("p0", new String[]{"98da4b91-76b7-42ef-ba03-3bed60fd73db"}),
+      Map.entry("p1", new String[]{"23"}),
+      Map.entry("p2", new String[]{"true"}),
+      Map.entry("p3", new String[]{"x"})
+    ));
+    final var elapsed =
+      Duration.ofNanos(System.nanoTime() - timeThen);
+
+    assertTrue(
+      elapsed.compareTo(Duration.ofMillis(1400L)) < 0,
+      "Checks took %s".formatted(elapsed)
+    );
+
+    assertEquals(
+      UUID.fromString("98da4b91-76b7-42ef-ba03-3bed60fd73db"),
+      p0.get()
+    );
+    assertEquals(23, p1.get());
+    assertEquals(Optional.of(Boolean.TRUE), p2.get());
+    assertEquals("x", p3.get());
+  }
+
+  /**
+   * Asynchronous failures are reported.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAsyncFailure()
+    throws Exception
+  {
+    final var v =
+      Vindication.start();
+    final var p0 =
+      v.addRequiredParameterAsync(
+        "p0", Vindication.onVirtualThread(Vindication.uuids()));
+    final var p1 =
+      v.addRequiredParameterAsync(
+        "p1", Vindication.onVirtualThread(Vindication.uuids()));
+    final var p2 =
+      v.addRequiredParameterAsync(
+        "p2", value -> CompletableFuture.failedFuture(new Exception("Bad!")));
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.checkArrayTyped(Map.ofEntries(
+          Map.entry("p0", new String[]{"x"}),
+          Map.entry("p2", new String[]{"y"})
+        ));
+      });
+
+    assertTrue(ex.getMessage().contains("p0"));
+    assertTrue(ex.getMessage().contains("p1"));
+    assertTrue(ex.getMessage().contains("p2"));
+    assertTrue(ex.getMessage().contains("Bad!"));
+  }
+
+  /**
+   * Asynchronous checks that exceed the deadline fail.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAsyncDeadline()
+    throws Exception
+  {
+    final var v =
+      Vindication.start();
+    final var p0 =
+      v.addRequiredParameterAsync(
+        "p0", value -> new CompletableFuture<String>());
+
+    v.setAsyncDeadline(Duration.ofMillis(100L));
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.checkArrayTyped(Map.ofEntries(
+          Map.entry("p0", new String[]{"x"})
+        ));
+      });
+
+    assertTrue(ex.getMessage().contains("p0"));
+    assertTrue(ex.getMessage().contains("deadline"));
+  }
+
+  /**
+   * Negative deadlines are rejected.
+   */
+
+  @Test
+  public void testAsyncDeadlineNegative()
+  {
+    final var v =
+      Vindication.start();
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      v.setAsyncDeadline(Duration.ofMillis(-1L));
+    });
+  }
+
+  /**
+   * Optional asynchronous parameters are optional.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAsyncOptionalMissing()
+    throws Exception
+  {
+    final var v =
+      Vindication.start();
+    final var p0 =
+      v.addOptionalParameterAsync(
+        "p0", Vindication.onVirtualThread(Vindication.uuids()));
+
+    v.checkArrayTyped(Map.of());
+    assertEquals(Optional.empty(), p0.get());
+  }
+
+  /**
+   * Virtual thread checks that exceed the deadline are interrupted.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAsyncDeadlineInterrupts()
+    throws Exception
+  {
+    final var interrupted = new CountDownLatch(1);
+    final var v =
+      Vindication.start();
+    v.addRequiredParameterAsync(
+      "p0", Vindication.onVirtualThread(value -> {
+        try {
+          Thread.sleep(60_000L);
+        } catch (final InterruptedException e) {
+          interrupted.countDown();
+          throw e;
+        }
+        return value;
+      }));
+
+    v.setAsyncDeadline(Duration.ofMillis(100L));
+
+    assertThrows(Exception.class, () -> {
+      v.checkArrayTyped(Map.ofEntries(
+        Map.entry("p0", new String[]{"x"})
+      ));
+    });
+    assertTrue(interrupted.await(10L, TimeUnit.SECONDS));
+  }
+
+  /**
+   * The deadline is measured from the start of the asynchronous checks, and
+   * so includes the time taken by synchronous checks.
+   */
+
+  @Test
+  public void testAsyncDeadlineIncludesSync()
+  {
+    final var v =
+      Vindication.start();
+    v.addRequiredParameterAsync(
+      "p0", Vindication.onVirtualThread(value -> {
+        Thread.sleep(400L);
+        return value;
+      }));
+    v.addRequiredParameter("p1", value -> {
+      Thread.sleep(300L);
+      return value;
+    });
+
+    v.setAsyncDeadline(Duration.ofMillis(200L));
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.checkArrayTyped(Map.ofEntries(
+          Map.entry("p0", new String[]{"x"}),
+          Map.entry("p1", new String[]{"y"})
+        ));
+      });
+
+    assertTrue(ex.getMessage().contains("p0"));
+    assertTrue(ex.getMessage().contains("deadline"));
+  }
+}
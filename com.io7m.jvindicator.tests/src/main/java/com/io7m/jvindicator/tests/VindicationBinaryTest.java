@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationBinaryTest
+{
+  private static byte[] bytesOf(
+    final ByteBuffer buffer)
+  {
+    final var data = new byte[buffer.remaining()];
+    buffer.duplicate().get(data);
+    return data;
+  }
+
+  /**
+   * Hexadecimal values are decoded.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHex()
+    throws Exception
+  {
+    final var check = Vindication.hex(32);
+    final var random = new Random(0L);
+
+    for (int size = 0; size <= 32; ++size) {
+      final var data = new byte[size];
+      random.nextBytes(data);
+      final var text = HexFormat.of().formatHex(data);
+      assertArrayEquals(data, bytesOf(check.check(text)));
+      assertArrayEquals(data, bytesOf(check.check(text.toUpperCase())));
+    }
+  }
+
+  /**
+   * Invalid hexadecimal values are rejected.
+   */
+
+  @Test
+  public void testHexInvalid()
+  {
+    final var check = Vindication.hex(4);
+    assertThrows(Exception.class, () -> check.check("abc"));
+    assertThrows(Exception.class, () -> check.check("zz"));
+    assertThrows(Exception.class, () -> check.check("éé"));
+
+    final var ex =
+      assertThrows(Exception.class, () -> check.check("00".repeat(100_000)));
+    assertTrue(ex.getMessage().contains("exceeds the maximum length"));
+  }
+
+  /**
+   * Base64 values are decoded.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testBase64()
+    throws Exception
+  {
+    final var check = Vindication.base64(64);
+    final var checkUrl = Vindication.base64Url(64);
+    final var random = new Random(0L);
+
+    for (int size = 0; size <= 64; ++size) {
+      final var data = new byte[size];
+      random.nextBytes(data);
+
+      assertArrayEquals(
+        data,
+        bytesOf(check.check(Base64.getEncoder().encodeToString(data)))
+      );
+      assertArrayEquals(
+        data,
+        bytesOf(check.check(
+          Base64.getEncoder().withoutPadding().encodeToString(data)))
+      );
+      assertArrayEquals(
+        data,
+        bytesOf(checkUrl.check(Base64.getUrlEncoder().encodeToString(data)))
+      );
+    }
+  }
+
+  /**
+   * Invalid base64 values are rejected.
+   */
+
+  @Test
+  public void testBase64Invalid()
+  {
+    final var check = Vindication.base64(6);
+    assertThrows(Exception.class, () -> check.check("a"));
+    assertThrows(Exception.class, () -> check.check("ab="));
+    assertThrows(Exception.class, () -> check.check("a-b_"));
+    assertThrows(Exception.class, () -> check.check("===="));
+    assertThrows(Exception.class, () -> check.check("AAAAAAAAAA=="));
+    assertThrows(Exception.class, () -> check.check("AAAAAAAAAAAA"));
+    assertThrows(Exception.class, () -> Vindication.base64(-1));
+  }
+
+  /**
+   * Decoded values are read-only.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReadOnly()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 = v.addRequiredParameter("p0", Vindication.hex(4));
+
+    v.check(Map.of("p0", List.of("01020304")));
+
+    final var buffer = p0.get();
+    assertTrue(buffer.isReadOnly());
+    assertEquals(4, buffer.remaining());
+    assertThrows(ReadOnlyBufferException.class, () -> buffer.put((byte) 0));
+  }
+
+  /**
+   * Values can be decoded into caller-supplied buffers.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testSuppliedBuffers()
+    throws Exception
+  {
+    final var arena = ByteBuffer.allocate(16);
+    final var check = Vindication.hex(8, size -> arena);
+
+    final var b0 = check.check("0102");
+    final var b1 = check.check("030405");
+    assertArrayEquals(new byte[]{1, 2}, bytesOf(b0));
+    assertArrayEquals(new byte[]{3, 4, 5}, bytesOf(b1));
+    assertEquals(5, arena.position());
+
+    final var small = ByteBuffer.allocate(1);
+    final var checkSmall = Vindication.hex(8, size -> small);
+    assertThrows(IllegalStateException.class, () -> checkSmall.check("0102"));
+  }
+
+  /**
+   * Per-thread buffers are reused.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPerThreadBuffers()
+    throws Exception
+  {
+    final var check =
+      Vindication.base64(32, Vindication.perThreadBuffers(32));
+
+    final var b0 = check.check("AQID");
+    assertArrayEquals(new byte[]{1, 2, 3}, bytesOf(b0));
+    final var b1 = check.check("BAUG");
+    assertArrayEquals(new byte[]{4, 5, 6}, bytesOf(b1));
+    assertArrayEquals(new byte[]{4, 5, 6}, bytesOf(b0));
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationClosedSetTest
+{
+  private enum Ambiguous
+  {
+    abc,
+    ABC
+  }
+
+  /**
+   * Enum constants are parsed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testEnums()
+    throws Exception
+  {
+    final var check = Vindication.enums(DayOfWeek.class);
+    for (final var day : DayOfWeek.values()) {
+      assertEquals(day, check.check(day.name()));
+    }
+
+    final var ex =
+      assertThrows(Exception.class, () -> check.check("monday"));
+    assertTrue(ex.getMessage().contains("MONDAY"));
+    assertThrows(Exception.class, () -> check.check(""));
+    assertThrows(Exception.class, () -> check.check("x".repeat(10_000)));
+  }
+
+  /**
+   * Enum constants are parsed ignoring case.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testEnumsIgnoringCase()
+    throws Exception
+  {
+    final var check = Vindication.enumsIgnoringCase(RoundingMode.class);
+    for (final var mode : RoundingMode.values()) {
+      assertEquals(mode, check.check(mode.name()));
+      assertEquals(mode, check.check(mode.name().toLowerCase()));
+    }
+    assertEquals(RoundingMode.HALF_UP, check.check("Half_Up"));
+    assertThrows(Exception.class, () -> check.check("HALF UP"));
+  }
+
+  /**
+   * Enum constants that differ only in case cannot be matched ignoring case.
+   */
+
+  @Test
+  public void testEnumsIgnoringCaseAmbiguous()
+    throws Exception
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.enumsIgnoringCase(Ambiguous.class);
+    });
+    assertEquals(Ambiguous.ABC, Vindication.enums(Ambiguous.class).check("ABC"));
+  }
+
+  /**
+   * Closed sets support aliases.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testClosedSetAliases()
+    throws Exception
+  {
+    final var check =
+      Vindication.closedSetIgnoringCase(Map.of(
+        "json", "application/json",
+        "js", "application/json",
+        "xml", "application/xml"
+      ));
+
+    assertEquals("application/json", check.check("JSON"));
+    assertEquals("application/json", check.check("js"));
+    assertEquals("application/xml", check.check("Xml"));
+    assertThrows(Exception.class, () -> check.check("yaml"));
+  }
+
+  /**
+   * Large closed sets work.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testClosedSetLarge()
+    throws Exception
+  {
+    final var values = new HashMap<String, Integer>();
+    for (int index = 0; index < 1000; ++index) {
+      values.put("v" + index, Integer.valueOf(index));
+    }
+
+    final var check = Vindication.closedSet(values);
+    for (int index = 0; index < 1000; ++index) {
+      assertEquals(index, check.check("v" + index));
+    }
+    assertThrows(Exception.class, () -> check.check("v1000"));
+    assertThrows(Exception.class, () -> check.check("V1"));
+  }
+
+  /**
+   * Empty closed sets are rejected.
+   */
+
+  @Test
+  public void testClosedSetEmpty()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.closedSet(Map.of());
+    });
+  }
+}
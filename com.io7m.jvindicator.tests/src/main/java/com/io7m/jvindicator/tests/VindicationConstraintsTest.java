@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationConstraintsTest
+{
+  /**
+   * Integer ranges are checked.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testInRange()
+    throws Exception
+  {
+    final var check = Vindication.inRange(1, 100);
+    assertEquals(1, check.check("1"));
+    assertEquals(100, check.check("100"));
+    assertTrue(
+      assertThrows(Exception.class, () -> check.check("0"))
+        .getMessage()
+        .contains("[1, 100]")
+    );
+    assertThrows(Exception.class, () -> check.check("101"));
+    assertThrows(Exception.class, () -> check.check("x"));
+    assertThrows(Exception.class, () -> check.check("99999999999"));
+  }
+
+  /**
+   * Long ranges are checked.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testInRangeLong()
+    throws Exception
+  {
+    final var check = Vindication.inRange(-1L, 10_000_000_000L);
+    assertEquals(-1L, check.check("-1"));
+    assertEquals(10_000_000_000L, check.check("10000000000"));
+    assertThrows(Exception.class, () -> check.check("-2"));
+    assertThrows(Exception.class, () -> check.check("10000000001"));
+    assertThrows(Exception.class, () -> check.check("x"));
+  }
+
+  /**
+   * Inverted ranges are rejected.
+   */
+
+  @Test
+  public void testInRangeInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.inRange(2, 1);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.inRange(2L, 1L);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.lengthBetween(2, 1);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.lengthBetween(-1, 1);
+    });
+  }
+
+  /**
+   * String lengths are checked.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLengthBetween()
+    throws Exception
+  {
+    final var check = Vindication.lengthBetween(2, 4);
+    assertEquals("ab", check.check("ab"));
+    assertEquals("abcd", check.check("abcd"));
+    assertThrows(Exception.class, () -> check.check("a"));
+    assertThrows(Exception.class, () -> check.check("abcde"));
+  }
+
+  /**
+   * Patterns are checked.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testMatching()
+    throws Exception
+  {
+    final var check = Vindication.matching("[a-z]+", 8);
+    assertEquals("abc", check.check("abc"));
+    assertThrows(Exception.class, () -> check.check("ABC"));
+    assertThrows(Exception.class, () -> check.check(""));
+
+    final var ex =
+      assertThrows(Exception.class, () -> check.check("abcdefghi"));
+    assertTrue(ex.getMessage().contains("length"));
+  }
+
+  /**
+   * Catastrophic patterns are bounded by the length check.
+   */
+
+  @Test
+  public void testMatchingLengthFirst()
+  {
+    final var check =
+      Vindication.matching(Pattern.compile("(a+)+b"), 16);
+
+    final var ex =
+      assertThrows(Exception.class, () -> check.check("a".repeat(100_000)));
+    assertTrue(ex.getMessage().contains("length"));
+  }
+
+  /**
+   * Invalid patterns are rejected.
+   */
+
+  @Test
+  public void testMatchingInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.matching("[", 8);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.matching("a", -1);
+    });
+  }
+
+  /**
+   * Permitted values are checked.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testOneOf()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.oneOf("json", "xml"));
+    final var p1 =
+      v.addRequiredParameter("p1", Vindication.oneOf("json", "xml"));
+
+    v.check(Map.ofEntries(
+      Map.entry("p0", List.of("json")),
+      Map.entry("p1", List.of("xml"))
+    ));
+
+    assertEquals("json", p0.get());
+    assertEquals("xml", p1.get());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(Map.ofEntries(
+          Map.entry("p0", List.of("yaml")),
+          Map.entry("p1", List.of("xml"))
+        ));
+      });
+    assertTrue(ex.getMessage().contains("p0"));
+  }
+
+  /**
+   * Empty or duplicate permitted values are rejected.
+   */
+
+  @Test
+  public void testOneOfInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, Vindication::oneOf);
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.oneOf("a", "a");
+    });
+  }
+}
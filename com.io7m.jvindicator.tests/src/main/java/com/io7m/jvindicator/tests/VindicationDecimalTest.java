@@ -0,0 +1,292 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VDecimal;
+import com.io7m.jvindicator.core.VDecimalStatus;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Differential tests of the decimal parsers against the JDK parsers.
+ */
+
+public final class VindicationDecimalTest
+{
+  private static final String ALPHABET =
+    "0123456789012345678901234567890123456789+-/:a ٣３¹";
+
+  private static VDecimalStatus expectedFailure(
+    final String text,
+    final boolean unsigned)
+  {
+    if (text.isEmpty()) {
+      return VDecimalStatus.MALFORMED;
+    }
+    final var first = text.charAt(0);
+    if (unsigned && first == '-') {
+      return VDecimalStatus.MALFORMED;
+    }
+    final var start = first == '-' || first == '+' ? 1 : 0;
+    if (start == text.length()) {
+      return VDecimalStatus.MALFORMED;
+    }
+    for (int index = start; index < text.length(); ++index) {
+      if (Character.digit(text.charAt(index), 10) < 0) {
+        return VDecimalStatus.MALFORMED;
+      }
+    }
+    return VDecimalStatus.OVERFLOW;
+  }
+
+  private static void compare(
+    final String text)
+  {
+    compareInt(text);
+    compareUnsignedInt(text);
+    compareLong(text);
+    compareUnsignedLong(text);
+  }
+
+  private static void compareInt(
+    final String text)
+  {
+    final var result = VDecimal.parseInt(text);
+    try {
+      final var expected = Integer.parseInt(text);
+      assertEquals(expected, result, text);
+    } catch (final NumberFormatException e) {
+      assertEquals(
+        expectedFailure(text, false), VDecimal.statusOfInt(result), text);
+    }
+  }
+
+  private static void compareUnsignedInt(
+    final String text)
+  {
+    final var result = VDecimal.parseUnsignedInt(text);
+    try {
+      final var expected = Integer.parseUnsignedInt(text);
+      assertEquals(Integer.toUnsignedLong(expected), result, text);
+    } catch (final NumberFormatException e) {
+      assertEquals(
+        expectedFailure(text, true), VDecimal.statusOfInt(result), text);
+    }
+  }
+
+  private static void compareLong(
+    final String text)
+  {
+    final var result = VDecimal.parseLong(text);
+    final var status = VDecimal.checkLong(text);
+    try {
+      final var expected = Long.parseLong(text);
+      assertEquals(expected, result, text);
+      assertEquals(VDecimalStatus.VALID, status, text);
+    } catch (final NumberFormatException e) {
+      assertEquals(VDecimal.LONG_FAILED, result, text);
+      assertEquals(expectedFailure(text, false), status, text);
+    }
+  }
+
+  private static void compareUnsignedLong(
+    final String text)
+  {
+    final var result = VDecimal.parseUnsignedLong(text);
+    final var status = VDecimal.checkUnsignedLong(text);
+    try {
+      final var expected = Long.parseUnsignedLong(text);
+      assertEquals(expected, result, text);
+      assertEquals(VDecimalStatus.VALID, status, text);
+    } catch (final NumberFormatException e) {
+      assertEquals(VDecimal.LONG_FAILED, result, text);
+      assertEquals(expectedFailure(text, true), status, text);
+    }
+  }
+
+  /**
+   * Values at and around the limits of each type are parsed as by the JDK.
+   */
+
+  @Test
+  public void testBoundaries()
+  {
+    final var cases = new ArrayList<String>(List.of(
+      "",
+      "+",
+      "-",
+      "0",
+      "-0",
+      "+0",
+      "+-1",
+      "--1",
+      "1-",
+      " 1",
+      "1 ",
+      "0x10",
+      "1_000",
+      "00000000000000000000000000000000001",
+      "-00000000000000000000000000000000001",
+      "0000000000000000000000000000000000000",
+      "١٢٣",
+      "１２３",
+      "12３",
+      "1234567８",
+      "٠٠٠٠٠٠٠٠٠٠"
+        + "٠٠٠٠٠٠٠٠٠٠١",
+      "99999999999999999999999999999999999",
+      "9999999999999999999",
+      "99999999999999999999",
+      "28446744073709551615",
+      "19999999999999999999",
+      "10000000000000000000",
+      "¹"
+    ));
+
+    final var limits = List.of(
+      BigInteger.valueOf(Integer.MIN_VALUE),
+      BigInteger.valueOf(Integer.MAX_VALUE),
+      BigInteger.ONE.shiftLeft(32),
+      BigInteger.valueOf(Long.MIN_VALUE),
+      BigInteger.valueOf(Long.MAX_VALUE),
+      BigInteger.ONE.shiftLeft(64),
+      BigInteger.TEN.pow(8),
+      BigInteger.TEN.pow(16),
+      BigInteger.TEN.pow(19)
+    );
+    for (final var limit : limits) {
+      for (int delta = -2; delta <= 2; ++delta) {
+        final var value = limit.add(BigInteger.valueOf(delta));
+        cases.add(value.toString());
+        cases.add("+" + value);
+        cases.add("000" + value);
+        cases.add(value.negate().toString());
+      }
+    }
+
+    /*
+     * A non-digit at every position of every group of eight, including the
+     * characters on either side of the digits.
+     */
+
+    final var nonDigits = "/:\u0000\u007f 0@pİ\u0080";
+    for (int length = 1; length <= 21; ++length) {
+      for (int position = 0; position < length; ++position) {
+        for (int index = 0; index < nonDigits.length(); ++index) {
+          final var text = new StringBuilder("1".repeat(length));
+          text.setCharAt(position, nonDigits.charAt(index));
+          cases.add(text.toString());
+        }
+      }
+    }
+
+    for (final var text : cases) {
+      compare(text);
+    }
+  }
+
+  /**
+   * Random strings are parsed as by the JDK.
+   */
+
+  @Test
+  public void testRandomStrings()
+  {
+    final var random = new Random(0x5eed_0001L);
+    final var text = new StringBuilder(32);
+    for (int iteration = 0; iteration < 50_000; ++iteration) {
+      text.setLength(0);
+      final var length = random.nextInt(26);
+      for (int index = 0; index < length; ++index) {
+        text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+      }
+      compare(text.toString());
+    }
+  }
+
+  /**
+   * Random values of every magnitude are parsed as by the JDK.
+   */
+
+  @Test
+  public void testRandomValues()
+  {
+    final var random = new Random(0x5eed_0002L);
+    for (int iteration = 0; iteration < 50_000; ++iteration) {
+      final var value = random.nextLong() >>> random.nextInt(64);
+      final var prefix = switch (random.nextInt(4)) {
+        case 0 -> "+";
+        case 1 -> "-";
+        case 2 -> "0".repeat(random.nextInt(4));
+        default -> "";
+      };
+
+      compare(prefix + value);
+      compare(prefix + Long.toUnsignedString(value));
+    }
+  }
+
+  /**
+   * The numeric checks reject malformed and overflowing values with
+   * {@link NumberFormatException}, and the message is unchanged.
+   */
+
+  @Test
+  public void testRejectionsAreNumberFormatExceptions()
+  {
+    final List<Executable> checks = List.of(
+      () -> Vindication.integerSigned().check("x"),
+      () -> Vindication.integerSigned().check("2147483648"),
+      () -> Vindication.integerUnsigned().check("-1"),
+      () -> Vindication.integerSignedLong().check("9223372036854775808"),
+      () -> Vindication.integerUnsignedLong().check("18446744073709551616"),
+      () -> Vindication.inRange(0, 10).check("1x"),
+      () -> Vindication.inRange(0L, 10L).check(""),
+      () -> Vindication.primitiveInts().check("++1"),
+      () -> Vindication.primitiveIntsInRange(0, 10).check("a"),
+      () -> Vindication.primitiveLongs().check("1.0"),
+      () -> Vindication.primitiveLongsInRange(0L, 10L).check("-"),
+      () -> Vindication.integerBig().check("z"),
+      () -> Vindication.doubles().check("q")
+    );
+
+    for (final var check : checks) {
+      final var ex = assertThrows(NumberFormatException.class, check);
+      assertTrue(ex.getMessage().startsWith("Could not parse the value"));
+    }
+
+    final var ex =
+      assertThrows(
+        NumberFormatException.class,
+        () -> Vindication.integerSigned().check("x"));
+    assertEquals(
+      "Could not parse the value x as a signed integer.",
+      ex.getMessage());
+  }
+}
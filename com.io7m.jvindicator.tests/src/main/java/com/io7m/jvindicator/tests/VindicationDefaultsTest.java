@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationDefaultsTest
+{
+  /**
+   * Missing defaulted parameters take the shared default value.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDefaultMissing()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addDefaultedParameter("p0", Vindication.integerBig(), "100");
+
+    v.checkArrayTyped(Map.of());
+    final var first = p0.get();
+    assertEquals(BigInteger.valueOf(100L), first);
+
+    v.checkArrayTyped(Map.of());
+    assertSame(first, p0.get());
+  }
+
+  /**
+   * Present defaulted parameters are checked.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDefaultPresent()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addDefaultedParameter("p0", Vindication.integerBig(), "100");
+
+    v.checkArrayTyped(Map.of("p0", new String[]{"23"}));
+    assertEquals(BigInteger.valueOf(23L), p0.get());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.checkArrayTyped(Map.of("p0", new String[]{"x"}));
+      });
+    assertTrue(ex.getMessage().contains("p0"));
+  }
+
+  /**
+   * Defaulted parameters that are present without a value are rejected.
+   */
+
+  @Test
+  public void testDefaultPresentEmpty()
+  {
+    final var v = Vindication.start();
+    v.addDefaultedIntParameter("p0", Vindication.primitiveInts(), "100");
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.checkArrayTyped(Map.of("p0", new String[0]));
+      });
+    assertTrue(ex.getMessage().contains("p0"));
+  }
+
+  /**
+   * Invalid default values are rejected when the parameter is added.
+   */
+
+  @Test
+  public void testDefaultInvalid()
+  {
+    final var v = Vindication.start();
+
+    final var ex0 =
+      assertThrows(IllegalArgumentException.class, () -> {
+        v.addDefaultedParameter("p0", Vindication.uuids(), "x");
+      });
+    assertTrue(ex0.getMessage().contains("p0"));
+
+    final var ex1 =
+      assertThrows(IllegalArgumentException.class, () -> {
+        v.addDefaultedIntParameter(
+          "p1", Vindication.primitiveIntsInRange(1, 1000), "0");
+      });
+    assertTrue(ex1.getMessage().contains("p1"));
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      v.addDefaultedParameter("p2", value -> null, "x");
+    });
+  }
+
+  /**
+   * Defaulted parameter names must be unique.
+   */
+
+  @Test
+  public void testDefaultDuplicate()
+  {
+    final var v = Vindication.start();
+    v.addRequiredParameter("p0", Vindication.strings());
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      v.addDefaultedParameter("p0", Vindication.strings(), "x");
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      v.addDefaultedLongParameter("p0", Vindication.primitiveLongs(), "0");
+    });
+  }
+
+  /**
+   * Primitive defaulted parameters take their defaults when missing.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDefaultPrimitives()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var limit =
+      v.addDefaultedIntParameter(
+        "limit", Vindication.primitiveIntsInRange(1, 1000), "100");
+    final var offset =
+      v.addDefaultedLongParameter(
+        "offset", Vindication.primitiveLongs(), "0");
+    final var archived =
+      v.addDefaultedBooleanParameter(
+        "archived", Vindication.primitiveBooleans(), "true");
+
+    v.checkArrayTyped(Map.of());
+    assertEquals(100, limit.getInt());
+    assertEquals(0L, offset.getLong());
+    assertTrue(archived.getBoolean());
+
+    v.checkArrayTyped(Map.ofEntries(
+      Map.entry("limit", new String[]{"7"}),
+      Map.entry("offset", new String[]{"9000000000"}),
+      Map.entry("archived", new String[]{"false"})
+    ));
+    assertEquals(7, limit.getInt());
+    assertEquals(9_000_000_000L, offset.getLong());
+    assertFalse(archived.getBoolean());
+
+    v.checkArrayTyped(Map.of());
+    assertEquals(100, limit.getInt());
+    assertEquals(0L, offset.getLong());
+    assertTrue(archived.getBoolean());
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VDuplicatePolicy;
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationDuplicatesTest
+{
+  /**
+   * The first value wins by default.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFirstWinsDefault()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.strings());
+
+    v.check(VInputs.ofQueryString("p0=a&p0=b&p0=c"));
+    assertEquals("a", p0.get());
+  }
+
+  /**
+   * The last value wins if requested.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLastWins()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.strings());
+    final var p1 =
+      v.addRequiredIntParameter("p1", Vindication.primitiveInts());
+    v.setDuplicatePolicy("p0", VDuplicatePolicy.LAST_WINS);
+    v.setDuplicatePolicy("p1", VDuplicatePolicy.LAST_WINS);
+
+    v.check(VInputs.ofQueryString("p0=a&p1=1&p0=b&p1=2&p0=c"));
+    assertEquals("c", p0.get());
+    assertEquals(2, p1.getInt());
+
+    v.checkArrayTyped(Map.ofEntries(
+      Map.entry("p0", new String[]{"x", "y"}),
+      Map.entry("p1", new String[]{"x", "3"})
+    ));
+    assertEquals("y", p0.get());
+    assertEquals(3, p1.getInt());
+  }
+
+  /**
+   * Duplicates are rejected if requested, without checking any value.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReject()
+    throws Exception
+  {
+    final var executions = new AtomicInteger();
+    final var v = Vindication.start();
+    v.addRequiredParameter("p0", value -> {
+      executions.incrementAndGet();
+      return value;
+    });
+    v.addRequiredParameter("p1", Vindication.strings());
+    v.setDuplicatePolicy("p0", VDuplicatePolicy.REJECT);
+
+    v.check(VInputs.ofQueryString("p0=a&p1=b&p1=c"));
+    assertEquals(1, executions.get());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofForm(
+          "p0=a&p1=b&p0=a&p0=a".getBytes(StandardCharsets.UTF_8)));
+      });
+    assertTrue(ex.getMessage().contains("p0"), ex.getMessage());
+    assertTrue(ex.getMessage().contains("more than once"), ex.getMessage());
+    assertFalse(ex.getMessage().contains("p1"), ex.getMessage());
+    assertEquals(1, executions.get());
+  }
+
+  /**
+   * Collected parameters check and return every value.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCollectAll()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addCollectedParameter("p0", Vindication.integerSigned());
+    final var p1 =
+      v.addRequiredParameter("p1", Vindication.strings());
+
+    v.check(VInputs.ofQueryString("p0=3&p1=x&p0=1&p0=2"));
+    assertEquals(List.of(3, 1, 2), p0.get());
+
+    v.check(VInputs.ofJson(
+      "{\"p0\": [4, 5], \"p1\": \"x\"}".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(List.of(4, 5), p0.get());
+
+    v.check(VInputs.ofQueryString("p1=x"));
+    assertEquals(List.of(), p0.get());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofQueryString("p0=3&p1=x&p0=y"));
+      });
+    assertTrue(ex.getMessage().contains("p0"), ex.getMessage());
+  }
+
+  /**
+   * Collected parameters are not memoized.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCollectAllMemoized()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addCollectedParameter("p0", Vindication.strings());
+    v.setMemoization(16);
+
+    v.check(VInputs.ofQueryString("p0=a&p0=b"));
+    assertEquals(List.of("a", "b"), p0.get());
+    v.check(VInputs.ofQueryString("p0=a&p0=c"));
+    assertEquals(List.of("a", "c"), p0.get());
+  }
+
+  /**
+   * Invalid policy changes are rejected.
+   */
+
+  @Test
+  public void testPolicyInvalid()
+  {
+    final var v = Vindication.start();
+    v.addRequiredParameter("p0", Vindication.strings());
+    v.addCollectedParameter("p1", Vindication.strings());
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      v.setDuplicatePolicy("nonexistent", VDuplicatePolicy.REJECT);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      v.setDuplicatePolicy("p0", VDuplicatePolicy.COLLECT_ALL);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      v.setDuplicatePolicy("p1", VDuplicatePolicy.FIRST_WINS);
+    });
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.Vindication;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationEventsTest
+{
+  private static final String CHECK =
+    "com.io7m.jvindicator.Check";
+  private static final String PARAMETER_CHECK =
+    "com.io7m.jvindicator.ParameterCheck";
+
+  private static void runChecks()
+  {
+    final var v = Vindication.start();
+    v.setName("example");
+    v.addRequiredParameter("fast", Vindication.strings());
+    v.addRequiredParameter("slow", value -> {
+      Thread.sleep(20L);
+      return Integer.valueOf(Integer.parseInt(value));
+    });
+
+    assertThrows(Exception.class, () -> {
+      v.check(VInputs.ofQueryString("fast=x&slow=y"));
+    });
+    try {
+      v.check(VInputs.ofQueryString("fast=x&slow=23"));
+    } catch (final Exception e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static List<RecordedEvent> record(
+    final Path directory,
+    final boolean enabled)
+    throws Exception
+  {
+    final var file = directory.resolve("recording.jfr");
+    try (var recording = new Recording()) {
+      if (enabled) {
+        recording.enable(CHECK);
+        recording.enable(PARAMETER_CHECK)
+          .withThreshold(Duration.ofMillis(10L));
+      }
+      recording.start();
+      runChecks();
+      recording.stop();
+      recording.dump(file);
+    }
+
+    return RecordingFile.readAllEvents(file)
+      .stream()
+      .filter(e -> e.getEventType().getName().startsWith("com.io7m"))
+      .toList();
+  }
+
+  /**
+   * Events are emitted when enabled.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testEventsEnabled(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var events = record(directory, true);
+
+    final var checks =
+      events.stream()
+        .filter(e -> e.getEventType().getName().equals(CHECK))
+        .toList();
+    assertEquals(2, checks.size());
+    assertEquals("example", checks.get(0).getString("schema"));
+    assertEquals(2, checks.get(0).getInt("parameterCount"));
+    assertEquals("FAILED", checks.get(0).getString("outcome"));
+    assertEquals("SUCCEEDED", checks.get(1).getString("outcome"));
+
+    final var parameters =
+      events.stream()
+        .filter(e -> e.getEventType().getName().equals(PARAMETER_CHECK))
+        .toList();
+    assertEquals(2, parameters.size());
+    for (final var event : parameters) {
+      assertEquals("slow", event.getString("parameter"));
+      assertTrue(event.getDuration().toMillis() >= 10L);
+    }
+    assertEquals(false, parameters.get(0).getBoolean("succeeded"));
+    assertEquals(true, parameters.get(1).getBoolean("succeeded"));
+  }
+
+  /**
+   * Events are disabled by default.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testEventsDisabled(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    assertEquals(List.of(), record(directory, false));
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VFamilyValues;
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationFamiliesTest
+{
+  /**
+   * Family members are matched alongside ordinary parameters.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFamilies()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.strings());
+    final var filter =
+      v.addParameterFamily(
+        "filter[", Vindication.oneOf("status", "owner"), Vindication.strings());
+    final var sort =
+      v.addParameterFamily(
+        "sort.", Vindication.strings(), Vindication.booleans());
+
+    v.check(VInputs.ofQueryString(
+      "filter%5Bstatus%5D=open&p0=x&sort.created=true"
+        + "&filter[owner]=me&filter[status]=closed&sort.name=false"));
+
+    assertEquals("x", p0.get());
+    assertEquals(
+      Map.of("status", "open", "owner", "me"),
+      filter.get().toMap());
+    assertEquals(
+      List.of("status", "owner"),
+      List.copyOf(filter.get().toMap().keySet()));
+    assertEquals(Optional.of(Boolean.TRUE), sort.get().get("created"));
+    assertEquals(Optional.of(Boolean.FALSE), sort.get().get("name"));
+    assertEquals(Optional.empty(), sort.get().get("other"));
+    assertEquals(2, sort.get().size());
+  }
+
+  /**
+   * Absent families have no values, and values do not leak between checks.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFamilyAbsent()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var filter =
+      v.addParameterFamily(
+        "filter[", Vindication.strings(), Vindication.integerSigned());
+
+    v.check(VInputs.ofQueryString("filter[a]=1"));
+    assertEquals(Map.of("a", 1), filter.get().toMap());
+
+    v.check(VInputs.ofQueryString("other=2&filter=3&filter[b=4&filter[]=5"));
+    assertTrue(filter.get().isEmpty());
+    assertEquals(VFamilyValues.empty(), filter.get());
+  }
+
+  /**
+   * Large families keep the first value of each repeated key, and do not
+   * affect later checks.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFamilyManyMembers()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var filter =
+      v.addParameterFamily(
+        "filter[", Vindication.strings(), Vindication.integerSigned());
+
+    final var query = new StringBuilder();
+    for (int index = 0; index < 20_000; ++index) {
+      query.append("filter[k").append(index).append("]=").append(index);
+      query.append("&filter[k0]=-1&");
+    }
+    v.check(VInputs.ofQueryString(query.toString()));
+    assertEquals(20_000, filter.get().size());
+    assertEquals(Optional.of(0), filter.get().get("k0"));
+    assertEquals(Optional.of(19_999), filter.get().get("k19999"));
+
+    v.check(VInputs.ofQueryString("filter[k0]=2&filter[k0]=3"));
+    assertEquals(Map.of("k0", 2), filter.get().toMap());
+  }
+
+  /**
+   * Keys are checked, and failures are reported under the full name.
+   */
+
+  @Test
+  public void testFamilyKeyRejected()
+  {
+    final var v = Vindication.start();
+    v.addParameterFamily(
+      "filter[", Vindication.oneOf("status"), Vindication.strings());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofQueryString("filter[status]=a&filter[owner]=b"));
+      });
+    assertTrue(ex.getMessage().contains("filter[owner]"), ex.getMessage());
+    assertFalse(ex.getMessage().contains("filter[status]"), ex.getMessage());
+  }
+
+  /**
+   * Values are checked, and failures are reported under the full name.
+   */
+
+  @Test
+  public void testFamilyValueRejected()
+  {
+    final var v = Vindication.start();
+    v.addParameterFamily(
+      "sort.", Vindication.strings(), Vindication.booleans());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofForm(
+          "sort.a=true&sort.b=maybe".getBytes(StandardCharsets.UTF_8)));
+      });
+    assertTrue(ex.getMessage().contains("sort.b"), ex.getMessage());
+    assertFalse(ex.getMessage().contains("sort.a"), ex.getMessage());
+  }
+
+  /**
+   * Families are matched in byte and JSON inputs, and ordinary parameters
+   * take precedence over families.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFamilyInputs()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var exact =
+      v.addRequiredParameter("sort.fixed", Vindication.strings());
+    final var sort =
+      v.addParameterFamily(
+        "sort.", Vindication.strings(), Vindication.strings());
+
+    v.check(VInputs.ofForm(
+      "sort.fixed=x&sort.a=1&sort.a=2".getBytes(StandardCharsets.UTF_8)));
+    assertEquals("x", exact.get());
+    assertEquals(Map.of("a", "1"), sort.get().toMap());
+
+    v.check(VInputs.ofJson(
+      "{\"sort.b\": \"2\", \"sort.fixed\": \"y\"}"
+        .getBytes(StandardCharsets.UTF_8)));
+    assertEquals("y", exact.get());
+    assertEquals(Map.of("b", "2"), sort.get().toMap());
+  }
+
+  /**
+   * Family members are not unknown parameters.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFamilyUnknown()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    v.setRejectUnknownParameters(true);
+    final var filter =
+      v.addParameterFamily(
+        "filter[", Vindication.strings(), Vindication.strings());
+
+    v.check(Map.of("filter[a]", List.of("x")));
+    assertEquals(Map.of("a", "x"), filter.get().toMap());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(Map.of("filter(a)", List.of("x")));
+      });
+    assertTrue(ex.getMessage().contains("filter(a)"), ex.getMessage());
+  }
+
+  /**
+   * Prefixes must be non-empty and distinct.
+   */
+
+  @Test
+  public void testFamilyPrefixInvalid()
+  {
+    final var v = Vindication.start();
+    v.addParameterFamily("a.", Vindication.strings(), Vindication.strings());
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      v.addParameterFamily("a.", Vindication.strings(), Vindication.strings());
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      v.addParameterFamily("", Vindication.strings(), Vindication.strings());
+    });
+  }
+}
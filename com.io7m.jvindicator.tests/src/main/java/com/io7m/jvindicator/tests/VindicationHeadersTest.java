@@ -0,0 +1,206 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationHeadersTest
+{
+  private static byte[] latin1(
+    final String text)
+  {
+    return text.getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Header names are matched case-insensitively.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHeaders()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var tenant =
+      v.addRequiredParameter("Tenant-ID", Vindication.uuids());
+    final var match =
+      v.addRequiredParameter("If-Match", Vindication.strings());
+    final var key =
+      v.addOptionalParameter("Idempotency-Key", Vindication.strings());
+
+    v.check(VInputs.ofHeaders(latin1(
+      "Host: example.com\r\n"
+        + "tenant-id:   98da4b91-76b7-42ef-ba03-3bed60fd73db  \r\n"
+        + "IF-MATCH: \"3\"\n"
+        + "User-Agent: x\r\n"
+        + "\r\n"
+        + "Idempotency-Key: body\r\n"
+    )));
+
+    assertEquals(
+      UUID.fromString("98da4b91-76b7-42ef-ba03-3bed60fd73db"),
+      tenant.get()
+    );
+    assertEquals("\"3\"", match.get());
+    assertEquals(Optional.empty(), key.get());
+  }
+
+  /**
+   * Header errors are reported in the same way as parameter errors.
+   */
+
+  @Test
+  public void testHeadersErrors()
+  {
+    final var v = Vindication.start();
+    v.addRequiredParameter("Tenant-ID", Vindication.uuids());
+    v.addRequiredParameter("If-Match", Vindication.integerUnsigned());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofHeaders(latin1("Tenant-ID: x\r\n")));
+      });
+    assertTrue(ex.getMessage().contains("Tenant-ID"));
+    assertTrue(ex.getMessage().contains("If-Match"));
+  }
+
+  /**
+   * Malformed header blocks are rejected.
+   */
+
+  @Test
+  public void testHeadersMalformed()
+  {
+    final var v = Vindication.start();
+    v.addOptionalParameter("A", Vindication.strings());
+
+    final var blocks = List.of(
+      "A x\r\n",
+      "A : x\r\n",
+      ": x\r\n",
+      " A: x\r\n",
+      "A: x\u0000y\r\n"
+    );
+
+    for (final var block : blocks) {
+      final var ex =
+        assertThrows(
+          Exception.class,
+          () -> v.check(VInputs.ofHeaders(latin1(block))),
+          block
+        );
+      assertTrue(ex.getMessage().contains("malformed"), ex.getMessage());
+    }
+  }
+
+  /**
+   * Names that differ only in case cannot be used for headers.
+   */
+
+  @Test
+  public void testHeadersAmbiguous()
+  {
+    final var v = Vindication.start();
+    v.addOptionalParameter("a", Vindication.strings());
+    v.addOptionalParameter("A", Vindication.strings());
+
+    assertThrows(IllegalStateException.class, () -> {
+      v.check(VInputs.ofHeaders(latin1("a: x\r\n")));
+    });
+  }
+
+  /**
+   * Unknown headers are rejected in strict mode.
+   */
+
+  @Test
+  public void testHeadersStrict()
+  {
+    final var v = Vindication.start();
+    v.setRejectUnknownParameters(true);
+    v.addRequiredParameter("A", Vindication.strings());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofHeaders(latin1("A: x\r\nB: y\r\n")));
+      });
+    assertTrue(ex.getMessage().contains("B"));
+  }
+
+  /**
+   * Cookies are matched exactly and unquoted.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCookies()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var session =
+      v.addRequiredParameter("session", Vindication.strings());
+    final var theme =
+      v.addRequiredParameter("theme", Vindication.strings());
+    final var count =
+      v.addOptionalParameter("count", Vindication.integerUnsigned());
+
+    final var bytes = latin1("xx session=abc; other=1;  theme=\"dark\" ;Count=3");
+    v.check(VInputs.ofCookies(ByteBuffer.wrap(bytes).position(3)));
+
+    assertEquals("abc", session.get());
+    assertEquals("dark", theme.get());
+    assertEquals(Optional.empty(), count.get());
+  }
+
+  /**
+   * Malformed cookies are rejected.
+   */
+
+  @Test
+  public void testCookiesMalformed()
+  {
+    final var v = Vindication.start();
+    v.addOptionalParameter("a", Vindication.strings());
+
+    for (final var text : List.of("a", "=x", "a b=x", "a=x\u0001")) {
+      final var ex =
+        assertThrows(
+          Exception.class,
+          () -> v.check(VInputs.ofCookies(latin1(text))),
+          text
+        );
+      assertTrue(ex.getMessage().contains("malformed"), ex.getMessage());
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VCheckCost;
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.VParameterCheckType;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationIncrementalTest
+{
+  private static VParameterCheckType<String> counting(
+    final AtomicInteger count)
+  {
+    return Vindication.withCost(VCheckCost.CHEAP, value -> {
+      count.incrementAndGet();
+      if (value.startsWith("bad")) {
+        throw new IllegalArgumentException("Bad value.");
+      }
+      return value.toUpperCase();
+    });
+  }
+
+  /**
+   * Only changed parameters are checked again.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testIncrementalChanged()
+    throws Exception
+  {
+    final var count = new AtomicInteger();
+    final var v = Vindication.start();
+
+    final var input = new HashMap<String, List<String>>();
+    for (int index = 0; index < 15; ++index) {
+      v.addRequiredParameter("p" + index, counting(count));
+      input.put("p" + index, List.of("v" + index));
+    }
+    final var cursor =
+      v.addRequiredParameter("cursor", counting(count));
+    final var limit =
+      v.addRequiredIntParameter("limit", Vindication.primitiveInts());
+
+    input.put("cursor", List.of("c0"));
+    input.put("limit", List.of("100"));
+
+    final var first = v.checkIncremental(VInputs.ofMap(input));
+    assertEquals(16, count.get());
+    assertEquals("C0", first.get(cursor));
+    assertEquals(100, first.getInt(limit));
+
+    var previous = first;
+    for (int index = 1; index < 10; ++index) {
+      count.set(0);
+      input.put("cursor", List.of("c" + index));
+      previous = v.checkIncremental(previous, VInputs.ofMap(input));
+      assertEquals(1, count.get());
+      assertEquals("C" + index, previous.get(cursor));
+      assertEquals("C" + index, cursor.get());
+      assertEquals(100, previous.getInt(limit));
+      assertEquals(100, limit.getInt());
+    }
+
+    assertEquals("C0", first.get(cursor));
+  }
+
+  /**
+   * Parameters that become absent take their defaults, and rejected values
+   * are still rejected.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testIncrementalAbsentAndRejected()
+    throws Exception
+  {
+    final var count = new AtomicInteger();
+    final var v = Vindication.start();
+    final var a =
+      v.addRequiredParameter("a", counting(count));
+    final var b =
+      v.addOptionalParameter("b", counting(count));
+
+    final var first =
+      v.checkIncremental(VInputs.ofMap(Map.of(
+        "a", List.of("x"),
+        "b", List.of("y")
+      )));
+    assertEquals(Optional.of("Y"), first.get(b));
+
+    count.set(0);
+    final var second =
+      v.checkIncremental(first, VInputs.ofMap(Map.of("a", List.of("x"))));
+    assertEquals(0, count.get());
+    assertEquals("X", second.get(a));
+    assertEquals(Optional.empty(), second.get(b));
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.checkIncremental(second, VInputs.ofMap(Map.of(
+          "a", List.of("bad")
+        )));
+      });
+    assertTrue(ex.getMessage().contains("a"));
+
+    assertThrows(Exception.class, () -> {
+      v.checkIncremental(first, VInputs.ofMap(Map.of("b", List.of("y"))));
+    });
+  }
+
+  /**
+   * Results from other builders, or from before a parameter was registered,
+   * are ignored.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testIncrementalForeign()
+    throws Exception
+  {
+    final var count = new AtomicInteger();
+    final var v0 = Vindication.start();
+    final var a0 = v0.addRequiredParameter("a", counting(count));
+    final var v1 = Vindication.start();
+    v1.addRequiredParameter("a", counting(count));
+
+    final var input = VInputs.ofMap(Map.of("a", List.of("x")));
+    final var r0 = v0.checkIncremental(input);
+    final var r1 = v1.checkIncremental(input);
+
+    count.set(0);
+    v0.checkIncremental(r1, input);
+    assertEquals(1, count.get());
+
+    v0.addOptionalParameter("b", counting(count));
+    count.set(0);
+    v0.checkIncremental(r0, input);
+    assertEquals(1, count.get());
+
+    assertThrows(IllegalArgumentException.class, () -> r1.get(a0));
+  }
+}
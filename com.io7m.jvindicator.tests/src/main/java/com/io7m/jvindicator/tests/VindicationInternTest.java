@@ -0,0 +1,243 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VCheckCost;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class VindicationInternTest
+{
+  private static String copy(
+    final String text)
+  {
+    return String.valueOf(text.toCharArray());
+  }
+
+  /**
+   * Values are admitted on their second sighting, and are then returned as
+   * the same instance.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testInternCanonical()
+    throws Exception
+  {
+    final var check = Vindication.interned(8, 16);
+    assertEquals(VCheckCost.TRIVIAL, check.cost());
+
+    final var first = copy("ascending");
+    assertSame(first, check.check(first));
+
+    final var second = copy("ascending");
+    assertSame(second, check.check(second));
+    for (int index = 0; index < 100; ++index) {
+      assertSame(second, check.check(copy("ascending")));
+    }
+
+    final var v = Vindication.start();
+    final var p =
+      v.addRequiredParameter("sort", check);
+    v.checkArrayTyped(Map.of("sort", new String[]{copy("ascending")}));
+    assertSame(second, p.get());
+  }
+
+  /**
+   * Values seen only once never occupy the table, and so cannot keep
+   * recurring values out of it.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testInternJunkNotAdmitted()
+    throws Exception
+  {
+    final var check = Vindication.interned(4, 16);
+    for (int index = 0; index < 100_000; ++index) {
+      final var junk = "junk" + index;
+      assertSame(junk, check.check(junk));
+    }
+
+    for (int index = 0; index < 4; ++index) {
+      check.check(copy("v" + index));
+      final var canonical = check.check(copy("v" + index));
+      assertSame(canonical, check.check(copy("v" + index)));
+    }
+  }
+
+  /**
+   * Values sent twice to fill the table do not displace values that keep
+   * recurring, and do not keep later recurring values out of the table.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testInternJunkSentTwice()
+    throws Exception
+  {
+    final var check = Vindication.interned(4, 16);
+    final var admitted = new ArrayList<String>();
+    for (int index = 0; index < 3; ++index) {
+      check.check(copy("v" + index));
+      admitted.add(check.check(copy("v" + index)));
+    }
+
+    for (int index = 0; index < 10_000; ++index) {
+      final var junk = "junk" + index;
+      check.check(junk);
+      check.check(copy(junk));
+      if (index % 4 == 0) {
+        for (int value = 0; value < 3; ++value) {
+          assertSame(admitted.get(value), check.check(copy("v" + value)));
+        }
+      }
+    }
+
+    String canonical = null;
+    for (int attempt = 0; attempt < 64; ++attempt) {
+      canonical = check.check(copy("region"));
+      for (int value = 0; value < 3; ++value) {
+        check.check(copy("v" + value));
+      }
+    }
+    assertSame(canonical, check.check(copy("region")));
+
+    for (int index = 0; index < 3; ++index) {
+      assertSame(admitted.get(index), check.check(copy("v" + index)));
+    }
+  }
+
+  /**
+   * Known values are canonical from their first sighting.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testInternKnown()
+    throws Exception
+  {
+    final var known = List.of("asc", "desc");
+    final var check = Vindication.interned(known, 2, 8);
+    assertSame(known.get(0), check.check(copy("asc")));
+    assertSame(known.get(1), check.check(copy("desc")));
+
+    final var other = copy("other");
+    check.check(other);
+    assertSame(other, check.check(other));
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.interned(List.of("a", "b", "c"), 2, 8);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.interned(List.of("abcd"), 2, 3);
+    });
+  }
+
+  /**
+   * Values longer than the maximum length are never admitted.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testInternLength()
+    throws Exception
+  {
+    final var check = Vindication.interned(4, 3);
+    final var value = "abcd";
+    assertSame(value, check.check(value));
+    final var other = copy(value);
+    assertSame(other, check.check(other));
+
+    check.check("abc");
+    final var small = check.check("abc");
+    assertSame(small, check.check(copy("abc")));
+  }
+
+  /**
+   * Invalid bounds are rejected.
+   */
+
+  @Test
+  public void testInternBounds()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.interned(0, 1);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.interned(1, 0);
+    });
+  }
+
+  /**
+   * Concurrent callers observe a single canonical instance.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testInternConcurrent()
+    throws Exception
+  {
+    final var check = Vindication.interned(64, 16);
+    final var start = new CountDownLatch(1);
+    final var results = new ArrayList<Future<String[]>>();
+
+    try (var executor = Executors.newFixedThreadPool(8)) {
+      for (int thread = 0; thread < 8; ++thread) {
+        results.add(executor.submit(() -> {
+          start.await();
+          final var out = new String[32];
+          for (int round = 0; round < 3; ++round) {
+            for (int index = 0; index < out.length; ++index) {
+              out[index] = check.check(copy("value-" + index));
+            }
+          }
+          return out;
+        }));
+      }
+      start.countDown();
+
+      final var expected = results.get(0).get();
+      for (final var result : results) {
+        final var values = result.get();
+        for (int index = 0; index < values.length; ++index) {
+          assertSame(expected[index], values[index]);
+        }
+      }
+    }
+  }
+}
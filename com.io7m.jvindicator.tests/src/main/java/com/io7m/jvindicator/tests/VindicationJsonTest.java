@@ -0,0 +1,281 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.VRequestLimits;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationJsonTest
+{
+  private static byte[] utf8(
+    final String text)
+  {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Registered members are delivered, and others are skipped.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testJson()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.integerSigned());
+    final var p1 =
+      v.addRequiredParameter("p1", Vindication.strings());
+    final var p2 =
+      v.addRequiredParameter("p2", Vindication.booleans());
+    final var p3 =
+      v.addRequiredParameter("p3", Vindication.uuids());
+    final var p4 =
+      v.addOptionalParameter("p4", Vindication.doubles());
+    final var p5 =
+      v.addOptionalParameter("p5", Vindication.strings());
+
+    v.check(VInputs.ofJson(utf8("""
+      {
+        "p0": -23,
+        "skipped": { "a": [1, 2.5e-3, {"b": null}], "c": "\\"}" },
+        "p1": "a\\tb\\u00e9\\"€",
+        "p2" : true,
+        "p3": "98da4b91-76b7-42ef-ba03-3bed60fd73db",
+        "p4": 1.5E2,
+        "also": [[[]]]
+      }
+      """)));
+
+    assertEquals(-23, p0.get());
+    assertEquals("a\tbé\"€", p1.get());
+    assertEquals(Boolean.TRUE, p2.get());
+    assertEquals(
+      UUID.fromString("98da4b91-76b7-42ef-ba03-3bed60fd73db"),
+      p3.get()
+    );
+    assertEquals(Optional.of(Double.valueOf(150.0)), p4.get());
+    assertEquals(Optional.empty(), p5.get());
+  }
+
+  /**
+   * Arrays are delivered as multiple values, and the position of a buffer
+   * is respected.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testJsonArrayBuffer()
+    throws Exception
+  {
+    final var seen = new ArrayList<String>();
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", value -> {
+        seen.add(value);
+        return value;
+      });
+
+    final var bytes = utf8("xxxx{\"p0\": [\"a\", \"b\"]}");
+    final var buffer =
+      ByteBuffer.allocateDirect(bytes.length).put(bytes).position(4);
+
+    v.check(VInputs.ofJson(buffer));
+    assertEquals("a", p0.get());
+    assertEquals(List.of("a"), seen);
+    assertEquals(4, buffer.position());
+  }
+
+  /**
+   * Null and empty arrays count as missing values.
+   */
+
+  @Test
+  public void testJsonNull()
+  {
+    final var v = Vindication.start();
+    v.addOptionalParameter("p0", Vindication.strings());
+    v.addOptionalParameter("p1", Vindication.strings());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofJson(utf8("{\"p0\": null, \"p1\": []}")));
+      });
+    assertTrue(ex.getMessage().contains("p0"));
+    assertTrue(ex.getMessage().contains("p1"));
+  }
+
+  /**
+   * Malformed bodies are rejected.
+   */
+
+  @Test
+  public void testJsonMalformed()
+  {
+    final var v = Vindication.start();
+    v.addOptionalParameter("p0", Vindication.strings());
+
+    final var texts = List.of(
+      "",
+      "[]",
+      "{",
+      "{\"p0\"}",
+      "{\"p0\": 1,}",
+      "{\"p0\": 1} x",
+      "{\"p0\": {}}",
+      "{\"p0\": [{}]}",
+      "{\"p0\": 01}",
+      "{\"p0\": tru}",
+      "{\"p0\": \"\\x\"}",
+      "{\"p0\": \"\\u12\"}",
+      "{\"p0\": \"abc}",
+      "{\"q\": [}",
+      "{\"q\": {]}",
+      "{\"q\": -}",
+      "{\"q\": \"\\x\"}",
+      "{\"q\": [\"\\u12\"]}",
+      "{\"q\": 01}"
+    );
+
+    for (final var text : texts) {
+      final var ex =
+        assertThrows(
+          Exception.class,
+          () -> v.check(VInputs.ofJson(utf8(text))),
+          text
+        );
+      assertTrue(ex.getMessage().contains("malformed"), ex.getMessage());
+    }
+  }
+
+  /**
+   * Deeply nested skipped values are rejected.
+   */
+
+  @Test
+  public void testJsonTooDeep()
+  {
+    final var v = Vindication.start();
+    v.addOptionalParameter("p0", Vindication.strings());
+
+    final var text =
+      "{\"q\": " + "[".repeat(100) + "]".repeat(100) + "}";
+    final var ex =
+      assertThrows(Exception.class, () -> v.check(VInputs.ofJson(utf8(text))));
+    assertTrue(ex.getMessage().contains("nested"));
+  }
+
+  /**
+   * Unknown members and limits are handled.
+   */
+
+  @Test
+  public void testJsonStrict()
+  {
+    final var v = Vindication.start();
+    v.setRejectUnknownParameters(true);
+    v.setRequestLimits(new VRequestLimits(10, 2, 8, 100L));
+    v.addRequiredParameter("p0", Vindication.strings());
+
+    final var ex0 =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofJson(utf8("{\"p0\": \"x\", \"q\": {\"a\": 1}}")));
+      });
+    assertTrue(ex0.getMessage().contains("q"));
+
+    final var ex1 =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofJson(utf8("{\"p0\": [\"a\", \"b\", \"c\"]}")));
+      });
+    assertTrue(ex1.getMessage().contains("p0"));
+  }
+
+  /**
+   * Names with escapes or non-ASCII characters are found, and are not
+   * confused with ISO-8859-1 names with the same bytes.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testJsonNames()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.strings());
+    final var p1 =
+      v.addRequiredParameter("\u00e9", Vindication.strings());
+    final var p2 =
+      v.addOptionalParameter("\u00c3\u00a9", Vindication.strings());
+
+    v.check(VInputs.ofJson(utf8("""
+      {
+        "p\\u0030": "a",
+        "\u00e9": "b",
+        "q": ["\\u0041", -1.5e3, true, false, null]
+      }
+      """)));
+
+    assertEquals("a", p0.get());
+    assertEquals("b", p1.get());
+    assertEquals(Optional.empty(), p2.get());
+  }
+
+  /**
+   * The names of unknown members are reported, however they are written.
+   */
+
+  @Test
+  public void testJsonStrictNames()
+  {
+    final var v = Vindication.start();
+    v.setRejectUnknownParameters(true);
+    v.addRequiredParameter("p0", Vindication.strings());
+
+    final var ex0 =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofJson(utf8("{\"p0\": \"x\", \"qr\": 1}")));
+      });
+    assertTrue(ex0.getMessage().contains("qr"), ex0.getMessage());
+
+    final var ex1 =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofJson(
+          utf8("{\"p0\": \"x\", \"\\u0071\u00e9\": 1}")));
+      });
+    assertTrue(ex1.getMessage().contains("q\u00e9"), ex1.getMessage());
+  }
+}
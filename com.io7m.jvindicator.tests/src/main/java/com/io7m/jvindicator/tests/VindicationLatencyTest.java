@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.VLatencyMetrics;
+import com.io7m.jvindicator.core.VLatencySnapshot;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationLatencyTest
+{
+  /**
+   * Latencies are recorded per parameter, and slow checks sample the length
+   * of their values.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLatencyRecorded()
+    throws Exception
+  {
+    final var metrics = VLatencyMetrics.create(Duration.ofMillis(1L));
+    final var v = Vindication.start();
+    v.setName("search");
+    v.setLatencyMetrics(metrics);
+    v.addRequiredParameter("fast", Vindication.strings());
+    v.addRequiredParameter("slow", value -> {
+      Thread.sleep(2L);
+      return value;
+    });
+
+    for (int index = 0; index < 5; ++index) {
+      v.check(Map.of(
+        "fast", List.of("x"),
+        "slow", List.of("secret-value")
+      ));
+    }
+
+    final var snapshots = metrics.snapshot();
+    assertEquals(2, snapshots.size());
+
+    final var fast = snapshots.get(0);
+    assertEquals("search", fast.schema());
+    assertEquals("fast", fast.parameter());
+    assertEquals(5L, fast.count());
+
+    final var slow = snapshots.get(1);
+    assertEquals("slow", slow.parameter());
+    assertEquals(5L, slow.count());
+    assertEquals(5L, slow.slowCount());
+    assertEquals(List.of(12, 12, 12, 12, 12), slow.slowValueLengths());
+    assertTrue(slow.maxNanos() >= 2_000_000L);
+    assertTrue(slow.quantileUpperBound(0.5) >= 1_000_000L);
+    assertTrue(slow.totalNanos() >= 10_000_000L);
+  }
+
+  /**
+   * Builders with the same name share histograms, and disabled metrics
+   * record nothing.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLatencyShared()
+    throws Exception
+  {
+    final var metrics = VLatencyMetrics.create(Duration.ofSeconds(1L));
+    for (int builder = 0; builder < 3; ++builder) {
+      final var v = Vindication.start();
+      v.setName("shared");
+      v.setLatencyMetrics(metrics);
+      v.addRequiredIntParameter("p", Vindication.primitiveInts());
+      v.check(Map.of("p", List.of("23")));
+    }
+
+    final var snapshots = metrics.snapshot();
+    assertEquals(1, snapshots.size());
+    assertEquals(3L, snapshots.get(0).count());
+    assertEquals(0L, snapshots.get(0).slowCount());
+    assertEquals(List.of(), snapshots.get(0).slowValueLengths());
+
+    final var disabled = VLatencyMetrics.disabled();
+    assertFalse(disabled.isEnabled());
+    final var v = Vindication.start();
+    v.setLatencyMetrics(disabled);
+    v.addRequiredParameter("p", Vindication.strings());
+    v.check(Map.of("p", List.of("x")));
+    assertEquals(List.of(), disabled.snapshot());
+  }
+
+  /**
+   * Null values are rejected in the same way whether or not metrics are
+   * enabled, and are recorded as empty values.
+   */
+
+  @Test
+  public void testLatencyNullValue()
+  {
+    final var metrics = VLatencyMetrics.create(Duration.ZERO);
+    final var messages = new ArrayList<String>();
+    for (final var enabled : List.of(Boolean.FALSE, Boolean.TRUE)) {
+      final var v = Vindication.start();
+      if (enabled.booleanValue()) {
+        v.setLatencyMetrics(metrics);
+      }
+      v.addRequiredParameter("x", Vindication.strings());
+
+      final var ex =
+        assertThrows(Exception.class, () -> {
+          v.check(VInputs.ofArrayMap(Map.of("x", new String[]{null})));
+        });
+      assertEquals(Exception.class, ex.getClass());
+      messages.add(ex.getMessage());
+    }
+
+    assertEquals(messages.get(0), messages.get(1));
+    final var snapshots = metrics.snapshot();
+    assertEquals(1, snapshots.size());
+    assertEquals(1L, snapshots.get(0).count());
+    assertEquals(List.of(0), snapshots.get(0).slowValueLengths());
+  }
+
+  /**
+   * Bucket bounds and quantiles are computed correctly.
+   */
+
+  @Test
+  public void testLatencyBuckets()
+  {
+    assertEquals(1L, VLatencySnapshot.bucketUpperBound(0));
+    assertEquals(1024L, VLatencySnapshot.bucketUpperBound(10));
+    assertEquals(Long.MAX_VALUE, VLatencySnapshot.bucketUpperBound(63));
+
+    final var buckets = new Long[64];
+    Arrays.fill(buckets, Long.valueOf(0L));
+    buckets[4] = Long.valueOf(90L);
+    buckets[11] = Long.valueOf(10L);
+
+    final var snapshot =
+      new VLatencySnapshot(
+        "s", "p", 100L, 0L, 1500L, List.of(buckets), 0L, List.of());
+
+    assertEquals(16L, snapshot.quantileUpperBound(0.5));
+    assertEquals(16L, snapshot.quantileUpperBound(0.9));
+    assertEquals(1500L, snapshot.quantileUpperBound(0.99));
+    assertThrows(IllegalArgumentException.class, () -> {
+      snapshot.quantileUpperBound(1.5);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      VLatencyMetrics.create(Duration.ofSeconds(-1L));
+    });
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VRequestLimits;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationLimitsTest
+{
+  /**
+   * Too many parameters are rejected before any checks run.
+   */
+
+  @Test
+  public void testTooManyParameters()
+  {
+    final var executed = new ArrayList<String>();
+    final var v = Vindication.start();
+    v.setRequestLimits(new VRequestLimits(2, 10, 10, 100L));
+    v.addRequiredParameter("p0", value -> {
+      executed.add(value);
+      return value;
+    });
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.checkArrayTyped(Map.ofEntries(
+          Map.entry("p0", new String[]{"x"}),
+          Map.entry("p1", new String[]{"x"}),
+          Map.entry("p2", new String[]{"x"})
+        ));
+      });
+
+    assertTrue(ex.getMessage().contains(VRequestLimits.REQUEST));
+    assertEquals(List.of(), executed);
+  }
+
+  /**
+   * Too many values are rejected.
+   */
+
+  @Test
+  public void testTooManyValues()
+  {
+    final var v = Vindication.start();
+    v.setRequestLimits(new VRequestLimits(10, 2, 10, 100L));
+    v.addRequiredParameter("p0", Vindication.strings());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.checkArrayTyped(Map.ofEntries(
+          Map.entry("p0", new String[]{"x", "y", "z"})
+        ));
+      });
+
+    assertTrue(ex.getMessage().contains("p0"));
+    assertTrue(ex.getMessage().contains("3 values"));
+  }
+
+  /**
+   * Long values are rejected, even for unregistered parameters.
+   */
+
+  @Test
+  public void testValueTooLong()
+  {
+    final var v = Vindication.start();
+    v.setRequestLimits(new VRequestLimits(10, 2, 10, 100L));
+    v.addRequiredParameter("p0", Vindication.strings());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(Map.ofEntries(
+          Map.entry("p0", List.of("x")),
+          Map.entry("other", List.of("x".repeat(11)))
+        ));
+      });
+
+    assertTrue(ex.getMessage().contains("other"));
+    assertTrue(ex.getMessage().contains("length 11"));
+  }
+
+  /**
+   * Large requests are rejected.
+   */
+
+  @Test
+  public void testTotalTooLong()
+  {
+    final var v = Vindication.start();
+    v.setRequestLimits(new VRequestLimits(10, 2, 10, 20L));
+    v.addRequiredParameter("p0", Vindication.strings());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(Map.ofEntries(
+          Map.entry("p0", List.of("0123456789", "0123456789"))
+        ));
+      });
+
+    assertTrue(ex.getMessage().contains(VRequestLimits.REQUEST));
+  }
+
+  /**
+   * Requests within limits are accepted.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testWithinLimits()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    v.setRequestLimits(new VRequestLimits(2, 1, 10, 100L));
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.integerSigned());
+
+    v.checkArrayTyped(Map.ofEntries(
+      Map.entry("p0", new String[]{"23"}),
+      Map.entry("p1", new String[]{"0123456789"})
+    ));
+
+    assertEquals(23, p0.get());
+  }
+
+  /**
+   * Limits must be positive.
+   */
+
+  @Test
+  public void testLimitsInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new VRequestLimits(0, 1, 1, 1L);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new VRequestLimits(1, 1, 1, -1L);
+    });
+    assertTrue(VRequestLimits.unlimited().isUnlimited());
+  }
+}
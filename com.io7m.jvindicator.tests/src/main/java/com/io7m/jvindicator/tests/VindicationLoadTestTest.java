@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.loadtest.VLoadTest;
+import com.io7m.jvindicator.loadtest.VLoadTestConfiguration;
+import com.io7m.jvindicator.loadtest.VLoadTestStrategy;
+import com.io7m.jvindicator.loadtest.VLoadTestThreadKind;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationLoadTestTest
+{
+  /**
+   * A short load test produces one result per combination.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testShortRun()
+    throws Exception
+  {
+    final var configuration =
+      new VLoadTestConfiguration(
+        VLoadTestConfiguration.scaling(2),
+        List.of(VLoadTestThreadKind.PLATFORM, VLoadTestThreadKind.VIRTUAL),
+        List.of(
+          VLoadTestStrategy.REUSED_PER_THREAD,
+          VLoadTestStrategy.BUILT_PER_REQUEST),
+        Duration.ofMillis(50L),
+        Duration.ofMillis(100L),
+        0.25
+      );
+
+    final var seen = new ArrayList<String>();
+    final var results =
+      VLoadTest.run(configuration, result -> seen.add(result.toJSON()));
+
+    assertEquals(8, results.size());
+    assertEquals(8, seen.size());
+
+    for (final var result : results) {
+      assertTrue(result.operations() > 0L);
+      assertTrue(result.rejected() > 0L);
+      assertTrue(result.rejected() < result.operations());
+      assertTrue(result.latencyP50Nanos() <= result.latencyP99Nanos());
+      assertTrue(result.latencyP99Nanos() <= result.latencyMaxNanos());
+      assertTrue(result.throughputPerSecond() > 0.0);
+    }
+
+    for (final var line : seen) {
+      assertTrue(line.startsWith("{"));
+      assertTrue(line.endsWith("}"));
+      assertTrue(line.contains("\"throughputPerSecond\""), line);
+    }
+  }
+
+  /**
+   * Thread counts scale in powers of two.
+   */
+
+  @Test
+  public void testScaling()
+  {
+    assertEquals(List.of(1, 2, 4, 8, 12), VLoadTestConfiguration.scaling(12));
+    assertEquals(List.of(1), VLoadTestConfiguration.scaling(1));
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> VLoadTestConfiguration.scaling(0));
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.VParameterCheckType;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationMemoizationTest
+{
+  private static VParameterCheckType<Integer> counting(
+    final AtomicInteger calls)
+  {
+    return value -> {
+      calls.incrementAndGet();
+      return Integer.valueOf(Integer.parseInt(value));
+    };
+  }
+
+  /**
+   * Repeated requests do not execute checks.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testMemoHit()
+    throws Exception
+  {
+    final var calls = new AtomicInteger();
+    final var v = Vindication.start();
+    v.setMemoization(16);
+    final var p0 =
+      v.addRequiredParameter("p0", counting(calls));
+    final var p1 =
+      v.addOptionalParameter("p1", Vindication.strings());
+
+    v.check(VInputs.ofQueryString("p0=23&x=1"));
+    final var first = p0.get();
+    assertEquals(23, first);
+    assertEquals(Optional.empty(), p1.get());
+    assertEquals(1, calls.get());
+
+    v.check(VInputs.ofQueryString("x=2&p0=23"));
+    assertSame(first, p0.get());
+    assertEquals(Optional.empty(), p1.get());
+    assertEquals(1, calls.get());
+
+    v.check(VInputs.ofQueryString("p0=23&p1=a"));
+    assertEquals(Optional.of("a"), p1.get());
+    assertEquals(2, calls.get());
+  }
+
+  /**
+   * Failures are memoized.
+   */
+
+  @Test
+  public void testMemoFailure()
+  {
+    final var calls = new AtomicInteger();
+    final var v = Vindication.start();
+    v.setMemoization(16);
+    v.addRequiredParameter("p0", counting(calls));
+
+    for (int index = 0; index < 3; ++index) {
+      final var ex =
+        assertThrows(Exception.class, () -> {
+          v.check(VInputs.ofQueryString("p0=x"));
+        });
+      assertTrue(ex.getMessage().contains("p0"));
+      assertEquals(1, ex.getSuppressed().length);
+    }
+    assertEquals(1, calls.get());
+  }
+
+  /**
+   * The least recently used outcomes are evicted.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testMemoEviction()
+    throws Exception
+  {
+    final var calls = new AtomicInteger();
+    final var v = Vindication.start();
+    v.setMemoization(2);
+    v.addRequiredParameter("p0", counting(calls));
+
+    v.check(VInputs.ofQueryString("p0=1"));
+    v.check(VInputs.ofQueryString("p0=2"));
+    v.check(VInputs.ofQueryString("p0=1"));
+    v.check(VInputs.ofQueryString("p0=3"));
+    assertEquals(3, calls.get());
+
+    v.check(VInputs.ofQueryString("p0=1"));
+    assertEquals(3, calls.get());
+    v.check(VInputs.ofQueryString("p0=2"));
+    assertEquals(4, calls.get());
+  }
+
+  /**
+   * The memo is cleared when parameters are registered, and is not used
+   * with asynchronous parameters.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testMemoCleared()
+    throws Exception
+  {
+    final var calls = new AtomicInteger();
+    final var v = Vindication.start();
+    v.setMemoization(2);
+    v.addRequiredParameter("p0", counting(calls));
+
+    v.check(VInputs.ofQueryString("p0=1"));
+    v.addOptionalParameterAsync("p1", CompletableFuture::completedFuture);
+    v.check(VInputs.ofQueryString("p0=1"));
+    v.check(VInputs.ofQueryString("p0=1"));
+    assertEquals(3, calls.get());
+  }
+
+  /**
+   * Negative sizes are rejected.
+   */
+
+  @Test
+  public void testMemoNegative()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      Vindication.start().setMemoization(-1);
+    });
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VCheckFailure;
+import com.io7m.jvindicator.core.VMessageKey;
+import com.io7m.jvindicator.core.VMessages;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.ListResourceBundle;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationMessagesTest
+{
+  private static final class GermanMessages
+    extends ListResourceBundle
+  {
+    GermanMessages()
+    {
+
+    }
+
+    @Override
+    protected Object[][] getContents()
+    {
+      return new Object[][]{
+        {"BOOLEAN_INVALID", "Der Wert {0} ist kein Wahrheitswert."},
+        {"TOO_RED", "Der Wert {0} ist zu rot."},
+      };
+    }
+  }
+
+  /**
+   * Templates are rendered with their arguments.
+   */
+
+  @Test
+  public void testRender()
+  {
+    final var messages = VMessages.defaults();
+
+    assertEquals(
+      "The value x is not in the range [1, 2].",
+      messages.format(VMessageKey.VALUE_OUT_OF_RANGE.name(), "x", 1, 2));
+    assertEquals(
+      "The value x is not in the range [1, {2}].",
+      messages.format(VMessageKey.VALUE_OUT_OF_RANGE.name(), "x", 1));
+    assertEquals(
+      "NO_SUCH_KEY: a, 3",
+      messages.format("NO_SUCH_KEY", "a", 3));
+    assertSame(
+      VMessages.forLocale(Locale.GERMAN),
+      VMessages.forLocale(Locale.GERMAN));
+
+    final var out = new StringBuilder("> ");
+    messages.render(out, VMessageKey.PARAMETER_MISSING.name());
+    assertEquals("> The parameter is required but was missing.", out.toString());
+  }
+
+  /**
+   * Arbitrary locales resolve to the messages of the bundled translation
+   * that they fall back to.
+   */
+
+  @Test
+  public void testLocalesNormalized()
+  {
+    final var root = VMessages.forLocale(Locale.ROOT);
+    assertSame(VMessages.defaults(), root);
+    for (int index = 0; index < 1000; ++index) {
+      assertSame(root, VMessages.forLocale(Locale.of("q" + index, "ZZ")));
+    }
+  }
+
+  /**
+   * Messages are chosen per check, including for memoized outcomes.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPerRequestMessages()
+    throws Exception
+  {
+    final var german = VMessages.ofBundle(new GermanMessages());
+    final var v = Vindication.start();
+    v.setMemoization(16);
+    v.addRequiredParameter("p0", Vindication.booleans());
+    v.addOptionalParameter("p1", value -> {
+      throw new VCheckFailure("TOO_RED", value);
+    });
+
+    final var input = Map.of(
+      "p0", List.of("maybe"),
+      "p1", List.of("crimson")
+    );
+
+    for (int index = 0; index < 2; ++index) {
+      v.setMessages(german);
+      var ex = assertThrows(Exception.class, () -> v.check(input));
+      assertTrue(
+        ex.getMessage().contains("p0: Der Wert maybe ist kein Wahrheitswert."),
+        ex.getMessage());
+      assertTrue(
+        ex.getMessage().contains("p1: Der Wert crimson ist zu rot."),
+        ex.getMessage());
+
+      v.setMessages(VMessages.defaults());
+      ex = assertThrows(Exception.class, () -> v.check(input));
+      assertTrue(
+        ex.getMessage().contains("p0: Could not parse the value maybe"),
+        ex.getMessage());
+      assertTrue(
+        ex.getMessage().contains("p1: TOO_RED: crimson"),
+        ex.getMessage());
+    }
+  }
+
+  /**
+   * Lazy messages are only rendered when read.
+   */
+
+  @Test
+  public void testLazyMessages()
+  {
+    final var renders = new AtomicInteger();
+    final var argument = new Object()
+    {
+      @Override
+      public String toString()
+      {
+        renders.incrementAndGet();
+        return "x";
+      }
+    };
+
+    final var errors = new AtomicReference<Map<String, String>>();
+    final var v = Vindication.startWithFormatter(map -> {
+      errors.set(map);
+      return new Exception("Failed: " + map.keySet());
+    });
+    v.setLazyMessages(true);
+    v.addRequiredParameter("p0", value -> {
+      throw new VCheckFailure(VMessageKey.BOOLEAN_INVALID, argument);
+    });
+    v.addRequiredParameter("p1", Vindication.strings());
+
+    final var ex =
+      assertThrows(Exception.class, () -> v.check(Map.of("p0", List.of("a"))));
+    assertEquals(0, renders.get());
+    assertTrue(ex.getMessage().contains("p0"), ex.getMessage());
+
+    assertEquals(
+      "Could not parse the value x as a boolean.",
+      errors.get().get("p0"));
+    assertEquals(1, renders.get());
+    assertEquals(
+      "The parameter is required but was missing.",
+      errors.get().get("p1"));
+    assertEquals(2, errors.get().entrySet().size());
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VCheckCost;
+import com.io7m.jvindicator.core.VCheckOrdering;
+import com.io7m.jvindicator.core.VParameterCheckType;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationOrderingTest
+{
+  private static VParameterCheckType<String> recording(
+    final List<String> executed,
+    final VCheckCost cost,
+    final String name)
+  {
+    return Vindication.withCost(cost, value -> {
+      executed.add(name);
+      return value;
+    });
+  }
+
+  /**
+   * Checks are executed in order of declared cost.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDeclaredCostOrder()
+    throws Exception
+  {
+    final var executed = new ArrayList<String>();
+    final var v = Vindication.start();
+
+    v.addRequiredParameter(
+      "e", recording(executed, VCheckCost.EXPENSIVE, "e"));
+    v.addRequiredParameter(
+      "m", recording(executed, VCheckCost.MODERATE, "m"));
+    v.addOptionalParameter(
+      "t", recording(executed, VCheckCost.TRIVIAL, "t"));
+    v.addRequiredParameter(
+      "c", recording(executed, VCheckCost.CHEAP, "c"));
+    v.addRequiredParameter(
+      "t2", recording(executed, VCheckCost.TRIVIAL, "t2"));
+
+    v.checkArrayTyped(Map.ofEntries(
+      Map.entry("e", new String[]{"x"}),
+      Map.entry("m", new String[]{"x"}),
+      Map.entry("t", new String[]{"x"}),
+      Map.entry("c", new String[]{"x"}),
+      Map.entry("t2", new String[]{"x"})
+    ));
+
+    assertEquals(List.of("t", "t2", "c", "m", "e"), executed);
+  }
+
+  /**
+   * Built-in checks declare costs.
+   */
+
+  @Test
+  public void testBuiltInCosts()
+  {
+    assertEquals(VCheckCost.TRIVIAL, Vindication.strings().cost());
+    assertEquals(VCheckCost.CHEAP, Vindication.integerSigned().cost());
+    assertEquals(VCheckCost.EXPENSIVE, Vindication.integerBig().cost());
+    assertEquals(VCheckCost.EXPENSIVE, Vindication.offsetDateTimes().cost());
+    assertEquals(VCheckCost.MODERATE, ((VParameterCheckType<String>) x -> x).cost());
+  }
+
+  /**
+   * Missing parameters are detected before any parsing in fail-fast mode.
+   */
+
+  @Test
+  public void testFailFastMissingFirst()
+  {
+    final var executed = new ArrayList<String>();
+    final var v = Vindication.start();
+    v.setFailFast(true);
+
+    v.addRequiredParameter(
+      "t", recording(executed, VCheckCost.TRIVIAL, "t"));
+    v.addRequiredParameter(
+      "missing", recording(executed, VCheckCost.TRIVIAL, "missing"));
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.checkArrayTyped(Map.ofEntries(
+          Map.entry("t", new String[]{"x"})
+        ));
+      });
+
+    assertTrue(ex.getMessage().contains("missing"));
+    assertEquals(List.of(), executed);
+  }
+
+  /**
+   * Checking stops at the first failure in fail-fast mode.
+   */
+
+  @Test
+  public void testFailFastStops()
+  {
+    final var executed = new ArrayList<String>();
+    final var v = Vindication.start();
+    v.setFailFast(true);
+
+    v.addRequiredParameter(
+      "e", recording(executed, VCheckCost.EXPENSIVE, "e"));
+    v.addRequiredParameter(
+      "u", Vindication.integerUnsigned());
+    v.addRequiredParameter(
+      "b", Vindication.booleans());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.checkArrayTyped(Map.ofEntries(
+          Map.entry("e", new String[]{"x"}),
+          Map.entry("u", new String[]{"x"}),
+          Map.entry("b", new String[]{"x"})
+        ));
+      });
+
+    assertTrue(ex.getMessage().contains("b"));
+    assertFalse(ex.getMessage().contains("u:"));
+    assertEquals(List.of(), executed);
+  }
+
+  /**
+   * Adaptive ordering moves frequently failing checks to the front.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAdaptiveOrdering()
+    throws Exception
+  {
+    final var passCount = new AtomicInteger();
+    final var v = Vindication.start();
+    v.setFailFast(true);
+    v.setCheckOrdering(VCheckOrdering.ADAPTIVE);
+
+    v.addRequiredParameter(
+      "pass",
+      Vindication.withCost(VCheckCost.TRIVIAL, value -> {
+        passCount.incrementAndGet();
+        var acc = 0L;
+        for (int index = 0; index < 10_000; ++index) {
+          acc += value.charAt(index % value.length());
+        }
+        return Long.valueOf(acc);
+      })
+    );
+    v.addRequiredParameter(
+      "fail",
+      Vindication.withCost(VCheckCost.EXPENSIVE, value -> {
+        throw new IllegalArgumentException("Always fails.");
+      })
+    );
+
+    final var input = Map.ofEntries(
+      Map.entry("pass", new String[]{"x"}),
+      Map.entry("fail", new String[]{"x"})
+    );
+
+    for (int index = 0; index < 2000; ++index) {
+      assertThrows(Exception.class, () -> v.checkArrayTyped(input));
+    }
+
+    passCount.set(0);
+    for (int index = 0; index < 100; ++index) {
+      assertThrows(Exception.class, () -> v.checkArrayTyped(input));
+    }
+    assertEquals(0, passCount.get());
+  }
+}
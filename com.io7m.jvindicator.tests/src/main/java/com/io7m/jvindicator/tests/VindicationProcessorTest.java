@@ -0,0 +1,327 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VInputType;
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.VStreamOrdering;
+import com.io7m.jvindicator.core.VValidated;
+import com.io7m.jvindicator.core.VValidationProcessor;
+import com.io7m.jvindicator.core.VValidationProcessorConfiguration;
+import com.io7m.jvindicator.core.VindicationBuilderType;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationProcessorTest
+{
+  private static final int COUNT = 1000;
+
+  private static Supplier<Integer> define(
+    final VindicationBuilderType<Exception> builder)
+  {
+    final var p =
+      builder.addRequiredParameter("x", Vindication.integerSigned());
+    return p::get;
+  }
+
+  private static VInputType input(
+    final int index)
+  {
+    final var value =
+      index % 10 == 0 ? "x" + index : Integer.toString(index);
+    return VInputs.ofMap(Map.of("x", List.of(value)));
+  }
+
+  private static List<VValidated<Integer>> run(
+    final VStreamOrdering ordering)
+    throws Exception
+  {
+    try (var executor = Executors.newFixedThreadPool(4)) {
+      final var processor =
+        VValidationProcessor.create(
+          VindicationProcessorTest::define,
+          new VValidationProcessorConfiguration(4, 16, ordering, executor)
+        );
+
+      final var subscriber = new Collector(1L);
+      processor.subscribe(subscriber);
+
+      try (var publisher = new SubmissionPublisher<VInputType>()) {
+        publisher.subscribe(processor);
+        for (int index = 0; index < COUNT; ++index) {
+          publisher.submit(input(index));
+        }
+      }
+      return subscriber.done.get(30L, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Ordered stages emit a result for every input, in order.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testOrdered()
+    throws Exception
+  {
+    final var results = run(VStreamOrdering.ORDERED);
+    assertEquals(COUNT, results.size());
+
+    for (int index = 0; index < COUNT; ++index) {
+      final var result = results.get(index);
+      assertEquals(index, result.sequence());
+      if (index % 10 == 0) {
+        assertTrue(result.error().isPresent());
+      } else {
+        assertEquals(Optional.of(Integer.valueOf(index)), result.value());
+      }
+    }
+  }
+
+  /**
+   * Unordered stages emit a result for every input.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testUnordered()
+    throws Exception
+  {
+    final var results = run(VStreamOrdering.UNORDERED);
+    assertEquals(COUNT, results.size());
+
+    final var seen = new boolean[COUNT];
+    for (final var result : results) {
+      final var index = (int) result.sequence();
+      seen[index] = true;
+      assertEquals(index % 10 != 0, result.isValid());
+    }
+    for (int index = 0; index < COUNT; ++index) {
+      assertTrue(seen[index]);
+    }
+  }
+
+  /**
+   * Stages request no more inputs than the buffer size ahead of downstream
+   * demand.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testBackpressure()
+    throws Exception
+  {
+    final var requested = new AtomicLong();
+    final var processor =
+      VValidationProcessor.create(
+        VindicationProcessorTest::define,
+        new VValidationProcessorConfiguration(
+          2, 8, VStreamOrdering.ORDERED, Runnable::run)
+      );
+
+    final var subscriber = new Collector(0L);
+    processor.subscribe(subscriber);
+
+    processor.onSubscribe(new Flow.Subscription()
+    {
+      @Override
+      public void request(final long n)
+      {
+        requested.addAndGet(n);
+      }
+
+      @Override
+      public void cancel()
+      {
+
+      }
+    });
+
+    assertEquals(8L, requested.get());
+    for (int index = 0; index < 8; ++index) {
+      processor.onNext(input(index + 1));
+    }
+    assertEquals(8L, requested.get());
+    assertEquals(0, subscriber.results.size());
+
+    subscriber.subscription.request(3L);
+    assertEquals(3, subscriber.results.size());
+    assertEquals(11L, requested.get());
+
+    processor.onComplete();
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertEquals(8, subscriber.results.size());
+    assertEquals(8, subscriber.done.get().size());
+  }
+
+  /**
+   * Non-positive requests are errors.
+   */
+
+  @Test
+  public void testRequestNonPositive()
+  {
+    final var processor =
+      VValidationProcessor.create(
+        VindicationProcessorTest::define,
+        VValidationProcessorConfiguration.defaults(VStreamOrdering.UNORDERED)
+      );
+
+    final var subscriber = new Collector(0L);
+    processor.subscribe(subscriber);
+    subscriber.subscription.request(0L);
+
+    final var ex =
+      assertThrows(Exception.class, () -> subscriber.done.get());
+    assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+  }
+
+  /**
+   * No results are emitted after a non-positive request fails the stage,
+   * even if checks are still in flight.
+   */
+
+  @Test
+  public void testRequestNonPositiveInFlight()
+  {
+    final var queued = new ArrayDeque<Runnable>();
+    final var processor =
+      VValidationProcessor.create(
+        VindicationProcessorTest::define,
+        new VValidationProcessorConfiguration(
+          2, 4, VStreamOrdering.UNORDERED, queued::add)
+      );
+
+    final var subscriber = new Collector(Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    processor.onSubscribe(new Flow.Subscription()
+    {
+      @Override
+      public void request(final long n)
+      {
+
+      }
+
+      @Override
+      public void cancel()
+      {
+
+      }
+    });
+
+    for (int index = 0; index < 4; ++index) {
+      processor.onNext(input(index + 1));
+    }
+    assertEquals(2, queued.size());
+
+    subscriber.subscription.request(0L);
+    assertTrue(subscriber.done.isCompletedExceptionally());
+
+    while (!queued.isEmpty()) {
+      queued.poll().run();
+    }
+
+    assertEquals(0, subscriber.results.size());
+    assertEquals(0, subscriber.signalsAfterTerminal.get());
+  }
+
+  private static final class Collector
+    implements Flow.Subscriber<VValidated<Integer>>
+  {
+    private final long initial;
+    private final List<VValidated<Integer>> results;
+    private final CompletableFuture<List<VValidated<Integer>>> done;
+    private final AtomicInteger signalsAfterTerminal;
+    private Flow.Subscription subscription;
+
+    Collector(
+      final long inInitial)
+    {
+      this.initial = inInitial;
+      this.results = new ArrayList<>();
+      this.done = new CompletableFuture<>();
+      this.signalsAfterTerminal = new AtomicInteger();
+    }
+
+    @Override
+    public void onSubscribe(
+      final Flow.Subscription inSubscription)
+    {
+      this.subscription = inSubscription;
+      if (this.initial > 0L) {
+        this.subscription.request(this.initial);
+      }
+    }
+
+    @Override
+    public void onNext(
+      final VValidated<Integer> item)
+    {
+      if (this.done.isDone()) {
+        this.signalsAfterTerminal.incrementAndGet();
+      }
+      this.results.add(item);
+      if (this.initial > 0L) {
+        this.subscription.request(1L);
+      }
+    }
+
+    @Override
+    public void onError(
+      final Throwable throwable)
+    {
+      if (this.done.isDone()) {
+        this.signalsAfterTerminal.incrementAndGet();
+      }
+      this.done.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete()
+    {
+      if (this.done.isDone()) {
+        this.signalsAfterTerminal.incrementAndGet();
+      }
+      this.done.complete(List.copyOf(this.results));
+    }
+  }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VInputSinkType;
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.VRequestLimits;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationQueryStringTest
+{
+  /**
+   * Query strings are parsed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testQueryString()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.integerSigned());
+    final var p1 =
+      v.addRequiredParameter("p1", Vindication.strings());
+    final var p2 =
+      v.addOptionalParameter("p2", Vindication.strings());
+    final var p3 =
+      v.addRequiredParameter("p3", Vindication.strings());
+
+    v.check(VInputs.ofQueryString("&p0=23&&p1=%2B+%26&p3&other=%"));
+
+    assertEquals(23, p0.get());
+    assertEquals("+ &", p1.get());
+    assertEquals(Optional.empty(), p2.get());
+    assertEquals("", p3.get());
+  }
+
+  /**
+   * Empty query strings are empty.
+   */
+
+  @Test
+  public void testQueryStringNull()
+  {
+    final var v = Vindication.start();
+    v.addRequiredParameter("p0", Vindication.integerSigned());
+
+    final var ex =
+      assertThrows(Exception.class, () -> v.check(VInputs.ofQueryString(null)));
+    assertTrue(ex.getMessage().contains("p0"));
+  }
+
+  /**
+   * Malformed values of registered parameters are rejected.
+   */
+
+  @Test
+  public void testQueryStringMalformed()
+  {
+    final var v = Vindication.start();
+    v.addRequiredParameter("p0", Vindication.strings());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofQueryString("p0=%4"));
+      });
+    assertTrue(ex.getMessage().contains("malformed"));
+  }
+
+  /**
+   * Limits and unknown parameters apply to query strings.
+   */
+
+  @Test
+  public void testQueryStringStrict()
+  {
+    final var v = Vindication.start();
+    v.setRejectUnknownParameters(true);
+    v.setRequestLimits(new VRequestLimits(10, 2, 8, 100L));
+    v.addRequiredParameter("p0", Vindication.strings());
+
+    final var ex0 =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofQueryString("p0=a&p0=b&p0=c"));
+      });
+    assertTrue(ex0.getMessage().contains("more than 2 values"));
+
+    final var ex1 =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofQueryString("p0=a&p1=b"));
+      });
+    assertTrue(ex1.getMessage().contains("p1"));
+
+    final var ex2 =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofQueryString("p0=aaaaaaaaa"));
+      });
+    assertTrue(ex2.getMessage().contains("length 9"));
+  }
+
+  /**
+   * Raw byte query strings are parsed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFormBytes()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.integerSigned());
+    final var p1 =
+      v.addRequiredParameter("p1", Vindication.strings());
+    final var p2 =
+      v.addOptionalParameter("p2", Vindication.strings());
+    final var p3 =
+      v.addRequiredParameter("p3", Vindication.strings());
+    final var p4 =
+      v.addRequiredParameter("p\u00e9", Vindication.strings());
+
+    v.check(VInputs.ofForm(
+      "&p0=23&&p1=%2B+%26&p3&other=%&p%C3%A9=caf%C3%A9"
+        .getBytes(StandardCharsets.UTF_8)));
+
+    assertEquals(23, p0.get());
+    assertEquals("+ &", p1.get());
+    assertEquals(Optional.empty(), p2.get());
+    assertEquals("", p3.get());
+    assertEquals("caf\u00e9", p4.get());
+  }
+
+  /**
+   * Raw byte query strings are read from the range between the position
+   * and limit of buffers.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFormBytesRange()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.strings());
+
+    final var data =
+      ByteBuffer.wrap("p0=x\np0=yy\np0=z".getBytes(StandardCharsets.UTF_8));
+    data.position(5);
+    data.limit(10);
+
+    v.check(VInputs.ofForm(data));
+    assertEquals("yy", p0.get());
+    assertEquals(5, data.position());
+  }
+
+  /**
+   * Malformed raw byte query strings are rejected, and limits apply.
+   */
+
+  @Test
+  public void testFormBytesStrict()
+  {
+    final var v = Vindication.start();
+    v.setRejectUnknownParameters(true);
+    v.setRequestLimits(new VRequestLimits(10, 2, 8, 100L));
+    v.addRequiredParameter("p0", Vindication.strings());
+
+    final var ex0 =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofForm("p0=%4".getBytes(StandardCharsets.UTF_8)));
+      });
+    assertTrue(ex0.getMessage().contains("malformed"));
+
+    final var ex1 =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofForm(
+          "p0=a&p%31=b".getBytes(StandardCharsets.UTF_8)));
+      });
+    assertTrue(ex1.getMessage().contains("p1"));
+
+    final var ex2 =
+      assertThrows(Exception.class, () -> {
+        v.check(VInputs.ofForm(
+          "p0=a&p0=b&p0=c".getBytes(StandardCharsets.UTF_8)));
+      });
+    assertTrue(ex2.getMessage().contains("more than 2 values"));
+  }
+
+  /**
+   * Each pair is delivered with exactly one lookup, and the search for '='
+   * never extends into the pairs that follow, whether or not the query is
+   * given as a string.
+   */
+
+  @Test
+  public void testQueryStringPairsBounded()
+  {
+    final var query =
+      "a&".repeat(1_000) + "b=x&c&d=yz&e%3D&" + "f&".repeat(1_000) + "g=";
+    final var bytes = query.getBytes(StandardCharsets.UTF_8);
+
+    for (final var input : List.of(
+      VInputs.ofQueryString(query),
+      VInputs.ofForm(bytes))) {
+      final var sink = new RecordingSink();
+      input.deliver(sink);
+
+      assertEquals(2_005, sink.finds);
+      assertEquals(2_005, sink.pairs.size());
+      assertEquals("a:0", sink.pairs.get(0));
+      assertEquals("b:1", sink.pairs.get(1_000));
+      assertEquals("c:0", sink.pairs.get(1_001));
+      assertEquals("d:2", sink.pairs.get(1_002));
+      assertEquals("e=:0", sink.pairs.get(1_003));
+      assertEquals("f:0", sink.pairs.get(1_004));
+      assertEquals("g:0", sink.pairs.get(2_004));
+    }
+  }
+
+  /**
+   * A sink that records the name and value length of each pair.
+   */
+
+  private static final class RecordingSink implements VInputSinkType
+  {
+    private final List<String> pairs = new ArrayList<>();
+    private int finds;
+
+    @Override
+    public boolean requiresAllNames()
+    {
+      return true;
+    }
+
+    @Override
+    public int parameterCount()
+    {
+      return 0;
+    }
+
+    @Override
+    public String parameterName(
+      final int index)
+    {
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public int find(
+      final String name)
+    {
+      ++this.finds;
+      return -1;
+    }
+
+    @Override
+    public int find(
+      final ByteBuffer data,
+      final int start,
+      final int end)
+    {
+      ++this.finds;
+      return -1;
+    }
+
+    @Override
+    public int findIgnoringCase(
+      final ByteBuffer data,
+      final int start,
+      final int end)
+    {
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean declareNameCount(
+      final int count)
+    {
+      return true;
+    }
+
+    @Override
+    public boolean values(
+      final int index,
+      final List<String> values)
+    {
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean value(
+      final int index,
+      final String value)
+    {
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean unknown(
+      final CharSequence name,
+      final int valueCount,
+      final long valueLength)
+    {
+      this.pairs.add("%s:%d".formatted(name, Long.valueOf(valueLength)));
+      return true;
+    }
+
+    @Override
+    public void malformed(
+      final String message)
+    {
+      throw new IllegalStateException(message);
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VSchema;
+import com.io7m.jvindicator.core.VSchemaRegistry;
+import com.io7m.jvindicator.core.Vindication;
+import com.io7m.jvindicator.core.VindicationBuilderType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationRegistryTest
+{
+  private static VSchema users()
+  {
+    return new VSchema(
+      "users",
+      v -> {
+        v.addRequiredParameter("id", Vindication.uuids());
+        v.addRequiredIntParameter("page", Vindication.primitiveInts());
+      },
+      List.of(
+        Map.ofEntries(
+          Map.entry("id", List.of("98da4b91-76b7-42ef-ba03-3bed60fd73db")),
+          Map.entry("page", List.of("1"))
+        )
+      )
+    );
+  }
+
+  private static VSchema search()
+  {
+    return new VSchema(
+      "search",
+      v -> {
+        v.addRequiredParameter("q", Vindication.lengthBetween(1, 100));
+        v.addDefaultedParameter("limit", Vindication.integerUnsigned(), "10");
+      },
+      List.of(
+        Map.of("q", List.of("x")),
+        Map.of("q", List.of("y"), "limit", List.of("20"))
+      )
+    );
+  }
+
+  /**
+   * Schemas are compiled on creation and warmed up on request.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testWarmUp()
+    throws Exception
+  {
+    final var registry =
+      VSchemaRegistry.create(List.of(users(), search()));
+
+    assertEquals(List.of("users", "search"), registry.names());
+    for (final var statistics : registry.statistics()) {
+      assertTrue(statistics.compileTime().compareTo(Duration.ZERO) > 0);
+      assertEquals(Duration.ZERO, statistics.warmUpTime());
+      assertEquals(0L, statistics.warmUpChecks());
+    }
+
+    registry.warmUp(10);
+
+    final var users = registry.statistics().get(0);
+    assertEquals("users", users.name());
+    assertTrue(users.warmUpTime().compareTo(Duration.ZERO) > 0);
+    assertEquals(10L * (1 + 1 + 2 * 5), users.warmUpChecks());
+    assertEquals(10L * (1 + 2 * 5), users.warmUpRejects());
+
+    final var search = registry.statistics().get(1);
+    assertEquals(10L * (2 + 1 + 3 * 5), search.warmUpChecks());
+
+    try (var lease = registry.borrow("search")) {
+      final var builder = lease.builder();
+      builder.check(Map.of("q", List.of("z")));
+      assertThrows(Exception.class, () -> builder.check(Map.of()));
+    }
+  }
+
+  /**
+   * Builders are pooled and reused, and concurrent callers never define
+   * more builders than the pool holds.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testBuilderPool()
+    throws Exception
+  {
+    final var definitions = new AtomicInteger();
+    final var schema =
+      new VSchema(
+        "counted",
+        v -> {
+          definitions.incrementAndGet();
+          v.addRequiredParameter("x", Vindication.strings());
+        },
+        List.of(Map.of("x", List.of("y")))
+      );
+
+    final var registry = VSchemaRegistry.create(List.of(schema), 2);
+    assertEquals(1, definitions.get());
+    registry.warmUp(1);
+    assertEquals(1, definitions.get());
+
+    final VindicationBuilderType<Exception> first;
+    try (var lease = registry.borrow("counted")) {
+      first = lease.builder();
+    }
+    try (var lease = registry.borrow("counted")) {
+      assertSame(first, lease.builder());
+    }
+
+    final var lease0 = registry.borrow("counted");
+    final var lease1 = registry.borrow("counted");
+    final var builder0 = lease0.builder();
+    assertNotSame(builder0, lease1.builder());
+    assertEquals(2, definitions.get());
+
+    final var waiting =
+      CompletableFuture.supplyAsync(() -> {
+        try (var lease = registry.borrow("counted")) {
+          return lease.builder();
+        } catch (final InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+    Thread.sleep(50L);
+    assertFalse(waiting.isDone());
+    lease0.close();
+    lease0.close();
+    assertSame(builder0, waiting.get());
+    assertThrows(IllegalStateException.class, lease0::builder);
+    lease1.close();
+
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int index = 0; index < 1000; ++index) {
+        executor.submit(() -> {
+          try (var lease = registry.borrow("counted")) {
+            lease.builder().check(Map.of("x", List.of("z")));
+          }
+          return null;
+        });
+      }
+    }
+    assertEquals(2, definitions.get());
+  }
+
+  /**
+   * Unknown and duplicate schemas are rejected.
+   */
+
+  @Test
+  public void testSchemaNames()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      VSchemaRegistry.create(List.of(users(), users()));
+    });
+
+    final var registry =
+      VSchemaRegistry.create(List.of(users()));
+    assertThrows(IllegalArgumentException.class, () -> {
+      registry.borrow("other");
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      VSchemaRegistry.create(List.of(users()), 0);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      registry.warmUp(-1);
+    });
+  }
+
+  /**
+   * A schema that rejects its own samples fails to warm up.
+   */
+
+  @Test
+  public void testWarmUpInvalidSample()
+  {
+    final var registry =
+      VSchemaRegistry.create(List.of(
+        new VSchema(
+          "broken",
+          v -> v.addRequiredParameter("x", Vindication.booleans()),
+          List.of(Map.of("x", List.of("maybe")))
+        )
+      ));
+
+    final var ex =
+      assertThrows(IllegalStateException.class, () -> registry.warmUp(1));
+    assertTrue(ex.getMessage().contains("broken"), ex.getMessage());
+  }
+}
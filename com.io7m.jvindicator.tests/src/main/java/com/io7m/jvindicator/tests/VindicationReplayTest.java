@@ -0,0 +1,280 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VInputs;
+import com.io7m.jvindicator.core.Vindication;
+import com.io7m.jvindicator.core.VindicationBuilderType;
+import com.io7m.jvindicator.replay.VReplay;
+import com.io7m.jvindicator.replay.VReplayConfiguration;
+import com.io7m.jvindicator.replay.VReplaySchema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationReplayTest
+{
+  private static void current(
+    final VindicationBuilderType<?> v)
+  {
+    v.addRequiredParameter("tenant", Vindication.uuids());
+    v.addOptionalParameter("limit", Vindication.integerSigned());
+  }
+
+  private static void strict(
+    final VindicationBuilderType<?> v)
+  {
+    v.addRequiredParameter("tenant", Vindication.uuids());
+    v.addRequiredIntParameter(
+      "limit", Vindication.primitiveIntsInRange(1, 100));
+    v.setRejectUnknownParameters(true);
+  }
+
+  private static List<String> generate(
+    final int count)
+  {
+    final var random = new Random(0x5eedL);
+    final var lines = new ArrayList<String>(count);
+    for (int index = 0; index < count; ++index) {
+      final var line = new StringBuilder(64);
+      if (random.nextInt(10) == 0) {
+        line.append('?');
+      }
+      if (random.nextInt(8) != 0) {
+        line.append("tenant=98da4b91-76b7-42ef-ba03-3bed60fd73db");
+      } else {
+        line.append("tenant=x");
+      }
+      if (random.nextInt(4) != 0) {
+        line.append("&limit=");
+        line.append(random.nextInt(200));
+      }
+      if (random.nextInt(5) == 0) {
+        line.append("&utm_source=");
+        line.append("a".repeat(random.nextInt(300)));
+      }
+      lines.add(line.toString());
+    }
+    return lines;
+  }
+
+  private static long countAccepted(
+    final List<String> lines,
+    final VReplaySchema schema)
+  {
+    final var v = Vindication.start();
+    schema.definition().accept(v);
+
+    var accepted = 0L;
+    for (final var line : lines) {
+      final var query = line.startsWith("?") ? line.substring(1) : line;
+      try {
+        v.check(VInputs.ofQueryString(query));
+        ++accepted;
+      } catch (final Exception e) {
+        // Rejected
+      }
+    }
+    return accepted;
+  }
+
+  /**
+   * Replays agree with checks of individual query strings, regardless of
+   * how files are split into chunks.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReplayAgrees(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var lines = generate(5000);
+    final var file0 = directory.resolve("access0.log");
+    final var file1 = directory.resolve("access1.log");
+    Files.writeString(
+      file0, String.join("\n", lines.subList(0, 2500)) + "\n");
+    Files.writeString(
+      file1, String.join("\r\n", lines.subList(2500, 5000)));
+
+    final var schemas =
+      List.of(
+        new VReplaySchema("current", VindicationReplayTest::current),
+        new VReplaySchema("strict", VindicationReplayTest::strict)
+      );
+
+    for (final var chunkSize : List.of(1, 97, 4096, Integer.MAX_VALUE)) {
+      final var report =
+        VReplay.replay(new VReplayConfiguration(
+          List.of(file0, file1), schemas, 4, chunkSize, 100));
+
+      assertEquals(5000L, report.lines());
+
+      for (int index = 0; index < schemas.size(); ++index) {
+        final var schemaReport = report.schemas().get(index);
+        final var expected = countAccepted(lines, schemas.get(index));
+        assertEquals(schemas.get(index).name(), schemaReport.name());
+        assertEquals(expected, schemaReport.accepted());
+        assertEquals(5000L - expected, schemaReport.rejected());
+      }
+
+      final var strict = report.schemas().get(1).rejections();
+      final var missingLimit =
+        strict.get("limit").get("The parameter is required but was missing.");
+      assertEquals(
+        lines.stream().filter(line -> !line.contains("limit=")).count(),
+        missingLimit.longValue()
+      );
+      assertEquals(
+        lines.stream().filter(line -> line.contains("utm_source=")).count(),
+        strict.get("utm_source").values().stream()
+          .mapToLong(Long::longValue)
+          .sum()
+      );
+    }
+  }
+
+  /**
+   * Distinct error messages are limited per parameter.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReplayDistinctErrors(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var file = directory.resolve("access.log");
+    final var text = new StringBuilder();
+    for (int index = 0; index < 100; ++index) {
+      text.append("tenant=x").append(index).append('\n');
+    }
+    Files.writeString(file, text.toString(), StandardCharsets.UTF_8);
+
+    final var report =
+      VReplay.replay(new VReplayConfiguration(
+        List.of(file),
+        List.of(new VReplaySchema("s", VindicationReplayTest::current)),
+        2,
+        64,
+        3
+      ));
+
+    final var errors = report.schemas().get(0).rejections().get("tenant");
+    assertEquals(4, errors.size());
+    assertEquals(
+      100L,
+      errors.values().stream().mapToLong(Long::longValue).sum());
+    assertTrue(errors.containsKey(VReplayConfiguration.OTHER_ERRORS));
+    assertEquals(
+      Set.of("tenant"),
+      report.schemas().get(0).rejections().keySet()
+    );
+  }
+
+  /**
+   * Distinct parameters are limited per schema, and the rejections are
+   * sorted.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReplayDistinctParameters(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var file = directory.resolve("access.log");
+    final var text = new StringBuilder();
+    for (int index = 0; index < 100; ++index) {
+      text.append("tenant=98da4b91-76b7-42ef-ba03-3bed60fd73db&limit=1&q")
+        .append(index)
+        .append("=x\n");
+    }
+    Files.writeString(file, text.toString(), StandardCharsets.UTF_8);
+
+    final var report =
+      VReplay.replay(new VReplayConfiguration(
+        List.of(file),
+        List.of(new VReplaySchema("s", VindicationReplayTest::strict)),
+        2,
+        64,
+        3
+      ));
+
+    final var rejections = report.schemas().get(0).rejections();
+    assertEquals(4, rejections.size());
+    assertTrue(rejections.containsKey(VReplayConfiguration.OTHER_PARAMETERS));
+    assertEquals(
+      100L,
+      rejections.values()
+        .stream()
+        .flatMap(errors -> errors.values().stream())
+        .mapToLong(Long::longValue)
+        .sum()
+    );
+    assertEquals(
+      rejections.keySet().stream().sorted().toList(),
+      List.copyOf(rejections.keySet())
+    );
+  }
+
+  /**
+   * Invalid configurations are rejected.
+   */
+
+  @Test
+  public void testReplayConfigurationInvalid()
+  {
+    final var schema =
+      new VReplaySchema("s", VindicationReplayTest::current);
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new VReplayConfiguration(List.of(), List.of(), 1, 1, 1);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new VReplayConfiguration(List.of(), List.of(schema, schema), 1, 1, 1);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new VReplayConfiguration(List.of(), List.of(schema), 0, 1, 1);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      new VReplayConfiguration(List.of(), List.of(schema), 1, 0, 1);
+    });
+  }
+}
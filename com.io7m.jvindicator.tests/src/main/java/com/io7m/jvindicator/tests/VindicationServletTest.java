@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.Vindication;
+import com.io7m.jvindicator.servlet.VServletInputs;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationServletTest
+{
+  /**
+   * A mock request that supports only the parameter methods, and records
+   * every method called.
+   */
+
+  private static HttpServletRequest request(
+    final List<String> calls,
+    final String contentType,
+    final String query,
+    final Map<String, String[]> parameters)
+  {
+    return (HttpServletRequest) Proxy.newProxyInstance(
+      VindicationServletTest.class.getClassLoader(),
+      new Class<?>[]{HttpServletRequest.class},
+      (proxy, method, args) -> {
+        calls.add(method.getName());
+        return switch (method.getName()) {
+          case "getContentType" -> contentType;
+          case "getQueryString" -> query;
+          case "getParameterValues" -> parameters.get((String) args[0]);
+          case "getParameterNames" ->
+            Collections.enumeration(parameters.keySet());
+          default -> throw new UnsupportedOperationException(method.getName());
+        };
+      }
+    );
+  }
+
+  /**
+   * Only registered parameters are requested.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testParametersRegisteredOnly()
+    throws Exception
+  {
+    final var calls = new ArrayList<String>();
+    final var parameters = new LinkedHashMap<String, String[]>();
+    parameters.put("p0", new String[]{"23"});
+    parameters.put("p1", new String[]{"x"});
+    for (int index = 0; index < 100; ++index) {
+      parameters.put("q" + index, new String[]{"y"});
+    }
+
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.integerSigned());
+    final var p1 =
+      v.addRequiredParameter("p1", Vindication.strings());
+    final var p2 =
+      v.addOptionalParameter("p2", Vindication.strings());
+
+    v.check(VServletInputs.parameters(request(calls, null, null, parameters)));
+
+    assertEquals(23, p0.get());
+    assertEquals("x", p1.get());
+    assertEquals(Optional.empty(), p2.get());
+    assertEquals(
+      List.of("getParameterValues", "getParameterValues", "getParameterValues"),
+      calls
+    );
+  }
+
+  /**
+   * All names are requested when unknown parameters are rejected.
+   */
+
+  @Test
+  public void testParametersUnknown()
+  {
+    final var calls = new ArrayList<String>();
+    final var parameters = new LinkedHashMap<String, String[]>();
+    parameters.put("p0", new String[]{"23"});
+    parameters.put("p1", new String[]{"x"});
+
+    final var v = Vindication.start();
+    v.setRejectUnknownParameters(true);
+    v.addRequiredParameter("p0", Vindication.integerSigned());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(
+          VServletInputs.parameters(request(calls, null, null, parameters)));
+      });
+
+    assertTrue(ex.getMessage().contains("p1"));
+    assertTrue(calls.contains("getParameterNames"));
+  }
+
+  /**
+   * The raw query string can be parsed instead.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testQueryString()
+    throws Exception
+  {
+    final var calls = new ArrayList<String>();
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.integerSigned());
+    final var p1 =
+      v.addRequiredParameter("p 1", Vindication.strings());
+
+    v.check(VServletInputs.queryString(
+      request(calls, null, "p0=23&x=%ZZ&p+1=a%20b%E2%82%AC&p0=24", Map.of())));
+
+    assertEquals(23, p0.get());
+    assertEquals("a b€", p1.get());
+    assertEquals(List.of("getQueryString"), calls);
+  }
+
+  /**
+   * The automatic input picks the query string for non-form requests.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAutomatic()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.integerSigned());
+
+    final var calls0 = new ArrayList<String>();
+    v.check(VServletInputs.automatic(
+      request(calls0, "application/json", "p0=23", Map.of())));
+    assertEquals(23, p0.get());
+    assertFalse(calls0.contains("getParameterValues"));
+
+    final var calls1 = new ArrayList<String>();
+    v.check(VServletInputs.automatic(
+      request(
+        calls1,
+        "application/x-www-form-urlencoded; charset=UTF-8",
+        null,
+        Map.of("p0", new String[]{"24"}))
+    ));
+    assertEquals(24, p0.get());
+    assertTrue(calls1.contains("getParameterValues"));
+  }
+}
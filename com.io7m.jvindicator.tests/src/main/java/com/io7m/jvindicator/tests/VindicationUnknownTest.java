@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+
+package com.io7m.jvindicator.tests;
+
+import com.io7m.jvindicator.core.VRequestLimits;
+import com.io7m.jvindicator.core.Vindication;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class VindicationUnknownTest
+{
+  /**
+   * Unknown parameters are ignored by default.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testUnknownIgnored()
+    throws Exception
+  {
+    final var v = Vindication.start();
+    final var p0 =
+      v.addRequiredParameter("p0", Vindication.strings());
+
+    v.check(Map.ofEntries(
+      Map.entry("p0", List.of("x")),
+      Map.entry("p1", List.of("y"))
+    ));
+
+    assertEquals("x", p0.get());
+  }
+
+  /**
+   * Unknown parameters are rejected in strict mode.
+   */
+
+  @Test
+  public void testUnknownRejected()
+  {
+    final var v = Vindication.start();
+    v.setRejectUnknownParameters(true);
+    v.addRequiredParameter("p0", Vindication.strings());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(Map.ofEntries(
+          Map.entry("p0", List.of("x")),
+          Map.entry("pO", List.of("y"))
+        ));
+      });
+
+    assertTrue(ex.getMessage().contains("pO"));
+    assertTrue(ex.getMessage().contains("not recognized"));
+  }
+
+  /**
+   * Unknown parameter reports are bounded.
+   */
+
+  @Test
+  public void testUnknownReportLimit()
+  {
+    final var v = Vindication.start();
+    v.setRejectUnknownParameters(true);
+    v.setUnknownParameterReportLimit(2);
+    v.addRequiredParameter("p0", Vindication.strings());
+
+    final var input = new HashMap<String, List<String>>();
+    input.put("p0", List.of("x"));
+    for (int index = 0; index < 100; ++index) {
+      input.put("q" + index, List.of("y"));
+    }
+
+    final var ex =
+      assertThrows(Exception.class, () -> v.check(input));
+
+    assertTrue(ex.getMessage().contains("98 further"));
+    assertEquals(
+      2L,
+      ex.getMessage()
+        .lines()
+        .filter(line -> line.contains("not recognized"))
+        .count()
+    );
+  }
+
+  /**
+   * Unknown parameters are detected alongside request limits.
+   */
+
+  @Test
+  public void testUnknownWithLimits()
+  {
+    final var v = Vindication.start();
+    v.setRejectUnknownParameters(true);
+    v.setRequestLimits(new VRequestLimits(10, 1, 10, 100L));
+    v.addRequiredParameter("p0", Vindication.integerSigned());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(Map.ofEntries(
+          Map.entry("p0", List.of("x")),
+          Map.entry("p1", List.of("y"))
+        ));
+      });
+
+    assertTrue(ex.getMessage().contains("p0"));
+    assertTrue(ex.getMessage().contains("p1"));
+  }
+
+  /**
+   * Unknown parameters stop checking in fail-fast mode.
+   */
+
+  @Test
+  public void testUnknownFailFast()
+  {
+    final var v = Vindication.start();
+    v.setRejectUnknownParameters(true);
+    v.setFailFast(true);
+    v.addRequiredParameter("p0", Vindication.integerSigned());
+
+    final var ex =
+      assertThrows(Exception.class, () -> {
+        v.check(Map.ofEntries(
+          Map.entry("p0", List.of("x")),
+          Map.entry("p1", List.of("y"))
+        ));
+      });
+
+    assertFalse(ex.getMessage().contains("p0"));
+    assertTrue(ex.getMessage().contains("p1"));
+  }
+
+  /**
+   * Negative report limits are rejected.
+   */
+
+  @Test
+  public void testUnknownReportLimitInvalid()
+  {
+    final var v = Vindication.start();
+    assertThrows(IllegalArgumentException.class, () -> {
+      v.setUnknownParameterReportLimit(-1);
+    });
+  }
+}